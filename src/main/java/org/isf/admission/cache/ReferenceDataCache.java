@@ -0,0 +1,291 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.admission.cache;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.isf.admission.manager.AdmissionBrowserManager;
+import org.isf.admtype.model.AdmissionType;
+import org.isf.disctype.model.DischargeType;
+import org.isf.disease.manager.DiseaseBrowserManager;
+import org.isf.disease.model.Disease;
+import org.isf.dlvrrestype.manager.DeliveryResultTypeBrowserManager;
+import org.isf.dlvrrestype.model.DeliveryResultType;
+import org.isf.dlvrtype.manager.DeliveryTypeBrowserManager;
+import org.isf.dlvrtype.model.DeliveryType;
+import org.isf.pregtreattype.manager.PregnantTreatmentTypeBrowserManager;
+import org.isf.pregtreattype.model.PregnantTreatmentType;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.ward.manager.WardBrowserManager;
+import org.isf.ward.model.Ward;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-memory code index of the reference data an {@link org.isf.admission.model.Admission} points to, used to resolve
+ * the codes of an admission request without reading and scanning the whole tables on every create and update.
+ * <p>
+ * Every {@link Catalogue} carries a version that the controller of the matching type increments on writes: an index
+ * loaded at an older version is read again on the next lookup. As a safety net for changes made outside the API the
+ * indexes are also read again after a fixed time. Hits and misses are published as the {@value #CACHE_NAME} cache
+ * metrics.
+ */
+@Component
+public class ReferenceDataCache {
+
+	public static final String CACHE_NAME = "admissionReferenceData";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+	public enum Catalogue {
+		DISEASE,
+		WARD,
+		ADMISSION_TYPE,
+		DISCHARGE_TYPE,
+		PREGNANT_TREATMENT_TYPE,
+		DELIVERY_TYPE,
+		DELIVERY_RESULT_TYPE
+	}
+
+	private final DiseaseBrowserManager diseaseManager;
+
+	private final WardBrowserManager wardManager;
+
+	private final AdmissionBrowserManager admissionManager;
+
+	private final PregnantTreatmentTypeBrowserManager pregTreatTypeManager;
+
+	private final DeliveryTypeBrowserManager dlvrTypeManager;
+
+	private final DeliveryResultTypeBrowserManager dlvrrestTypeManager;
+
+	private final Cache<Catalogue, CatalogueIndex> cache;
+
+	private final Map<Catalogue, AtomicLong> versions = new EnumMap<>(Catalogue.class);
+
+	/**
+	 * @param expireAfterSeconds the time after which a catalogue is read again from the database, {@code 0} disables
+	 * the cache
+	 */
+	public ReferenceDataCache(DiseaseBrowserManager diseaseManager, WardBrowserManager wardManager, AdmissionBrowserManager admissionManager,
+					PregnantTreatmentTypeBrowserManager pregTreatTypeManager, DeliveryTypeBrowserManager dlvrTypeManager,
+					DeliveryResultTypeBrowserManager dlvrrestTypeManager, ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${admission.reference-data.expire-after-seconds:600}") long expireAfterSeconds) {
+		this.diseaseManager = diseaseManager;
+		this.wardManager = wardManager;
+		this.admissionManager = admissionManager;
+		this.pregTreatTypeManager = pregTreatTypeManager;
+		this.dlvrTypeManager = dlvrTypeManager;
+		this.dlvrrestTypeManager = dlvrrestTypeManager;
+		for (Catalogue catalogue : Catalogue.values()) {
+			versions.put(catalogue, new AtomicLong());
+		}
+		if (expireAfterSeconds <= 0) {
+			this.cache = null;
+			return;
+		}
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(Catalogue.values().length)
+			.expireAfterWrite(Duration.ofSeconds(expireAfterSeconds))
+			.recordStats()
+			.build();
+		meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+	}
+
+	/**
+	 * Returns the disease with the specified code.
+	 *
+	 * @param code the code of the disease
+	 * @return the {@link Disease}, or {@code null} if it does not exist
+	 * @throws OHServiceException if the diseases cannot be read
+	 */
+	public Disease getDisease(String code) throws OHServiceException {
+		return lookup(Catalogue.DISEASE, code, diseaseManager::getDiseaseAll, Disease::getCode);
+	}
+
+	/**
+	 * Returns the ward with the specified code.
+	 *
+	 * @param code the code of the ward
+	 * @return the {@link Ward}, or {@code null} if it does not exist
+	 * @throws OHServiceException if the wards cannot be read
+	 */
+	public Ward getWard(String code) throws OHServiceException {
+		return lookup(Catalogue.WARD, code, wardManager::getWards, Ward::getCode);
+	}
+
+	/**
+	 * Returns all the wards.
+	 *
+	 * @return the unmodifiable {@link List} of the {@link Ward}s
+	 * @throws OHServiceException if the wards cannot be read
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Ward> getWards() throws OHServiceException {
+		return (List<Ward>) index(Catalogue.WARD, wardManager::getWards, Ward::getCode).entries;
+	}
+
+	/**
+	 * Returns the admission type with the specified code.
+	 *
+	 * @param code the code of the admission type
+	 * @return the {@link AdmissionType}, or {@code null} if it does not exist
+	 * @throws OHServiceException if the admission types cannot be read
+	 */
+	public AdmissionType getAdmissionType(String code) throws OHServiceException {
+		return lookup(Catalogue.ADMISSION_TYPE, code, admissionManager::getAdmissionType, AdmissionType::getCode);
+	}
+
+	/**
+	 * Returns the discharge type with the specified code.
+	 *
+	 * @param code the code of the discharge type
+	 * @return the {@link DischargeType}, or {@code null} if it does not exist
+	 * @throws OHServiceException if the discharge types cannot be read
+	 */
+	public DischargeType getDischargeType(String code) throws OHServiceException {
+		return lookup(Catalogue.DISCHARGE_TYPE, code, admissionManager::getDischargeType, DischargeType::getCode);
+	}
+
+	/**
+	 * Returns the pregnant treatment type with the specified code.
+	 *
+	 * @param code the code of the pregnant treatment type
+	 * @return the {@link PregnantTreatmentType}, or {@code null} if it does not exist
+	 * @throws OHServiceException if the pregnant treatment types cannot be read
+	 */
+	public PregnantTreatmentType getPregnantTreatmentType(String code) throws OHServiceException {
+		return lookup(Catalogue.PREGNANT_TREATMENT_TYPE, code, pregTreatTypeManager::getPregnantTreatmentType, PregnantTreatmentType::getCode);
+	}
+
+	/**
+	 * Returns the delivery type with the specified code.
+	 *
+	 * @param code the code of the delivery type
+	 * @return the {@link DeliveryType}, or {@code null} if it does not exist
+	 * @throws OHServiceException if the delivery types cannot be read
+	 */
+	public DeliveryType getDeliveryType(String code) throws OHServiceException {
+		return lookup(Catalogue.DELIVERY_TYPE, code, dlvrTypeManager::getDeliveryType, DeliveryType::getCode);
+	}
+
+	/**
+	 * Returns the delivery result type with the specified code.
+	 *
+	 * @param code the code of the delivery result type
+	 * @return the {@link DeliveryResultType}, or {@code null} if it does not exist
+	 * @throws OHServiceException if the delivery result types cannot be read
+	 */
+	public DeliveryResultType getDeliveryResultType(String code) throws OHServiceException {
+		return lookup(Catalogue.DELIVERY_RESULT_TYPE, code, dlvrrestTypeManager::getDeliveryResultType, DeliveryResultType::getCode);
+	}
+
+	/**
+	 * Increments the version of the specified catalogue, so that it is read again on the next lookup.
+	 *
+	 * @param catalogue the changed {@link Catalogue}
+	 */
+	public void invalidate(Catalogue catalogue) {
+		versions.get(catalogue).incrementAndGet();
+		if (cache != null) {
+			cache.invalidate(catalogue);
+		}
+	}
+
+	public long getVersion(Catalogue catalogue) {
+		return versions.get(catalogue).get();
+	}
+
+	public CacheStats getStats() {
+		return cache == null ? CacheStats.empty() : cache.stats();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T lookup(Catalogue catalogue, String code, CatalogueLoader<T> loader, Function<T, String> codeOf) throws OHServiceException {
+		return code == null ? null : (T) index(catalogue, loader, codeOf).entriesByCode.get(code);
+	}
+
+	private <T> CatalogueIndex index(Catalogue catalogue, CatalogueLoader<T> loader, Function<T, String> codeOf) throws OHServiceException {
+		long version = versions.get(catalogue).get();
+		CatalogueIndex index = cache == null ? null : cache.getIfPresent(catalogue);
+		if (index == null || index.version != version) {
+			// an index loaded while the catalogue is changed keeps the old version and is read again on the next lookup
+			index = load(catalogue, version, loader, codeOf);
+			if (cache != null) {
+				cache.put(catalogue, index);
+			}
+		}
+		return index;
+	}
+
+	private static <T> CatalogueIndex load(Catalogue catalogue, long version, CatalogueLoader<T> loader, Function<T, String> codeOf)
+					throws OHServiceException {
+		List<T> entries = loader.load();
+		if (entries == null) {
+			return new CatalogueIndex(version, Collections.emptyMap());
+		}
+		Map<String, Object> byCode = new LinkedHashMap<>(entries.size() * 4 / 3 + 1);
+		for (T entry : entries) {
+			byCode.putIfAbsent(codeOf.apply(entry), entry);
+		}
+		LOGGER.debug("Loaded {} entries in the {} catalogue.", byCode.size(), catalogue);
+		return new CatalogueIndex(version, byCode);
+	}
+
+	@FunctionalInterface
+	private interface CatalogueLoader<T> {
+
+		List<T> load() throws OHServiceException;
+	}
+
+	private static final class CatalogueIndex {
+
+		private final long version;
+
+		private final Map<String, Object> entriesByCode;
+
+		private final List<?> entries;
+
+		private CatalogueIndex(long version, Map<String, Object> entriesByCode) {
+			this.version = version;
+			this.entriesByCode = Collections.unmodifiableMap(entriesByCode);
+			this.entries = List.copyOf(entriesByCode.values());
+		}
+	}
+}
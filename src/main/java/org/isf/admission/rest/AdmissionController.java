@@ -27,6 +27,7 @@ import java.util.stream.Collectors;
 
 import jakarta.validation.Valid;
 
+import org.isf.admission.cache.ReferenceDataCache;
 import org.isf.admission.dto.AdmissionDTO;
 import org.isf.admission.dto.AdmittedPatientDTO;
 import org.isf.admission.manager.AdmissionBrowserManager;
@@ -34,6 +35,7 @@ import org.isf.admission.mapper.AdmissionMapper;
 import org.isf.admission.mapper.AdmittedPatientMapper;
 import org.isf.admission.model.Admission;
 import org.isf.admission.model.AdmittedPatient;
+import org.isf.admission.service.AdmittedPatientQuery;
 import org.isf.admtype.model.AdmissionType;
 import org.isf.disctype.manager.DischargeTypeBrowserManager;
 import org.isf.disctype.mapper.DischargeTypeMapper;
@@ -51,11 +53,13 @@ import org.isf.pregtreattype.manager.PregnantTreatmentTypeBrowserManager;
 import org.isf.pregtreattype.model.PregnantTreatmentType;
 import org.isf.shared.exceptions.OHAPIException;
 import org.isf.shared.pagination.Page;
+import org.isf.shared.pagination.PageInfoDTO;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
 import org.isf.utils.pagination.PagedResponse;
 import org.isf.ward.manager.WardBrowserManager;
 import org.isf.ward.model.Ward;
+import org.isf.ward.service.WardOccupancy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -124,10 +128,20 @@ public class AdmissionController {
 	@Autowired
 	private DischargeTypeMapper dischargeTypeMapper; // not used for now, maybe in future?
 
+	@Autowired
+	private ReferenceDataCache referenceDataCache;
+
+	@Autowired
+	private WardOccupancy wardOccupancy;
+
+	@Autowired
+	private AdmittedPatientQuery admittedPatientQuery;
+
 	public AdmissionController(AdmissionBrowserManager admissionManager, PatientBrowserManager patientManager, WardBrowserManager wardManager,
 					DiseaseBrowserManager diseaseManager, OperationBrowserManager operationManager, PregnantTreatmentTypeBrowserManager pregTraitTypeManager,
 					DeliveryTypeBrowserManager dlvrTypeManager, DeliveryResultTypeBrowserManager dlvrrestTypeManager, AdmissionMapper admissionMapper,
-					AdmittedPatientMapper admittedMapper, DischargeTypeBrowserManager dischargeTypeManager, DischargeTypeMapper dischargeTypeMapper) {
+					AdmittedPatientMapper admittedMapper, DischargeTypeBrowserManager dischargeTypeManager, DischargeTypeMapper dischargeTypeMapper,
+					ReferenceDataCache referenceDataCache, WardOccupancy wardOccupancy, AdmittedPatientQuery admittedPatientQuery) {
 		this.admissionManager = admissionManager;
 		this.patientManager = patientManager;
 		this.wardManager = wardManager;
@@ -139,6 +153,9 @@ public class AdmissionController {
 		this.admittedMapper = admittedMapper;
 		this.dischargeTypeManager = dischargeTypeManager;
 		this.dischargeTypeMapper = dischargeTypeMapper;
+		this.referenceDataCache = referenceDataCache;
+		this.wardOccupancy = wardOccupancy;
+		this.admittedPatientQuery = admittedPatientQuery;
 	}
 
 	/**
@@ -226,6 +243,54 @@ public class AdmissionController {
 		return ResponseEntity.ok(admittedMapper.map2DTOList(admittedPatients));
 	}
 
+	/**
+	 * Get a page of the currently admitted {@link Patient}s whose names or code begin with the search terms.
+	 * 
+	 * @param searchTerms the terms separated by spaces
+	 * @param wardCode the {@link Ward} code, all the wards if not specified
+	 * @param sortBy the order of the patients, by ward or by name
+	 * @param cursor the {@code nextCursor} of the previous page, the first page if not specified
+	 * @param size the size of the page
+	 * @return the {@link Page} of found {@link Patient}, with the {@code nextCursor} of the next page, or NO_CONTENT otherwise.
+	 * @throws OHServiceException
+	 */
+	@GetMapping(value = "/admissions/admittedPatients/pageable", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Page<AdmittedPatientDTO>> getAdmittedPatientsPageable(
+					@RequestParam(name = "searchterms", defaultValue = "", required = false) String searchTerms,
+					@RequestParam(name = "wardcode", required = false) String wardCode,
+					@RequestParam(name = "sort", required = false, defaultValue = "WARD") AdmittedPatientQuery.SortBy sortBy,
+					@RequestParam(name = "cursor", required = false) String cursor,
+					@RequestParam(value = "size", required = false, defaultValue = DEFAULT_PAGE_SIZE) int size)
+					throws OHServiceException {
+		LOGGER.info("Get admitted patients page search terms: {}, ward: {}", searchTerms, wardCode);
+		if (size < 1) {
+			throw new OHAPIException(new OHExceptionMessage("The page size must be greater than zero."));
+		}
+
+		AdmittedPatientQuery.Result result;
+		try {
+			result = admittedPatientQuery.getAdmittedPatients(searchTerms, wardCode, sortBy, cursor, size);
+		} catch (IllegalArgumentException e) {
+			throw new OHAPIException(new OHExceptionMessage(e.getMessage()));
+		}
+		if (result.getAdmittedPatients().isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+		}
+
+		PageInfoDTO pageInfo = new PageInfoDTO();
+		pageInfo.setSize(size);
+		pageInfo.setNbOfElements(result.getAdmittedPatients().size());
+		pageInfo.setTotalNbOfElements(result.getTotal());
+		pageInfo.setTotalPages((result.getTotal() + size - 1) / size);
+		pageInfo.setHasPreviousPage(result.hasPrevious());
+		pageInfo.setHasNextPage(result.getNextCursor() != null);
+		Page<AdmittedPatientDTO> admittedPatientsPage = new Page<>();
+		admittedPatientsPage.setData(admittedMapper.map2DTOList(result.getAdmittedPatients()));
+		admittedPatientsPage.setPageInfo(pageInfo);
+		admittedPatientsPage.setNextCursor(result.getNextCursor());
+		return ResponseEntity.ok(admittedPatientsPage);
+	}
+
 	/**
 	 * Get all the {@link Admission}s that start in the specified range
 	 * 
@@ -315,11 +380,11 @@ public class AdmissionController {
 	public ResponseEntity<Integer> getUsedWardBed(@RequestParam("wardid") String wardCode) throws OHServiceException {
 		LOGGER.info("Counts the number of used bed for ward code: {}", wardCode);
 
-		if (wardCode.trim().isEmpty() || !wardManager.isCodePresent(wardCode)) {
+		if (wardCode.trim().isEmpty() || referenceDataCache.getWard(wardCode) == null) {
 			throw new OHAPIException(new OHExceptionMessage("Ward not found for code:" + wardCode));
 		}
 
-		return ResponseEntity.ok(admissionManager.getUsedWardBed(wardCode));
+		return ResponseEntity.ok(wardOccupancy.getOccupancy(wardCode));
 	}
 
 	/**
@@ -336,7 +401,9 @@ public class AdmissionController {
 		if (admission == null) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
 		}
+		String occupiedWard = WardOccupancy.occupiedWard(admission);
 		admissionManager.setDeleted(id);
+		wardOccupancy.moved(occupiedWard, null);
 		return ResponseEntity.ok(true);
 	}
 
@@ -380,7 +447,11 @@ public class AdmissionController {
 			throw new OHAPIException(new OHExceptionMessage("the type of output is mandatory or does not exist."));
 		}
 		adm.setAdmitted(0);
+		String occupiedWard = WardOccupancy.occupiedWard(admission);
 		Admission admissionUpdated = admissionManager.updateAdmission(adm);
+		if (admissionUpdated != null) {
+			wardOccupancy.moved(occupiedWard, null);
+		}
 
 		return ResponseEntity.status(HttpStatus.OK).body(admissionUpdated != null);
 	}
@@ -399,25 +470,22 @@ public class AdmissionController {
 		Admission newAdmission = admissionMapper.map2Model(newAdmissionDTO);
 		if (newAdmissionDTO.getWard() != null && newAdmissionDTO.getWard().getCode() != null
 						&& !newAdmissionDTO.getWard().getCode().trim().isEmpty()) {
-			List<Ward> wards = wardManager.getWards().stream()
-							.filter(w -> w.getCode().equals(newAdmissionDTO.getWard().getCode())).collect(Collectors.toList());
-			if (wards.isEmpty()) {
+			Ward ward = referenceDataCache.getWard(newAdmissionDTO.getWard().getCode());
+			if (ward == null) {
 				throw new OHAPIException(new OHExceptionMessage("Ward not found."));
 			}
-			newAdmission.setWard(wards.get(0));
+			newAdmission.setWard(ward);
 		} else {
 			throw new OHAPIException(new OHExceptionMessage("Ward field is required."));
 		}
 
 		if (newAdmissionDTO.getAdmType() != null && newAdmissionDTO.getAdmType().getCode() != null
 						&& !newAdmissionDTO.getAdmType().getCode().trim().isEmpty()) {
-			List<AdmissionType> types = admissionManager.getAdmissionType().stream()
-							.filter(admt -> admt.getCode().equals(newAdmissionDTO.getAdmType().getCode()))
-							.collect(Collectors.toList());
-			if (types.isEmpty()) {
+			AdmissionType type = referenceDataCache.getAdmissionType(newAdmissionDTO.getAdmType().getCode());
+			if (type == null) {
 				throw new OHAPIException(new OHExceptionMessage("Admission type not found."));
 			}
-			newAdmission.setAdmType(types.get(0));
+			newAdmission.setAdmType(type);
 		} else {
 			throw new OHAPIException(new OHExceptionMessage("Admission type field is required."));
 		}
@@ -431,94 +499,72 @@ public class AdmissionController {
 		} else {
 			throw new OHAPIException(new OHExceptionMessage("Patient field is required."));
 		}
-		List<Disease> diseases = diseaseManager.getDiseaseAll();
-
 		if (newAdmissionDTO.getDiseaseIn() != null && newAdmissionDTO.getDiseaseIn().getCode() != null) {
-			List<Disease> dIns = diseases.stream()
-							.filter(d -> d.getCode().equals(newAdmissionDTO.getDiseaseIn().getCode()))
-							.collect(Collectors.toList());
-			if (dIns.isEmpty()) {
+			Disease diseaseIn = referenceDataCache.getDisease(newAdmissionDTO.getDiseaseIn().getCode());
+			if (diseaseIn == null) {
 				throw new OHAPIException(new OHExceptionMessage("Disease in not found."));
 			}
-			newAdmission.setDiseaseIn(dIns.get(0));
+			newAdmission.setDiseaseIn(diseaseIn);
 		}
 
 		if (newAdmissionDTO.getDiseaseOut1() != null && newAdmissionDTO.getDiseaseOut1().getCode() != null) {
-			List<Disease> dOut1 = diseases.stream()
-							.filter(d -> d.getCode().equals(newAdmissionDTO.getDiseaseOut1().getCode()))
-							.collect(Collectors.toList());
-			if (dOut1.isEmpty()) {
+			Disease diseaseOut1 = referenceDataCache.getDisease(newAdmissionDTO.getDiseaseOut1().getCode());
+			if (diseaseOut1 == null) {
 				throw new OHAPIException(new OHExceptionMessage("Disease out 1 not found."));
 			}
-			newAdmission.setDiseaseOut1(dOut1.get(0));
+			newAdmission.setDiseaseOut1(diseaseOut1);
 		}
 
 		if (newAdmissionDTO.getDiseaseOut2() != null && newAdmissionDTO.getDiseaseOut2().getCode() != null) {
-			List<Disease> dOut2 = diseases.stream()
-							.filter(d -> d.getCode().equals(newAdmissionDTO.getDiseaseOut2().getCode()))
-							.collect(Collectors.toList());
-			if (dOut2.isEmpty()) {
+			Disease diseaseOut2 = referenceDataCache.getDisease(newAdmissionDTO.getDiseaseOut2().getCode());
+			if (diseaseOut2 == null) {
 				throw new OHAPIException(new OHExceptionMessage("Disease out 2 not found."));
 			}
-			newAdmission.setDiseaseOut2(dOut2.get(0));
+			newAdmission.setDiseaseOut2(diseaseOut2);
 		}
 
 		if (newAdmissionDTO.getDiseaseOut3() != null && newAdmissionDTO.getDiseaseOut3().getCode() != null) {
-			List<Disease> dOut3 = diseases.stream()
-							.filter(d -> d.getCode().equals(newAdmissionDTO.getDiseaseOut3().getCode()))
-							.collect(Collectors.toList());
-			if (dOut3.isEmpty()) {
+			Disease diseaseOut3 = referenceDataCache.getDisease(newAdmissionDTO.getDiseaseOut3().getCode());
+			if (diseaseOut3 == null) {
 				throw new OHAPIException(new OHExceptionMessage("Disease out 3 not found."));
 			}
-			newAdmission.setDiseaseOut3(dOut3.get(0));
+			newAdmission.setDiseaseOut3(diseaseOut3);
 		}
 
 		if (newAdmissionDTO.getDisType() != null && newAdmissionDTO.getDisType().getCode() != null
 						&& !newAdmissionDTO.getDisType().getCode().trim().isEmpty()) {
-			List<DischargeType> disTypes = admissionManager.getDischargeType();
-			List<DischargeType> disTypesF = disTypes.stream()
-							.filter(dtp -> dtp.getCode().equals(newAdmissionDTO.getDisType().getCode()))
-							.collect(Collectors.toList());
-			if (disTypesF.isEmpty()) {
+			DischargeType disType = referenceDataCache.getDischargeType(newAdmissionDTO.getDisType().getCode());
+			if (disType == null) {
 				throw new OHAPIException(new OHExceptionMessage("Discharge type not found."));
 			}
-			newAdmission.setDisType(disTypesF.get(0));
+			newAdmission.setDisType(disType);
 		}
 
 		if (newAdmissionDTO.getPregTreatmentType() != null && newAdmissionDTO.getPregTreatmentType().getCode() != null
 						&& !newAdmissionDTO.getPregTreatmentType().getCode().trim().isEmpty()) {
-			List<PregnantTreatmentType> pregTTypes = pregTraitTypeManager.getPregnantTreatmentType();
-			List<PregnantTreatmentType> pregTTypesF = pregTTypes.stream()
-							.filter(pregtt -> pregtt.getCode().equals(newAdmissionDTO.getPregTreatmentType().getCode()))
-							.collect(Collectors.toList());
-			if (pregTTypesF.isEmpty()) {
+			PregnantTreatmentType pregTreatmentType = referenceDataCache.getPregnantTreatmentType(newAdmissionDTO.getPregTreatmentType().getCode());
+			if (pregTreatmentType == null) {
 				throw new OHAPIException(new OHExceptionMessage("Pregnant treatment type not found."));
 			}
-			newAdmission.setPregTreatmentType(pregTTypesF.get(0));
+			newAdmission.setPregTreatmentType(pregTreatmentType);
 		}
 
 		if (newAdmissionDTO.getDeliveryType() != null && newAdmissionDTO.getDeliveryType().getCode() != null
 						&& !newAdmissionDTO.getDeliveryType().getCode().trim().isEmpty()) {
-			List<DeliveryType> dlvrTypes = dlvrTypeManager.getDeliveryType();
-			List<DeliveryType> dlvrTypesF = dlvrTypes.stream()
-							.filter(dlvrType -> dlvrType.getCode().equals(newAdmissionDTO.getDeliveryType().getCode()))
-							.collect(Collectors.toList());
-			if (dlvrTypesF.isEmpty()) {
+			DeliveryType deliveryType = referenceDataCache.getDeliveryType(newAdmissionDTO.getDeliveryType().getCode());
+			if (deliveryType == null) {
 				throw new OHAPIException(new OHExceptionMessage("Delivery type not found."));
 			}
-			newAdmission.setDeliveryType(dlvrTypesF.get(0));
+			newAdmission.setDeliveryType(deliveryType);
 		}
 
 		if (newAdmissionDTO.getDeliveryResult() != null && newAdmissionDTO.getDeliveryResult().getCode() != null
 						&& !newAdmissionDTO.getDeliveryResult().getCode().trim().isEmpty()) {
-			List<DeliveryResultType> dlvrrestTypes = dlvrrestTypeManager.getDeliveryResultType();
-			List<DeliveryResultType> dlvrrestTypesF = dlvrrestTypes.stream().filter(
-							dlvrrestType -> dlvrrestType.getCode().equals(newAdmissionDTO.getDeliveryResult().getCode()))
-							.collect(Collectors.toList());
-			if (dlvrrestTypesF.isEmpty()) {
+			DeliveryResultType deliveryResult = referenceDataCache.getDeliveryResultType(newAdmissionDTO.getDeliveryResult().getCode());
+			if (deliveryResult == null) {
 				throw new OHAPIException(new OHExceptionMessage("Delivery result type not found."));
 			}
-			newAdmission.setDeliveryResult(dlvrrestTypesF.get(0));
+			newAdmission.setDeliveryResult(deliveryResult);
 		}
 
 		String name = StringUtils.hasLength(newAdmission.getPatient().getName())
@@ -528,6 +574,7 @@ public class AdmissionController {
 		int aId = admissionManager.newAdmissionReturnKey(newAdmission);
 		if (aId > 0) {
 			newAdmission.setId(aId);
+			wardOccupancy.moved(null, WardOccupancy.occupiedWard(newAdmission));
 		}
 		AdmissionDTO admDTO = admissionMapper.map2DTO(newAdmission);
 		return ResponseEntity.status(HttpStatus.CREATED).body(admDTO);
@@ -557,25 +604,22 @@ public class AdmissionController {
 
 		if (updateAdmissionDTO.getWard() != null && updateAdmissionDTO.getWard().getCode() != null
 						&& !updateAdmissionDTO.getWard().getCode().trim().isEmpty()) {
-			List<Ward> wards = wardManager.getWards().stream()
-							.filter(w -> w.getCode().equals(updateAdmissionDTO.getWard().getCode())).collect(Collectors.toList());
-			if (wards.isEmpty()) {
+			Ward ward = referenceDataCache.getWard(updateAdmissionDTO.getWard().getCode());
+			if (ward == null) {
 				throw new OHAPIException(new OHExceptionMessage("Ward not found."));
 			}
-			updateAdmission.setWard(wards.get(0));
+			updateAdmission.setWard(ward);
 		} else {
 			throw new OHAPIException(new OHExceptionMessage("Ward field is required."));
 		}
 
 		if (updateAdmissionDTO.getAdmType() != null && updateAdmissionDTO.getAdmType().getCode() != null
 						&& !updateAdmissionDTO.getAdmType().getCode().trim().isEmpty()) {
-			List<AdmissionType> types = admissionManager.getAdmissionType().stream()
-							.filter(admt -> admt.getCode().equals(updateAdmissionDTO.getAdmType().getCode()))
-							.collect(Collectors.toList());
-			if (types.isEmpty()) {
+			AdmissionType type = referenceDataCache.getAdmissionType(updateAdmissionDTO.getAdmType().getCode());
+			if (type == null) {
 				throw new OHAPIException(new OHExceptionMessage("Admission type not found."));
 			}
-			updateAdmission.setAdmType(types.get(0));
+			updateAdmission.setAdmType(type);
 		} else {
 			throw new OHAPIException(new OHExceptionMessage("Admission type field is required."));
 		}
@@ -589,103 +633,84 @@ public class AdmissionController {
 		} else {
 			throw new OHAPIException(new OHExceptionMessage("Patient field is required."));
 		}
-		List<Disease> diseases = diseaseManager.getDiseaseAll();
 		if (updateAdmissionDTO.getDiseaseIn() != null && updateAdmissionDTO.getDiseaseIn().getCode() != null) {
-			List<Disease> dIns = diseases.stream()
-							.filter(d -> d.getCode().equals(updateAdmissionDTO.getDiseaseIn().getCode()))
-							.collect(Collectors.toList());
-			if (dIns.isEmpty()) {
+			Disease diseaseIn = referenceDataCache.getDisease(updateAdmissionDTO.getDiseaseIn().getCode());
+			if (diseaseIn == null) {
 				throw new OHAPIException(new OHExceptionMessage("Disease in not found."));
 			}
-			updateAdmission.setDiseaseIn(dIns.get(0));
+			updateAdmission.setDiseaseIn(diseaseIn);
 		}
 
 		if (updateAdmissionDTO.getDiseaseOut1() != null && updateAdmissionDTO.getDiseaseOut1().getCode() != null) {
-			List<Disease> dOut1s = diseases.stream()
-							.filter(d -> d.getCode().equals(updateAdmissionDTO.getDiseaseOut1().getCode()))
-							.collect(Collectors.toList());
-			if (dOut1s.isEmpty()) {
+			Disease diseaseOut1 = referenceDataCache.getDisease(updateAdmissionDTO.getDiseaseOut1().getCode());
+			if (diseaseOut1 == null) {
 				throw new OHAPIException(new OHExceptionMessage("Disease out 1 not found."));
 			}
-			updateAdmission.setDiseaseOut1(dOut1s.get(0));
+			updateAdmission.setDiseaseOut1(diseaseOut1);
 		}
 
 		if (updateAdmissionDTO.getDiseaseOut2() != null && updateAdmissionDTO.getDiseaseOut2().getCode() != null) {
-			List<Disease> dOut2s = diseases.stream()
-							.filter(d -> d.getCode().equals(updateAdmissionDTO.getDiseaseOut2().getCode()))
-							.collect(Collectors.toList());
-			if (dOut2s.isEmpty()) {
+			Disease diseaseOut2 = referenceDataCache.getDisease(updateAdmissionDTO.getDiseaseOut2().getCode());
+			if (diseaseOut2 == null) {
 				throw new OHAPIException(new OHExceptionMessage("Disease out 2 not found."));
 			}
-			updateAdmission.setDiseaseOut2(dOut2s.get(0));
+			updateAdmission.setDiseaseOut2(diseaseOut2);
 		}
 
 		if (updateAdmissionDTO.getDiseaseOut3() != null && updateAdmissionDTO.getDiseaseOut3().getCode() != null) {
-			List<Disease> dOut3s = diseases.stream()
-							.filter(d -> d.getCode().equals(updateAdmissionDTO.getDiseaseOut3().getCode()))
-							.collect(Collectors.toList());
-			if (dOut3s.isEmpty()) {
+			Disease diseaseOut3 = referenceDataCache.getDisease(updateAdmissionDTO.getDiseaseOut3().getCode());
+			if (diseaseOut3 == null) {
 				throw new OHAPIException(new OHExceptionMessage("Disease out 3 not found."));
 			}
-			updateAdmission.setDiseaseOut3(dOut3s.get(0));
+			updateAdmission.setDiseaseOut3(diseaseOut3);
 		}
 
 		if (updateAdmissionDTO.getDisType() != null && updateAdmissionDTO.getDisType().getCode() != null
 						&& !updateAdmissionDTO.getDisType().getCode().trim().isEmpty()) {
-			List<DischargeType> disTypes = admissionManager.getDischargeType();
-			List<DischargeType> disTypesF = disTypes.stream()
-							.filter(dtp -> dtp.getCode().equals(updateAdmissionDTO.getDisType().getCode()))
-							.collect(Collectors.toList());
-			if (disTypesF.isEmpty()) {
+			DischargeType disType = referenceDataCache.getDischargeType(updateAdmissionDTO.getDisType().getCode());
+			if (disType == null) {
 				throw new OHAPIException(new OHExceptionMessage("Discharge type not found."));
 			}
-			updateAdmission.setDisType(disTypesF.get(0));
+			updateAdmission.setDisType(disType);
 		}
 
 		if (updateAdmissionDTO.getPregTreatmentType() != null && updateAdmissionDTO.getPregTreatmentType().getCode() != null
 						&& !updateAdmissionDTO.getPregTreatmentType().getCode().trim().isEmpty()) {
-			List<PregnantTreatmentType> pregTTypes = pregTraitTypeManager.getPregnantTreatmentType();
-			List<PregnantTreatmentType> pregTTypesF = pregTTypes.stream()
-							.filter(pregtt -> pregtt.getCode().equals(updateAdmissionDTO.getPregTreatmentType().getCode()))
-							.collect(Collectors.toList());
-			if (pregTTypesF.isEmpty()) {
+			PregnantTreatmentType pregTreatmentType = referenceDataCache.getPregnantTreatmentType(updateAdmissionDTO.getPregTreatmentType().getCode());
+			if (pregTreatmentType == null) {
 				throw new OHAPIException(new OHExceptionMessage("Pregnant treatment type not found."));
 			}
-			updateAdmission.setPregTreatmentType(pregTTypesF.get(0));
+			updateAdmission.setPregTreatmentType(pregTreatmentType);
 		}
 
 		if (updateAdmissionDTO.getDeliveryType() != null && updateAdmissionDTO.getDeliveryType().getCode() != null
 						&& !updateAdmissionDTO.getDeliveryType().getCode().trim().isEmpty()) {
-			List<DeliveryType> dlvrTypes = dlvrTypeManager.getDeliveryType();
-			List<DeliveryType> dlvrTypesF = dlvrTypes.stream()
-							.filter(dlvrType -> dlvrType.getCode().equals(updateAdmissionDTO.getDeliveryType().getCode()))
-							.collect(Collectors.toList());
-			if (dlvrTypesF.isEmpty()) {
+			DeliveryType deliveryType = referenceDataCache.getDeliveryType(updateAdmissionDTO.getDeliveryType().getCode());
+			if (deliveryType == null) {
 				throw new OHAPIException(new OHExceptionMessage("Delivery type not found."));
 			}
-			updateAdmission.setDeliveryType(dlvrTypesF.get(0));
+			updateAdmission.setDeliveryType(deliveryType);
 		}
 
 		if (updateAdmissionDTO.getDeliveryResult() != null && updateAdmissionDTO.getDeliveryResult().getCode() != null
 						&& !updateAdmissionDTO.getDeliveryResult().getCode().trim().isEmpty()) {
-			List<DeliveryResultType> dlvrrestTypes = dlvrrestTypeManager.getDeliveryResultType();
-			List<DeliveryResultType> dlvrrestTypesF = dlvrrestTypes.stream().filter(
-							dlvrrestType -> dlvrrestType.getCode().equals(updateAdmissionDTO.getDeliveryResult().getCode()))
-							.collect(Collectors.toList());
-			if (dlvrrestTypesF.isEmpty()) {
+			DeliveryResultType deliveryResult = referenceDataCache.getDeliveryResultType(updateAdmissionDTO.getDeliveryResult().getCode());
+			if (deliveryResult == null) {
 				throw new OHAPIException(new OHExceptionMessage("Delivery result type not found."));
 			}
-			updateAdmission.setDeliveryResult(dlvrrestTypesF.get(0));
+			updateAdmission.setDeliveryResult(deliveryResult);
 		}
 
 		String name = StringUtils.hasLength(updateAdmission.getPatient().getName())
 						? updateAdmission.getPatient().getFirstName() + ' ' + updateAdmission.getPatient().getSecondName()
 						: updateAdmission.getPatient().getName();
 		LOGGER.info("update admission for patient {}", name);
+		String occupiedWard = WardOccupancy.occupiedWard(old);
 		Admission isUpdatedAdmission = admissionManager.updateAdmission(updateAdmission);
 		if (isUpdatedAdmission == null) {
 			throw new OHAPIException(new OHExceptionMessage("Admission not updated."));
 		}
+		wardOccupancy.moved(occupiedWard, WardOccupancy.occupiedWard(isUpdatedAdmission));
 
 		AdmissionDTO admDTO = admissionMapper.map2DTO(isUpdatedAdmission);
 		return ResponseEntity.ok(admDTO);
@@ -0,0 +1,60 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.admission.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.admission.model.Admission;
+import org.isf.shared.query.InClauseBatches;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells which patients are currently admitted among many patients at once, in place of one
+ * {@code AdmissionBrowserManager.getCurrentAdmission} call per patient.
+ * <p>
+ * A patient is admitted when it has an {@link Admission} not deleted and not yet discharged, as for
+ * {@code getCurrentAdmission}. Only the codes of the admitted patients are selected, not their admissions.
+ */
+@Component
+public class AdmissionStatusQuery {
+
+	private static final String ADMITTED_PATIENTS_QUERY = "SELECT DISTINCT a.patient.code FROM Admission a"
+					+ " WHERE a.admitted = 1 AND a.deleted = 'N' AND a.patient.code IN :codes";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Returns the codes of the patients currently admitted among the specified ones.
+	 *
+	 * @param patientCodes the codes of the patients
+	 * @return the codes of the admitted patients
+	 */
+	public Set<Integer> getAdmittedPatientCodes(Collection<Integer> patientCodes) {
+		return new HashSet<>(InClauseBatches.getResultList(entityManager, ADMITTED_PATIENTS_QUERY, Integer.class, "codes", patientCodes));
+	}
+}
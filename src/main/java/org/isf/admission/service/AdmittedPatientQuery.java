@@ -0,0 +1,250 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.admission.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import org.isf.admission.model.Admission;
+import org.isf.admission.model.AdmittedPatient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the patients currently admitted a page at a time, continuing after the last patient of the previous page
+ * (keyset pagination) in place of reading and filtering all the admitted patients.
+ * <p>
+ * Every search term must be the beginning of the first or the second name of the patient, or the code of the patient
+ * if it is a number. The terms are matched with {@code LIKE 'term%'} on the name columns, so that the database can
+ * use their indexes; the comparison follows the collation of the columns, ignoring case on the default MariaDB/MySQL
+ * collations.
+ */
+@Component
+public class AdmittedPatientQuery {
+
+	public enum SortBy {
+		/** By ward, then by the progressive number of the admission in the ward. */
+		WARD,
+		/** By patient name. */
+		NAME
+	}
+
+	private static final char LIKE_ESCAPE = '!';
+
+	private static final String CURSOR_SEPARATOR = "\n";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Returns a page of the admitted patients matching the search terms.
+	 *
+	 * @param searchTerms the terms separated by spaces, {@code null} or blank for all the admitted patients
+	 * @param wardCode the code of the ward, {@code null} for all the wards
+	 * @param sortBy the order of the patients
+	 * @param cursor the cursor returned with the previous page, {@code null} for the first page
+	 * @param size the size of the page
+	 * @return the page of {@link AdmittedPatient}s
+	 * @throws IllegalArgumentException if the cursor is malformed or was returned for another order
+	 */
+	public Result getAdmittedPatients(String searchTerms, String wardCode, SortBy sortBy, String cursor, int size) {
+		Filter filter = new Filter().searchTerms(searchTerms).ward(wardCode);
+		long total = filter.count();
+		if (cursor != null) {
+			filter.after(sortBy, decode(sortBy, cursor));
+		}
+		List<Admission> admissions = filter.select(sortBy)
+						.setMaxResults(size + 1)
+						.getResultList();
+		boolean hasNext = admissions.size() > size;
+		if (hasNext) {
+			admissions = admissions.subList(0, size);
+		}
+		List<AdmittedPatient> admittedPatients = admissions.stream()
+						.map(admission -> new AdmittedPatient(admission.getPatient(), admission))
+						.toList();
+		String nextCursor = hasNext ? encode(sortBy, admissions.get(admissions.size() - 1)) : null;
+		return new Result(admittedPatients, total, cursor != null, nextCursor);
+	}
+
+	private static String encode(SortBy sortBy, Admission last) {
+		StringJoiner key = new StringJoiner(CURSOR_SEPARATOR).add(sortBy.name()).add(Integer.toString(last.getId()));
+		if (sortBy == SortBy.WARD) {
+			// the ward code is last, so that it never has to be split
+			key.add(Integer.toString(last.getYProg())).add(last.getWard().getCode());
+		} else {
+			key.add(last.getPatient().getName());
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String[] decode(SortBy sortBy, String cursor) {
+		String key;
+		try {
+			key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Malformed cursor.", e);
+		}
+		String[] values = key.split(CURSOR_SEPARATOR, sortBy == SortBy.WARD ? 4 : 3);
+		if (!values[0].equals(sortBy.name()) || values.length != (sortBy == SortBy.WARD ? 4 : 3)) {
+			throw new IllegalArgumentException("The cursor does not belong to the order " + sortBy + '.');
+		}
+		return values;
+	}
+
+	private static String likePrefix(String term) {
+		StringBuilder prefix = new StringBuilder(term.length() + 1);
+		for (char c : term.toCharArray()) {
+			if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+				prefix.append(LIKE_ESCAPE);
+			}
+			prefix.append(c);
+		}
+		return prefix.append('%').toString();
+	}
+
+	/**
+	 * A page of admitted patients and the cursor of the next page.
+	 */
+	public static final class Result {
+
+		private final List<AdmittedPatient> admittedPatients;
+
+		private final long total;
+
+		private final boolean hasPrevious;
+
+		private final String nextCursor;
+
+		public Result(List<AdmittedPatient> admittedPatients, long total, boolean hasPrevious, String nextCursor) {
+			this.admittedPatients = admittedPatients;
+			this.total = total;
+			this.hasPrevious = hasPrevious;
+			this.nextCursor = nextCursor;
+		}
+
+		public List<AdmittedPatient> getAdmittedPatients() {
+			return admittedPatients;
+		}
+
+		/**
+		 * Returns the number of admitted patients matching the search over all the pages.
+		 */
+		public long getTotal() {
+			return total;
+		}
+
+		public boolean hasPrevious() {
+			return hasPrevious;
+		}
+
+		/**
+		 * Returns the cursor to pass to read the next page, {@code null} on the last page.
+		 */
+		public String getNextCursor() {
+			return nextCursor;
+		}
+	}
+
+	/**
+	 * The {@code WHERE} clause of a query on the current admissions and its parameters.
+	 */
+	private final class Filter {
+
+		private final StringJoiner where = new StringJoiner(" AND ", " WHERE ", "");
+
+		private final Map<String, Object> parameters = new TreeMap<>();
+
+		private Filter() {
+			where.add("adm.admitted = 1 AND adm.deleted = :deleted AND pat.deleted = :deleted");
+			parameters.put("deleted", "N");
+		}
+
+		private Filter searchTerms(String searchTerms) {
+			if (searchTerms == null || searchTerms.isBlank()) {
+				return this;
+			}
+			String[] terms = searchTerms.trim().split("\\s+");
+			for (int i = 0; i < terms.length; i++) {
+				String term = "term" + i;
+				String match = "pat.firstName LIKE :" + term + " ESCAPE '" + LIKE_ESCAPE + "' OR pat.secondName LIKE :" + term + " ESCAPE '"
+								+ LIKE_ESCAPE + '\'';
+				if (terms[i].chars().allMatch(Character::isDigit) && terms[i].length() < 10) {
+					match += " OR pat.code = :code" + i;
+					parameters.put("code" + i, Integer.valueOf(terms[i]));
+				}
+				where.add('(' + match + ')');
+				parameters.put(term, likePrefix(terms[i]));
+			}
+			return this;
+		}
+
+		private Filter ward(String wardCode) {
+			if (wardCode != null) {
+				where.add("ward.code = :wardCode");
+				parameters.put("wardCode", wardCode);
+			}
+			return this;
+		}
+
+		private Filter after(SortBy sortBy, String[] cursor) {
+			try {
+				parameters.put("cursorId", Integer.valueOf(cursor[1]));
+				if (sortBy == SortBy.WARD) {
+					where.add("(ward.code > :cursorWard OR (ward.code = :cursorWard AND (adm.yProg > :cursorProg"
+									+ " OR (adm.yProg = :cursorProg AND adm.id > :cursorId))))");
+					parameters.put("cursorProg", Integer.valueOf(cursor[2]));
+					parameters.put("cursorWard", cursor[3]);
+				} else {
+					where.add("(pat.name > :cursorName OR (pat.name = :cursorName AND adm.id > :cursorId))");
+					parameters.put("cursorName", cursor[2]);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Malformed cursor.", e);
+			}
+			return this;
+		}
+
+		private TypedQuery<Admission> select(SortBy sortBy) {
+			String orderBy = sortBy == SortBy.WARD ? " ORDER BY ward.code, adm.yProg, adm.id" : " ORDER BY pat.name, adm.id";
+			return bind(entityManager.createQuery("SELECT adm FROM Admission adm JOIN FETCH adm.patient pat JOIN FETCH adm.ward ward" + where
+							+ orderBy, Admission.class));
+		}
+
+		private long count() {
+			return bind(entityManager.createQuery("SELECT COUNT(adm) FROM Admission adm JOIN adm.patient pat JOIN adm.ward ward" + where,
+							Long.class)).getSingleResult();
+		}
+
+		private <T> TypedQuery<T> bind(TypedQuery<T> query) {
+			parameters.forEach(query::setParameter);
+			return query;
+		}
+	}
+}
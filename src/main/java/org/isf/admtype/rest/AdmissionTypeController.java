@@ -24,6 +24,8 @@ package org.isf.admtype.rest;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.isf.admission.cache.ReferenceDataCache;
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
 import org.isf.admtype.dto.AdmissionTypeDTO;
 import org.isf.admtype.manager.AdmissionTypeBrowserManager;
 import org.isf.admtype.mapper.AdmissionTypeMapper;
@@ -61,9 +63,13 @@ public class AdmissionTypeController {
 	@Autowired
 	protected AdmissionTypeMapper mapper;
 
-	public AdmissionTypeController(AdmissionTypeBrowserManager admtManager, AdmissionTypeMapper admissionTypemapper) {
+	@Autowired
+	protected ReferenceDataCache referenceDataCache;
+
+	public AdmissionTypeController(AdmissionTypeBrowserManager admtManager, AdmissionTypeMapper admissionTypemapper, ReferenceDataCache referenceDataCache) {
 		this.admtManager = admtManager;
 		this.mapper = admissionTypemapper;
+		this.referenceDataCache = referenceDataCache;
 	}
 
 	/**
@@ -81,6 +87,7 @@ public class AdmissionTypeController {
 		if (!admtManager.isCodePresent(code)) {
 			throw new OHAPIException(new OHExceptionMessage("Admission Type is not created."), HttpStatus.INTERNAL_SERVER_ERROR);
 		}
+		referenceDataCache.invalidate(Catalogue.ADMISSION_TYPE);
 		return ResponseEntity.status(HttpStatus.CREATED).body(mapper.map2DTO(newAdmissionType));
 	}
 
@@ -100,6 +107,7 @@ public class AdmissionTypeController {
 			throw new OHAPIException(new OHExceptionMessage("Admission Type not found."));
 		}
 		AdmissionType updatedAdmissionType = admtManager.updateAdmissionType(admt);
+		referenceDataCache.invalidate(Catalogue.ADMISSION_TYPE);
 		return ResponseEntity.ok(mapper.map2DTO(updatedAdmissionType));
 	}
 
@@ -138,6 +146,7 @@ public class AdmissionTypeController {
 			if (!admtFounds.isEmpty()) {
 				try {
 					admtManager.deleteAdmissionType(admtFounds.get(0));
+					referenceDataCache.invalidate(Catalogue.ADMISSION_TYPE);
 				} catch (OHServiceException serviceException) {
 					LOGGER.error("Delete Admission: {} failed.", code);
 					throw new OHAPIException(new OHExceptionMessage("Admission not deleted."));
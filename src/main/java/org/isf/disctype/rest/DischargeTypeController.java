@@ -24,6 +24,8 @@ package org.isf.disctype.rest;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.isf.admission.cache.ReferenceDataCache;
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
 import org.isf.disctype.dto.DischargeTypeDTO;
 import org.isf.disctype.manager.DischargeTypeBrowserManager;
 import org.isf.disctype.mapper.DischargeTypeMapper;
@@ -61,9 +63,13 @@ public class DischargeTypeController {
 	@Autowired
 	protected DischargeTypeMapper mapper;
 
-	public DischargeTypeController(DischargeTypeBrowserManager discTypeManager, DischargeTypeMapper dischargeTypemapper) {
+	@Autowired
+	protected ReferenceDataCache referenceDataCache;
+
+	public DischargeTypeController(DischargeTypeBrowserManager discTypeManager, DischargeTypeMapper dischargeTypemapper, ReferenceDataCache referenceDataCache) {
 		this.discTypeManager = discTypeManager;
 		this.mapper = dischargeTypemapper;
+		this.referenceDataCache = referenceDataCache;
 	}
 
 	/**
@@ -81,6 +87,7 @@ public class DischargeTypeController {
 		if (!discTypeManager.isCodePresent(code)) {
 			throw new OHAPIException(new OHExceptionMessage("Discharge Type is not created."), HttpStatus.INTERNAL_SERVER_ERROR);
 		}
+		referenceDataCache.invalidate(Catalogue.DISCHARGE_TYPE);
 		return ResponseEntity.status(HttpStatus.CREATED).body(mapper.map2DTO(newDischargeType));
 	}
 
@@ -102,6 +109,7 @@ public class DischargeTypeController {
 		if (!discTypeManager.isCodePresent(updatedDischargeType.getCode())) {
 			throw new OHAPIException(new OHExceptionMessage("Discharge Type is not updated."), HttpStatus.INTERNAL_SERVER_ERROR);
 		}
+		referenceDataCache.invalidate(Catalogue.DISCHARGE_TYPE);
 		return ResponseEntity.ok(mapper.map2DTO(dischType));
 	}
 
@@ -140,6 +148,7 @@ public class DischargeTypeController {
 			if (!dischTypeFounds.isEmpty()) {
 				try {
 					discTypeManager.deleteDischargeType(dischTypeFounds.get(0));
+					referenceDataCache.invalidate(Catalogue.DISCHARGE_TYPE);
 				} catch (OHServiceException serviceException) {
 					LOGGER.error("Delete discharge type: {} failed.", code);
 					throw new OHAPIException(new OHExceptionMessage("Discharge type not deleted."));
@@ -27,6 +27,8 @@ import java.util.Map;
 
 import jakarta.validation.Valid;
 
+import org.isf.admission.cache.ReferenceDataCache;
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
 import org.isf.disease.dto.DiseaseDTO;
 import org.isf.disease.manager.DiseaseBrowserManager;
 import org.isf.disease.mapper.DiseaseMapper;
@@ -64,9 +66,13 @@ public class DiseaseController {
 	@Autowired
 	protected DiseaseMapper mapper;
 
-	public DiseaseController(DiseaseBrowserManager diseaseManager, DiseaseMapper diseaseMapper) {
+	@Autowired
+	protected ReferenceDataCache referenceDataCache;
+
+	public DiseaseController(DiseaseBrowserManager diseaseManager, DiseaseMapper diseaseMapper, ReferenceDataCache referenceDataCache) {
 		this.diseaseManager = diseaseManager;
 		this.mapper = diseaseMapper;
+		this.referenceDataCache = referenceDataCache;
 	}
 	
 	/**
@@ -253,6 +259,7 @@ public class DiseaseController {
 		}
 		try {
 			diseaseManager.newDisease(disease);
+			referenceDataCache.invalidate(Catalogue.DISEASE);
 			return ResponseEntity.status(HttpStatus.CREATED).body(diseaseDTO);
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Disease not created."), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -274,6 +281,7 @@ public class DiseaseController {
 		disease.setLock(diseaseDTO.getLock());
 		try {
 			diseaseManager.updateDisease(disease);
+			referenceDataCache.invalidate(Catalogue.DISEASE);
 			return ResponseEntity.ok(diseaseDTO);
 		} catch (OHServiceException serviceException) {
         		throw new OHAPIException(new OHExceptionMessage("Disease not updated."), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -294,6 +302,7 @@ public class DiseaseController {
 			boolean isDeleted;
 			try {
 				diseaseManager.deleteDisease(disease);
+				referenceDataCache.invalidate(Catalogue.DISEASE);
 				isDeleted = true;
 			} catch (OHServiceException serviceException) {
 				isDeleted = false;
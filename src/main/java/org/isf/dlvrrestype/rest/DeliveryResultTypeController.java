@@ -24,6 +24,8 @@ package org.isf.dlvrrestype.rest;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.isf.admission.cache.ReferenceDataCache;
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
 import org.isf.dlvrrestype.dto.DeliveryResultTypeDTO;
 import org.isf.dlvrrestype.manager.DeliveryResultTypeBrowserManager;
 import org.isf.dlvrrestype.mapper.DeliveryResultTypeMapper;
@@ -61,9 +63,13 @@ public class DeliveryResultTypeController {
 	@Autowired
 	protected DeliveryResultTypeMapper mapper;
 
-	public DeliveryResultTypeController(DeliveryResultTypeBrowserManager dlvrrestManager, DeliveryResultTypeMapper deliveryResultTypeMapper) {
+	@Autowired
+	protected ReferenceDataCache referenceDataCache;
+
+	public DeliveryResultTypeController(DeliveryResultTypeBrowserManager dlvrrestManager, DeliveryResultTypeMapper deliveryResultTypeMapper, ReferenceDataCache referenceDataCache) {
 		this.dlvrrestManager = dlvrrestManager;
 		this.mapper = deliveryResultTypeMapper;
+		this.referenceDataCache = referenceDataCache;
 	}
 
 	/**
@@ -87,6 +93,7 @@ public class DeliveryResultTypeController {
 		if (dlvrrestTypeCreated == null) {
 			throw new OHAPIException(new OHExceptionMessage("Delivery result type is not created."), HttpStatus.INTERNAL_SERVER_ERROR);
 		}
+		referenceDataCache.invalidate(Catalogue.DELIVERY_RESULT_TYPE);
 		return ResponseEntity.status(HttpStatus.CREATED).body(mapper.map2DTO(dlvrrestTypeCreated));
 	}
 
@@ -109,6 +116,7 @@ public class DeliveryResultTypeController {
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Delivery Result Type is not updated."), HttpStatus.INTERNAL_SERVER_ERROR);
 		}
+		referenceDataCache.invalidate(Catalogue.DELIVERY_RESULT_TYPE);
 		return ResponseEntity.ok(mapper.map2DTO(dlvrrestType));
 	}
 
@@ -146,6 +154,7 @@ public class DeliveryResultTypeController {
 			if (!dlvrrestTypeFounds.isEmpty()) {
 				try {
 					dlvrrestManager.deleteDeliveryResultType(dlvrrestTypeFounds.get(0));
+					referenceDataCache.invalidate(Catalogue.DELIVERY_RESULT_TYPE);
 				} catch (OHServiceException serviceException) {
 					throw new OHAPIException(new OHExceptionMessage("Delivery Result Type is not deleted."), HttpStatus.INTERNAL_SERVER_ERROR);
 				}
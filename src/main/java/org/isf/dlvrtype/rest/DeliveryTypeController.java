@@ -24,6 +24,8 @@ package org.isf.dlvrtype.rest;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.isf.admission.cache.ReferenceDataCache;
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
 import org.isf.dlvrtype.dto.DeliveryTypeDTO;
 import org.isf.dlvrtype.manager.DeliveryTypeBrowserManager;
 import org.isf.dlvrtype.mapper.DeliveryTypeMapper;
@@ -61,9 +63,13 @@ public class DeliveryTypeController {
 	@Autowired
 	protected DeliveryTypeMapper deliveryTypeMapper;
 
-	public DeliveryTypeController(DeliveryTypeBrowserManager dlvrtypeManager, DeliveryTypeMapper deliveryTypeMapper) {
+	@Autowired
+	protected ReferenceDataCache referenceDataCache;
+
+	public DeliveryTypeController(DeliveryTypeBrowserManager dlvrtypeManager, DeliveryTypeMapper deliveryTypeMapper, ReferenceDataCache referenceDataCache) {
 		this.dlvrtypeManager = dlvrtypeManager;
 		this.deliveryTypeMapper = deliveryTypeMapper;
+		this.referenceDataCache = referenceDataCache;
 	}
 
 	/**
@@ -87,6 +93,7 @@ public class DeliveryTypeController {
 		if (dlvrTypeCreated == null) {
 			throw new OHAPIException(new OHExceptionMessage("Delivery Type not created."));
 		}
+		referenceDataCache.invalidate(Catalogue.DELIVERY_TYPE);
 		return ResponseEntity.status(HttpStatus.CREATED).body(deliveryTypeMapper.map2DTO(dlvrTypeCreated));
 	}
 
@@ -109,6 +116,7 @@ public class DeliveryTypeController {
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Delivery Type is not updated."));
 		}
+		referenceDataCache.invalidate(Catalogue.DELIVERY_TYPE);
 		return ResponseEntity.ok(deliveryTypeMapper.map2DTO(dlvrType));
 	}
 
@@ -147,6 +155,7 @@ public class DeliveryTypeController {
 			if (!dlvrTypeFounds.isEmpty()) {
 				try {
 					dlvrtypeManager.deleteDeliveryType(dlvrTypeFounds.get(0));
+					referenceDataCache.invalidate(Catalogue.DELIVERY_TYPE);
 				} catch (OHServiceException serviceException) {
 					LOGGER.error("Delete Delivery Type: {} failed.", code);
 					throw new OHAPIException(new OHExceptionMessage("Delivery Type not deleted."));
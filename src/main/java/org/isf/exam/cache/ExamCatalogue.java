@@ -0,0 +1,168 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.exam.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.isf.exa.manager.ExamBrowsingManager;
+import org.isf.exa.model.Exam;
+import org.isf.exatype.model.ExamType;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-memory catalogue of the {@link Exam}s indexed by code and by {@link ExamType}, used to resolve the exams referenced
+ * by laboratory and exam row requests without reading and scanning the whole exam table every time.
+ * <p>
+ * The catalogue is discarded when an exam or an exam row is changed through the API and, as a safety net for changes
+ * made outside the API, after a fixed time. Hits and misses are published as the {@value #CACHE_NAME} cache metrics.
+ */
+@Component
+public class ExamCatalogue {
+
+	public static final String CACHE_NAME = "examCatalogue";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ExamCatalogue.class);
+
+	private static final String KEY = "exams";
+
+	private final ExamBrowsingManager examManager;
+
+	private final Cache<String, ExamIndex> cache;
+
+	/** Incremented on every invalidation, so that a catalogue loaded concurrently with a change is not cached. */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * @param expireAfterSeconds the time after which the catalogue is read again from the database, {@code 0} disables
+	 * the cache
+	 */
+	public ExamCatalogue(ExamBrowsingManager examManager, ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${exam.catalogue.expire-after-seconds:300}") long expireAfterSeconds) {
+		this.examManager = examManager;
+		if (expireAfterSeconds <= 0) {
+			this.cache = null;
+			return;
+		}
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(1)
+			.expireAfterWrite(Duration.ofSeconds(expireAfterSeconds))
+			.recordStats()
+			.build();
+		meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+	}
+
+	/**
+	 * Returns the exam with the specified code.
+	 *
+	 * @param code the code of the exam
+	 * @return the {@link Exam}, or {@code null} if it does not exist
+	 * @throws OHServiceException if the exams cannot be read
+	 */
+	public Exam getExam(String code) throws OHServiceException {
+		return code == null ? null : index().examsByCode.get(code);
+	}
+
+	/**
+	 * Returns the exams of the specified type.
+	 *
+	 * @param examType the type of the exams
+	 * @return the unmodifiable {@link List} of the exams of the type, empty if there are none
+	 * @throws OHServiceException if the exams cannot be read
+	 */
+	public List<Exam> getExams(ExamType examType) throws OHServiceException {
+		return index().examsByType.getOrDefault(examType.getCode(), Collections.emptyList());
+	}
+
+	public void invalidate() {
+		generation.incrementAndGet();
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+	}
+
+	public CacheStats getStats() {
+		return cache == null ? CacheStats.empty() : cache.stats();
+	}
+
+	private ExamIndex index() throws OHServiceException {
+		if (cache == null) {
+			return load();
+		}
+		ExamIndex index = cache.getIfPresent(KEY);
+		if (index != null) {
+			return index;
+		}
+		long loadGeneration = generation.get();
+		index = load();
+		cache.put(KEY, index);
+		if (loadGeneration != generation.get()) {
+			// an exam was changed while loading: the catalogue may already be stale
+			cache.invalidate(KEY);
+		}
+		return index;
+	}
+
+	private ExamIndex load() throws OHServiceException {
+		List<Exam> exams = examManager.getExams();
+		LOGGER.debug("Loaded {} exams in the catalogue.", exams == null ? 0 : exams.size());
+		return new ExamIndex(exams == null ? Collections.emptyList() : exams);
+	}
+
+	private static final class ExamIndex {
+
+		private final Map<String, Exam> examsByCode;
+
+		private final Map<String, List<Exam>> examsByType;
+
+		private ExamIndex(List<Exam> exams) {
+			Map<String, Exam> byCode = new LinkedHashMap<>();
+			Map<String, List<Exam>> byType = new LinkedHashMap<>();
+			for (Exam exam : exams) {
+				byCode.put(exam.getCode(), exam);
+				if (exam.getExamtype() != null) {
+					byType.computeIfAbsent(exam.getExamtype().getCode(), type -> new ArrayList<>()).add(exam);
+				}
+			}
+			byType.replaceAll((type, examsOfType) -> Collections.unmodifiableList(examsOfType));
+			this.examsByCode = Collections.unmodifiableMap(byCode);
+			this.examsByType = Collections.unmodifiableMap(byType);
+		}
+	}
+}
@@ -23,12 +23,12 @@ package org.isf.exam.rest;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 import jakarta.validation.Valid;
 
 import org.isf.exa.manager.ExamBrowsingManager;
 import org.isf.exa.model.Exam;
+import org.isf.exam.cache.ExamCatalogue;
 import org.isf.exam.dto.ExamDTO;
 import org.isf.exam.dto.ExamWithRowsDTO;
 import org.isf.exam.mapper.ExamMapper;
@@ -67,6 +67,9 @@ public class ExamController {
 	@Autowired
 	private ExamMapper examMapper;
 
+	@Autowired
+	private ExamCatalogue examCatalogue;
+
 	@ResponseStatus(HttpStatus.CREATED)
 	@PostMapping(value = "/exams", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ExamDTO newExam(@Valid @RequestBody ExamWithRowsDTO examWithRowsDTO) throws OHServiceException {
@@ -92,6 +95,7 @@ public class ExamController {
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Exam not created."));
 		}
+		examCatalogue.invalidate();
 		return examMapper.map2DTO(exam);
 	}
 
@@ -121,6 +125,7 @@ public class ExamController {
 		Exam exam = examMapper.map2Model(examDTO);
 		exam.setExamtype(examType);
 		Exam examUpdated = examManager.update(exam, examRows);
+		examCatalogue.invalidate();
 		if (examUpdated == null) {
 			throw new OHAPIException(new OHExceptionMessage("Exam not updated."));
 		}
@@ -152,15 +157,16 @@ public class ExamController {
 
 	@DeleteMapping(value = "/exams/{code:.+}", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<Boolean> deleteExam(@PathVariable String code) throws OHServiceException {
-		Optional<Exam> exam = examManager.getExams().stream().filter(e -> e.getCode().equals(code)).findFirst();
-		if (!exam.isPresent()) {
+		Exam exam = examManager.findByCode(code);
+		if (exam == null) {
 			throw new OHAPIException(new OHExceptionMessage("Exam not found."));
 		}
 		try {
-			examManager.deleteExam(exam.get());
+			examManager.deleteExam(exam);
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Exam not deleted."));
 		}
+		examCatalogue.invalidate();
 		return ResponseEntity.ok(true);
 	}
 }
@@ -27,6 +27,7 @@ import org.isf.exa.manager.ExamBrowsingManager;
 import org.isf.exa.manager.ExamRowBrowsingManager;
 import org.isf.exa.model.Exam;
 import org.isf.exa.model.ExamRow;
+import org.isf.exam.cache.ExamCatalogue;
 import org.isf.exam.dto.ExamRowDTO;
 import org.isf.exam.mapper.ExamRowMapper;
 import org.isf.shared.exceptions.OHAPIException;
@@ -62,15 +63,20 @@ public class ExamRowController {
     @Autowired
     private ExamRowMapper examRowMapper;
 
-    public ExamRowController(ExamBrowsingManager examManager, ExamRowBrowsingManager examRowBrowsingManager, ExamRowMapper examRowMapper) {
+    @Autowired
+    private ExamCatalogue examCatalogue;
+
+    public ExamRowController(ExamBrowsingManager examManager, ExamRowBrowsingManager examRowBrowsingManager, ExamRowMapper examRowMapper,
+                    ExamCatalogue examCatalogue) {
         this.examManager = examManager;
         this.examRowBrowsingManager = examRowBrowsingManager;
         this.examRowMapper = examRowMapper;
+        this.examCatalogue = examCatalogue;
     }
 
     @PostMapping(value = "/examrows", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ExamRowDTO> newExamRow(@RequestBody ExamRowDTO examRowDTO) throws OHServiceException {
-        Exam exam = examManager.getExams().stream().filter(e -> examRowDTO.getExam().getCode().equals(e.getCode())).findFirst().orElse(null);
+        Exam exam = examCatalogue.getExam(examRowDTO.getExam().getCode());
 
         if (exam == null) {
             throw new OHAPIException(new OHExceptionMessage("Exam not found."));
@@ -80,6 +86,7 @@ public class ExamRowController {
         examRow.setExamCode(exam);
 
         ExamRow isCreatedExamRow = examRowBrowsingManager.newExamRow(examRow);
+        examCatalogue.invalidate();
         if (isCreatedExamRow == null) {
             throw new OHAPIException(new OHExceptionMessage("ExamRow not created."));
         }
@@ -134,6 +141,7 @@ public class ExamRowController {
         }
         try {
             examRowBrowsingManager.deleteExamRow(examRows.get(0));
+            examCatalogue.invalidate();
         } catch (OHServiceException serviceException) {
             throw new OHAPIException(new OHExceptionMessage("ExamRow not deleted."));
         }
@@ -24,12 +24,13 @@ package org.isf.exatype.mapper;
 import org.isf.exatype.dto.ExamTypeDTO;
 import org.isf.exatype.model.ExamType;
 import org.isf.shared.GenericMapper;
+import org.mapstruct.factory.Mappers;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ExamTypeMapper extends GenericMapper<ExamType, ExamTypeDTO> {
 
     public ExamTypeMapper() {
-        super(ExamType.class, ExamTypeDTO.class);
+        super(ExamType.class, ExamTypeDTO.class, Mappers.getMapper(ExamTypeGeneratedMapper.class));
     }
 }
\ No newline at end of file
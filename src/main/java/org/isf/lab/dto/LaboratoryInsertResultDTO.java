@@ -0,0 +1,97 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class LaboratoryInsertResultDTO {
+
+	public enum Status {
+		CREATED, REJECTED, FAILED
+	}
+
+	@Schema(description = "Position of the item in the submitted list, starting from 0", example = "0")
+	private int index;
+
+	@Schema(description = "Laboratory Code, when created")
+	private Integer code;
+
+	@Schema(description = "CREATED, REJECTED if the item is not valid, FAILED if it could not be stored", example = "CREATED")
+	private Status status;
+
+	@Schema(description = "Reason of the rejection or of the failure", example = "Patient not found.")
+	private String message;
+
+	public LaboratoryInsertResultDTO() {
+	}
+
+	public LaboratoryInsertResultDTO(int index, Integer code, Status status, String message) {
+		this.index = index;
+		this.code = code;
+		this.status = status;
+		this.message = message;
+	}
+
+	public static LaboratoryInsertResultDTO created(int index, Integer code) {
+		return new LaboratoryInsertResultDTO(index, code, Status.CREATED, null);
+	}
+
+	public static LaboratoryInsertResultDTO rejected(int index, String message) {
+		return new LaboratoryInsertResultDTO(index, null, Status.REJECTED, message);
+	}
+
+	public static LaboratoryInsertResultDTO failed(int index, String message) {
+		return new LaboratoryInsertResultDTO(index, null, Status.FAILED, message);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public Integer getCode() {
+		return code;
+	}
+
+	public void setCode(Integer code) {
+		this.code = code;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+}
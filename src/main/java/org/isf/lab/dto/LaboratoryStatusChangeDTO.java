@@ -0,0 +1,84 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.dto;
+
+import org.isf.lab.model.LaboratoryStatus;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class LaboratoryStatusChangeDTO {
+
+	@Schema(description = "Laboratory Code")
+	private Integer code;
+
+	@Schema(description = "Laboratory Patient Code")
+	private Integer patientCode;
+
+	@Schema(description = "Laboratory Exam Code", example = "01.01")
+	private String examCode;
+
+	@Schema(description = "Laboratory status before the change, missing for a new laboratory", example = "DRAFT")
+	private LaboratoryStatus previousStatus;
+
+	@Schema(description = "Laboratory status", example = "OPEN")
+	private LaboratoryStatus status;
+
+	public Integer getCode() {
+		return code;
+	}
+
+	public void setCode(Integer code) {
+		this.code = code;
+	}
+
+	public Integer getPatientCode() {
+		return patientCode;
+	}
+
+	public void setPatientCode(Integer patientCode) {
+		this.patientCode = patientCode;
+	}
+
+	public String getExamCode() {
+		return examCode;
+	}
+
+	public void setExamCode(String examCode) {
+		this.examCode = examCode;
+	}
+
+	public LaboratoryStatus getPreviousStatus() {
+		return previousStatus;
+	}
+
+	public void setPreviousStatus(LaboratoryStatus previousStatus) {
+		this.previousStatus = previousStatus;
+	}
+
+	public LaboratoryStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(LaboratoryStatus status) {
+		this.status = status;
+	}
+}
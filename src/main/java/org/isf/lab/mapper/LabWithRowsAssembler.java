@@ -0,0 +1,89 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.isf.lab.dto.LabWithRowsDTO;
+import org.isf.lab.dto.LaboratoryDTO;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryStatus;
+import org.isf.lab.service.LaboratoryRowBatchLoader;
+import org.isf.patient.dto.PatientSTATUS;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the {@link LabWithRowsDTO}s returned by the laboratory endpoints, reading the rows of all the laboratories
+ * of a list with the {@link LaboratoryRowBatchLoader}.
+ */
+@Component
+public class LabWithRowsAssembler {
+
+	/** The exam procedure whose results are kept in laboratory rows. */
+	private static final int PROCEDURE_WITH_ROWS = 2;
+
+	private final LaboratoryMapper laboratoryMapper;
+
+	private final LaboratoryRowBatchLoader laboratoryRowLoader;
+
+	public LabWithRowsAssembler(LaboratoryMapper laboratoryMapper, LaboratoryRowBatchLoader laboratoryRowLoader) {
+		this.laboratoryMapper = laboratoryMapper;
+		this.laboratoryRowLoader = laboratoryRowLoader;
+	}
+
+	public LabWithRowsDTO map2DTO(Laboratory laboratory) {
+		return map2DTOList(List.of(laboratory)).get(0);
+	}
+
+	public List<LabWithRowsDTO> map2DTOList(List<Laboratory> laboratories) {
+		List<Integer> codes = laboratories.stream()
+						.filter(LabWithRowsAssembler::hasRows)
+						.map(Laboratory::getCode)
+						.collect(Collectors.toList());
+		Map<Integer, List<String>> rowDescriptions = codes.isEmpty() ? Map.of() : laboratoryRowLoader.getRowDescriptions(codes);
+		return laboratories.stream().map(laboratory -> {
+			LabWithRowsDTO labWithRowsDTO = new LabWithRowsDTO();
+			labWithRowsDTO.setLaboratoryDTO(map2LaboratoryDTO(laboratory));
+			List<String> descriptions = hasRows(laboratory) ? rowDescriptions.get(laboratory.getCode()) : null;
+			labWithRowsDTO.setLaboratoryRowList(descriptions != null ? new ArrayList<>(descriptions) : new ArrayList<>());
+			return labWithRowsDTO;
+		}).collect(Collectors.toList());
+	}
+
+	/**
+	 * Maps a {@link Laboratory} together with the registration date, the patient status and the laboratory status.
+	 */
+	public LaboratoryDTO map2LaboratoryDTO(Laboratory laboratory) {
+		LaboratoryDTO laboratoryDTO = laboratoryMapper.map2DTO(laboratory);
+		laboratoryDTO.setRegistrationDate(laboratory.getCreatedDate());
+		laboratoryDTO.setInOutPatient(PatientSTATUS.valueOf(laboratory.getInOutPatient()));
+		laboratoryDTO.setStatus(LaboratoryStatus.valueOf(laboratory.getStatus()));
+		return laboratoryDTO;
+	}
+
+	private static boolean hasRows(Laboratory laboratory) {
+		return laboratory.getExam().getProcedure() == PROCEDURE_WITH_ROWS;
+	}
+}
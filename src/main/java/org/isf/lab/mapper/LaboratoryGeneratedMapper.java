@@ -0,0 +1,55 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.mapper;
+
+import org.isf.exam.mapper.ExamGeneratedMapper;
+import org.isf.lab.dto.LaboratoryDTO;
+import org.isf.lab.model.Laboratory;
+import org.isf.patient.model.Patient;
+import org.isf.shared.GeneratedMapping;
+import org.isf.shared.mapper.GeneratedMapperConfig;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = GeneratedMapperConfig.class, uses = ExamGeneratedMapper.class)
+public interface LaboratoryGeneratedMapper extends GeneratedMapping<Laboratory, LaboratoryDTO> {
+
+	@Override
+	@Mapping(target = "patientCode", source = "patient.code")
+	LaboratoryDTO map2DTO(Laboratory fromObj);
+
+	@Override
+	@Mapping(target = "patient", source = "patientCode")
+	Laboratory map2Model(LaboratoryDTO toObj);
+
+	/**
+	 * The model gets a reference to the patient holding only its code; callers replace it with the stored patient.
+	 */
+	default Patient patientFromCode(Integer patientCode) {
+		if (patientCode == null) {
+			return null;
+		}
+		Patient patient = new Patient();
+		patient.setCode(patientCode);
+		return patient;
+	}
+}
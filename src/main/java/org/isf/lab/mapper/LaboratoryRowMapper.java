@@ -21,9 +21,12 @@
  */
 package org.isf.lab.mapper;
 
+import jakarta.annotation.PostConstruct;
+
 import org.isf.lab.dto.LaboratoryRowDTO;
 import org.isf.lab.model.LaboratoryRow;
 import org.isf.shared.GenericMapper;
+import org.isf.shared.mapper.mappings.LaboratoryRowMapping;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -32,4 +35,9 @@ public class LaboratoryRowMapper extends GenericMapper<LaboratoryRow, Laboratory
     public LaboratoryRowMapper() {
         super(LaboratoryRow.class, LaboratoryRowDTO.class);
     }
+
+    @PostConstruct
+    private void postConstruct() {
+        LaboratoryRowMapping.addMapping(modelMapper);
+    }
 }
\ No newline at end of file
@@ -21,7 +21,11 @@
  */
 package org.isf.lab.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,16 +34,22 @@ import java.util.stream.Collectors;
 
 import org.isf.exa.manager.ExamBrowsingManager;
 import org.isf.exa.model.Exam;
+import org.isf.exam.cache.ExamCatalogue;
 import org.isf.lab.dto.LabWithRowsDTO;
 import org.isf.lab.dto.LaboratoryDTO;
+import org.isf.lab.dto.LaboratoryInsertResultDTO;
 import org.isf.lab.dto.LaboratoryRowDTO;
+import org.isf.lab.dto.LaboratoryStatusChangeDTO;
 import org.isf.lab.manager.LabManager;
+import org.isf.lab.mapper.LabWithRowsAssembler;
 import org.isf.lab.mapper.LaboratoryForPrintMapper;
 import org.isf.lab.mapper.LaboratoryMapper;
-import org.isf.lab.mapper.LaboratoryRowMapper;
 import org.isf.lab.model.Laboratory;
-import org.isf.lab.model.LaboratoryRow;
 import org.isf.lab.model.LaboratoryStatus;
+import org.isf.lab.service.LaboratoryBulkInsert;
+import org.isf.lab.service.LaboratoryStatusChangedEvent;
+import org.isf.lab.service.LaboratoryStatusQuery;
+import org.isf.lab.service.LaboratoryWorklistFeed;
 import org.isf.patient.dto.PatientSTATUS;
 import org.isf.patient.manager.PatientBrowserManager;
 import org.isf.patient.model.Patient;
@@ -51,6 +61,7 @@ import org.isf.utils.pagination.PagedResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -62,7 +73,11 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -99,20 +114,42 @@ public class LaboratoryController {
 	private LaboratoryMapper laboratoryMapper;
 
 	@Autowired
-	private LaboratoryRowMapper laboratoryRowMapper;
+	private LaboratoryForPrintMapper laboratoryForPrintMapper;
 
 	@Autowired
-	private LaboratoryForPrintMapper laboratoryForPrintMapper;
+	private LabWithRowsAssembler labWithRowsAssembler;
+
+	@Autowired
+	private ExamCatalogue examCatalogue;
+
+	@Autowired
+	private LaboratoryStatusQuery laboratoryStatusQuery;
+
+	@Autowired
+	private LaboratoryWorklistFeed laboratoryWorklistFeed;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private LaboratoryBulkInsert laboratoryBulkInsert;
 
 	public LaboratoryController(LabManager laboratoryManager, PatientBrowserManager patientBrowserManager,
-					ExamBrowsingManager examManager, LaboratoryMapper laboratoryMapper, LaboratoryRowMapper laboratoryRowMapper,
-					LaboratoryForPrintMapper laboratoryForPrintMapper) {
+					ExamBrowsingManager examManager, LaboratoryMapper laboratoryMapper,
+					LaboratoryForPrintMapper laboratoryForPrintMapper, LabWithRowsAssembler labWithRowsAssembler, ExamCatalogue examCatalogue,
+					LaboratoryStatusQuery laboratoryStatusQuery, LaboratoryWorklistFeed laboratoryWorklistFeed,
+					ApplicationEventPublisher eventPublisher, LaboratoryBulkInsert laboratoryBulkInsert) {
 		this.laboratoryManager = laboratoryManager;
 		this.patientBrowserManager = patientBrowserManager;
 		this.examManager = examManager;
 		this.laboratoryMapper = laboratoryMapper;
-		this.laboratoryRowMapper = laboratoryRowMapper;
 		this.laboratoryForPrintMapper = laboratoryForPrintMapper;
+		this.labWithRowsAssembler = labWithRowsAssembler;
+		this.examCatalogue = examCatalogue;
+		this.laboratoryStatusQuery = laboratoryStatusQuery;
+		this.laboratoryWorklistFeed = laboratoryWorklistFeed;
+		this.eventPublisher = eventPublisher;
+		this.laboratoryBulkInsert = laboratoryBulkInsert;
 	}
 
 	/**
@@ -133,8 +170,7 @@ public class LaboratoryController {
 			throw new OHAPIException(new OHExceptionMessage("Patient not found."));
 		}
 
-		Exam exam = examManager.getExams().stream().filter(e -> e.getCode().equals(laboratoryDTO.getExam().getCode()))
-						.findFirst().orElse(null);
+		Exam exam = examCatalogue.getExam(laboratoryDTO.getExam().getCode());
 		if (exam == null) {
 			throw new OHAPIException(new OHExceptionMessage("Exam not found."));
 		}
@@ -148,11 +184,13 @@ public class LaboratoryController {
 		if (labRow != null) {
 			labRows = new ArrayList<>(labRow);
 		}
+		Laboratory labInserted;
 		try {
-			laboratoryManager.newLaboratory(labToInsert, labRows);
+			labInserted = laboratoryManager.newLaboratory(labToInsert, labRows);
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Laboratory not created."));
 		}
+		eventPublisher.publishEvent(LaboratoryStatusChangedEvent.created(labInserted));
 		return ResponseEntity.status(HttpStatus.CREATED).body(true);
 	}
 
@@ -173,8 +211,7 @@ public class LaboratoryController {
 			throw new OHAPIException(new OHExceptionMessage("Patient not found."));
 		}
 
-		Exam exam = examManager.getExams().stream().filter(e -> e.getCode().equals(laboratoryDTO.getExam().getCode()))
-						.findFirst().orElse(null);
+		Exam exam = examCatalogue.getExam(laboratoryDTO.getExam().getCode());
 		if (exam == null) {
 			throw new OHAPIException(new OHExceptionMessage("Exam not found."));
 		}
@@ -186,22 +223,20 @@ public class LaboratoryController {
 		labToInsert.setStatus(DRAFT);
 		labToInsert.setResult("");
 		labToInsert.setInOutPatient(laboratoryDTO.getInOutPatient().toString());
-		List<Laboratory> labList = laboratoryManager.getLaboratory(patient).stream()
-						.filter(e -> e.getStatus().equals(DRAFT)).collect(Collectors.toList());
-
-		if (!(labList == null || labList.isEmpty())) {
-			for (Laboratory lab : labList) {
-				if (lab.getExam().equals(exam)) {
-					throw new OHAPIException(new OHExceptionMessage("Exam Request already exists."));
-				}
+		List<Laboratory> labList = laboratoryStatusQuery.getLaboratory(patient, List.of(DRAFT));
+		for (Laboratory lab : labList) {
+			if (lab.getExam().equals(exam)) {
+				throw new OHAPIException(new OHExceptionMessage("Exam Request already exists."));
 			}
 		}
 
+		Laboratory labInserted;
 		try {
-			laboratoryManager.newExamRequest(labToInsert);
+			labInserted = laboratoryManager.newExamRequest(labToInsert);
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Laboratory not created."));
 		}
+		eventPublisher.publishEvent(LaboratoryStatusChangedEvent.created(labInserted));
 		return ResponseEntity.status(HttpStatus.CREATED).body(true);
 	}
 
@@ -216,48 +251,41 @@ public class LaboratoryController {
 	public ResponseEntity<Boolean> newLaboratory2(@RequestBody List<LabWithRowsDTO> labsWithRows)
 					throws OHServiceException {
 		LOGGER.info("store List of Exam with result");
-		List<Laboratory> labsToInsert = new ArrayList<>();
-		List<List<LaboratoryRow>> labsRowsToInsert = new ArrayList<>();
-
-		for (LabWithRowsDTO labWithRowsDTO : labsWithRows) {
-			LaboratoryDTO laboratoryDTO = labWithRowsDTO.getLaboratoryDTO();
-			Patient patient = patientBrowserManager.getPatientById(laboratoryDTO.getPatientCode());
-			if (patient == null) {
-				throw new OHAPIException(new OHExceptionMessage("Patient not found."));
-			}
-
-			Exam exam = examManager.getExams().stream()
-							.filter(e -> e.getCode().equals(laboratoryDTO.getExam().getCode())).findFirst().orElse(null);
-			if (exam == null) {
-				throw new OHAPIException(new OHExceptionMessage("Exam not found."));
-			}
-
-			Laboratory labToInsert = laboratoryMapper.map2Model(laboratoryDTO);
-			labToInsert.setExam(exam);
-			labToInsert.setPatient(patient);
-			labToInsert.setInOutPatient(laboratoryDTO.getInOutPatient().toString());
-			labsToInsert.add(labToInsert);
-
-			if (labWithRowsDTO.getLaboratoryRowList() != null) {
-				List<LaboratoryRow> labRowToInsert = new ArrayList<>();
-				for (String rowDescription : labWithRowsDTO.getLaboratoryRowList()) {
-					labRowToInsert
-									.add(laboratoryRowMapper.map2Model(new LaboratoryRowDTO(rowDescription, laboratoryDTO)));
-				}
-				if (!labRowToInsert.isEmpty()) {
-					labsRowsToInsert.add(labRowToInsert);
-				}
-			}
-		}
-
 		try {
-			laboratoryManager.newLaboratory2(labsToInsert, labsRowsToInsert);
+			laboratoryBulkInsert.insertAll(labsWithRows);
+		} catch (IllegalArgumentException e) {
+			throw new OHAPIException(new OHExceptionMessage(e.getMessage()));
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Laboratory not created."));
 		}
 		return ResponseEntity.status(HttpStatus.CREATED).body(true);
 	}
 
+	/**
+	 * Create the {@link LaboratoryRowDTO}s of a JSON array of {@link LabWithRowsDTO}, read as a stream.
+	 * Unlike {@code insertList}, the valid items are stored even if others are not.
+	 * 
+	 * @param labsWithRows the JSON array
+	 * @return the {@link LaboratoryInsertResultDTO} of every item, in the order of the array.
+	 * @throws OHServiceException
+	 */
+	@PostMapping(value = "/laboratories/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<LaboratoryInsertResultDTO>> newLaboratories(
+					@io.swagger.v3.oas.annotations.parameters.RequestBody(
+									content = @Content(array = @ArraySchema(schema = @Schema(implementation = LabWithRowsDTO.class)))) InputStream labsWithRows)
+					throws OHServiceException {
+		LOGGER.info("store a stream of Exams with result");
+		List<LaboratoryInsertResultDTO> results;
+		try {
+			results = laboratoryBulkInsert.insert(labsWithRows);
+		} catch (IOException e) {
+			throw new OHAPIException(new OHExceptionMessage("Laboratory list not read."));
+		}
+		LOGGER.info("{} of {} Exams stored", results.stream().filter(result -> result.getStatus() == LaboratoryInsertResultDTO.Status.CREATED).count(),
+						results.size());
+		return ResponseEntity.ok(results);
+	}
+
 	/**
 	 * Updates the specified {@link LaboratoryRowDTO} object.
 	 * 
@@ -290,8 +318,7 @@ public class LaboratoryController {
 			throw new OHAPIException(new OHExceptionMessage("Patient not found."));
 		}
 
-		Exam exam = examManager.getExams().stream().filter(e -> e.getCode().equals(laboratoryDTO.getExam().getCode()))
-						.findFirst().orElse(null);
+		Exam exam = examCatalogue.getExam(laboratoryDTO.getExam().getCode());
 		if (exam == null) {
 			throw new OHAPIException(new OHExceptionMessage("Exam not found."));
 		}
@@ -307,6 +334,7 @@ public class LaboratoryController {
 		if (!laboratoryDTO.getResult().isEmpty()) {
 			labToInsert.setStatus(DONE);
 		}
+		LaboratoryStatusChangedEvent statusChange = LaboratoryStatusChangedEvent.of(lab, labToInsert.getStatus());
 		try {
 			laboratoryManager.updateLaboratory(labToInsert, labRows);
 		} catch (OHServiceException e) {
@@ -316,6 +344,9 @@ public class LaboratoryController {
 			}
 			throw new OHAPIException(e.getMessages().get(0));
 		}
+		if (statusChange.getStatus() != null && !statusChange.getStatus().equalsIgnoreCase(statusChange.getPreviousStatus())) {
+			eventPublisher.publishEvent(statusChange);
+		}
 		return ResponseEntity.ok(true);
 	}
 
@@ -334,11 +365,15 @@ public class LaboratoryController {
 		LOGGER.info("Update exam request code: {}", code);
 		LaboratoryStatus stat = LaboratoryStatus.valueOf(status);
 		if (stat != null) {
+			// the event is built before the update, which may change the laboratory read here
+			Optional<LaboratoryStatusChangedEvent> statusChange = laboratoryManager.getLaboratory(code)
+							.map(lab -> LaboratoryStatusChangedEvent.of(lab, status));
 			try {
 				laboratoryManager.updateExamRequest(code, status);
 			} catch (OHServiceException serviceException) {
 				throw new OHAPIException(new OHExceptionMessage("Laboratory not updated."));
 			}
+			statusChange.ifPresent(eventPublisher::publishEvent);
 			return ResponseEntity.ok(true);
 		} else {
 			throw new OHAPIException(new OHExceptionMessage("This status doesn't exist."));
@@ -365,11 +400,13 @@ public class LaboratoryController {
 		} else {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
+		LaboratoryStatusChangedEvent statusChange = LaboratoryStatusChangedEvent.of(lab.get(), DELETED);
 		try {
 			laboratoryManager.updateExamRequest(code, DELETED);
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Exam is not deleted."));
 		}
+		eventPublisher.publishEvent(statusChange);
 		return ResponseEntity.ok(true);
 	}
 
@@ -390,32 +427,7 @@ public class LaboratoryController {
 		if (labListPageable == null || labListPageable.getData().isEmpty()) {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
-		List<LabWithRowsDTO> labWithRowsDto = labListPageable.getData().stream().map(lab -> {
-			LabWithRowsDTO labDTO = new LabWithRowsDTO();
-			List<String> labDescription = new ArrayList<>();
-			LaboratoryDTO laboratoryDTO = laboratoryMapper.map2DTO(lab);
-			if (lab.getExam().getProcedure() == 2) {
-				List<LaboratoryRow> labDes = new ArrayList<>();
-				try {
-					labDes = laboratoryManager.getLaboratoryRowList(lab.getCode());
-				} catch (OHServiceException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-				if (!labDes.isEmpty()) {
-					for (LaboratoryRow laboratoryRow : labDes) {
-						labDescription.add(laboratoryRow.getDescription());
-					}
-				}
-
-			}
-			laboratoryDTO.setRegistrationDate(lab.getCreatedDate());
-			laboratoryDTO.setInOutPatient(PatientSTATUS.valueOf(lab.getInOutPatient()));
-			laboratoryDTO.setStatus(LaboratoryStatus.valueOf(lab.getStatus()));
-			labDTO.setLaboratoryDTO(laboratoryDTO);
-			labDTO.setLaboratoryRowList(labDescription);
-			return labDTO;
-		}).collect(Collectors.toList());
+		List<LabWithRowsDTO> labWithRowsDto = labWithRowsAssembler.map2DTOList(labListPageable.getData());
 		Page<LabWithRowsDTO> labWithRowsDtoPageable = new Page<>();
 		labWithRowsDtoPageable.setPageInfo(laboratoryMapper.setParameterPageInfo(labListPageable.getPageInfo()));
 		labWithRowsDtoPageable.setData(labWithRowsDto);
@@ -442,32 +454,7 @@ public class LaboratoryController {
 		if (labList == null || labList.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
-		return ResponseEntity.ok(labList.stream().map(lab -> {
-			LabWithRowsDTO labDTO = new LabWithRowsDTO();
-			List<String> labDescription = new ArrayList<>();
-			LaboratoryDTO laboratoryDTO = laboratoryMapper.map2DTO(lab);
-			if (lab.getExam().getProcedure() == 2) {
-				List<LaboratoryRow> labDes = new ArrayList<>();
-				try {
-					labDes = laboratoryManager.getLaboratoryRowList(lab.getCode());
-				} catch (OHServiceException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-				if (!labDes.isEmpty()) {
-					for (LaboratoryRow laboratoryRow : labDes) {
-						labDescription.add(laboratoryRow.getDescription());
-					}
-				}
-
-			}
-			laboratoryDTO.setRegistrationDate(lab.getCreatedDate());
-			laboratoryDTO.setInOutPatient(PatientSTATUS.valueOf(lab.getInOutPatient()));
-			laboratoryDTO.setStatus(LaboratoryStatus.valueOf(lab.getStatus()));
-			labDTO.setLaboratoryDTO(laboratoryDTO);
-			labDTO.setLaboratoryRowList(labDescription);
-			return labDTO;
-		}).collect(Collectors.toList()));
+		return ResponseEntity.ok(labWithRowsAssembler.map2DTOList(labList));
 	}
 
 	/**
@@ -487,9 +474,8 @@ public class LaboratoryController {
 			throw new OHAPIException(new OHExceptionMessage("Patient not found."));
 		}
 
-		List<Laboratory> labList = laboratoryManager.getLaboratory(patient).stream()
-						.filter(e -> e.getStatus().equalsIgnoreCase(DRAFT) || e.getStatus().equalsIgnoreCase(OPEN)).collect(Collectors.toList());
-		if (labList == null || labList.isEmpty()) {
+		List<Laboratory> labList = laboratoryStatusQuery.getLaboratory(patient, List.of(DRAFT, OPEN));
+		if (labList.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
 
@@ -512,9 +498,10 @@ public class LaboratoryController {
 	@GetMapping(value = "/laboratories/examRequest", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<List<LaboratoryDTO>> getLaboratoryExamRequest() throws OHServiceException {
 		LOGGER.info("Get all Exam Requested");
-		List<Laboratory> labList = laboratoryManager.getLaboratory().stream()
-						.filter(e -> e.getStatus().equalsIgnoreCase(DRAFT) || e.getStatus().equalsIgnoreCase(OPEN)).collect(Collectors.toList());
-		if (labList == null || labList.isEmpty()) {
+		// the exam requests of the last week, like LabManager.getLaboratory()
+		LocalDateTime dateTo = LocalDate.now().atTime(LocalTime.MAX);
+		List<Laboratory> labList = laboratoryStatusQuery.getLaboratory(dateTo.minusWeeks(1), dateTo, List.of(DRAFT, OPEN));
+		if (labList.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
 
@@ -527,6 +514,50 @@ public class LaboratoryController {
 		}).collect(Collectors.toList()));
 	}
 
+	/**
+	 * Get a page of the worklist, the {@link LaboratoryDTO}s with the specified statuses from the most recent.
+	 * 
+	 * @param statuses the statuses of the laboratories, DRAFT and OPEN if not specified
+	 * @param page
+	 * @param size
+	 * @return the {@link Page} of found {@link LaboratoryDTO} or NO_CONTENT otherwise.
+	 * @throws OHServiceException
+	 */
+	@GetMapping(value = "/laboratories/worklist", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Page<LaboratoryDTO>> getLaboratoryWorklist(
+					@RequestParam(value = "status", required = false) List<LaboratoryStatus> statuses,
+					@RequestParam(value = "page", required = false, defaultValue = "0") int page,
+					@RequestParam(value = "size", required = false, defaultValue = DEFAULT_PAGE_SIZE) int size) throws OHServiceException {
+		LOGGER.info("Get the worklist of statuses {}, page {} of size {}", statuses, page, size);
+		List<String> worklistStatuses = statuses == null || statuses.isEmpty() ? List.of(DRAFT, OPEN)
+						: statuses.stream().map(LaboratoryStatus::toString).collect(Collectors.toList());
+		PagedResponse<Laboratory> labListPageable = laboratoryStatusQuery.getLaboratoryPageable(worklistStatuses, page, size);
+		if (labListPageable.getData().isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+		}
+		Page<LaboratoryDTO> worklist = new Page<>();
+		worklist.setPageInfo(laboratoryMapper.setParameterPageInfo(labListPageable.getPageInfo()));
+		worklist.setData(labListPageable.getData().stream().map(labWithRowsAssembler::map2LaboratoryDTO).collect(Collectors.toList()));
+		return ResponseEntity.ok(worklist);
+	}
+
+	/**
+	 * Subscribe to the changes of the laboratory statuses, sent as Server-Sent Events carrying a
+	 * {@link LaboratoryStatusChangeDTO}.
+	 * 
+	 * @return the event stream, closed after a timeout: the client reconnects and reloads its worklist.
+	 * @throws OHServiceException if there are too many subscribers
+	 */
+	@GetMapping(value = "/laboratories/worklist/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter getLaboratoryWorklistEvents() throws OHServiceException {
+		LOGGER.info("Subscribe to the worklist changes");
+		SseEmitter emitter = laboratoryWorklistFeed.subscribe();
+		if (emitter == null) {
+			throw new OHAPIException(new OHExceptionMessage("Too many worklist subscriptions, please retry later."), HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		return emitter;
+	}
+
 	/**
 	 * Get all {@link String}s.
 	 * 
@@ -590,24 +621,18 @@ public class LaboratoryController {
 		PagedResponse<Laboratory> laboratoryPageable;
 		List<Laboratory> labList;
 		if (paged) {
+			String examDescription = null;
+			if (!examName.isEmpty()) {
+				Exam exam = examManager.getExams(examName).get(0);
+				examDescription = exam.getDescription();
+			}
 			if (!status.isEmpty()) {
-				if (!examName.isEmpty()) {
-					Exam exam = examManager.getExams(examName).get(0);
-					laboratoryPageable = laboratoryManager.getLaboratoryPageable(exam.getDescription(), dateF, dateT, patient, page, size);
-				} else {
-					laboratoryPageable = laboratoryManager.getLaboratoryPageable(null, dateF, dateT, patient, page, size);
-				}
-				labList = laboratoryPageable.getData()
-								.stream().filter(lab -> lab.getStatus().equalsIgnoreCase(status)).collect(Collectors.toList());
+				laboratoryPageable = laboratoryStatusQuery.getLaboratoryPageable(examDescription, dateF, dateT, patient, List.of(status), page,
+								size);
 			} else {
-				if (!examName.isEmpty()) {
-					Exam exam = examManager.getExams(examName).get(0);
-					laboratoryPageable = laboratoryManager.getLaboratoryPageable(exam.getDescription(), dateF, dateT, patient, page, size);
-				} else {
-					laboratoryPageable = laboratoryManager.getLaboratoryPageable(null, dateF, dateT, patient, page, size);
-				}
-				labList = laboratoryPageable.getData();
+				laboratoryPageable = laboratoryManager.getLaboratoryPageable(examDescription, dateF, dateT, patient, page, size);
 			}
+			labList = laboratoryPageable.getData();
 			result.setPageInfo(laboratoryMapper.setParameterPageInfo(laboratoryPageable.getPageInfo()));
 
 		} else {
@@ -624,31 +649,7 @@ public class LaboratoryController {
 		if (labList == null || labList.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		} else {
-			List<LabWithRowsDTO> labWithRowList = labList.stream().map(lab -> {
-				LabWithRowsDTO labDTO = new LabWithRowsDTO();
-				List<String> labDescription = new ArrayList<>();
-				LaboratoryDTO laboratoryDTO = laboratoryMapper.map2DTO(lab);
-				if (lab.getExam().getProcedure() == 2) {
-					List<LaboratoryRow> labDes = new ArrayList<>();
-					try {
-						labDes = laboratoryManager.getLaboratoryRowList(lab.getCode());
-					} catch (OHServiceException e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
-					}
-					if (!labDes.isEmpty()) {
-						for (LaboratoryRow laboratoryRow : labDes) {
-							labDescription.add(laboratoryRow.getDescription());
-						}
-					}
-				}
-				laboratoryDTO.setRegistrationDate(lab.getCreatedDate());
-				laboratoryDTO.setInOutPatient(PatientSTATUS.valueOf(lab.getInOutPatient()));
-				laboratoryDTO.setStatus(LaboratoryStatus.valueOf(lab.getStatus()));
-				labDTO.setLaboratoryDTO(laboratoryDTO);
-				labDTO.setLaboratoryRowList(labDescription);
-				return labDTO;
-			}).collect(Collectors.toList());
+			List<LabWithRowsDTO> labWithRowList = labWithRowsAssembler.map2DTOList(labList);
 			result.setData(labWithRowList);
 			return ResponseEntity.ok(result);
 		}
@@ -688,32 +689,11 @@ public class LaboratoryController {
 	@GetMapping(value = "/laboratories/exams/{code}", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<LabWithRowsDTO> getExamWithRowsById(@PathVariable Integer code) throws OHServiceException {
 		LOGGER.info("Get labWithRows associated to specified CODE: {}", code);
-		LabWithRowsDTO lab = new LabWithRowsDTO();
 		Optional<Laboratory> labo = laboratoryManager.getLaboratory(code);
-		Laboratory laboratory;
-		if (labo.isPresent()) {
-			laboratory = labo.get();
-		} else {
+		if (labo.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
-		LaboratoryDTO labDTO = laboratoryMapper.map2DTO(laboratory);
-		labDTO.setRegistrationDate(laboratory.getCreatedDate());
-		labDTO.setInOutPatient(PatientSTATUS.valueOf(laboratory.getInOutPatient()));
-		labDTO.setStatus(LaboratoryStatus.valueOf(laboratory.getStatus()));
-		lab.setLaboratoryDTO(labDTO);
-
-		List<String> labDescription = new ArrayList<>();
-		if (laboratory.getExam().getProcedure() == 2) {
-			List<LaboratoryRow> labDes = laboratoryManager.getLaboratoryRowList(laboratory.getCode());
-			if (!labDes.isEmpty()) {
-				for (LaboratoryRow laboratoryRow : labDes) {
-					labDescription.add(laboratoryRow.getDescription());
-				}
-			}
-
-		}
-		lab.setLaboratoryRowList(labDescription);
-		return ResponseEntity.ok(lab);
+		return ResponseEntity.ok(labWithRowsAssembler.map2DTO(labo.get()));
 	}
 
 	/**
@@ -736,11 +716,13 @@ public class LaboratoryController {
 		} else {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
+		LaboratoryStatusChangedEvent statusChange = LaboratoryStatusChangedEvent.of(labo.get(), INVALID);
 		try {
 			laboratoryManager.updateExamRequest(code, INVALID);
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Exam request is not deleted."));
 		}
+		eventPublisher.publishEvent(statusChange);
 		return ResponseEntity.ok(true);
 	}
 }
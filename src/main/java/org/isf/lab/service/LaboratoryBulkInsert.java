@@ -0,0 +1,313 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.exa.model.Exam;
+import org.isf.exam.cache.ExamCatalogue;
+import org.isf.lab.dto.LabWithRowsDTO;
+import org.isf.lab.dto.LaboratoryDTO;
+import org.isf.lab.dto.LaboratoryInsertResultDTO;
+import org.isf.lab.manager.LabManager;
+import org.isf.lab.mapper.LaboratoryMapper;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryRow;
+import org.isf.patient.model.Patient;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Stores a JSON array of {@link LabWithRowsDTO}s read as a stream, a chunk of items at a time, and reports the outcome
+ * of every item instead of rejecting the whole list on the first invalid one.
+ * <p>
+ * The patients of a chunk are read with a single query and its exams from the {@link ExamCatalogue}. The valid items of
+ * a chunk are stored with one {@code LabManager.newLaboratory2} call, in one transaction; when it fails they are stored
+ * one by one, so that only the faulty items are reported as failed.
+ */
+@Component
+public class LaboratoryBulkInsert {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LaboratoryBulkInsert.class);
+
+	private static final String PATIENTS_QUERY = "SELECT p FROM Patient p WHERE p.code IN :codes AND p.deleted = 'N'";
+
+	private final LabManager laboratoryManager;
+
+	private final ExamCatalogue examCatalogue;
+
+	private final LaboratoryMapper laboratoryMapper;
+
+	private final ObjectMapper objectMapper;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final int chunkSize;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * @param chunkSize the number of items read, resolved and stored together
+	 */
+	public LaboratoryBulkInsert(LabManager laboratoryManager, ExamCatalogue examCatalogue, LaboratoryMapper laboratoryMapper,
+					ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+					@Value("${laboratory.bulk-insert.chunk-size:200}") int chunkSize) {
+		this.laboratoryManager = laboratoryManager;
+		this.examCatalogue = examCatalogue;
+		this.laboratoryMapper = laboratoryMapper;
+		this.objectMapper = objectMapper;
+		this.eventPublisher = eventPublisher;
+		this.chunkSize = Math.max(chunkSize, 1);
+	}
+
+	/**
+	 * Stores the laboratories of a JSON array of {@link LabWithRowsDTO}s.
+	 * <p>
+	 * A malformed item stops the reading: it is reported as rejected, after the results of the items before it,
+	 * which are stored.
+	 *
+	 * @param json the JSON array
+	 * @return the result of every item, in the order of the array
+	 * @throws IOException if the stream cannot be read
+	 * @throws OHServiceException if the exams cannot be read
+	 */
+	public List<LaboratoryInsertResultDTO> insert(InputStream json) throws IOException, OHServiceException {
+		List<LaboratoryInsertResultDTO> results = new ArrayList<>();
+		List<LabWithRowsDTO> chunk = new ArrayList<>(chunkSize);
+		int index = 0;
+		try (MappingIterator<LabWithRowsDTO> items = objectMapper.readerFor(LabWithRowsDTO.class).readValues(json)) {
+			while (items.hasNextValue()) {
+				chunk.add(items.nextValue());
+				if (chunk.size() == chunkSize) {
+					results.addAll(insertChunk(index, chunk));
+					index += chunk.size();
+					chunk.clear();
+				}
+			}
+		} catch (JsonProcessingException e) {
+			LOGGER.warn("Malformed laboratory list at item {}: {}", index + chunk.size(), e.getOriginalMessage());
+			results.addAll(insertChunk(index, chunk));
+			results.add(LaboratoryInsertResultDTO.rejected(index + chunk.size(), "Malformed item: " + e.getOriginalMessage()));
+			return results;
+		}
+		results.addAll(insertChunk(index, chunk));
+		return results;
+	}
+
+	/**
+	 * Stores all the laboratories of a list of {@link LabWithRowsDTO}s, or none of them.
+	 * <p>
+	 * The patients are read with a single query and the exams from the {@link ExamCatalogue}; the laboratories are
+	 * stored with one {@code LabManager.newLaboratory2} call and published as created.
+	 *
+	 * @param labsWithRows the laboratories and their rows
+	 * @return the laboratories stored, in the order of the list
+	 * @throws IllegalArgumentException if a laboratory is missing, or its patient, exam or patient status is not found
+	 * @throws OHServiceException if the laboratories cannot be stored
+	 */
+	public List<Laboratory> insertAll(List<LabWithRowsDTO> labsWithRows) throws OHServiceException {
+		Map<Integer, Patient> patients = getPatients(labsWithRows);
+		List<Item> items = new ArrayList<>(labsWithRows.size());
+		for (int i = 0; i < labsWithRows.size(); i++) {
+			LabWithRowsDTO labWithRowsDTO = labsWithRows.get(i);
+			LaboratoryDTO laboratoryDTO = labWithRowsDTO == null ? null : labWithRowsDTO.getLaboratoryDTO();
+			if (laboratoryDTO == null) {
+				throw new IllegalArgumentException("Laboratory missing.");
+			}
+			Patient patient = patients.get(laboratoryDTO.getPatientCode());
+			if (patient == null) {
+				throw new IllegalArgumentException("Patient not found.");
+			}
+			Exam exam = laboratoryDTO.getExam() == null ? null : examCatalogue.getExam(laboratoryDTO.getExam().getCode());
+			if (exam == null) {
+				throw new IllegalArgumentException("Exam not found.");
+			}
+			if (laboratoryDTO.getInOutPatient() == null) {
+				throw new IllegalArgumentException("Patient status missing.");
+			}
+			items.add(new Item(i, labWithRowsDTO, patient, exam));
+		}
+		if (items.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<Laboratory> labsToInsert = new ArrayList<>(items.size());
+		List<List<LaboratoryRow>> labsRowsToInsert = new ArrayList<>(items.size());
+		toLaboratories(items, labsToInsert, labsRowsToInsert);
+		laboratoryManager.newLaboratory2(labsToInsert, labsRowsToInsert);
+		for (Laboratory labInserted : labsToInsert) {
+			eventPublisher.publishEvent(LaboratoryStatusChangedEvent.created(labInserted));
+		}
+		return labsToInsert;
+	}
+
+	private List<LaboratoryInsertResultDTO> insertChunk(int firstIndex, List<LabWithRowsDTO> chunk) throws OHServiceException {
+		if (chunk.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<Integer, Patient> patients = getPatients(chunk);
+		LaboratoryInsertResultDTO[] results = new LaboratoryInsertResultDTO[chunk.size()];
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < chunk.size(); i++) {
+			int index = firstIndex + i;
+			LabWithRowsDTO labWithRowsDTO = chunk.get(i);
+			LaboratoryDTO laboratoryDTO = labWithRowsDTO == null ? null : labWithRowsDTO.getLaboratoryDTO();
+			if (laboratoryDTO == null) {
+				results[i] = LaboratoryInsertResultDTO.rejected(index, "Laboratory missing.");
+				continue;
+			}
+			Patient patient = patients.get(laboratoryDTO.getPatientCode());
+			if (patient == null) {
+				results[i] = LaboratoryInsertResultDTO.rejected(index, "Patient not found.");
+				continue;
+			}
+			Exam exam = laboratoryDTO.getExam() == null ? null : examCatalogue.getExam(laboratoryDTO.getExam().getCode());
+			if (exam == null) {
+				results[i] = LaboratoryInsertResultDTO.rejected(index, "Exam not found.");
+				continue;
+			}
+			if (laboratoryDTO.getInOutPatient() == null) {
+				results[i] = LaboratoryInsertResultDTO.rejected(index, "Patient status missing.");
+				continue;
+			}
+			items.add(new Item(i, labWithRowsDTO, patient, exam));
+		}
+
+		if (!items.isEmpty()) {
+			store(firstIndex, items, results);
+		}
+		return List.of(results);
+	}
+
+	private void store(int firstIndex, List<Item> items, LaboratoryInsertResultDTO[] results) {
+		List<Laboratory> labsToInsert = new ArrayList<>(items.size());
+		List<List<LaboratoryRow>> labsRowsToInsert = new ArrayList<>(items.size());
+		toLaboratories(items, labsToInsert, labsRowsToInsert);
+		try {
+			laboratoryManager.newLaboratory2(labsToInsert, labsRowsToInsert);
+			for (int i = 0; i < items.size(); i++) {
+				Item item = items.get(i);
+				results[item.position] = LaboratoryInsertResultDTO.created(firstIndex + item.position, labsToInsert.get(i).getCode());
+				eventPublisher.publishEvent(LaboratoryStatusChangedEvent.created(labsToInsert.get(i)));
+			}
+			return;
+		} catch (OHServiceException e) {
+			LOGGER.info("{} laboratories not stored together, storing them one by one: {}", items.size(), message(e));
+		}
+		for (Item item : items) {
+			// the laboratories of the failed attempt may hold the codes assigned before the rollback
+			Laboratory labToInsert = item.toLaboratory();
+			try {
+				Laboratory labInserted = laboratoryManager.newLaboratory(labToInsert, new ArrayList<>(item.getRowDescriptions()));
+				results[item.position] = LaboratoryInsertResultDTO.created(firstIndex + item.position, labInserted.getCode());
+				eventPublisher.publishEvent(LaboratoryStatusChangedEvent.created(labInserted));
+			} catch (OHServiceException e) {
+				results[item.position] = LaboratoryInsertResultDTO.failed(firstIndex + item.position, message(e));
+			}
+		}
+	}
+
+	private static void toLaboratories(List<Item> items, List<Laboratory> labsToInsert, List<List<LaboratoryRow>> labsRowsToInsert) {
+		// newLaboratory2 takes the rows of the i-th laboratory at the same position, even when there are none
+		for (Item item : items) {
+			Laboratory labToInsert = item.toLaboratory();
+			labsToInsert.add(labToInsert);
+			labsRowsToInsert.add(item.getRowDescriptions().stream()
+							.map(rowDescription -> new LaboratoryRow(labToInsert, rowDescription))
+							.collect(Collectors.toList()));
+		}
+	}
+
+	private Map<Integer, Patient> getPatients(List<LabWithRowsDTO> chunk) {
+		List<Integer> codes = chunk.stream()
+						.filter(Objects::nonNull)
+						.map(LabWithRowsDTO::getLaboratoryDTO)
+						.filter(Objects::nonNull)
+						.map(LaboratoryDTO::getPatientCode)
+						.filter(Objects::nonNull)
+						.distinct()
+						.collect(Collectors.toList());
+		if (codes.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return entityManager.createQuery(PATIENTS_QUERY, Patient.class)
+						.setParameter("codes", codes)
+						.getResultList().stream()
+						.collect(Collectors.toMap(Patient::getCode, Function.identity()));
+	}
+
+	private static String message(OHServiceException e) {
+		return e.getMessages() == null || e.getMessages().isEmpty() ? e.getMessage() : e.getMessages().get(0).getMessage();
+	}
+
+	private final class Item {
+
+		/** The position of the item in its chunk. */
+		private final int position;
+
+		private final LabWithRowsDTO labWithRowsDTO;
+
+		private final Patient patient;
+
+		private final Exam exam;
+
+		private Item(int position, LabWithRowsDTO labWithRowsDTO, Patient patient, Exam exam) {
+			this.position = position;
+			this.labWithRowsDTO = labWithRowsDTO;
+			this.patient = patient;
+			this.exam = exam;
+		}
+
+		private Laboratory toLaboratory() {
+			LaboratoryDTO laboratoryDTO = labWithRowsDTO.getLaboratoryDTO();
+			Laboratory labToInsert = laboratoryMapper.map2Model(laboratoryDTO);
+			labToInsert.setExam(exam);
+			labToInsert.setPatient(patient);
+			labToInsert.setInOutPatient(laboratoryDTO.getInOutPatient().toString());
+			return labToInsert;
+		}
+
+		private List<String> getRowDescriptions() {
+			return labWithRowsDTO.getLaboratoryRowList() == null ? Collections.emptyList() : labWithRowsDTO.getLaboratoryRowList();
+		}
+	}
+}
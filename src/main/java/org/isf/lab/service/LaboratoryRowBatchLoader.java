@@ -0,0 +1,66 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.lab.model.LaboratoryRow;
+import org.isf.shared.query.InClauseBatches;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the {@link LaboratoryRow} descriptions of many laboratories at once, in place of one
+ * {@code LabManager.getLaboratoryRowList} call per laboratory.
+ * <p>
+ * Only the laboratory code and the description are selected, so that the rows are not loaded as entities together
+ * with their laboratory: the rows of a whole page of laboratories are read with a single statement.
+ */
+@Component
+public class LaboratoryRowBatchLoader {
+
+	private static final String ROW_DESCRIPTIONS_QUERY = "SELECT r.labId.code, r.description FROM LaboratoryRow r"
+					+ " WHERE r.labId.code IN :codes ORDER BY r.labId.code, r.code";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Returns the row descriptions of the specified laboratories, in the order the rows were inserted.
+	 *
+	 * @param laboratoryCodes the codes of the laboratories
+	 * @return the descriptions grouped by laboratory code, laboratories without rows are left out
+	 */
+	public Map<Integer, List<String>> getRowDescriptions(Collection<Integer> laboratoryCodes) {
+		Map<Integer, List<String>> descriptions = new LinkedHashMap<>();
+		for (Object[] row : InClauseBatches.getResultList(entityManager, ROW_DESCRIPTIONS_QUERY, Object[].class, "codes", laboratoryCodes)) {
+			descriptions.computeIfAbsent((Integer) row[0], code -> new ArrayList<>()).add((String) row[1]);
+		}
+		return descriptions;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import org.isf.lab.model.Laboratory;
+
+/**
+ * Published when the status of a {@link Laboratory} changes through the API, so that the subscribers of the
+ * {@link LaboratoryWorklistFeed} are told about it.
+ */
+public final class LaboratoryStatusChangedEvent {
+
+	private final Integer code;
+
+	private final Integer patientCode;
+
+	private final String examCode;
+
+	private final String previousStatus;
+
+	private final String status;
+
+	private LaboratoryStatusChangedEvent(Integer code, Integer patientCode, String examCode, String previousStatus, String status) {
+		this.code = code;
+		this.patientCode = patientCode;
+		this.examCode = examCode;
+		this.previousStatus = previousStatus;
+		this.status = status;
+	}
+
+	/**
+	 * @param laboratory the laboratory, with the status it had before the change
+	 * @param status the new status
+	 */
+	public static LaboratoryStatusChangedEvent of(Laboratory laboratory, String status) {
+		return new LaboratoryStatusChangedEvent(laboratory.getCode(), laboratory.getPatient() != null ? laboratory.getPatient().getCode() : null,
+						laboratory.getExam() != null ? laboratory.getExam().getCode() : null, laboratory.getStatus(), status);
+	}
+
+	/**
+	 * @param laboratory the newly created laboratory
+	 */
+	public static LaboratoryStatusChangedEvent created(Laboratory laboratory) {
+		return new LaboratoryStatusChangedEvent(laboratory.getCode(), laboratory.getPatient() != null ? laboratory.getPatient().getCode() : null,
+						laboratory.getExam() != null ? laboratory.getExam().getCode() : null, null, laboratory.getStatus());
+	}
+
+	public Integer getCode() {
+		return code;
+	}
+
+	public Integer getPatientCode() {
+		return patientCode;
+	}
+
+	public String getExamCode() {
+		return examCode;
+	}
+
+	public String getPreviousStatus() {
+		return previousStatus;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	@Override
+	public String toString() {
+		return "laboratory " + code + ' ' + previousStatus + " -> " + status;
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import java.util.List;
+import java.util.Locale;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.lab.model.Laboratory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores the status of the {@link Laboratory}s in lower case, the form of {@code LaboratoryStatus} written by the
+ * application, once the application is ready: older data holds the statuses in upper or mixed case, used to be matched
+ * ignoring case. {@link LaboratoryStatusQuery} then compares the status column as it is.
+ * <p>
+ * Each status found in another case is updated by a single statement. On a case insensitive collation, where the column
+ * compares equal to its lower case form anyway, the statement updates nothing.
+ */
+@Component
+public class LaboratoryStatusNormalizer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LaboratoryStatusNormalizer.class);
+
+	private static final String STATUSES_QUERY = "SELECT DISTINCT lab.status FROM Laboratory lab WHERE lab.status IS NOT NULL";
+
+	private static final String NORMALIZE_QUERY = "UPDATE Laboratory lab SET lab.status = :normalized WHERE lab.status = :status AND lab.status <> :normalized";
+
+	private final TransactionTemplate transactionTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	public LaboratoryStatusNormalizer(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		int count = normalize();
+		if (count > 0) {
+			LOGGER.info("Laboratory status stored in lower case for {} laboratories.", count);
+		}
+	}
+
+	/**
+	 * Updates the laboratories whose status is not in lower case.
+	 *
+	 * @return the number of laboratories updated
+	 */
+	public int normalize() {
+		Integer count = transactionTemplate.execute(transactionStatus -> {
+			int updated = 0;
+			List<String> statuses = entityManager.createQuery(STATUSES_QUERY, String.class).getResultList();
+			for (String status : statuses) {
+				String normalized = status.toLowerCase(Locale.ROOT);
+				if (!normalized.equals(status)) {
+					updated += entityManager.createQuery(NORMALIZE_QUERY)
+									.setParameter("normalized", normalized)
+									.setParameter("status", status)
+									.executeUpdate();
+				}
+			}
+			return updated;
+		});
+		return count != null ? count : 0;
+	}
+}
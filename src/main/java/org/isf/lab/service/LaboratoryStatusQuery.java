@@ -0,0 +1,190 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import org.isf.lab.model.Laboratory;
+import org.isf.patient.model.Patient;
+import org.isf.utils.pagination.PageInfo;
+import org.isf.utils.pagination.PagedResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the {@link Laboratory}s having one of the specified statuses, with the status predicate part of the query
+ * (and of the count of a page) in place of filtering the laboratories returned by {@code LabManager}.
+ * <p>
+ * The statuses are matched in lower case, the form of {@code LaboratoryStatus} stored by the application, older data in
+ * another case being stored in lower case by {@link LaboratoryStatusNormalizer} at startup, so that the laboratories
+ * used to be filtered ignoring case are still found. The column is compared as it is, leaving an index on it usable.
+ * The laboratories are returned from the most recent.
+ */
+@Component
+public class LaboratoryStatusQuery {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Returns a page of the laboratories with the specified statuses matching the other filters.
+	 *
+	 * @param examDescription the description of the exam, {@code null} for all the exams
+	 * @param dateFrom the lowest laboratory date, included
+	 * @param dateTo the highest laboratory date, included
+	 * @param patient the patient, {@code null} for all the patients
+	 * @param statuses the statuses
+	 * @param page the index of the page, starting from {@code 0}
+	 * @param size the size of the page
+	 * @return the page of {@link Laboratory}s, the page information counts only the laboratories with the statuses
+	 */
+	public PagedResponse<Laboratory> getLaboratoryPageable(String examDescription, LocalDateTime dateFrom, LocalDateTime dateTo,
+					Patient patient, Collection<String> statuses, int page, int size) {
+		Filter filter = new Filter(statuses).labDateBetween(dateFrom, dateTo).examDescription(examDescription).patient(patient);
+		return filter.page(page, size);
+	}
+
+	/**
+	 * Returns a page of the laboratories with the specified statuses.
+	 *
+	 * @param statuses the statuses
+	 * @param page the index of the page, starting from {@code 0}
+	 * @param size the size of the page
+	 * @return the page of {@link Laboratory}s, the page information counts only the laboratories with the statuses
+	 */
+	public PagedResponse<Laboratory> getLaboratoryPageable(Collection<String> statuses, int page, int size) {
+		return new Filter(statuses).page(page, size);
+	}
+
+	/**
+	 * Returns the laboratories of the specified patient with the specified statuses.
+	 *
+	 * @param patient the patient
+	 * @param statuses the statuses
+	 * @return the {@link List} of {@link Laboratory}s, empty if there are none
+	 */
+	public List<Laboratory> getLaboratory(Patient patient, Collection<String> statuses) {
+		return new Filter(statuses).patient(patient).select().getResultList();
+	}
+
+	/**
+	 * Returns the laboratories dated within the specified range with the specified statuses.
+	 *
+	 * @param dateFrom the lowest laboratory date, included
+	 * @param dateTo the highest laboratory date, included
+	 * @param statuses the statuses
+	 * @return the {@link List} of {@link Laboratory}s, empty if there are none
+	 */
+	public List<Laboratory> getLaboratory(LocalDateTime dateFrom, LocalDateTime dateTo, Collection<String> statuses) {
+		return new Filter(statuses).labDateBetween(dateFrom, dateTo).select().getResultList();
+	}
+
+	/**
+	 * The {@code WHERE} clause of a query on the laboratories and its parameters.
+	 */
+	private final class Filter {
+
+		private final StringJoiner where = new StringJoiner(" AND ", " WHERE ", "");
+
+		private final Map<String, Object> parameters = new TreeMap<>();
+
+		private Filter(Collection<String> statuses) {
+			where.add("lab.status IN :statuses");
+			parameters.put("statuses", statuses.stream()
+							.map(status -> status.toLowerCase(Locale.ROOT))
+							.distinct()
+							.toList());
+		}
+
+		private Filter labDateBetween(LocalDateTime dateFrom, LocalDateTime dateTo) {
+			where.add("lab.labDate BETWEEN :dateFrom AND :dateTo");
+			parameters.put("dateFrom", dateFrom);
+			parameters.put("dateTo", dateTo);
+			return this;
+		}
+
+		private Filter examDescription(String examDescription) {
+			if (examDescription != null) {
+				where.add("lab.exam.description = :examDescription");
+				parameters.put("examDescription", examDescription);
+			}
+			return this;
+		}
+
+		private Filter patient(Patient patient) {
+			if (patient != null) {
+				where.add("lab.patient.code = :patientCode");
+				parameters.put("patientCode", patient.getCode());
+			}
+			return this;
+		}
+
+		private PagedResponse<Laboratory> page(int page, int size) {
+			PageRequest pageRequest = PageRequest.of(page, size);
+			List<Laboratory> laboratories = select()
+							.setFirstResult((int) pageRequest.getOffset())
+							.setMaxResults(pageRequest.getPageSize())
+							.getResultList();
+			// the count is skipped when the page alone tells the total
+			Page<Laboratory> laboratoryPage = PageableExecutionUtils.getPage(laboratories, pageRequest, this::count);
+
+			PageInfo pageInfo = new PageInfo();
+			pageInfo.setPage(laboratoryPage.getNumber());
+			pageInfo.setSize(laboratoryPage.getSize());
+			pageInfo.setNbOfElements(laboratoryPage.getNumberOfElements());
+			pageInfo.setTotalNbOfElements(laboratoryPage.getTotalElements());
+			pageInfo.setTotalPages(laboratoryPage.getTotalPages());
+			pageInfo.setHasPreviousPage(laboratoryPage.hasPrevious());
+			pageInfo.setHasNextPage(laboratoryPage.hasNext());
+			PagedResponse<Laboratory> response = new PagedResponse<>();
+			response.setData(laboratories);
+			response.setPageInfo(pageInfo);
+			return response;
+		}
+
+		private TypedQuery<Laboratory> select() {
+			return bind(entityManager.createQuery("SELECT lab FROM Laboratory lab" + where + " ORDER BY lab.labDate DESC, lab.code DESC",
+							Laboratory.class));
+		}
+
+		private long count() {
+			return bind(entityManager.createQuery("SELECT COUNT(lab) FROM Laboratory lab" + where, Long.class)).getSingleResult();
+		}
+
+		private <T> TypedQuery<T> bind(TypedQuery<T> query) {
+			parameters.forEach(query::setParameter);
+			return query;
+		}
+	}
+}
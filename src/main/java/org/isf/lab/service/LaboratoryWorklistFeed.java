@@ -0,0 +1,181 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+
+import org.isf.lab.dto.LaboratoryStatusChangeDTO;
+import org.isf.lab.model.LaboratoryStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Server-Sent Events feed of the laboratory status changes, so that the worklist screens can refresh on change
+ * instead of polling the laboratories.
+ * <p>
+ * Every {@link LaboratoryStatusChangedEvent} is sent as a {@value #EVENT_NAME} event carrying a
+ * {@link LaboratoryStatusChangeDTO}, with an increasing id. Events are not replayed: a client reconnecting after
+ * a timeout or a network error reloads its worklist page. Events and heartbeat comments are written by a dedicated
+ * thread, so that a change is never delayed by the subscribers.
+ */
+@Component
+public class LaboratoryWorklistFeed {
+
+	public static final String EVENT_NAME = "status";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LaboratoryWorklistFeed.class);
+
+	private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+	private final AtomicLong eventId = new AtomicLong();
+
+	private final ScheduledExecutorService executor;
+
+	private final long timeoutMillis;
+
+	private final int maxSubscribers;
+
+	/**
+	 * @param timeoutMillis the time after which a subscription is closed, the client is expected to reconnect
+	 * @param maxSubscribers the maximum number of open subscriptions
+	 * @param heartbeatSeconds the interval of the comments keeping idle subscriptions open, {@code 0} sends none
+	 */
+	public LaboratoryWorklistFeed(ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${laboratory.worklist-feed.timeout-ms:1800000}") long timeoutMillis,
+					@Value("${laboratory.worklist-feed.max-subscribers:256}") int maxSubscribers,
+					@Value("${laboratory.worklist-feed.heartbeat-seconds:15}") long heartbeatSeconds) {
+		this.timeoutMillis = timeoutMillis;
+		this.maxSubscribers = maxSubscribers;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("laboratory-worklist-feed-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		if (heartbeatSeconds > 0) {
+			executor.scheduleAtFixedRate(() -> broadcast(() -> SseEmitter.event().comment("heartbeat")), heartbeatSeconds, heartbeatSeconds,
+							TimeUnit.SECONDS);
+		}
+		meterRegistry.ifAvailable(registry -> Gauge.builder("oh.laboratory.worklist.subscribers", subscribers, List::size).register(registry));
+	}
+
+	/**
+	 * Opens a subscription to the feed.
+	 *
+	 * @return the {@link SseEmitter} of the subscription, or {@code null} if there are already too many subscribers
+	 */
+	public SseEmitter subscribe() {
+		if (subscribers.size() >= maxSubscribers) {
+			LOGGER.warn("Laboratory worklist subscription refused, {} subscriptions are open.", subscribers.size());
+			return null;
+		}
+		SseEmitter emitter = new SseEmitter(timeoutMillis);
+		emitter.onCompletion(() -> subscribers.remove(emitter));
+		emitter.onTimeout(() -> subscribers.remove(emitter));
+		emitter.onError(error -> subscribers.remove(emitter));
+		subscribers.add(emitter);
+		return emitter;
+	}
+
+	@EventListener
+	public void onLaboratoryStatusChanged(LaboratoryStatusChangedEvent event) {
+		if (subscribers.isEmpty()) {
+			return;
+		}
+		LOGGER.debug("Sending the change of {} to {} subscribers.", event, subscribers.size());
+		LaboratoryStatusChangeDTO change = toDTO(event);
+		long id = eventId.incrementAndGet();
+		try {
+			executor.execute(() -> broadcast(() -> SseEmitter.event()
+							.id(Long.toString(id))
+							.name(EVENT_NAME)
+							.data(change, MediaType.APPLICATION_JSON)));
+		} catch (RejectedExecutionException e) {
+			LOGGER.debug("Laboratory worklist feed stopped, change of {} not sent.", event);
+		}
+	}
+
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	private void broadcast(Supplier<SseEventBuilder> event) {
+		for (SseEmitter emitter : subscribers) {
+			try {
+				// a builder is consumed when sent, so every subscriber gets its own
+				emitter.send(event.get());
+			} catch (IOException | IllegalStateException e) {
+				// the client went away: the container completes the emitter
+				LOGGER.debug("Laboratory worklist subscriber dropped: {}", e.getMessage());
+				subscribers.remove(emitter);
+			}
+		}
+	}
+
+	private static LaboratoryStatusChangeDTO toDTO(LaboratoryStatusChangedEvent event) {
+		LaboratoryStatusChangeDTO change = new LaboratoryStatusChangeDTO();
+		change.setCode(event.getCode());
+		change.setPatientCode(event.getPatientCode());
+		change.setExamCode(event.getExamCode());
+		change.setPreviousStatus(toStatus(event.getPreviousStatus()));
+		change.setStatus(toStatus(event.getStatus()));
+		return change;
+	}
+
+	private static LaboratoryStatus toStatus(String status) {
+		if (status == null) {
+			return null;
+		}
+		try {
+			return LaboratoryStatus.valueOf(status.toLowerCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			LOGGER.debug("Unknown laboratory status '{}'.", status);
+			return null;
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+		subscribers.forEach(SseEmitter::complete);
+		subscribers.clear();
+	}
+}
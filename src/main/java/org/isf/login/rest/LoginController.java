@@ -21,9 +21,6 @@
  */
 package org.isf.login.rest;
 
-import java.time.LocalDateTime;
-
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 
 import org.isf.login.dto.LoginRequest;
@@ -32,16 +29,13 @@ import org.isf.login.dto.TokenRefreshRequest;
 import org.isf.menu.manager.UserBrowsingManager;
 import org.isf.menu.model.User;
 import org.isf.security.CustomAuthenticationManager;
+import org.isf.security.SessionAuditWriter;
 import org.isf.security.jwt.TokenProvider;
 import org.isf.security.jwt.TokenValidationResult;
-import org.isf.sessionaudit.manager.SessionAuditManager;
-import org.isf.sessionaudit.model.SessionAudit;
 import org.isf.sessionaudit.model.UserSession;
 import org.isf.shared.exceptions.OHAPIException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -60,9 +54,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @SecurityRequirement(name = "bearerAuth")
 public class LoginController {
 
-	private HttpSession httpSession;
-
-	private SessionAuditManager sessionAuditManager;
+	private SessionAuditWriter sessionAuditWriter;
 
 	private TokenProvider tokenProvider;
 
@@ -70,15 +62,11 @@ public class LoginController {
 
 	private UserBrowsingManager userManager;
 
-	private static final Logger LOGGER = LoggerFactory.getLogger(LoginController.class);
-
-	public LoginController(HttpSession httpSession,
-					SessionAuditManager sessionAuditManager,
+	public LoginController(SessionAuditWriter sessionAuditWriter,
 					TokenProvider tokenProvider,
 					CustomAuthenticationManager authenticationManager,
 					UserBrowsingManager userManager) {
-		this.httpSession = httpSession;
-		this.sessionAuditManager = sessionAuditManager;
+		this.sessionAuditWriter = sessionAuditWriter;
 		this.tokenProvider = tokenProvider;
 		this.authenticationManager = authenticationManager;
 		this.userManager = userManager;
@@ -89,10 +77,11 @@ public class LoginController {
 		Authentication authentication = authenticationManager.authenticate(
 						new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
 		SecurityContextHolder.getContext().setAuthentication(authentication);
-		String jwt = tokenProvider.generateJwtToken(authentication, false); // use the shorter validity
-		String refreshToken = tokenProvider.generateRefreshToken(authentication);
-
 		String userDetails = (String) authentication.getPrincipal();
+		String sessionId = sessionAuditWriter.login(userDetails);
+		String jwt = tokenProvider.generateJwtToken(authentication, false, sessionId); // use the shorter validity
+		String refreshToken = tokenProvider.generateRefreshToken(authentication, sessionId);
+
 		User user;
 		try {
 			user = userManager.getUserByName(loginRequest.getUsername());
@@ -101,13 +90,6 @@ public class LoginController {
 			e.printStackTrace();
 		}
 
-		try {
-			this.httpSession.setAttribute("sessionAuditId",
-							sessionAuditManager.newSessionAudit(new SessionAudit(userDetails, LocalDateTime.now(), null)));
-		} catch (OHServiceException e1) {
-			LOGGER.error("Unable to log user login in the session_audit table");
-		}
-
 		return ResponseEntity.ok(new LoginResponse(jwt, refreshToken, userDetails));
 	}
 
@@ -118,9 +100,10 @@ public class LoginController {
 		try {
 			if (tokenProvider.validateToken(refreshToken) == TokenValidationResult.VALID) {
 				String username = tokenProvider.getUsernameFromToken(refreshToken);
+				String sessionId = tokenProvider.getSessionIdFromToken(refreshToken);
 				Authentication authentication = tokenProvider.getAuthenticationByUsername(username);
-				String newAccessToken = tokenProvider.generateJwtToken(authentication, false);
-				String newRefreshToken = tokenProvider.generateRefreshToken(authentication);
+				String newAccessToken = tokenProvider.generateJwtToken(authentication, false, sessionId);
+				String newRefreshToken = tokenProvider.generateRefreshToken(authentication, sessionId);
 
 				return ResponseEntity.ok(new LoginResponse(newAccessToken, newRefreshToken, username));
 			} else {
@@ -0,0 +1,68 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.opd.mapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.isf.opd.dto.OpdWithOperationRowDTO;
+import org.isf.opd.model.Opd;
+import org.isf.operation.mapper.OperationRowMapper;
+import org.isf.operation.model.OperationRow;
+import org.isf.operation.service.OperationRowBatchLoader;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the {@link OpdWithOperationRowDTO}s returned by the OPD endpoints, reading the operation rows of all the
+ * OPDs of a list with the {@link OperationRowBatchLoader}.
+ */
+@Component
+public class OpdWithOperationRowAssembler {
+
+	private final OpdMapper opdMapper;
+
+	private final OperationRowMapper operationRowMapper;
+
+	private final OperationRowBatchLoader operationRowLoader;
+
+	public OpdWithOperationRowAssembler(OpdMapper opdMapper, OperationRowMapper operationRowMapper, OperationRowBatchLoader operationRowLoader) {
+		this.opdMapper = opdMapper;
+		this.operationRowMapper = operationRowMapper;
+		this.operationRowLoader = operationRowLoader;
+	}
+
+	public OpdWithOperationRowDTO map2DTO(Opd opd) {
+		return map2DTOList(List.of(opd)).get(0);
+	}
+
+	public List<OpdWithOperationRowDTO> map2DTOList(List<Opd> opds) {
+		List<Integer> codes = opds.stream().map(Opd::getCode).collect(Collectors.toList());
+		Map<Integer, List<OperationRow>> operationRows = codes.isEmpty() ? Map.of() : operationRowLoader.getOperationRowsByOpd(codes);
+		return opds.stream().map(opd -> {
+			OpdWithOperationRowDTO opdWithOperationRowDTO = new OpdWithOperationRowDTO();
+			opdWithOperationRowDTO.setOpdDTO(opdMapper.map2DTO(opd));
+			opdWithOperationRowDTO.setOperationRows(operationRowMapper.map2DTOList(operationRows.getOrDefault(opd.getCode(), List.of())));
+			return opdWithOperationRowDTO;
+		}).collect(Collectors.toList());
+	}
+}
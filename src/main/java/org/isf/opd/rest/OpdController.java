@@ -32,9 +32,9 @@ import org.isf.opd.dto.OpdDTO;
 import org.isf.opd.dto.OpdWithOperationRowDTO;
 import org.isf.opd.manager.OpdBrowserManager;
 import org.isf.opd.mapper.OpdMapper;
+import org.isf.opd.mapper.OpdWithOperationRowAssembler;
 import org.isf.opd.model.Opd;
-import org.isf.operation.dto.OperationRowDTO;
-import org.isf.operation.manager.OperationRowBrowserManager;
+import org.isf.opd.service.OpdWithOperationRowWriter;
 import org.isf.operation.mapper.OperationRowMapper;
 import org.isf.operation.model.OperationRow;
 import org.isf.patient.manager.PatientBrowserManager;
@@ -85,9 +85,6 @@ public class OpdController {
 	@Autowired
 	protected PatientBrowserManager patientManager;
 	
-	@Autowired
-	protected OperationRowBrowserManager operationRowManager;
-	
 	@Autowired
 	protected OperationRowMapper opRowMapper;
 	
@@ -97,15 +94,23 @@ public class OpdController {
 	@Autowired
     protected DiseaseTypeBrowserManager diseaseTypeManager;
 
-	public OpdController(OpdBrowserManager opdManager, OpdMapper opdmapper, PatientBrowserManager patientManager, OperationRowBrowserManager 
-			operationRowManager, OperationRowMapper opRowMapper, WardBrowserManager wardManager, DiseaseTypeBrowserManager diseaseTypeManager) {
+	@Autowired
+	protected OpdWithOperationRowAssembler opdWithOperationRowAssembler;
+
+	@Autowired
+	protected OpdWithOperationRowWriter opdWithOperationRowWriter;
+
+	public OpdController(OpdBrowserManager opdManager, OpdMapper opdmapper, PatientBrowserManager patientManager,
+			OperationRowMapper opRowMapper, WardBrowserManager wardManager, DiseaseTypeBrowserManager diseaseTypeManager,
+			OpdWithOperationRowAssembler opdWithOperationRowAssembler, OpdWithOperationRowWriter opdWithOperationRowWriter) {
 		this.opdManager = opdManager;
 		this.mapper = opdmapper;
 		this.patientManager = patientManager;
-		this.operationRowManager = operationRowManager;
 		this.opRowMapper = opRowMapper;
 		this.wardManager = wardManager;
 		this.diseaseTypeManager = diseaseTypeManager;
+		this.opdWithOperationRowAssembler = opdWithOperationRowAssembler;
+		this.opdWithOperationRowWriter = opdWithOperationRowWriter;
 	}
 
 	/**
@@ -154,21 +159,18 @@ public class OpdController {
 		}
 		Opd opdToInsert = mapper.map2Model(opdWithOperationRowDTO.getOpdDTO());
 		opdToInsert.setPatient(patient);
-		Opd isCreatedOpd = opdManager.newOpd(opdToInsert);
-		if (isCreatedOpd == null) {
-			throw new OHAPIException(new OHExceptionMessage("Opd not created."));
+		List<OperationRow> operationRows = opRowMapper.map2ModelList(opdWithOperationRowDTO.getOperationRows());
+		OpdWithOperationRowWriter.Result created;
+		try {
+			created = opdWithOperationRowWriter.newOpd(opdToInsert, operationRows);
+		} catch (IllegalArgumentException e) {
+			throw new OHAPIException(new OHExceptionMessage(e.getMessage()));
 		}
-		OpdDTO opdDTO = mapper.map2DTO(isCreatedOpd);
-		opdWithOperatioRow.setOpdDTO(opdDTO);
-		List<OperationRowDTO> listOp = new ArrayList<>();
-		if (!opdWithOperationRowDTO.getOperationRows().isEmpty()) {
-			for (OperationRowDTO operationRow : opdWithOperationRowDTO.getOperationRows()) {
-				operationRow.setOpd(opdDTO);
-				OperationRow createOpeRow = operationRowManager.newOperationRow(opRowMapper.map2Model(operationRow));
-				listOp.add(opRowMapper.map2DTO(createOpeRow));
-			}
+		if (created == null) {
+			throw new OHAPIException(new OHExceptionMessage("Opd not created."));
 		}
-		opdWithOperatioRow.setOperationRows(listOp);
+		opdWithOperatioRow.setOpdDTO(mapper.map2DTO(created.getOpd()));
+		opdWithOperatioRow.setOperationRows(opRowMapper.map2DTOList(created.getOperationRows()));
 		return ResponseEntity.status(HttpStatus.CREATED).body(opdWithOperatioRow);
 	}
 	
@@ -231,27 +233,18 @@ public class OpdController {
 
 		Opd opdToUpdate = mapper.map2Model(opdWithOperationRowDTO.getOpdDTO());
 		opdToUpdate.setLock(opdWithOperationRowDTO.getOpdDTO().getLock());
-		Opd updatedOpd = opdManager.updateOpd(opdToUpdate);
-		if (updatedOpd == null) {
-			throw new OHAPIException(new OHExceptionMessage("Opd not updated."));
+		List<OperationRow> operationRows = opRowMapper.map2ModelList(opdWithOperationRowDTO.getOperationRows());
+		OpdWithOperationRowWriter.Result updated;
+		try {
+			updated = opdWithOperationRowWriter.updateOpd(opdToUpdate, operationRows);
+		} catch (IllegalArgumentException e) {
+			throw new OHAPIException(new OHExceptionMessage(e.getMessage()));
 		}
-		OpdDTO opdDTO = mapper.map2DTO(updatedOpd);
-		opdWithOperatioRow.setOpdDTO(opdDTO);
-		List<OperationRowDTO> listOpeRow = new ArrayList<>();
-		if (!opdWithOperationRowDTO.getOperationRows().isEmpty()) {
-			for (OperationRowDTO operationRow : opdWithOperationRowDTO.getOperationRows()) {
-				operationRow.setOpd(opdDTO);
-				OperationRow updateOpeRow;
-				if (operationRow.getId() == 0) {
-					updateOpeRow = operationRowManager.newOperationRow(opRowMapper.map2Model(operationRow));
-				} else {
-					updateOpeRow = operationRowManager.updateOperationRow(opRowMapper.map2Model(operationRow));
-				}
-				
-				listOpeRow.add(opRowMapper.map2DTO(updateOpeRow));
-			}
+		if (updated == null) {
+			throw new OHAPIException(new OHExceptionMessage("Opd not updated."));
 		}
-		opdWithOperatioRow.setOperationRows(listOpeRow);
+		opdWithOperatioRow.setOpdDTO(mapper.map2DTO(updated.getOpd()));
+		opdWithOperatioRow.setOperationRows(opRowMapper.map2DTOList(updated.getOperationRows()));
 		return ResponseEntity.status(HttpStatus.OK).body(opdWithOperatioRow);
 	}
 	
@@ -347,33 +340,10 @@ public class OpdController {
 		LOGGER.info("Get opd associated to specified patient CODE: {}", pcode);
 
 		List<Opd> opds = opdManager.getOpdList(pcode);
-		List<OpdWithOperationRowDTO> opdWithOperations = new ArrayList<>();
-		if (!opds.isEmpty()) {
-			opdWithOperations = opds.stream().map(opd -> {
-				OpdWithOperationRowDTO opRows = new OpdWithOperationRowDTO();
-				opRows.setOpdDTO(mapper.map2DTO(opd));
-				List<OperationRow> listOp = new ArrayList<>();
-				try {
-					listOp = operationRowManager.getOperationRowByOpd(opd);
-				} catch (OHServiceException e) {
-					// TODO Auto-generated catch block
-					LOGGER.error("Unable to get the List of operation associate to this Opd");
-				}
-				if (!listOp.isEmpty()) {
-					opRows.setOperationRows(opRowMapper.map2DTOList(listOp));
-				} else {
-					opRows.setOperationRows(new ArrayList<>());
-				}
-					
-				return opRows;
-			}).collect(Collectors.toList());
-			return ResponseEntity.ok(opdWithOperations);
-
-		} else {
-
-			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(opdWithOperations);
-
+		if (opds.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new ArrayList<>());
 		}
+		return ResponseEntity.ok(opdWithOperationRowAssembler.map2DTOList(opds));
 	}
 
 	/**
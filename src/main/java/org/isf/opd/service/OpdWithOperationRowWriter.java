@@ -0,0 +1,256 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.opd.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.isf.opd.manager.OpdBrowserManager;
+import org.isf.opd.model.Opd;
+import org.isf.operation.model.Operation;
+import org.isf.operation.model.OperationRow;
+import org.isf.utils.exception.OHServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores an {@link Opd} together with its {@link OperationRow}s in one transaction, in place of one
+ * {@code OperationRowBrowserManager} call, and one transaction, per row: a failure leaves neither the OPD nor any of
+ * its rows stored.
+ * <p>
+ * The operations of the rows, and the rows updated, are read with one query each before anything is written, so that an
+ * unknown operation or row is refused up front. The rows are then written with JDBC batches of the configured size.
+ */
+@Component
+public class OpdWithOperationRowWriter {
+
+	private static final String OPERATIONS_QUERY = "SELECT ope FROM Operation ope LEFT JOIN FETCH ope.type WHERE ope.code IN :codes";
+
+	private static final String OPERATION_ROWS_QUERY = "SELECT r FROM OperationRow r WHERE r.id IN :ids";
+
+	private final OpdBrowserManager opdManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int batchSize;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * @param batchSize the number of operation rows written by a single JDBC batch
+	 */
+	public OpdWithOperationRowWriter(OpdBrowserManager opdManager, PlatformTransactionManager transactionManager,
+					@Value("${opd.operation-rows.batch-size:50}") int batchSize) {
+		this.opdManager = opdManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = Math.max(batchSize, 1);
+	}
+
+	/**
+	 * Stores a new OPD and its operation rows.
+	 *
+	 * @param opd the OPD
+	 * @param operationRows the new rows of the OPD
+	 * @return the OPD and the rows stored, {@code null} if the OPD is not stored
+	 * @throws IllegalArgumentException if the operation of a row is missing or unknown, or if a row has an id
+	 * @throws OHServiceException if the OPD is not valid
+	 */
+	public Result newOpd(Opd opd, List<OperationRow> operationRows) throws OHServiceException {
+		for (OperationRow operationRow : operationRows) {
+			if (operationRow.getId() != 0) {
+				throw new IllegalArgumentException("Operation row " + operationRow.getId() + " is already stored.");
+			}
+		}
+		return write(operationRows, Map::of, () -> opdManager.newOpd(opd));
+	}
+
+	/**
+	 * Updates an OPD, updates its operation rows having an id and stores the ones without.
+	 *
+	 * @param opd the OPD
+	 * @param operationRows the rows of the OPD
+	 * @return the OPD and the rows stored, {@code null} if the OPD is not updated
+	 * @throws IllegalArgumentException if the operation of a row is missing or unknown, or if a row with an id is
+	 * unknown or belongs to another OPD
+	 * @throws OHServiceException if the OPD is not valid
+	 */
+	public Result updateOpd(Opd opd, List<OperationRow> operationRows) throws OHServiceException {
+		return write(operationRows, () -> getStoredRows(opd, operationRows), () -> opdManager.updateOpd(opd));
+	}
+
+	private Result write(List<OperationRow> operationRows, Supplier<Map<Integer, OperationRow>> storedRowsReader, OpdWrite opdWrite)
+					throws OHServiceException {
+		try {
+			return transactionTemplate.execute(status -> {
+				// everything is read, and checked, before the first write
+				Map<String, Operation> operations = getOperations(operationRows);
+				Map<Integer, OperationRow> storedRows = storedRowsReader.get();
+				Opd storedOpd;
+				try {
+					storedOpd = opdWrite.write();
+				} catch (OHServiceException e) {
+					throw new OpdWriteException(e);
+				}
+				if (storedOpd == null) {
+					status.setRollbackOnly();
+					return null;
+				}
+				return new Result(storedOpd, writeRows(storedOpd, operationRows, operations, storedRows));
+			});
+		} catch (OpdWriteException e) {
+			throw e.getCause();
+		}
+	}
+
+	private List<OperationRow> writeRows(Opd opd, List<OperationRow> operationRows, Map<String, Operation> operations,
+					Map<Integer, OperationRow> storedRows) {
+		List<OperationRow> written = new ArrayList<>(operationRows.size());
+		Session session = entityManager.unwrap(Session.class);
+		Integer previousBatchSize = session.getJdbcBatchSize();
+		session.setJdbcBatchSize(batchSize);
+		try {
+			for (OperationRow operationRow : operationRows) {
+				operationRow.setOpd(opd);
+				operationRow.setOperation(operations.get(operationRow.getOperation().getCode()));
+				if (!storedRows.containsKey(operationRow.getId())) {
+					entityManager.persist(operationRow);
+					written.add(operationRow);
+				} else {
+					written.add(entityManager.merge(operationRow));
+				}
+			}
+			entityManager.flush();
+		} finally {
+			session.setJdbcBatchSize(previousBatchSize);
+		}
+		return written;
+	}
+
+	private Map<String, Operation> getOperations(List<OperationRow> operationRows) {
+		List<String> codes = new ArrayList<>();
+		for (OperationRow operationRow : operationRows) {
+			if (operationRow.getOperation() == null || operationRow.getOperation().getCode() == null) {
+				throw new IllegalArgumentException("Operation missing.");
+			}
+			codes.add(operationRow.getOperation().getCode());
+		}
+		if (codes.isEmpty()) {
+			return Map.of();
+		}
+		Map<String, Operation> operations = entityManager.createQuery(OPERATIONS_QUERY, Operation.class)
+						.setParameter("codes", codes.stream().distinct().toList())
+						.getResultList().stream()
+						.collect(Collectors.toMap(Operation::getCode, Function.identity()));
+		for (String code : codes) {
+			if (!operations.containsKey(code)) {
+				throw new IllegalArgumentException("Operation " + code + " not found.");
+			}
+		}
+		return operations;
+	}
+
+	private Map<Integer, OperationRow> getStoredRows(Opd opd, List<OperationRow> operationRows) {
+		List<Integer> ids = operationRows.stream()
+						.map(OperationRow::getId)
+						.filter(id -> id != 0)
+						.distinct()
+						.toList();
+		if (ids.isEmpty()) {
+			return Map.of();
+		}
+		Map<Integer, OperationRow> storedRows = entityManager.createQuery(OPERATION_ROWS_QUERY, OperationRow.class)
+						.setParameter("ids", ids)
+						.getResultList().stream()
+						.collect(Collectors.toMap(OperationRow::getId, Function.identity()));
+		for (Integer id : ids) {
+			OperationRow storedRow = storedRows.get(id);
+			if (storedRow == null) {
+				throw new IllegalArgumentException("Operation row " + id + " not found.");
+			}
+			if (storedRow.getOpd() == null || storedRow.getOpd().getCode() != opd.getCode()) {
+				throw new IllegalArgumentException("Operation row " + id + " belongs to another OPD.");
+			}
+		}
+		return storedRows;
+	}
+
+	@FunctionalInterface
+	private interface OpdWrite {
+
+		Opd write() throws OHServiceException;
+	}
+
+	/**
+	 * Carries the {@link OHServiceException} of the OPD write out of the transaction callback, which rolls back.
+	 */
+	private static final class OpdWriteException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		OpdWriteException(OHServiceException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized OHServiceException getCause() {
+			return (OHServiceException) super.getCause();
+		}
+	}
+
+	/**
+	 * The OPD and the operation rows stored by {@link OpdWithOperationRowWriter}.
+	 */
+	public static final class Result {
+
+		private final Opd opd;
+
+		private final List<OperationRow> operationRows;
+
+		public Result(Opd opd, List<OperationRow> operationRows) {
+			this.opd = Objects.requireNonNull(opd);
+			this.operationRows = List.copyOf(operationRows);
+		}
+
+		public Opd getOpd() {
+			return opd;
+		}
+
+		/**
+		 * Returns the rows stored, in the order they were passed.
+		 */
+		public List<OperationRow> getOperationRows() {
+			return operationRows;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.operation.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.operation.model.OperationRow;
+import org.isf.shared.query.InClauseBatches;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the {@link OperationRow}s of many OPDs at once, in place of one
+ * {@code OperationRowBrowserManager.getOperationRowByOpd} call per OPD.
+ * <p>
+ * The operations and their types are fetched with the rows, so that once the OPDs themselves are loaded their
+ * rows cost no further statement per OPD, nor per operation.
+ */
+@Component
+public class OperationRowBatchLoader {
+
+	private static final String ROWS_BY_OPD_QUERY = "SELECT r.opd.code, r FROM OperationRow r LEFT JOIN FETCH r.operation ope LEFT JOIN FETCH ope.type"
+					+ " WHERE r.opd.code IN :codes ORDER BY r.opd.code, r.id";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Returns the operation rows of the specified OPDs, in the order the rows were inserted.
+	 *
+	 * @param opdCodes the codes of the OPDs
+	 * @return the rows grouped by OPD code, OPDs without rows are left out
+	 */
+	public Map<Integer, List<OperationRow>> getOperationRowsByOpd(Collection<Integer> opdCodes) {
+		Map<Integer, List<OperationRow>> operationRows = new LinkedHashMap<>();
+		for (Object[] row : InClauseBatches.getResultList(entityManager, ROWS_BY_OPD_QUERY, Object[].class, "codes", opdCodes)) {
+			operationRows.computeIfAbsent((Integer) row[0], code -> new ArrayList<>()).add((OperationRow) row[1]);
+		}
+		return operationRows;
+	}
+}
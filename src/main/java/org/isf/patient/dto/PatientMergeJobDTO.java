@@ -0,0 +1,169 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.dto;
+
+import java.time.LocalDateTime;
+
+import org.isf.patient.merge.PatientMergeJob;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class PatientMergeJobDTO {
+
+	@Schema(description = "The id of the job", example = "0b0c6fb2-5b3e-4a4e-9f7c-3f1d3c1b2a10")
+	private String id;
+
+	@Schema(description = "The code of the patient kept by the merge", example = "1")
+	private int mergedCode;
+
+	@Schema(description = "The code of the patient merged into the other one and deleted", example = "2")
+	private int code2;
+
+	@Schema(description = "QUEUED, RUNNING, DONE or FAILED", example = "RUNNING")
+	private PatientMergeJob.Status status;
+
+	@Schema(description = "The current step: VALIDATING, MERGING or REINDEXING", example = "MERGING")
+	private PatientMergeJob.Step step;
+
+	@Schema(description = "The number of steps completed", example = "1")
+	private int completedSteps;
+
+	@Schema(description = "The number of steps of a merge", example = "3")
+	private int steps;
+
+	@Schema(description = "When the job was submitted")
+	private LocalDateTime submitted;
+
+	@Schema(description = "When the job started")
+	private LocalDateTime started;
+
+	@Schema(description = "When the job was done or failed")
+	private LocalDateTime finished;
+
+	@Schema(description = "The reason of the failure", example = "Patients not merged.")
+	private String error;
+
+	public PatientMergeJobDTO() {
+	}
+
+	public PatientMergeJobDTO(PatientMergeJob job) {
+		this.id = job.getId();
+		this.mergedCode = job.getMergedCode();
+		this.code2 = job.getCode2();
+		this.status = job.getStatus();
+		this.step = job.getStep();
+		this.completedSteps = job.getCompletedSteps();
+		this.steps = job.getSteps();
+		this.submitted = job.getSubmitted();
+		this.started = job.getStarted();
+		this.finished = job.getFinished();
+		this.error = job.getError();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public int getMergedCode() {
+		return mergedCode;
+	}
+
+	public void setMergedCode(int mergedCode) {
+		this.mergedCode = mergedCode;
+	}
+
+	public int getCode2() {
+		return code2;
+	}
+
+	public void setCode2(int code2) {
+		this.code2 = code2;
+	}
+
+	public PatientMergeJob.Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(PatientMergeJob.Status status) {
+		this.status = status;
+	}
+
+	public PatientMergeJob.Step getStep() {
+		return step;
+	}
+
+	public void setStep(PatientMergeJob.Step step) {
+		this.step = step;
+	}
+
+	public int getCompletedSteps() {
+		return completedSteps;
+	}
+
+	public void setCompletedSteps(int completedSteps) {
+		this.completedSteps = completedSteps;
+	}
+
+	public int getSteps() {
+		return steps;
+	}
+
+	public void setSteps(int steps) {
+		this.steps = steps;
+	}
+
+	public LocalDateTime getSubmitted() {
+		return submitted;
+	}
+
+	public void setSubmitted(LocalDateTime submitted) {
+		this.submitted = submitted;
+	}
+
+	public LocalDateTime getStarted() {
+		return started;
+	}
+
+	public void setStarted(LocalDateTime started) {
+		this.started = started;
+	}
+
+	public LocalDateTime getFinished() {
+		return finished;
+	}
+
+	public void setFinished(LocalDateTime finished) {
+		this.finished = finished;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+}
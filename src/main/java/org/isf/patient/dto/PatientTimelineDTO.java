@@ -0,0 +1,76 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.isf.patient.timeline.PatientTimelineSection;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class PatientTimelineDTO {
+
+	@Schema(description = "The code of the patient", example = "1")
+	private int patientCode;
+
+	@Schema(description = "The entries of the sections read, from the most recent")
+	private List<PatientTimelineEntryDTO> entries = new ArrayList<>();
+
+	@Schema(description = "The sections requested but not read within the time budget or failed, their entries are missing", example = "[\"LABORATORIES\"]")
+	private List<PatientTimelineSection> incompleteSections = new ArrayList<>();
+
+	@Schema(description = "The sections not read because the user is not allowed to read them", example = "[\"THERAPIES\"]")
+	private List<PatientTimelineSection> forbiddenSections = new ArrayList<>();
+
+	public int getPatientCode() {
+		return patientCode;
+	}
+
+	public void setPatientCode(int patientCode) {
+		this.patientCode = patientCode;
+	}
+
+	public List<PatientTimelineEntryDTO> getEntries() {
+		return entries;
+	}
+
+	public void setEntries(List<PatientTimelineEntryDTO> entries) {
+		this.entries = entries;
+	}
+
+	public List<PatientTimelineSection> getIncompleteSections() {
+		return incompleteSections;
+	}
+
+	public void setIncompleteSections(List<PatientTimelineSection> incompleteSections) {
+		this.incompleteSections = incompleteSections;
+	}
+
+	public List<PatientTimelineSection> getForbiddenSections() {
+		return forbiddenSections;
+	}
+
+	public void setForbiddenSections(List<PatientTimelineSection> forbiddenSections) {
+		this.forbiddenSections = forbiddenSections;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.dto;
+
+import java.time.LocalDateTime;
+
+import org.isf.patient.timeline.PatientTimelineSection;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class PatientTimelineEntryDTO {
+
+	@Schema(description = "The section of the entry", example = "ADMISSIONS")
+	private PatientTimelineSection section;
+
+	@Schema(description = "The date of the entry")
+	private LocalDateTime date;
+
+	@Schema(description = "The code of the admission, OPD, laboratory, examination, therapy or visit", example = "12")
+	private int code;
+
+	@Schema(description = "The admission, OPD, laboratory, examination, therapy or visit, as returned by the endpoints of its section")
+	private Object details;
+
+	public PatientTimelineEntryDTO() {
+	}
+
+	public PatientTimelineEntryDTO(PatientTimelineSection section, LocalDateTime date, int code, Object details) {
+		this.section = section;
+		this.date = date;
+		this.code = code;
+		this.details = details;
+	}
+
+	public PatientTimelineSection getSection() {
+		return section;
+	}
+
+	public void setSection(PatientTimelineSection section) {
+		this.section = section;
+	}
+
+	public LocalDateTime getDate() {
+		return date;
+	}
+
+	public void setDate(LocalDateTime date) {
+		this.date = date;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	public void setCode(int code) {
+		this.code = code;
+	}
+
+	public Object getDetails() {
+		return details;
+	}
+
+	public void setDetails(Object details) {
+		this.details = details;
+	}
+}
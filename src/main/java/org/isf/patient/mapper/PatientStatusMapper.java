@@ -0,0 +1,58 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.mapper;
+
+import java.util.List;
+import java.util.Set;
+
+import org.isf.admission.service.AdmissionStatusQuery;
+import org.isf.patient.dto.PatientDTO;
+import org.isf.patient.dto.PatientSTATUS;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets the admission status of lists of patients, as {@link PatientMapper#map2DTOWS} does for a single patient,
+ * resolving the status of the whole list with the {@link AdmissionStatusQuery}.
+ */
+@Component
+public class PatientStatusMapper {
+
+	private final AdmissionStatusQuery admissionStatusQuery;
+
+	public PatientStatusMapper(AdmissionStatusQuery admissionStatusQuery) {
+		this.admissionStatusQuery = admissionStatusQuery;
+	}
+
+	/**
+	 * Sets {@link PatientSTATUS#I} for the patients currently admitted and {@link PatientSTATUS#O} for the others.
+	 *
+	 * @param patients the patients
+	 * @return the same patients
+	 */
+	public List<PatientDTO> setStatus(List<PatientDTO> patients) {
+		Set<Integer> admitted = admissionStatusQuery.getAdmittedPatientCodes(patients.stream().map(PatientDTO::getCode).toList());
+		for (PatientDTO patient : patients) {
+			patient.setStatus(admitted.contains(patient.getCode()) ? PatientSTATUS.I : PatientSTATUS.O);
+		}
+		return patients;
+	}
+}
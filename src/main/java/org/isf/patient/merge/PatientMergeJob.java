@@ -0,0 +1,169 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.merge;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A merge of a patient into another one, run by {@link PatientMergeJobs}.
+ */
+public class PatientMergeJob {
+
+	public enum Status {
+		QUEUED, RUNNING, DONE, FAILED
+	}
+
+	/**
+	 * The steps of a merge, in order.
+	 */
+	public enum Step {
+		/** The patients are read again, they may have changed while the job was queued. */
+		VALIDATING,
+		/** The histories of the second patient are moved to the merged one. */
+		MERGING,
+		/** The photo thumbnails and the search index are updated. */
+		REINDEXING
+	}
+
+	private final String id = UUID.randomUUID().toString();
+
+	private final int mergedCode;
+
+	private final int code2;
+
+	private final LocalDateTime submitted = LocalDateTime.now();
+
+	private final CompletableFuture<PatientMergeJob> completion = new CompletableFuture<>();
+
+	private volatile Status status = Status.QUEUED;
+
+	private volatile Step step;
+
+	private volatile LocalDateTime started;
+
+	private volatile LocalDateTime finished;
+
+	private volatile String error;
+
+	PatientMergeJob(int mergedCode, int code2) {
+		this.mergedCode = mergedCode;
+		this.code2 = code2;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the code of the patient kept by the merge.
+	 */
+	public int getMergedCode() {
+		return mergedCode;
+	}
+
+	/**
+	 * Returns the code of the patient merged into the other one and deleted.
+	 */
+	public int getCode2() {
+		return code2;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the current step, {@code null} while the job is queued.
+	 */
+	public Step getStep() {
+		return step;
+	}
+
+	/**
+	 * Returns the number of steps completed, out of {@link #getSteps()}.
+	 */
+	public int getCompletedSteps() {
+		if (status == Status.DONE) {
+			return getSteps();
+		}
+		Step current = step;
+		return current == null ? 0 : current.ordinal();
+	}
+
+	public int getSteps() {
+		return Step.values().length;
+	}
+
+	public LocalDateTime getSubmitted() {
+		return submitted;
+	}
+
+	public LocalDateTime getStarted() {
+		return started;
+	}
+
+	public LocalDateTime getFinished() {
+		return finished;
+	}
+
+	/**
+	 * Returns the reason of the failure of a {@link Status#FAILED} job.
+	 */
+	public String getError() {
+		return error;
+	}
+
+	public boolean isFinished() {
+		return status == Status.DONE || status == Status.FAILED;
+	}
+
+	/**
+	 * Returns a future completed with the job when it is done or failed.
+	 */
+	public CompletableFuture<PatientMergeJob> getCompletion() {
+		return completion;
+	}
+
+	void start() {
+		started = LocalDateTime.now();
+		status = Status.RUNNING;
+	}
+
+	void step(Step step) {
+		this.step = step;
+	}
+
+	void done() {
+		finished = LocalDateTime.now();
+		status = Status.DONE;
+		completion.complete(this);
+	}
+
+	void failed(String error) {
+		this.error = error;
+		finished = LocalDateTime.now();
+		status = Status.FAILED;
+		completion.complete(this);
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.merge;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import jakarta.annotation.PreDestroy;
+
+import org.isf.patient.manager.PatientBrowserManager;
+import org.isf.patient.model.Patient;
+import org.isf.patient.photo.PatientPhotoThumbnailCache;
+import org.isf.patient.search.PatientSearchIndex;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Runs the patient merges as {@link PatientMergeJob}s on a dedicated, bounded executor, so that a merge of patients
+ * with long histories does not hold a request thread.
+ * <p>
+ * A patient takes part in one merge at a time: submitting again the merge of the same patients returns the job
+ * already queued or running, any other merge of one of them is refused until that job is finished. Finished jobs are
+ * kept for the configured retention, so that their outcome can be read.
+ * <p>
+ * A merge runs with the security context of the request that submitted it, so that its changes are audited as made by
+ * the submitting user.
+ */
+@Component
+public class PatientMergeJobs {
+
+	public static final String EXECUTOR_NAME = "patientMerge";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PatientMergeJobs.class);
+
+	private final PatientBrowserManager patientManager;
+
+	private final PatientPhotoThumbnailCache photoThumbnailCache;
+
+	private final PatientSearchIndex patientSearchIndex;
+
+	private final ThreadPoolExecutor executor;
+
+	private final long retentionMinutes;
+
+	private final long waitSeconds;
+
+	private final Map<String, PatientMergeJob> jobs = new ConcurrentHashMap<>();
+
+	/** The queued or running jobs by the code of both their patients, guarded by this. */
+	private final Map<Integer, PatientMergeJob> activeByPatient = new HashMap<>();
+
+	/**
+	 * @param threads the number of merges running at the same time
+	 * @param queueCapacity the number of merges waiting for a thread before new merges are refused
+	 * @param retentionMinutes the time a finished job is kept
+	 * @param waitSeconds the time {@link #await(PatientMergeJob)} waits for a job to finish
+	 */
+	public PatientMergeJobs(PatientBrowserManager patientManager, PatientPhotoThumbnailCache photoThumbnailCache, PatientSearchIndex patientSearchIndex,
+					ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${patient.merge.threads:1}") int threads,
+					@Value("${patient.merge.queue-capacity:16}") int queueCapacity,
+					@Value("${patient.merge.retention-minutes:60}") long retentionMinutes,
+					@Value("${patient.merge.wait-seconds:30}") long waitSeconds) {
+		this.patientManager = patientManager;
+		this.photoThumbnailCache = photoThumbnailCache;
+		this.patientSearchIndex = patientSearchIndex;
+		this.retentionMinutes = retentionMinutes;
+		this.waitSeconds = waitSeconds;
+
+		int poolSize = Math.max(1, threads);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("patient-merge-");
+		threadFactory.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+						threadFactory, new ThreadPoolExecutor.AbortPolicy());
+		meterRegistry.ifAvailable(registry -> new ExecutorServiceMetrics(executor, EXECUTOR_NAME, List.of()).bindTo(registry));
+	}
+
+	/**
+	 * Submits the merge of the second patient into the first one.
+	 *
+	 * @param mergedCode the code of the patient kept
+	 * @param code2 the code of the patient merged into the other one and deleted
+	 * @return the new job, or the job already merging the same patients
+	 * @throws IllegalArgumentException if the codes are the same
+	 * @throws IllegalStateException if one of the patients is part of another merge not finished
+	 * @throws RejectedExecutionException if too many merges are waiting
+	 */
+	public synchronized PatientMergeJob submit(int mergedCode, int code2) {
+		if (mergedCode == code2) {
+			throw new IllegalArgumentException("A patient cannot be merged into itself.");
+		}
+		purgeFinished();
+		PatientMergeJob active = activeByPatient.get(mergedCode);
+		if (active != null && active.getMergedCode() == mergedCode && active.getCode2() == code2) {
+			LOGGER.debug("Merge of patient {} into {} already submitted as job {}.", code2, mergedCode, active.getId());
+			return active;
+		}
+		if (active != null || activeByPatient.containsKey(code2)) {
+			throw new IllegalStateException("Another merge of patient " + (active != null ? mergedCode : code2) + " is in progress.");
+		}
+		PatientMergeJob job = new PatientMergeJob(mergedCode, code2);
+		// the auditing of the merge reads the user from the security context, which is bound to the request thread
+		executor.execute(new DelegatingSecurityContextRunnable(() -> run(job)));
+		jobs.put(job.getId(), job);
+		activeByPatient.put(mergedCode, job);
+		activeByPatient.put(code2, job);
+		LOGGER.info("Merge of patient {} into {} submitted as job {}.", code2, mergedCode, job.getId());
+		return job;
+	}
+
+	/**
+	 * Returns the job with the specified id.
+	 *
+	 * @param id the id of the job
+	 * @return the job, {@code null} if it is unknown or finished before the retention
+	 */
+	public PatientMergeJob getJob(String id) {
+		PatientMergeJob job = jobs.get(id);
+		return job == null || isExpired(job) ? null : job;
+	}
+
+	/**
+	 * Waits for a job to finish, at most for the configured time.
+	 *
+	 * @param job the job
+	 * @return {@code true} if the job is finished, {@code false} if it is still queued or running
+	 */
+	public boolean await(PatientMergeJob job) {
+		try {
+			job.getCompletion().get(waitSeconds, TimeUnit.SECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			return true;
+		}
+	}
+
+	private void run(PatientMergeJob job) {
+		job.start();
+		try {
+			job.step(PatientMergeJob.Step.VALIDATING);
+			Patient mergedPatient = patientManager.getPatientById(job.getMergedCode());
+			Patient patient2 = patientManager.getPatientById(job.getCode2());
+			if (mergedPatient == null || patient2 == null) {
+				finish(job, "Patient not found.");
+				return;
+			}
+			job.step(PatientMergeJob.Step.MERGING);
+			patientManager.mergePatient(mergedPatient, patient2);
+
+			job.step(PatientMergeJob.Step.REINDEXING);
+			photoThumbnailCache.invalidate(job.getMergedCode());
+			photoThumbnailCache.invalidate(job.getCode2());
+			// the second patient is deleted, the merged one may take some of its data
+			patientSearchIndex.remove(job.getCode2());
+			Patient merged = patientManager.getPatientById(job.getMergedCode());
+			if (merged != null) {
+				patientSearchIndex.put(merged);
+			}
+			finish(job, null);
+		} catch (OHServiceException | RuntimeException e) {
+			LOGGER.error("Merge job {} of patient {} into {} failed.", job.getId(), job.getCode2(), job.getMergedCode(), e);
+			finish(job, "Patients not merged.");
+		}
+	}
+
+	private void finish(PatientMergeJob job, String error) {
+		synchronized (this) {
+			activeByPatient.remove(job.getMergedCode(), job);
+			activeByPatient.remove(job.getCode2(), job);
+		}
+		if (error == null) {
+			job.done();
+			LOGGER.info("Merge job {} of patient {} into {} done.", job.getId(), job.getCode2(), job.getMergedCode());
+		} else {
+			job.failed(error);
+		}
+	}
+
+	private void purgeFinished() {
+		jobs.values().removeIf(this::isExpired);
+	}
+
+	private boolean isExpired(PatientMergeJob job) {
+		LocalDateTime finished = job.getFinished();
+		return finished != null && finished.plusMinutes(retentionMinutes).isBefore(LocalDateTime.now());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.photo;
+
+import org.springframework.http.MediaType;
+
+/**
+ * A resized copy of a patient photo, tied to the digest of the photo it was generated from.
+ */
+public final class PatientPhotoThumbnail {
+
+	private final String photoDigest;
+
+	private final MediaType contentType;
+
+	private final byte[] content;
+
+	public PatientPhotoThumbnail(String photoDigest, MediaType contentType, byte[] content) {
+		this.photoDigest = photoDigest;
+		this.contentType = contentType;
+		this.content = content;
+	}
+
+	public String getPhotoDigest() {
+		return photoDigest;
+	}
+
+	public MediaType getContentType() {
+		return contentType;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+}
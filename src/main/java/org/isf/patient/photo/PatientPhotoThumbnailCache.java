@@ -0,0 +1,181 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.photo;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Generates the {@link PatientPhotoThumbnail}s served by {@code /patients/{code}/photo?size=} and keeps them in a cache
+ * bounded by the total size of the thumbnails, evicting the least recently used ones.
+ * <p>
+ * A thumbnail records the digest of the photo it was generated from and is generated again when the photo has changed
+ * since, the entries of a patient are also discarded when it is updated through the API. Hits and misses are
+ * published as the {@value #CACHE_NAME} cache metrics.
+ */
+@Component
+public class PatientPhotoThumbnailCache {
+
+	public static final String CACHE_NAME = "patientPhotoThumbnails";
+
+	/** The supported thumbnail sizes, in pixels of the longest side. */
+	public static final Set<Integer> SIZES = Set.of(64, 256);
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PatientPhotoThumbnailCache.class);
+
+	private final Cache<ThumbnailKey, PatientPhotoThumbnail> cache;
+
+	/**
+	 * @param maximumBytes the maximum total size of the cached thumbnails, {@code 0} disables the cache
+	 */
+	public PatientPhotoThumbnailCache(ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${patient.photo.thumbnail-cache-bytes:16777216}") long maximumBytes) {
+		if (maximumBytes <= 0) {
+			this.cache = null;
+			return;
+		}
+		this.cache = Caffeine.newBuilder()
+			.maximumWeight(maximumBytes)
+			.weigher((ThumbnailKey key, PatientPhotoThumbnail thumbnail) -> thumbnail.getContent().length)
+			.recordStats()
+			.build();
+		meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+	}
+
+	/**
+	 * Returns the thumbnail of the photo of a patient, generating it on a cache miss.
+	 *
+	 * @param patientCode the code of the patient
+	 * @param photoDigest the digest of the photo, which changes with the photo
+	 * @param photo the photo of the patient
+	 * @param size one of the {@link #SIZES}
+	 * @return the {@link PatientPhotoThumbnail}, or {@code null} if the photo is not in a format that can be decoded
+	 * @throws SQLException if the photo cannot be read
+	 * @throws IOException if the photo cannot be decoded or the thumbnail encoded
+	 */
+	public PatientPhotoThumbnail getThumbnail(int patientCode, String photoDigest, Blob photo, int size) throws SQLException, IOException {
+		if (!SIZES.contains(size)) {
+			throw new IllegalArgumentException("Unsupported thumbnail size: " + size);
+		}
+		if (cache == null) {
+			return generate(photoDigest, photo, size);
+		}
+		ThumbnailKey key = new ThumbnailKey(patientCode, size);
+		PatientPhotoThumbnail thumbnail = cache.getIfPresent(key);
+		if (thumbnail != null && thumbnail.getPhotoDigest().equals(photoDigest)) {
+			return thumbnail;
+		}
+		thumbnail = generate(photoDigest, photo, size);
+		if (thumbnail != null) {
+			cache.put(key, thumbnail);
+		}
+		return thumbnail;
+	}
+
+	public void invalidate(int patientCode) {
+		if (cache != null) {
+			cache.asMap().keySet().removeIf(key -> key.patientCode() == patientCode);
+		}
+	}
+
+	public void invalidateAll() {
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+	}
+
+	public long size() {
+		return cache == null ? 0 : cache.estimatedSize();
+	}
+
+	public CacheStats getStats() {
+		return cache == null ? CacheStats.empty() : cache.stats();
+	}
+
+	private static PatientPhotoThumbnail generate(String photoDigest, Blob photo, int size) throws SQLException, IOException {
+		BufferedImage image;
+		try (InputStream content = photo.getBinaryStream()) {
+			image = ImageIO.read(content);
+		}
+		if (image == null) {
+			LOGGER.debug("No image reader for the photo, the thumbnail is not generated.");
+			return null;
+		}
+		boolean alpha = image.getColorModel().hasAlpha();
+		double scale = Math.min(1d, (double) size / Math.max(image.getWidth(), image.getHeight()));
+		int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+		// halving the image until the last step keeps bilinear interpolation from skipping pixels
+		do {
+			int stepWidth = Math.max(width, image.getWidth() / 2);
+			int stepHeight = Math.max(height, image.getHeight() / 2);
+			image = resize(image, stepWidth, stepHeight, alpha);
+		} while (image.getWidth() > width || image.getHeight() > height);
+
+		ByteArrayOutputStream thumbnail = new ByteArrayOutputStream();
+		if (alpha) {
+			ImageIO.write(image, "png", thumbnail);
+			return new PatientPhotoThumbnail(photoDigest, MediaType.IMAGE_PNG, thumbnail.toByteArray());
+		}
+		ImageIO.write(image, "jpeg", thumbnail);
+		return new PatientPhotoThumbnail(photoDigest, MediaType.IMAGE_JPEG, thumbnail.toByteArray());
+	}
+
+	private static BufferedImage resize(BufferedImage image, int width, int height, boolean alpha) {
+		BufferedImage resized = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = resized.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(image, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		return resized;
+	}
+
+	private record ThumbnailKey(int patientCode, int size) {
+	}
+}
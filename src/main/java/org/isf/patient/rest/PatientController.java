@@ -21,11 +21,26 @@
  */
 package org.isf.patient.rest;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import org.isf.admission.manager.AdmissionBrowserManager;
@@ -33,20 +48,39 @@ import org.isf.admission.model.Admission;
 import org.isf.patconsensus.manager.PatientConsensusBrowserManager;
 import org.isf.patconsensus.model.PatientConsensus;
 import org.isf.patient.dto.PatientDTO;
+import org.isf.patient.dto.PatientMergeJobDTO;
+import org.isf.patient.dto.PatientTimelineDTO;
 import org.isf.patient.manager.PatientBrowserManager;
 import org.isf.patient.mapper.PatientMapper;
+import org.isf.patient.mapper.PatientStatusMapper;
+import org.isf.patient.merge.PatientMergeJob;
+import org.isf.patient.merge.PatientMergeJobs;
 import org.isf.patient.model.Patient;
+import org.isf.patient.model.PatientProfilePhoto;
+import org.isf.patient.photo.PatientPhotoThumbnail;
+import org.isf.patient.photo.PatientPhotoThumbnailCache;
+import org.isf.patient.search.PatientSearchIndex;
+import org.isf.patient.service.PatientListQuery;
+import org.isf.patient.timeline.PatientTimeline;
+import org.isf.patient.timeline.PatientTimelineSection;
 import org.isf.shared.exceptions.OHAPIException;
 import org.isf.shared.pagination.Page;
+import org.isf.shared.pagination.PageInfoDTO;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
-import org.isf.utils.pagination.PagedResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -56,6 +90,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -70,6 +105,9 @@ public class PatientController {
 	// TODO: to centralize
 	protected static final String DEFAULT_PAGE_SIZE = "80";
 
+	// photos may be kept by the browser but are revalidated with their ETag
+	private static final CacheControl PHOTO_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
 	@Autowired
 	protected PatientBrowserManager patientManager;
 
@@ -82,12 +120,38 @@ public class PatientController {
 	@Autowired
 	protected PatientMapper patientMapper;
 
+	@Autowired
+	private PatientPhotoThumbnailCache photoThumbnailCache;
+
+	@Autowired
+	private PatientStatusMapper patientStatusMapper;
+
+	@Autowired
+	private PatientListQuery patientListQuery;
+
+	@Autowired
+	private PatientSearchIndex patientSearchIndex;
+
+	@Autowired
+	private PatientMergeJobs patientMergeJobs;
+
+	@Autowired
+	private PatientTimeline patientTimeline;
+
 	public PatientController(PatientBrowserManager patientManager, AdmissionBrowserManager admissionManager, PatientMapper patientMapper,
-					PatientConsensusBrowserManager patientConsensusManager) {
+					PatientConsensusBrowserManager patientConsensusManager, PatientPhotoThumbnailCache photoThumbnailCache,
+					PatientStatusMapper patientStatusMapper, PatientListQuery patientListQuery, PatientSearchIndex patientSearchIndex,
+					PatientMergeJobs patientMergeJobs, PatientTimeline patientTimeline) {
 		this.patientManager = patientManager;
 		this.admissionManager = admissionManager;
 		this.patientMapper = patientMapper;
 		this.patientConsensusManager = patientConsensusManager;
+		this.photoThumbnailCache = photoThumbnailCache;
+		this.patientStatusMapper = patientStatusMapper;
+		this.patientListQuery = patientListQuery;
+		this.patientSearchIndex = patientSearchIndex;
+		this.patientMergeJobs = patientMergeJobs;
+		this.patientTimeline = patientTimeline;
 	}
 
 	/**
@@ -113,6 +177,7 @@ public class PatientController {
 		if (patient == null) {
 			throw new OHAPIException(new OHExceptionMessage("Patient not created."));
 		}
+		patientSearchIndex.put(patient);
 		return ResponseEntity.status(HttpStatus.CREATED).body(patientMapper.map2DTO(patient));
 	}
 
@@ -141,6 +206,8 @@ public class PatientController {
 		if (patient == null) {
 			throw new OHAPIException(new OHExceptionMessage("Patient not updated."));
 		}
+		photoThumbnailCache.invalidate(code);
+		patientSearchIndex.put(patient);
 		PatientDTO patientDTO = patientMapper.map2DTO(patient);
 		return ResponseEntity.ok(patientDTO);
 	}
@@ -149,15 +216,17 @@ public class PatientController {
 	public ResponseEntity<Page<PatientDTO>> getPatients(@RequestParam(value = "page", required = false, defaultValue = "0") int page,
 					@RequestParam(value = "size", required = false, defaultValue = DEFAULT_PAGE_SIZE) int size) throws OHServiceException {
 		LOGGER.info("Get patients page: {}  size: {}.", page, size);
-		PagedResponse<Patient> patients = patientManager.getPatientsPageable(page, size);
-		if (patients.getData().isEmpty()) {
+		if (page < 0 || size < 1) {
+			throw new OHAPIException(new OHExceptionMessage("Invalid page or size."));
+		}
+		PatientListQuery.Result patients = patientListQuery.getPatients(page, size);
+		if (patients.getPatients().isEmpty()) {
 			LOGGER.info("The patient list is empty.");
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
 		Page<PatientDTO> patientPageableDTO = new Page<>();
-		List<PatientDTO> patientsDTO = patientMapper.map2DTOList(patients.getData());
-		patientPageableDTO.setData(patientsDTO);
-		patientPageableDTO.setPageInfo(patientMapper.setParameterPageInfo(patients.getPageInfo()));
+		patientPageableDTO.setData(patients.getPatients());
+		patientPageableDTO.setPageInfo(pageInfo(page, size, patients.getPatients().size(), patients.getTotal()));
 		return ResponseEntity.ok(patientPageableDTO);
 	}
 
@@ -177,45 +246,138 @@ public class PatientController {
 		return ResponseEntity.ok(patientDTO);
 	}
 
+	/**
+	 * Streams the photo of a {@link Patient}, which the patient lists leave out, or a thumbnail of it.
+	 * <p>
+	 * The ETag is the SHA-256 digest of the photo, a client sending it back in {@code If-None-Match} gets a 304 without
+	 * the photo being sent again. Thumbnails are generated once and kept by the {@link PatientPhotoThumbnailCache}, a photo
+	 * that cannot be decoded is sent as it is.
+	 *
+	 * @param code the code of the patient
+	 * @param size the size in pixels of the longest side of the thumbnail, one of {@link PatientPhotoThumbnailCache#SIZES},
+	 * or none for the original photo
+	 * @return the photo, or NOT_FOUND if the patient or the photo does not exist
+	 * @throws OHServiceException
+	 */
+	@GetMapping(value = "/patients/{code}/photo")
+	public ResponseEntity<Resource> getPatientPhoto(@PathVariable("code") int code,
+					@RequestParam(value = "size", required = false) Integer size, WebRequest request) throws OHServiceException {
+		LOGGER.info("Get photo of patient code: '{}' size: {}.", code, size);
+		if (size != null && !PatientPhotoThumbnailCache.SIZES.contains(size)) {
+			throw new OHAPIException(new OHExceptionMessage("Unsupported photo size, allowed sizes are " + PatientPhotoThumbnailCache.SIZES + '.'));
+		}
+		Patient patient = patientManager.getPatientById(code);
+		if (patient == null) {
+			throw new OHAPIException(new OHExceptionMessage("Patient not found."), HttpStatus.NOT_FOUND);
+		}
+		PatientProfilePhoto patientProfilePhoto = patient.getPatientProfilePhoto();
+		Blob photo = patientProfilePhoto != null ? patientProfilePhoto.getPhoto() : null;
+		if (photo == null) {
+			throw new OHAPIException(new OHExceptionMessage("Patient photo not found."), HttpStatus.NOT_FOUND);
+		}
+		try {
+			String photoDigest = digest(photo);
+			String eTag = "\"" + photoDigest + (size != null ? "-" + size : "") + '"';
+			if (request.checkNotModified(eTag)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(PHOTO_CACHE_CONTROL).build();
+			}
+			if (size != null) {
+				PatientPhotoThumbnail thumbnail = photoThumbnailCache.getThumbnail(code, photoDigest, photo, size);
+				if (thumbnail != null) {
+					return ResponseEntity.ok()
+									.eTag(eTag)
+									.cacheControl(PHOTO_CACHE_CONTROL)
+									.contentType(thumbnail.getContentType())
+									.contentLength(thumbnail.getContent().length)
+									.body(new ByteArrayResource(thumbnail.getContent()));
+				}
+			}
+			InputStream content = new BufferedInputStream(photo.getBinaryStream());
+			String contentType = URLConnection.guessContentTypeFromStream(content);
+			return ResponseEntity.ok()
+							.eTag(eTag)
+							.cacheControl(PHOTO_CACHE_CONTROL)
+							.contentType(contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM)
+							.contentLength(photo.length())
+							.body(new InputStreamResource(content));
+		} catch (SQLException | IOException e) {
+			LOGGER.error("Unable to read the photo of patient code: '{}'.", code, e);
+			throw new OHAPIException(new OHExceptionMessage("Patient photo not readable."), HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	private static String digest(Blob photo) throws SQLException, IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		try (InputStream content = new DigestInputStream(photo.getBinaryStream(), digest)) {
+			content.transferTo(OutputStream.nullOutputStream());
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
 	@GetMapping(value = "/patients/search", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<List<PatientDTO>> searchPatient(@RequestParam(value = "firstName", defaultValue = "", required = false) String firstName,
 					@RequestParam(value = "secondName", defaultValue = "", required = false) String secondName,
 					@RequestParam(value = "birthDate", defaultValue = "", required = false) LocalDateTime birthDate,
 					@RequestParam(value = "address", defaultValue = "", required = false) String address) throws OHServiceException {
 
-		Map<String, Object> params = new HashMap<>();
-
-		if (firstName != null && !firstName.isEmpty()) {
-			params.put("firstName", firstName);
-		}
-
-		if (secondName != null && !secondName.isEmpty()) {
-			params.put("secondName", secondName);
+		if (!StringUtils.hasLength(firstName) && !StringUtils.hasLength(secondName) && birthDate == null && !StringUtils.hasLength(address)) {
+			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
 
-		if (birthDate != null) {
-			params.put("birthDate", birthDate);
-		}
+		List<PatientDTO> patientList = patientListQuery.searchPatients(firstName, secondName, birthDate != null ? birthDate.toLocalDate() : null,
+						address);
+		return ResponseEntity.ok(patientStatusMapper.setStatus(patientList));
+	}
 
-		if (address != null && !address.isEmpty()) {
-			params.put("address", address);
+	/**
+	 * Searches the {@link Patient}s by first name, second name, city and birth year with the {@link PatientSearchIndex},
+	 * which also finds misspelled names.
+	 *
+	 * @param text the words to search, every word must match the patient
+	 * @param page the index of the page, starting from {@code 0}
+	 * @param size the size of the page
+	 * @return the {@link Page} of found {@link Patient}s, the best matches first, or NO_CONTENT otherwise.
+	 * @throws OHServiceException
+	 */
+	@GetMapping(value = "/patients/search/ranked", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Page<PatientDTO>> searchPatientRanked(@RequestParam(value = "text") String text,
+					@RequestParam(value = "page", required = false, defaultValue = "0") int page,
+					@RequestParam(value = "size", required = false, defaultValue = DEFAULT_PAGE_SIZE) int size) throws OHServiceException {
+		LOGGER.info("Search patients text: '{}' page: {} size: {}.", text, page, size);
+		if (page < 0 || size < 1) {
+			throw new OHAPIException(new OHExceptionMessage("Invalid page or size."));
 		}
-
-		List<Patient> patientList = null;
-		if (!params.entrySet().isEmpty()) {
-			patientList = patientManager.getPatients(params);
+		if (!patientSearchIndex.isReady()) {
+			String message = patientSearchIndex.isEnabled() ? "The patient search index is being built, please retry later."
+							: "The patient search index is disabled.";
+			throw new OHAPIException(new OHExceptionMessage(message), HttpStatus.SERVICE_UNAVAILABLE);
 		}
-
-		if (patientList == null) {
+		PatientSearchIndex.Result result = patientSearchIndex.search(text, page, size);
+		List<PatientDTO> patients = patientListQuery.getPatients(result.getCodes());
+		if (patients.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
 		}
+		Page<PatientDTO> patientPageDTO = new Page<>();
+		patientPageDTO.setData(patientStatusMapper.setStatus(patients));
+		patientPageDTO.setPageInfo(pageInfo(page, size, patients.size(), result.getTotal()));
+		return ResponseEntity.ok(patientPageDTO);
+	}
 
-		List<PatientDTO> patientListDTO = patientList.stream().map(patient -> {
-			Admission admission = admissionManager.getCurrentAdmission(patient);
-			Boolean status = admission != null;
-			return patientMapper.map2DTOWS(patient, status);
-		}).collect(Collectors.toList());
-		return ResponseEntity.ok(patientListDTO);
+	private static PageInfoDTO pageInfo(int page, int size, int nbOfElements, long total) {
+		PageInfoDTO pageInfo = new PageInfoDTO();
+		pageInfo.setPage(page);
+		pageInfo.setSize(size);
+		pageInfo.setNbOfElements(nbOfElements);
+		pageInfo.setTotalNbOfElements(total);
+		pageInfo.setTotalPages((total + size - 1) / size);
+		pageInfo.setHasPreviousPage(page > 0);
+		pageInfo.setHasNextPage((long) (page + 1) * size < total);
+		return pageInfo;
 	}
 
 	@GetMapping(value = "/patients/all", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -246,28 +408,161 @@ public class PatientController {
 		}
 		try {
 			patientManager.deletePatient(patient);
+			photoThumbnailCache.invalidate(code);
+			patientSearchIndex.remove(code);
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("Patient not deleted."));
 		}
 		return ResponseEntity.ok(true);
 	}
 
+	/**
+	 * Merges the second {@link Patient} into the first one and waits for the merge, which runs as a
+	 * {@link PatientMergeJob}, for a limited time.
+	 *
+	 * @param mergedcode the code of the patient kept
+	 * @param code2 the code of the patient merged into the other one and deleted
+	 * @return {@code true} when the patients are merged, the {@link PatientMergeJobDTO} with ACCEPTED if the merge is
+	 * not finished in time, NOT_FOUND if a patient does not exist
+	 * @throws OHServiceException
+	 */
 	@GetMapping(value = "/patients/merge", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Boolean> mergePatients(@RequestParam int mergedcode, @RequestParam int code2) throws OHServiceException {
+	public ResponseEntity<Object> mergePatients(@RequestParam int mergedcode, @RequestParam int code2) throws OHServiceException {
 		LOGGER.info("Merge patient for code '{}' in patient for code '{}'.", code2, mergedcode);
-		Patient mergedPatient = patientManager.getPatientById(mergedcode);
-		Patient patient2 = patientManager.getPatientById(code2);
-		if (mergedPatient == null || patient2 == null) {
+		PatientMergeJob job = submitMerge(mergedcode, code2);
+		if (job == null) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
 		}
-		try {
-			patientManager.mergePatient(mergedPatient, patient2);
-		} catch (OHServiceException serviceException) {
-			throw new OHAPIException(new OHExceptionMessage("Patients not merged."));
+		if (!patientMergeJobs.await(job)) {
+			LOGGER.info("Merge of patient for code '{}' in patient for code '{}' still running as job {}.", code2, mergedcode, job.getId());
+			return ResponseEntity.status(HttpStatus.ACCEPTED)
+							.location(URI.create("/patients/merge/jobs/" + job.getId()))
+							.body(new PatientMergeJobDTO(job));
+		}
+		if (job.getStatus() != PatientMergeJob.Status.DONE) {
+			throw new OHAPIException(new OHExceptionMessage(job.getError()));
 		}
 		return ResponseEntity.ok(true);
 	}
 
+	/**
+	 * Submits the merge of the second {@link Patient} into the first one, the merge runs in the background.
+	 * <p>
+	 * Submitting again the merge of the same patients returns the job already queued or running.
+	 *
+	 * @param mergedcode the code of the patient kept
+	 * @param code2 the code of the patient merged into the other one and deleted
+	 * @return the {@link PatientMergeJobDTO} with ACCEPTED, NOT_FOUND if a patient does not exist, CONFLICT if one of the
+	 * patients is part of another merge
+	 * @throws OHServiceException
+	 */
+	@PostMapping(value = "/patients/merge/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<PatientMergeJobDTO> submitMergePatients(@RequestParam int mergedcode, @RequestParam int code2) throws OHServiceException {
+		LOGGER.info("Submit merge of patient for code '{}' in patient for code '{}'.", code2, mergedcode);
+		PatientMergeJob job = submitMerge(mergedcode, code2);
+		if (job == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+		}
+		return ResponseEntity.status(HttpStatus.ACCEPTED)
+						.location(URI.create("/patients/merge/jobs/" + job.getId()))
+						.body(new PatientMergeJobDTO(job));
+	}
+
+	/**
+	 * Get the status and the progress of a merge submitted with {@code POST /patients/merge/jobs}.
+	 *
+	 * @param id the id of the job
+	 * @return the {@link PatientMergeJobDTO}, NOT_FOUND if the job is unknown or expired
+	 */
+	@GetMapping(value = "/patients/merge/jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<PatientMergeJobDTO> getMergePatientsJob(@PathVariable("id") String id) {
+		PatientMergeJob job = patientMergeJobs.getJob(id);
+		if (job == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+		}
+		return ResponseEntity.ok(new PatientMergeJobDTO(job));
+	}
+
+	private PatientMergeJob submitMerge(int mergedcode, int code2) throws OHServiceException {
+		if (patientManager.getPatientById(mergedcode) == null || patientManager.getPatientById(code2) == null) {
+			return null;
+		}
+		try {
+			return patientMergeJobs.submit(mergedcode, code2);
+		} catch (IllegalArgumentException e) {
+			throw new OHAPIException(new OHExceptionMessage(e.getMessage()));
+		} catch (IllegalStateException e) {
+			throw new OHAPIException(new OHExceptionMessage(e.getMessage()), HttpStatus.CONFLICT);
+		} catch (RejectedExecutionException e) {
+			throw new OHAPIException(new OHExceptionMessage("Too many merges waiting, please retry later."), HttpStatus.SERVICE_UNAVAILABLE);
+		}
+	}
+
+	/**
+	 * Get the admissions, OPDs, laboratories, examinations, therapies and visits of a {@link Patient} in one timeline,
+	 * from the most recent. The sections are read at the same time within a time budget, the sections not read are
+	 * left out and listed as incomplete.
+	 * <p>
+	 * Each section requires the read authority of its own resource: when no section is specified the sections the user
+	 * is not allowed to read are left out and listed as forbidden, an explicitly requested one is refused.
+	 *
+	 * @param code the code of the patient
+	 * @param sections the sections to read, all of them if not specified
+	 * @return the {@link PatientTimelineDTO}, NOT_FOUND if the patient does not exist, FORBIDDEN if a requested
+	 * section is not allowed
+	 * @throws OHServiceException
+	 */
+	@GetMapping(value = "/patients/{code}/timeline", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<PatientTimelineDTO> getPatientTimeline(@PathVariable int code,
+					@RequestParam(value = "sections", required = false) List<String> sections) throws OHServiceException {
+		LOGGER.info("Get timeline of patient for code '{}'.", code);
+		Set<PatientTimelineSection> timelineSections = parseTimelineSections(sections);
+		Set<PatientTimelineSection> forbiddenSections = getForbiddenTimelineSections(timelineSections);
+		if (!forbiddenSections.isEmpty()) {
+			if (sections != null && !sections.isEmpty()) {
+				throw new OHAPIException(new OHExceptionMessage("Not allowed to read the timeline sections " + forbiddenSections + '.'),
+								HttpStatus.FORBIDDEN);
+			}
+			timelineSections.removeAll(forbiddenSections);
+		}
+		Patient patient = patientManager.getPatientById(code);
+		if (patient == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+		}
+		PatientTimelineDTO timeline = patientTimeline.getTimeline(patient, timelineSections);
+		timeline.setForbiddenSections(new ArrayList<>(forbiddenSections));
+		return ResponseEntity.ok(timeline);
+	}
+
+	private static Set<PatientTimelineSection> getForbiddenTimelineSections(Set<PatientTimelineSection> sections) {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		Set<String> authorities = authentication == null ? Set.of() : authentication.getAuthorities().stream()
+						.map(GrantedAuthority::getAuthority)
+						.collect(Collectors.toSet());
+		Set<PatientTimelineSection> forbiddenSections = EnumSet.noneOf(PatientTimelineSection.class);
+		for (PatientTimelineSection section : sections) {
+			if (!authorities.contains(section.getReadAuthority())) {
+				forbiddenSections.add(section);
+			}
+		}
+		return forbiddenSections;
+	}
+
+	private static Set<PatientTimelineSection> parseTimelineSections(List<String> sections) throws OHAPIException {
+		if (sections == null || sections.isEmpty()) {
+			return EnumSet.allOf(PatientTimelineSection.class);
+		}
+		Set<PatientTimelineSection> timelineSections = EnumSet.noneOf(PatientTimelineSection.class);
+		for (String section : sections) {
+			try {
+				timelineSections.add(PatientTimelineSection.valueOf(section.trim().toUpperCase(Locale.ROOT)));
+			} catch (IllegalArgumentException e) {
+				throw new OHAPIException(new OHExceptionMessage("Unknown timeline section '" + section + "'."));
+			}
+		}
+		return timelineSections;
+	}
+
 	@GetMapping(value = "/patients/cities", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<List<String>> getPatientCities() throws OHServiceException {
 		LOGGER.info("Get all cities of the patients.");
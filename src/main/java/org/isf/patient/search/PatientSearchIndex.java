@@ -0,0 +1,539 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.search;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.isf.patient.model.Patient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the first name, second name, city and birth year of the patients, searched in place of the
+ * {@code LIKE} queries of {@code PatientBrowserManager.getPatients}.
+ * <p>
+ * Every word of the names is indexed by its trigrams and by its Double Metaphone keys, so that a misspelled name still
+ * finds the patient; the words of the city are indexed by their trigrams only and the birth year as it is. Every
+ * word of a search must match the patient, the patients are ranked by how closely they match.
+ * <p>
+ * The index is disabled unless configured, because it holds the names of all the patients in memory. It is built in
+ * the background when the application is ready, retried with a growing delay if the build fails, and kept current by
+ * the patient API; until it is built {@link #isReady()} is {@code false}. A posting is never removed from the index: a changed or deleted patient
+ * leaves its old postings behind, recognized by their stamp and dropped when the index is compacted.
+ */
+@Component
+public class PatientSearchIndex {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PatientSearchIndex.class);
+
+	/** The number of patients read by every query while building the index. */
+	static final int BUILD_BATCH_SIZE = 5000;
+
+	/** The number of stale postings that may be left behind before the index is compacted. */
+	static final int MIN_STALE_POSTINGS = 100_000;
+
+	/** A search word scoring less than this for a patient does not match it. */
+	private static final double MIN_WORD_SCORE = 0.3;
+
+	/** Added to the trigram score of a name having the same Double Metaphone key of the search word. */
+	private static final double PHONETIC_SCORE = 0.5;
+
+	/** The weight of a city matching a search word, compared to a name. */
+	private static final double CITY_WEIGHT = 0.5;
+
+	/** The longest delay before the build of the index is retried. */
+	private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+	private static final String PATIENTS_QUERY = "SELECT p.code, p.firstName, p.secondName, p.city, p.birthDate, p.name FROM Patient p"
+					+ " WHERE p.deleted = 'N' AND p.code > :after ORDER BY p.code";
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private static final Pattern BIRTH_YEAR = Pattern.compile("(1[89]|2[0-9])[0-9]{2}");
+
+	private static final char NAME_TRIGRAM = 'n';
+
+	private static final char NAME_PHONETIC = 'p';
+
+	private static final char CITY_TRIGRAM = 'c';
+
+	private static final char BIRTH_YEAR_KEY = 'y';
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final DoubleMetaphone doubleMetaphone = new DoubleMetaphone();
+
+	private final ScheduledExecutorService executor;
+
+	/** The delay before the next retry of a failed build, read and written by the thread of the executor only. */
+	private long retryDelayMillis;
+
+	private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+	/** The stamp of the entry of every patient by code, {@code 0} for none: a posting with another stamp is stale. */
+	private volatile int[] stamps = new int[0];
+
+	private volatile Map<String, Postings> postings = new ConcurrentHashMap<>();
+
+	// the fields below are guarded by this
+
+	/** The patients changed by the API while the index is being built, newer than the ones read by the build. */
+	private final Set<Integer> changedWhileBuilding = new HashSet<>();
+
+	private boolean building;
+
+	private int stamp;
+
+	private long livePostings;
+
+	private long stalePostings;
+
+	private volatile boolean ready;
+
+	/**
+	 * @param enabled {@code false} never builds the index, so that it does not take the memory
+	 * @param retryDelayMillis the delay before the first retry of a failed build, doubled at every failure
+	 */
+	public PatientSearchIndex(@Value("${patient.search-index.enabled:false}") boolean enabled,
+					@Value("${patient.search-index.retry-delay-ms:30000}") long retryDelayMillis) {
+		this.retryDelayMillis = Math.max(1L, retryDelayMillis);
+		if (!enabled) {
+			this.executor = null;
+			return;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("patient-search-index-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+	}
+
+	/**
+	 * Returns {@code true} once the index is built and can be searched.
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Returns {@code true} unless the index is disabled by configuration.
+	 */
+	public boolean isEnabled() {
+		return executor != null;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		if (executor != null) {
+			executor.execute(this::build);
+		}
+	}
+
+	/**
+	 * Indexes all the patients not deleted, reading them from the database a batch at a time. A failed build is
+	 * scheduled again.
+	 */
+	void build() {
+		synchronized (this) {
+			building = true;
+		}
+		try {
+			long start = System.currentTimeMillis();
+			int count = 0;
+			int after = 0;
+			List<Object[]> rows;
+			do {
+				rows = entityManager.createQuery(PATIENTS_QUERY, Object[].class)
+								.setParameter("after", after)
+								.setMaxResults(BUILD_BATCH_SIZE)
+								.getResultList();
+				synchronized (this) {
+					for (Object[] row : rows) {
+						Integer code = (Integer) row[0];
+						if (!changedWhileBuilding.contains(code)) {
+							LocalDate birthDate = (LocalDate) row[4];
+							index(code, (String) row[1], (String) row[2], (String) row[3], birthDate != null ? birthDate.getYear() : null, (String) row[5]);
+						}
+						after = code;
+					}
+				}
+				count += rows.size();
+			} while (rows.size() == BUILD_BATCH_SIZE);
+			ready = true;
+			LOGGER.info("Patient search index built with {} patients in {} ms.", count, System.currentTimeMillis() - start);
+		} catch (RuntimeException e) {
+			LOGGER.error("Unable to build the patient search index, retrying in {} ms.", retryDelayMillis, e);
+			scheduleRetry();
+		} finally {
+			synchronized (this) {
+				building = false;
+				changedWhileBuilding.clear();
+			}
+		}
+	}
+
+	private void scheduleRetry() {
+		long delay = retryDelayMillis;
+		retryDelayMillis = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+		try {
+			executor.schedule(this::build, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			LOGGER.debug("Patient search index shut down, build not retried.");
+		}
+	}
+
+	/**
+	 * Indexes a patient created or changed, or removes it if it is deleted.
+	 *
+	 * @param patient the patient as stored
+	 */
+	public synchronized void put(Patient patient) {
+		if (executor == null) {
+			return;
+		}
+		if ("Y".equals(patient.getDeleted())) {
+			remove(patient.getCode());
+			return;
+		}
+		if (building) {
+			changedWhileBuilding.add(patient.getCode());
+		}
+		LocalDate birthDate = patient.getBirthDate();
+		index(patient.getCode(), patient.getFirstName(), patient.getSecondName(), patient.getCity(), birthDate != null ? birthDate.getYear() : null,
+						patient.getName());
+	}
+
+	/**
+	 * Removes a deleted patient from the index.
+	 *
+	 * @param code the code of the patient
+	 */
+	public synchronized void remove(int code) {
+		if (executor == null) {
+			return;
+		}
+		if (building) {
+			changedWhileBuilding.add(code);
+		}
+		Entry entry = entries.remove(code);
+		if (entry != null) {
+			stamps[code] = 0;
+			retire(entry);
+		}
+	}
+
+	/**
+	 * Returns a page of the patients matching all the words of the text, the best matches first.
+	 *
+	 * @param text the words of the names, the city or the birth year of the patients
+	 * @param page the index of the page, starting from {@code 0}
+	 * @param size the size of the page
+	 * @return the codes of the patients in the page and the number of patients matching
+	 */
+	public Result search(String text, int page, int size) {
+		List<String> words = words(text);
+		if (words.isEmpty()) {
+			return new Result(List.of(), 0);
+		}
+		int[] live = stamps;
+		// the patients matching all the words so far, with the sum of their scores
+		Map<Integer, Double> scores = null;
+		for (String word : words) {
+			Map<Integer, Double> wordScores = score(word, live);
+			Map<Integer, Double> matching = new HashMap<>();
+			if (scores == null) {
+				wordScores.forEach((code, wordScore) -> {
+					if (wordScore >= MIN_WORD_SCORE) {
+						matching.put(code, wordScore);
+					}
+				});
+			} else {
+				scores.forEach((code, score) -> {
+					Double wordScore = wordScores.get(code);
+					if (wordScore != null && wordScore >= MIN_WORD_SCORE) {
+						matching.put(code, score + wordScore);
+					}
+				});
+			}
+			scores = matching;
+			if (scores.isEmpty()) {
+				break;
+			}
+		}
+		List<Hit> hits = new ArrayList<>(scores.size());
+		scores.forEach((code, score) -> {
+			Entry entry = entries.get(code);
+			hits.add(new Hit(code, score, entry != null && entry.name() != null ? entry.name() : ""));
+		});
+		List<Integer> codes = hits.stream()
+						.sorted(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::name).thenComparingInt(Hit::code))
+						.skip((long) page * size)
+						.limit(size)
+						.map(Hit::code)
+						.toList();
+		return new Result(codes, hits.size());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the score of the word for the patients found in the postings of its keys, the only ones it may match.
+	 */
+	private Map<Integer, Double> score(String word, int[] live) {
+		Map<Integer, Double> scores = new HashMap<>();
+		if (BIRTH_YEAR.matcher(word).matches()) {
+			forEachLive(BIRTH_YEAR_KEY + word, live, code -> scores.put(code, 1.0));
+			return scores;
+		}
+		List<String> trigrams = trigrams(word);
+		double trigramScore = 1.0 / trigrams.size();
+		Map<Integer, Double> cityScores = new HashMap<>();
+		for (String trigram : trigrams) {
+			forEachLive(NAME_TRIGRAM + trigram, live, code -> scores.merge(code, trigramScore, Double::sum));
+			forEachLive(CITY_TRIGRAM + trigram, live, code -> cityScores.merge(code, CITY_WEIGHT * trigramScore, Double::sum));
+		}
+		Set<Integer> sounds = new HashSet<>();
+		for (String key : phoneticKeys(word)) {
+			forEachLive(NAME_PHONETIC + key, live, sounds::add);
+		}
+		sounds.forEach(code -> scores.merge(code, PHONETIC_SCORE, Double::sum));
+		cityScores.forEach((code, cityScore) -> scores.merge(code, cityScore, Math::max));
+		return scores;
+	}
+
+	private void forEachLive(String key, int[] live, IntConsumer action) {
+		Postings keyPostings = postings.get(key);
+		if (keyPostings == null) {
+			return;
+		}
+		int size = keyPostings.size;
+		long[] values = keyPostings.values;
+		for (int i = 0; i < size; i++) {
+			int code = (int) (values[i] >>> 32);
+			if (code < live.length && live[code] == (int) values[i]) {
+				action.accept(code);
+			}
+		}
+	}
+
+	// called holding the lock
+	private void index(int code, String firstName, String secondName, String city, Integer birthYear, String name) {
+		Set<String> keys = keys(firstName, secondName, city, birthYear);
+		Entry entry = new Entry(++stamp, firstName, secondName, city, birthYear, name, keys.size());
+		Entry previous = entries.put(code, entry);
+		add(postings, code, entry.stamp(), keys);
+		if (code >= stamps.length) {
+			stamps = Arrays.copyOf(stamps, Math.max(code + 1, stamps.length + stamps.length / 2));
+		}
+		stamps[code] = entry.stamp();
+		livePostings += keys.size();
+		if (previous != null) {
+			retire(previous);
+		}
+	}
+
+	// called holding the lock
+	private void retire(Entry entry) {
+		livePostings -= entry.keyCount();
+		stalePostings += entry.keyCount();
+		if (stalePostings > MIN_STALE_POSTINGS && stalePostings > livePostings) {
+			compact();
+		}
+	}
+
+	/**
+	 * Rebuilds the postings from the patients in the index, leaving the stale postings out.
+	 */
+	// called holding the lock
+	private void compact() {
+		Map<String, Postings> compacted = new ConcurrentHashMap<>();
+		entries.forEach((code, entry) -> add(compacted, code, entry.stamp(),
+						keys(entry.firstName(), entry.secondName(), entry.city(), entry.birthYear())));
+		postings = compacted;
+		LOGGER.debug("Patient search index compacted, {} stale postings dropped.", stalePostings);
+		stalePostings = 0;
+	}
+
+	private static void add(Map<String, Postings> postings, int code, int stamp, Set<String> keys) {
+		long posting = ((long) code << 32) | (stamp & 0xFFFFFFFFL);
+		for (String key : keys) {
+			postings.computeIfAbsent(key, k -> new Postings()).add(posting);
+		}
+	}
+
+	Set<String> keys(String firstName, String secondName, String city, Integer birthYear) {
+		Set<String> keys = new HashSet<>();
+		for (String word : words(firstName, secondName)) {
+			for (String trigram : trigrams(word)) {
+				keys.add(NAME_TRIGRAM + trigram);
+			}
+			for (String key : phoneticKeys(word)) {
+				keys.add(NAME_PHONETIC + key);
+			}
+		}
+		for (String word : words(city)) {
+			for (String trigram : trigrams(word)) {
+				keys.add(CITY_TRIGRAM + trigram);
+			}
+		}
+		if (birthYear != null) {
+			keys.add(BIRTH_YEAR_KEY + birthYear.toString());
+		}
+		return keys;
+	}
+
+	private Set<String> phoneticKeys(String word) {
+		Set<String> keys = new LinkedHashSet<>();
+		if (word.chars().allMatch(Character::isDigit)) {
+			return keys;
+		}
+		String primary = doubleMetaphone.doubleMetaphone(word);
+		if (primary != null && !primary.isEmpty()) {
+			keys.add(primary);
+		}
+		String alternate = doubleMetaphone.doubleMetaphone(word, true);
+		if (alternate != null && !alternate.isEmpty()) {
+			keys.add(alternate);
+		}
+		return keys;
+	}
+
+	/**
+	 * Splits the texts in lower case words without accents.
+	 */
+	static List<String> words(String... texts) {
+		List<String> words = new ArrayList<>();
+		for (String text : texts) {
+			if (text == null || text.isBlank()) {
+				continue;
+			}
+			String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+			Arrays.stream(SEPARATORS.split(plain)).filter(word -> !word.isEmpty()).forEach(words::add);
+		}
+		return words;
+	}
+
+	/**
+	 * Returns the distinct trigrams of the word padded with a {@code $} on both sides, so that the beginning and the
+	 * end of the word count.
+	 */
+	static List<String> trigrams(String word) {
+		String padded = '$' + word + '$';
+		Set<String> trigrams = new LinkedHashSet<>();
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			trigrams.add(padded.substring(i, i + 3));
+		}
+		return new ArrayList<>(trigrams);
+	}
+
+	/**
+	 * A page of search results.
+	 */
+	public static final class Result {
+
+		private final List<Integer> codes;
+
+		private final int total;
+
+		public Result(List<Integer> codes, int total) {
+			this.codes = codes;
+			this.total = total;
+		}
+
+		/**
+		 * Returns the codes of the patients in the page, the best matches first.
+		 */
+		public List<Integer> getCodes() {
+			return codes;
+		}
+
+		/**
+		 * Returns the number of patients matching the search over all the pages.
+		 */
+		public int getTotal() {
+			return total;
+		}
+	}
+
+	private record Hit(int code, double score, String name) {
+	}
+
+	private record Entry(int stamp, String firstName, String secondName, String city, Integer birthYear, String name, int keyCount) {
+	}
+
+	/**
+	 * The postings of a key: the patient code in the high half and the stamp of its entry in the low half.
+	 * <p>
+	 * Appended under the lock of the index and read without a lock: the size is written after the value, so a reader
+	 * reading the size before the array sees every value up to the size.
+	 */
+	private static final class Postings {
+
+		private volatile long[] values = new long[4];
+
+		private volatile int size;
+
+		void add(long posting) {
+			long[] current = values;
+			if (size == current.length) {
+				current = Arrays.copyOf(current, current.length * 2);
+				values = current;
+			}
+			current[size] = posting;
+			size = size + 1;
+		}
+	}
+}
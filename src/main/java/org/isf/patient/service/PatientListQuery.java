@@ -0,0 +1,200 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import org.isf.patient.dto.PatientDTO;
+import org.isf.patient.model.Patient;
+import org.isf.shared.query.InClauseBatches;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the {@link Patient}s of the patient lists as {@link PatientDTO}s, selecting only the columns of the DTO.
+ * <p>
+ * The patients are not loaded as entities, which would load their profile photo and consent with them: the photo is
+ * left out of the lists and served by {@code /patients/{code}/photo}.
+ */
+@Component
+public class PatientListQuery {
+
+	private static final char LIKE_ESCAPE = '!';
+
+	private static final String COLUMNS = "SELECT p.code AS code, p.firstName AS firstName, p.secondName AS secondName, p.name AS name,"
+					+ " p.birthDate AS birthDate, p.age AS age, p.agetype AS agetype, p.sex AS sex, p.address AS address, p.city AS city,"
+					+ " p.nextKin AS nextKin, p.telephone AS telephone, p.note AS note, p.motherName AS motherName, p.mother AS mother,"
+					+ " p.fatherName AS fatherName, p.father AS father, p.bloodType AS bloodType, p.hasInsurance AS hasInsurance,"
+					+ " p.parentTogether AS parentTogether, p.taxCode AS taxCode, p.lock AS lock, p.allergies AS allergies,"
+					+ " p.anamnesis AS anamnesis, con.consensusFlag AS consensusFlag, con.serviceFlag AS consensusServiceFlag"
+					+ " FROM Patient p LEFT JOIN p.patientConsensus con";
+
+	private static final String NOT_DELETED = "p.deleted = 'N'";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Returns a page of the patients, the last inserted first, as {@code PatientBrowserManager.getPatientsPageable}.
+	 *
+	 * @param page the index of the page, starting from {@code 0}
+	 * @param size the size of the page
+	 * @return the page of patients and the number of patients
+	 */
+	public Result getPatients(int page, int size) {
+		List<PatientDTO> patients = entityManager.createQuery(COLUMNS + " WHERE " + NOT_DELETED + " ORDER BY p.code DESC", Tuple.class)
+						.setFirstResult(page * size)
+						.setMaxResults(size)
+						.getResultList().stream()
+						.map(PatientListQuery::toDTO)
+						.collect(Collectors.toList());
+		long total = entityManager.createQuery("SELECT COUNT(p) FROM Patient p WHERE " + NOT_DELETED, Long.class).getSingleResult();
+		return new Result(patients, total);
+	}
+
+	/**
+	 * Returns the patients whose names and address contain the specified ones, ignoring case, and born on the specified
+	 * date, as {@code PatientBrowserManager.getPatients}.
+	 *
+	 * @param firstName part of the first name, {@code null} or empty for any
+	 * @param secondName part of the second name, {@code null} or empty for any
+	 * @param birthDate the birth date, {@code null} for any
+	 * @param address part of the address, {@code null} or empty for any
+	 * @return the patients ordered by second name and first name
+	 */
+	public List<PatientDTO> searchPatients(String firstName, String secondName, LocalDate birthDate, String address) {
+		StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").add(NOT_DELETED);
+		Map<String, Object> parameters = new TreeMap<>();
+		contains(where, parameters, "firstName", firstName);
+		contains(where, parameters, "secondName", secondName);
+		contains(where, parameters, "address", address);
+		if (birthDate != null) {
+			where.add("p.birthDate = :birthDate");
+			parameters.put("birthDate", birthDate);
+		}
+		TypedQuery<Tuple> query = entityManager.createQuery(COLUMNS + where + " ORDER BY p.secondName, p.firstName, p.code", Tuple.class);
+		parameters.forEach(query::setParameter);
+		return query.getResultList().stream()
+						.map(PatientListQuery::toDTO)
+						.collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the specified patients, as a page of search results.
+	 *
+	 * @param codes the codes of the patients
+	 * @return the patients in the order of the codes, the patients deleted or no longer existing are left out
+	 */
+	public List<PatientDTO> getPatients(Collection<Integer> codes) {
+		Map<Integer, PatientDTO> patients = InClauseBatches.getResultList(entityManager, COLUMNS + " WHERE " + NOT_DELETED + " AND p.code IN :codes",
+						Tuple.class, "codes", codes).stream()
+						.map(PatientListQuery::toDTO)
+						.collect(Collectors.toMap(PatientDTO::getCode, Function.identity()));
+		return codes.stream().map(patients::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
+	private static void contains(StringJoiner where, Map<String, Object> parameters, String field, String value) {
+		if (value == null || value.isEmpty()) {
+			return;
+		}
+		where.add("LOWER(p." + field + ") LIKE :" + field + " ESCAPE '" + LIKE_ESCAPE + '\'');
+		StringBuilder pattern = new StringBuilder(value.length() + 2).append('%');
+		for (char c : value.toLowerCase().toCharArray()) {
+			if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+				pattern.append(LIKE_ESCAPE);
+			}
+			pattern.append(c);
+		}
+		parameters.put(field, pattern.append('%').toString());
+	}
+
+	private static PatientDTO toDTO(Tuple row) {
+		PatientDTO patient = new PatientDTO();
+		patient.setCode(row.get("code", Integer.class));
+		patient.setFirstName(row.get("firstName", String.class));
+		patient.setSecondName(row.get("secondName", String.class));
+		patient.setName(row.get("name", String.class));
+		patient.setBirthDate(row.get("birthDate", LocalDate.class));
+		patient.setAge(row.get("age", Integer.class));
+		patient.setAgetype(row.get("agetype", String.class));
+		patient.setSex(character(row, "sex"));
+		patient.setAddress(row.get("address", String.class));
+		patient.setCity(row.get("city", String.class));
+		patient.setNextKin(row.get("nextKin", String.class));
+		patient.setTelephone(row.get("telephone", String.class));
+		patient.setNote(row.get("note", String.class));
+		patient.setMotherName(row.get("motherName", String.class));
+		patient.setMother(character(row, "mother"));
+		patient.setFatherName(row.get("fatherName", String.class));
+		patient.setFather(character(row, "father"));
+		patient.setBloodType(row.get("bloodType", String.class));
+		patient.setHasInsurance(character(row, "hasInsurance"));
+		patient.setParentTogether(character(row, "parentTogether"));
+		patient.setTaxCode(row.get("taxCode", String.class));
+		patient.setLock(row.get("lock", Integer.class));
+		patient.setAllergies(row.get("allergies", String.class));
+		patient.setAnamnesis(row.get("anamnesis", String.class));
+		patient.setConsensusFlag(Boolean.TRUE.equals(row.get("consensusFlag", Boolean.class)));
+		patient.setConsensusServiceFlag(Boolean.TRUE.equals(row.get("consensusServiceFlag", Boolean.class)));
+		return patient;
+	}
+
+	private static char character(Tuple row, String alias) {
+		Character value = row.get(alias, Character.class);
+		return value != null ? value : '\0';
+	}
+
+	/**
+	 * A page of patients and the number of patients over all the pages.
+	 */
+	public static final class Result {
+
+		private final List<PatientDTO> patients;
+
+		private final long total;
+
+		public Result(List<PatientDTO> patients, long total) {
+			this.patients = patients;
+			this.total = total;
+		}
+
+		public List<PatientDTO> getPatients() {
+			return patients;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.timeline;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import jakarta.annotation.PreDestroy;
+
+import org.isf.admission.dto.AdmissionDTO;
+import org.isf.admission.manager.AdmissionBrowserManager;
+import org.isf.admission.mapper.AdmissionMapper;
+import org.isf.examination.dto.PatientExaminationDTO;
+import org.isf.examination.manager.ExaminationBrowserManager;
+import org.isf.examination.mapper.PatientExaminationMapper;
+import org.isf.lab.dto.LaboratoryDTO;
+import org.isf.lab.manager.LabManager;
+import org.isf.lab.mapper.LaboratoryMapper;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryStatus;
+import org.isf.opd.dto.OpdDTO;
+import org.isf.opd.manager.OpdBrowserManager;
+import org.isf.opd.mapper.OpdMapper;
+import org.isf.patient.dto.PatientTimelineDTO;
+import org.isf.patient.dto.PatientTimelineEntryDTO;
+import org.isf.patient.model.Patient;
+import org.isf.therapy.dto.TherapyRowDTO;
+import org.isf.therapy.manager.TherapyManager;
+import org.isf.therapy.mapper.TherapyRowMapper;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.visits.dto.VisitDTO;
+import org.isf.visits.manager.VisitManager;
+import org.isf.visits.mapper.VisitMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Collects the histories of a patient in one timeline, reading its sections at the same time on a dedicated, bounded
+ * executor.
+ * <p>
+ * The sections share a time budget: a section not read within the budget, failed or refused because the executor is
+ * full is left out of the timeline and reported as incomplete, the other sections are returned anyway.
+ */
+@Component
+public class PatientTimeline {
+
+	public static final String EXECUTOR_NAME = "patientTimeline";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PatientTimeline.class);
+
+	private static final String DRAFT = LaboratoryStatus.draft.toString();
+
+	private static final String OPEN = LaboratoryStatus.open.toString();
+
+	/** From the most recent, the undated entries last. */
+	private static final Comparator<PatientTimelineEntryDTO> ORDER = Comparator
+					.comparing(PatientTimelineEntryDTO::getDate, Comparator.nullsLast(Comparator.reverseOrder()))
+					.thenComparing(PatientTimelineEntryDTO::getSection)
+					.thenComparing(PatientTimelineEntryDTO::getCode, Comparator.reverseOrder());
+
+	private final AdmissionBrowserManager admissionManager;
+
+	private final OpdBrowserManager opdManager;
+
+	private final LabManager laboratoryManager;
+
+	private final ExaminationBrowserManager examinationManager;
+
+	private final TherapyManager therapyManager;
+
+	private final VisitManager visitManager;
+
+	private final AdmissionMapper admissionMapper;
+
+	private final OpdMapper opdMapper;
+
+	private final LaboratoryMapper laboratoryMapper;
+
+	private final PatientExaminationMapper examinationMapper;
+
+	private final TherapyRowMapper therapyRowMapper;
+
+	private final VisitMapper visitMapper;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ThreadPoolExecutor executor;
+
+	private final long timeBudgetMillis;
+
+	/**
+	 * @param threads the number of sections read at the same time, for all the requests
+	 * @param queueCapacity the number of sections waiting for a thread before new sections are refused
+	 * @param timeBudgetMillis the time within which the sections of a timeline must be read
+	 */
+	public PatientTimeline(AdmissionBrowserManager admissionManager, OpdBrowserManager opdManager, LabManager laboratoryManager,
+					ExaminationBrowserManager examinationManager, TherapyManager therapyManager, VisitManager visitManager,
+					AdmissionMapper admissionMapper, OpdMapper opdMapper, LaboratoryMapper laboratoryMapper,
+					PatientExaminationMapper examinationMapper, TherapyRowMapper therapyRowMapper, VisitMapper visitMapper,
+					ObjectProvider<PlatformTransactionManager> transactionManager, ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${patient.timeline.threads:8}") int threads,
+					@Value("${patient.timeline.queue-capacity:64}") int queueCapacity,
+					@Value("${patient.timeline.time-budget-ms:2000}") long timeBudgetMillis) {
+		this.admissionManager = admissionManager;
+		this.opdManager = opdManager;
+		this.laboratoryManager = laboratoryManager;
+		this.examinationManager = examinationManager;
+		this.therapyManager = therapyManager;
+		this.visitManager = visitManager;
+		this.admissionMapper = admissionMapper;
+		this.opdMapper = opdMapper;
+		this.laboratoryMapper = laboratoryMapper;
+		this.examinationMapper = examinationMapper;
+		this.therapyRowMapper = therapyRowMapper;
+		this.visitMapper = visitMapper;
+		this.timeBudgetMillis = timeBudgetMillis;
+
+		PlatformTransactionManager platformTransactionManager = transactionManager.getIfAvailable();
+		if (platformTransactionManager != null) {
+			this.transactionTemplate = new TransactionTemplate(platformTransactionManager);
+			this.transactionTemplate.setReadOnly(true);
+		} else {
+			this.transactionTemplate = null;
+		}
+
+		int poolSize = Math.max(1, threads);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("patient-timeline-");
+		threadFactory.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+						threadFactory, new ThreadPoolExecutor.AbortPolicy());
+		meterRegistry.ifAvailable(registry -> new ExecutorServiceMetrics(executor, EXECUTOR_NAME, List.of()).bindTo(registry));
+	}
+
+	/**
+	 * Returns the timeline of the specified sections of a patient.
+	 *
+	 * @param patient the patient
+	 * @param sections the sections to read
+	 * @return the entries of the sections read, from the most recent, and the sections not read
+	 */
+	public PatientTimelineDTO getTimeline(Patient patient, Set<PatientTimelineSection> sections) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+		List<PatientTimelineSection> incompleteSections = new ArrayList<>();
+		Map<PatientTimelineSection, Future<List<PatientTimelineEntryDTO>>> futures = new EnumMap<>(PatientTimelineSection.class);
+		for (PatientTimelineSection section : sections) {
+			try {
+				futures.put(section, executor.submit(() -> read(section, patient)));
+			} catch (RejectedExecutionException e) {
+				LOGGER.warn("Timeline section {} of patient {} refused, too many sections waiting.", section, patient.getCode());
+				incompleteSections.add(section);
+			}
+		}
+
+		List<PatientTimelineEntryDTO> entries = new ArrayList<>();
+		for (Map.Entry<PatientTimelineSection, Future<List<PatientTimelineEntryDTO>>> future : futures.entrySet()) {
+			PatientTimelineSection section = future.getKey();
+			try {
+				entries.addAll(future.getValue().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+			} catch (TimeoutException e) {
+				LOGGER.warn("Timeline section {} of patient {} not read within {} ms.", section, patient.getCode(), timeBudgetMillis);
+				future.getValue().cancel(true);
+				incompleteSections.add(section);
+			} catch (ExecutionException e) {
+				LOGGER.error("Timeline section {} of patient {} failed.", section, patient.getCode(), e.getCause());
+				incompleteSections.add(section);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				future.getValue().cancel(true);
+				incompleteSections.add(section);
+			}
+		}
+		entries.sort(ORDER);
+		Collections.sort(incompleteSections);
+
+		PatientTimelineDTO timeline = new PatientTimelineDTO();
+		timeline.setPatientCode(patient.getCode());
+		timeline.setEntries(entries);
+		timeline.setIncompleteSections(incompleteSections);
+		return timeline;
+	}
+
+	private List<PatientTimelineEntryDTO> read(PatientTimelineSection section, Patient patient) throws OHServiceException {
+		if (transactionTemplate == null) {
+			return entries(section, patient);
+		}
+		// the mappers may load lazy associations, the section is read and mapped within one transaction of this thread
+		return transactionTemplate.execute(status -> {
+			try {
+				return entries(section, patient);
+			} catch (OHServiceException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+
+	private List<PatientTimelineEntryDTO> entries(PatientTimelineSection section, Patient patient) throws OHServiceException {
+		int code = patient.getCode();
+		switch (section) {
+			case ADMISSIONS:
+				return entries(section, admissionManager.getAdmissions(patient), admissionMapper::map2DTO, AdmissionDTO::getAdmDate, AdmissionDTO::getId);
+			case OPDS:
+				return entries(section, opdManager.getOpdList(code), opdMapper::map2DTO, OpdDTO::getDate, OpdDTO::getCode);
+			case LABORATORIES:
+				List<Laboratory> laboratories = laboratoryManager.getLaboratory(patient);
+				if (laboratories != null) {
+					laboratories = laboratories.stream()
+									.filter(laboratory -> !laboratory.getStatus().equalsIgnoreCase(DRAFT) && !laboratory.getStatus().equalsIgnoreCase(OPEN))
+									.toList();
+				}
+				return entries(section, laboratories, laboratoryMapper::map2DTO, LaboratoryDTO::getLabDate, LaboratoryDTO::getCode);
+			case EXAMINATIONS:
+				return entries(section, examinationManager.getByPatID(code), examinationMapper::map2DTO, PatientExaminationDTO::getPex_date,
+								PatientExaminationDTO::getPex_ID);
+			case THERAPIES:
+				return entries(section, therapyManager.getTherapyRows(code), therapyRowMapper::map2DTO, TherapyRowDTO::getStartDate,
+								TherapyRowDTO::getTherapyID);
+			case VISITS:
+				return entries(section, visitManager.getVisits(code), visitMapper::map2DTO, VisitDTO::getDate, VisitDTO::getVisitID);
+			default:
+				throw new IllegalArgumentException("Unknown timeline section " + section + '.');
+		}
+	}
+
+	private static <M, D> List<PatientTimelineEntryDTO> entries(PatientTimelineSection section, List<M> models, Function<M, D> mapper,
+					Function<D, LocalDateTime> date, ToIntFunction<D> code) {
+		if (models == null) {
+			return List.of();
+		}
+		List<PatientTimelineEntryDTO> entries = new ArrayList<>(models.size());
+		for (M model : models) {
+			D dto = mapper.apply(model);
+			entries.add(new PatientTimelineEntryDTO(section, date.apply(dto), code.applyAsInt(dto), dto));
+		}
+		return entries;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
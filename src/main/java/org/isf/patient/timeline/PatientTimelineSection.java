@@ -0,0 +1,53 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.timeline;
+
+/**
+ * The histories of a patient collected by {@link PatientTimeline}.
+ */
+public enum PatientTimelineSection {
+	/** The admissions, dated by the admission date. */
+	ADMISSIONS("admissions.read"),
+	/** The OPD visits, dated by the visit date. */
+	OPDS("opds.read"),
+	/** The laboratory exams not draft or open, dated by the exam date. */
+	LABORATORIES("laboratories.read"),
+	/** The patient examinations, dated by the examination date. */
+	EXAMINATIONS("examinations.read"),
+	/** The therapies, dated by their start. */
+	THERAPIES("therapies.read"),
+	/** The scheduled visits, dated by the visit date. */
+	VISITS("visits.read");
+
+	private final String readAuthority;
+
+	PatientTimelineSection(String readAuthority) {
+		this.readAuthority = readAuthority;
+	}
+
+	/**
+	 * @return the authority protecting the reads of the section outside the timeline, required to read it in the timeline too
+	 */
+	public String getReadAuthority() {
+		return readAuthority;
+	}
+}
@@ -21,8 +21,6 @@
  */
 package org.isf.permissions.mapper;
 
-import java.util.List;
-import java.util.stream.Collectors;
 import org.isf.permissions.dto.PermissionDTO;
 import org.isf.permissions.model.Permission;
 import org.isf.shared.GenericMapper;
@@ -34,14 +32,4 @@ public class PermissionMapper extends GenericMapper<Permission, PermissionDTO> {
 	public PermissionMapper() {
 		super(Permission.class, PermissionDTO.class);
 	}
-
-	@Override
-	public List<PermissionDTO> map2DTOList(List<Permission> list) {
-		return list.stream().map(permission -> modelMapper.map(permission, PermissionDTO.class)).collect(Collectors.toList());
-	}
-
-	@Override
-	public PermissionDTO map2DTO(Permission fromObj) {
-		return modelMapper.map(fromObj, PermissionDTO.class);
-	}
 }
@@ -24,6 +24,8 @@ package org.isf.pregtreattype.rest;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.isf.admission.cache.ReferenceDataCache;
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
 import org.isf.pregtreattype.dto.PregnantTreatmentTypeDTO;
 import org.isf.pregtreattype.manager.PregnantTreatmentTypeBrowserManager;
 import org.isf.pregtreattype.mapper.PregnantTreatmentTypeMapper;
@@ -61,9 +63,13 @@ public class PregnantTreatmentTypeController {
 	@Autowired
 	protected PregnantTreatmentTypeMapper mapper;
 
-	public PregnantTreatmentTypeController(PregnantTreatmentTypeBrowserManager pregTreatTypeManager, PregnantTreatmentTypeMapper pregnantTreatmentTypemapper) {
+	@Autowired
+	protected ReferenceDataCache referenceDataCache;
+
+	public PregnantTreatmentTypeController(PregnantTreatmentTypeBrowserManager pregTreatTypeManager, PregnantTreatmentTypeMapper pregnantTreatmentTypemapper, ReferenceDataCache referenceDataCache) {
 		this.pregTreatTypeManager = pregTreatTypeManager;
 		this.mapper = pregnantTreatmentTypemapper;
+		this.referenceDataCache = referenceDataCache;
 	}
 
 	/**
@@ -82,6 +88,7 @@ public class PregnantTreatmentTypeController {
 		if (isCreatedPregnantTreatmentType == null) {
 			throw new OHAPIException(new OHExceptionMessage("Pregnant Treatment Type not created."));
 		}
+		referenceDataCache.invalidate(Catalogue.PREGNANT_TREATMENT_TYPE);
 		return ResponseEntity.status(HttpStatus.CREATED).body(mapper.map2DTO(isCreatedPregnantTreatmentType));
 	}
 
@@ -105,6 +112,7 @@ public class PregnantTreatmentTypeController {
 		if (isUpdatedPregnantTreatmentType == null) {
 			throw new OHAPIException(new OHExceptionMessage("Pregnant Treatment Type not updated."));
 		}
+		referenceDataCache.invalidate(Catalogue.PREGNANT_TREATMENT_TYPE);
 		return ResponseEntity.ok(mapper.map2DTO(isUpdatedPregnantTreatmentType));
 	}
 
@@ -143,6 +151,7 @@ public class PregnantTreatmentTypeController {
 			if (!pregTreatTypeFounds.isEmpty()) {
 				try {
 					pregTreatTypeManager.deletePregnantTreatmentType(pregTreatTypeFounds.get(0));
+					referenceDataCache.invalidate(Catalogue.PREGNANT_TREATMENT_TYPE);
 				} catch (OHServiceException serviceException) {
 					LOGGER.error("Delete PregnantTreatment Type: {} failed.", code);
 					throw new OHAPIException(new OHExceptionMessage("PregnantTreatment Type not deleted."));
@@ -28,7 +28,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -38,14 +37,16 @@ public class CustomAuthenticationManager implements AuthenticationManager {
 	private UserDetailsServiceImpl customUserDetailsService;
 
 	@Autowired
-	private PasswordEncoder passwordEncoder;
+	private PasswordVerifier passwordVerifier;
 
 	@Override
 	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
 		final UserDetails userDetail = customUserDetailsService.loadUserByUsername(authentication.getName());
-		if (!passwordEncoder.matches(authentication.getCredentials().toString(), userDetail.getPassword())) {
+		String password = authentication.getCredentials().toString();
+		if (!passwordVerifier.matches(password, userDetail.getPassword())) {
 			throw new BadCredentialsException("Wrong password");
 		}
+		passwordVerifier.upgradeEncodingIfNeeded(userDetail.getUsername(), password, userDetail.getPassword());
 		return new UsernamePasswordAuthenticationToken(userDetail.getUsername(), userDetail.getPassword(), userDetail.getAuthorities());
 	}
 
@@ -21,16 +21,13 @@
  */
 package org.isf.security;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
-
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
-import org.isf.sessionaudit.manager.SessionAuditManager;
-import org.isf.sessionaudit.model.SessionAudit;
-import org.isf.utils.exception.OHServiceException;
+import org.isf.security.jwt.JWTFilter;
+import org.isf.security.jwt.TokenProvider;
+import org.isf.security.jwt.TokenValidationResult;
+import org.isf.security.jwt.VerifiedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,41 +36,30 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 @Service
 public class CustomLogoutHandler implements LogoutHandler {
 
 	@Autowired
-	private HttpSession httpSession;
+	private TokenProvider tokenProvider;
 
 	@Autowired
-	private SessionAuditManager sessionAuditManager;
+	private SessionAuditWriter sessionAuditWriter;
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(CustomLogoutHandler.class);
 
 	@Override
 	public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
-		try {
-			Optional<Object> sessionAuditIdOpt = Optional.ofNullable(httpSession.getAttribute("sessionAuditId"));
-			if (sessionAuditIdOpt.isPresent()) {
-				int sessionAuditId = (int) sessionAuditIdOpt.get();
-				Optional<SessionAudit> sa = sessionAuditManager.getSessionAudit(sessionAuditId);
-				if (sa.isPresent()) {
-					SessionAudit sessionAudit = sa.get();
-					sessionAudit.setLogoutDate(LocalDateTime.now());
-					sessionAuditManager.updateSessionAudit(sessionAudit);
-				}
-			} else {
-				LOGGER.error("Unable to find the session. Are you sure that you are logged in?");
-			}
-		} catch (OHServiceException e) {
-			LOGGER.error("Unable to log user login timestamp in the session_audit table");
+		// the logout filter runs before the JWT filter, so the token is read here
+		String jwt = JWTFilter.resolveToken(request);
+		VerifiedToken verifiedToken = StringUtils.hasText(jwt) ? tokenProvider.verifyToken(jwt) : null;
+		if (verifiedToken != null && verifiedToken.getResult() == TokenValidationResult.VALID) {
+			sessionAuditWriter.logout(verifiedToken.getAuthentication().getName(), verifiedToken.getSessionId());
+		} else {
+			LOGGER.error("Unable to find the session. Are you sure that you are logged in?");
 		}
 
-		HttpSession session = request.getSession(false);
-		if (session != null) {
-			session.invalidate();
-		}
 		SecurityContext context = SecurityContextHolder.getContext();
 		SecurityContextHolder.clearContext();
 		context.setAuthentication(null);
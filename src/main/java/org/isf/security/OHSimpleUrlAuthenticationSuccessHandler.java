@@ -22,19 +22,12 @@
 package org.isf.security;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import org.isf.login.dto.LoginResponse;
 import org.isf.security.jwt.TokenProvider;
-import org.isf.sessionaudit.manager.SessionAuditManager;
-import org.isf.sessionaudit.model.SessionAudit;
-import org.isf.utils.exception.OHServiceException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
@@ -52,12 +45,7 @@ public class OHSimpleUrlAuthenticationSuccessHandler extends SimpleUrlAuthentica
 	private TokenProvider tokenProvider;
 
 	@Autowired
-	private HttpSession httpSession;
-
-	@Autowired
-	private SessionAuditManager sessionAuditManager;
-
-	private static final Logger LOGGER = LoggerFactory.getLogger(OHSimpleUrlAuthenticationSuccessHandler.class);
+	private SessionAuditWriter sessionAuditWriter;
 
 	public OHSimpleUrlAuthenticationSuccessHandler(TokenProvider tokenProvider) {
 		this.tokenProvider = tokenProvider;
@@ -70,20 +58,14 @@ public class OHSimpleUrlAuthenticationSuccessHandler extends SimpleUrlAuthentica
 		SavedRequest savedRequest = requestCache.getRequest(request, response);
 
 		LoginResponse loginResponse = new LoginResponse();
-		loginResponse.setToken(this.tokenProvider.generateJwtToken(authentication, true));
+		String sessionId = sessionAuditWriter.login(authentication.getName());
+		loginResponse.setToken(this.tokenProvider.generateJwtToken(authentication, true, sessionId));
 		loginResponse.setUsername(authentication.getName());
 		ObjectMapper mapper = new ObjectMapper();
 
 		response.getWriter().append(mapper.writeValueAsString(loginResponse));
 		response.setStatus(200);
 
-		try {
-			this.httpSession.setAttribute("sessionAuditId",
-							sessionAuditManager.newSessionAudit(new SessionAudit(authentication.getName(), LocalDateTime.now(), null)));
-		} catch (OHServiceException e1) {
-			LOGGER.error("Unable to log user login in the session_audit table");
-		}
-
 		if (savedRequest == null) {
 			clearAuthenticationAttributes(request);
 			return;
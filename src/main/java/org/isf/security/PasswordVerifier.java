@@ -0,0 +1,197 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import jakarta.annotation.PreDestroy;
+
+import org.isf.menu.manager.UserBrowsingManager;
+import org.isf.menu.model.User;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Verifies passwords on a dedicated, bounded executor, so that bursts of logins cannot starve the request threads.
+ * <p>
+ * When the queue is full, or a verification waits longer than the configured timeout, the login is rejected with a
+ * {@link PasswordVerificationRejectedException}. After a successful login, a hash weaker than the configured BCrypt
+ * cost is re-encoded and stored in the background.
+ */
+@Component
+public class PasswordVerifier {
+
+	public static final String EXECUTOR_NAME = "passwordVerification";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PasswordVerifier.class);
+
+	private final PasswordEncoder passwordEncoder;
+
+	private final UserBrowsingManager userManager;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final ThreadPoolExecutor executor;
+
+	private final long timeoutMillis;
+
+	private final long retryAfterSeconds;
+
+	private final Timer matchTimer;
+
+	private final Timer mismatchTimer;
+
+	private final Counter rejectedCounter;
+
+	private final Counter upgradedCounter;
+
+	/**
+	 * @param threads the number of verification threads, {@code 0} uses one thread per available processor
+	 * @param queueCapacity the number of verifications waiting for a thread before logins are rejected
+	 * @param timeoutMillis the maximum time a login waits for its verification
+	 * @param retryAfterSeconds the delay suggested to rejected clients
+	 */
+	public PasswordVerifier(PasswordEncoder passwordEncoder, UserBrowsingManager userManager, ApplicationEventPublisher eventPublisher,
+					ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${security.password-verification.threads:0}") int threads,
+					@Value("${security.password-verification.queue-capacity:64}") int queueCapacity,
+					@Value("${security.password-verification.timeout-ms:5000}") long timeoutMillis,
+					@Value("${security.password-verification.retry-after-seconds:2}") long retryAfterSeconds) {
+		this.passwordEncoder = passwordEncoder;
+		this.userManager = userManager;
+		this.eventPublisher = eventPublisher;
+		this.timeoutMillis = timeoutMillis;
+		this.retryAfterSeconds = retryAfterSeconds;
+
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-verification-");
+		threadFactory.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), threadFactory,
+						new ThreadPoolExecutor.AbortPolicy());
+
+		MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+		new ExecutorServiceMetrics(executor, EXECUTOR_NAME, List.of()).bindTo(registry);
+		this.matchTimer = Timer.builder("oh.security.password.verification").tag("result", "match").register(registry);
+		this.mismatchTimer = Timer.builder("oh.security.password.verification").tag("result", "mismatch").register(registry);
+		this.rejectedCounter = Counter.builder("oh.security.password.verification.rejected").register(registry);
+		this.upgradedCounter = Counter.builder("oh.security.password.upgraded").register(registry);
+		LOGGER.info("Password verification executor started with {} threads and a queue of {}.", poolSize, queueCapacity);
+	}
+
+	/**
+	 * Checks a raw password against its stored hash on the verification executor.
+	 *
+	 * @return {@code true} if the password matches
+	 * @throws PasswordVerificationRejectedException if the executor is saturated
+	 */
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		Future<Boolean> verification;
+		try {
+			verification = executor.submit(() -> verify(rawPassword, encodedPassword));
+		} catch (RejectedExecutionException e) {
+			throw reject("Too many concurrent logins, please retry later.");
+		}
+		try {
+			return verification.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			verification.cancel(true);
+			throw reject("Password verification timed out, please retry later.");
+		} catch (InterruptedException e) {
+			verification.cancel(true);
+			Thread.currentThread().interrupt();
+			throw reject("Password verification interrupted.");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Password verification failed.", e.getCause());
+		}
+	}
+
+	private boolean verify(CharSequence rawPassword, String encodedPassword) {
+		long start = System.nanoTime();
+		boolean matches = passwordEncoder.matches(rawPassword, encodedPassword);
+		(matches ? matchTimer : mismatchTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return matches;
+	}
+
+	/**
+	 * Re-encodes and stores in the background the hash of a successfully verified password, if it is weaker than the
+	 * configured cost. The upgrade is skipped when the executor is busy and retried on the next login.
+	 */
+	public void upgradeEncodingIfNeeded(String username, CharSequence rawPassword, String encodedPassword) {
+		if (!passwordEncoder.upgradeEncoding(encodedPassword)) {
+			return;
+		}
+		try {
+			executor.execute(() -> upgradeEncoding(username, rawPassword, encodedPassword));
+		} catch (RejectedExecutionException e) {
+			LOGGER.debug("Password hash upgrade of user '{}' postponed, the verification executor is busy.", username);
+		}
+	}
+
+	private void upgradeEncoding(String username, CharSequence rawPassword, String encodedPassword) {
+		try {
+			User user = userManager.getUserByName(username);
+			if (user == null || !encodedPassword.equals(user.getPasswd())) {
+				// the user or its password changed in the meantime
+				return;
+			}
+			user.setPasswd(passwordEncoder.encode(rawPassword));
+			if (userManager.updatePassword(user)) {
+				upgradedCounter.increment();
+				eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUser(username));
+				LOGGER.info("Password hash of user '{}' upgraded.", username);
+			}
+		} catch (OHServiceException e) {
+			LOGGER.warn("Unable to upgrade the password hash of user '{}'.", username, e);
+		}
+	}
+
+	private PasswordVerificationRejectedException reject(String message) {
+		rejectedCounter.increment();
+		LOGGER.warn("{} Queued verifications: {}.", message, executor.getQueue().size());
+		return new PasswordVerificationRejectedException(message, retryAfterSeconds);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.sessionaudit.model.SessionAudit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds the {@link SessionAudit} of a login session from the user name and the login date carried by the tokens, so that
+ * a logout is recorded whichever node receives it and whenever it comes.
+ */
+@Component
+public class SessionAuditQuery {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Returns the session audit of the specified login that is not logged out yet; when the user logged in more than
+	 * once in the same second, the first one still open is returned.
+	 *
+	 * @param userName the user name
+	 * @param loginDate the login date, to the second
+	 * @return the {@link SessionAudit}, empty if there is none
+	 */
+	public Optional<SessionAudit> getOpenSessionAudit(String userName, LocalDateTime loginDate) {
+		return entityManager.createQuery("SELECT sau FROM SessionAudit sau WHERE sau.userName = :userName AND sau.loginDate = :loginDate"
+						+ " AND sau.logoutDate IS NULL ORDER BY sau.code", SessionAudit.class)
+						.setParameter("userName", userName)
+						.setParameter("loginDate", loginDate)
+						.setMaxResults(1)
+						.getResultStream()
+						.findFirst();
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.isf.sessionaudit.manager.SessionAuditManager;
+import org.isf.sessionaudit.model.SessionAudit;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Records logins and logouts in the session_audit table without keeping the requests waiting for the database.
+ * <p>
+ * Events are queued in memory and written by a background thread, each group of events in a single transaction. When a
+ * write fails the group is put back at the head of the queue and retried with an exponential backoff, so that short
+ * database outages do not lose the audit trail. The id of a login session, carried by the tokens, is its login date: the
+ * logout looks the {@link SessionAudit} up in the database by the user name and that date, so it does not depend on the
+ * memory of the node that recorded the login.
+ */
+@Component
+public class SessionAuditWriter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SessionAuditWriter.class);
+
+	private final SessionAuditManager sessionAuditManager;
+
+	private final SessionAuditQuery sessionAuditQuery;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final LinkedBlockingDeque<SessionAuditEvent> queue;
+
+	private final ExecutorService flusher;
+
+	private final int batchSize;
+
+	private final long flushIntervalMillis;
+
+	private final long maxRetryDelayMillis;
+
+	private final int maxAttempts;
+
+	private final Counter writtenCounter;
+
+	private final Counter failedCounter;
+
+	private final Counter droppedCounter;
+
+	private volatile boolean running = true;
+
+	/**
+	 * @param queueCapacity the number of events waiting to be written before new ones are dropped
+	 * @param batchSize the maximum number of events written in a single transaction
+	 * @param flushIntervalMillis how long the writer waits for new events, also the first retry delay after a failure
+	 * @param maxRetryDelayMillis the upper bound of the retry delay
+	 * @param maxAttempts the number of failed writes after which an event is discarded
+	 */
+	public SessionAuditWriter(SessionAuditManager sessionAuditManager, SessionAuditQuery sessionAuditQuery,
+					ObjectProvider<PlatformTransactionManager> transactionManager, ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${security.session-audit.queue-capacity:10000}") int queueCapacity,
+					@Value("${security.session-audit.batch-size:100}") int batchSize,
+					@Value("${security.session-audit.flush-interval-ms:1000}") long flushIntervalMillis,
+					@Value("${security.session-audit.max-retry-delay-ms:60000}") long maxRetryDelayMillis,
+					@Value("${security.session-audit.max-attempts:10}") int maxAttempts) {
+		this.sessionAuditManager = sessionAuditManager;
+		this.sessionAuditQuery = sessionAuditQuery;
+		PlatformTransactionManager platformTransactionManager = transactionManager.getIfAvailable();
+		this.transactionTemplate = platformTransactionManager != null ? new TransactionTemplate(platformTransactionManager) : null;
+		this.queue = new LinkedBlockingDeque<>(queueCapacity);
+		this.batchSize = batchSize;
+		this.flushIntervalMillis = flushIntervalMillis;
+		this.maxRetryDelayMillis = Math.max(maxRetryDelayMillis, flushIntervalMillis);
+		this.maxAttempts = maxAttempts;
+
+		MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+		Gauge.builder("oh.security.session-audit.pending", queue, LinkedBlockingDeque::size).register(registry);
+		this.writtenCounter = Counter.builder("oh.security.session-audit.written").register(registry);
+		this.failedCounter = Counter.builder("oh.security.session-audit.failures").register(registry);
+		this.droppedCounter = Counter.builder("oh.security.session-audit.dropped").register(registry);
+
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("session-audit-");
+		threadFactory.setDaemon(true);
+		this.flusher = Executors.newSingleThreadExecutor(threadFactory);
+		this.flusher.execute(this::flushLoop);
+	}
+
+	/**
+	 * Queues the login of a user.
+	 *
+	 * @return the id of the new login session, to be carried by the tokens issued to the user
+	 */
+	public String login(String userName) {
+		// the login date is stored to the second, the precision of the session_audit columns
+		LocalDateTime loginDate = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+		enqueue(new SessionAuditEvent(userName, loginDate, loginDate, true));
+		return loginDate.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+	}
+
+	/**
+	 * Queues the logout of a login session; {@code null} or malformed session ids are ignored, and so are sessions not
+	 * found when the event is written.
+	 *
+	 * @param userName the user name
+	 * @param sessionId the id of the login session returned by {@link #login(String)}
+	 */
+	public void logout(String userName, String sessionId) {
+		if (sessionId == null) {
+			LOGGER.debug("Logout without a login session, nothing to audit.");
+			return;
+		}
+		LocalDateTime loginDate;
+		try {
+			loginDate = LocalDateTime.parse(sessionId, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+		} catch (DateTimeParseException e) {
+			LOGGER.warn("Malformed login session {} of user {}, logout not recorded.", sessionId, userName);
+			return;
+		}
+		enqueue(new SessionAuditEvent(userName, loginDate, LocalDateTime.now(), false));
+	}
+
+	public int getPendingCount() {
+		return queue.size();
+	}
+
+	private void enqueue(SessionAuditEvent event) {
+		if (!running || !queue.offerLast(event)) {
+			droppedCounter.increment();
+			LOGGER.warn("Session audit queue full, {} of {} not recorded.", event.login ? "login" : "logout", event);
+		}
+	}
+
+	private void flushLoop() {
+		long retryDelay = flushIntervalMillis;
+		while (running) {
+			List<SessionAuditEvent> batch;
+			try {
+				batch = nextBatch();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (batch.isEmpty()) {
+				continue;
+			}
+			if (write(batch)) {
+				retryDelay = flushIntervalMillis;
+				continue;
+			}
+			requeue(batch);
+			try {
+				Thread.sleep(retryDelay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			retryDelay = Math.min(retryDelay * 2, maxRetryDelayMillis);
+		}
+	}
+
+	private List<SessionAuditEvent> nextBatch() throws InterruptedException {
+		SessionAuditEvent first = queue.pollFirst(flushIntervalMillis, TimeUnit.MILLISECONDS);
+		if (first == null) {
+			return List.of();
+		}
+		List<SessionAuditEvent> batch = new ArrayList<>(batchSize);
+		batch.add(first);
+		queue.drainTo(batch, batchSize - 1);
+		return batch;
+	}
+
+	/**
+	 * Writes a group of events in a single transaction.
+	 *
+	 * @return {@code true} if the events were written
+	 */
+	private boolean write(List<SessionAuditEvent> batch) {
+		try {
+			if (transactionTemplate != null) {
+				transactionTemplate.executeWithoutResult(status -> writeEvents(batch));
+			} else {
+				writeEvents(batch);
+			}
+		} catch (RuntimeException e) {
+			failedCounter.increment();
+			LOGGER.warn("Unable to write {} session audit events, they will be retried: {}", batch.size(), e.getMessage());
+			LOGGER.debug("Session audit write failure", e);
+			return false;
+		}
+		writtenCounter.increment(batch.size());
+		return true;
+	}
+
+	private void writeEvents(List<SessionAuditEvent> batch) {
+		// a login and its logout in the same group are stored as a single row
+		List<SessionAudit> logins = new ArrayList<>();
+		List<SessionAuditEvent> logouts = new ArrayList<>();
+		for (SessionAuditEvent event : batch) {
+			if (event.login) {
+				logins.add(new SessionAudit(event.userName, event.loginDate, null));
+				continue;
+			}
+			Optional<SessionAudit> login = logins.stream()
+							.filter(sessionAudit -> sessionAudit.getLogoutDate() == null && sessionAudit.getUserName().equals(event.userName)
+											&& sessionAudit.getLoginDate().equals(event.loginDate))
+							.findFirst();
+			if (login.isPresent()) {
+				login.get().setLogoutDate(event.timestamp);
+			} else {
+				logouts.add(event);
+			}
+		}
+		try {
+			for (SessionAudit login : logins) {
+				sessionAuditManager.newSessionAudit(login);
+			}
+			for (SessionAuditEvent logout : logouts) {
+				Optional<SessionAudit> sessionAudit = sessionAuditQuery.getOpenSessionAudit(logout.userName, logout.loginDate);
+				if (sessionAudit.isEmpty()) {
+					LOGGER.warn("Unable to find the session audit of {}, logout not recorded.", logout);
+					continue;
+				}
+				sessionAudit.get().setLogoutDate(logout.timestamp);
+				sessionAuditManager.updateSessionAudit(sessionAudit.get());
+			}
+		} catch (OHServiceException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	private void requeue(List<SessionAuditEvent> batch) {
+		// put the events back at the head of the queue, in their original order
+		ListIterator<SessionAuditEvent> iterator = batch.listIterator(batch.size());
+		while (iterator.hasPrevious()) {
+			SessionAuditEvent event = iterator.previous();
+			if (++event.attempts >= maxAttempts) {
+				droppedCounter.increment();
+				LOGGER.error("Giving up the session audit of {} after {} attempts.", event, event.attempts);
+			} else if (!queue.offerFirst(event)) {
+				droppedCounter.increment();
+				LOGGER.warn("Session audit queue full, {} of {} not recorded.", event.login ? "login" : "logout", event);
+			}
+		}
+	}
+
+	/**
+	 * Stops the background writer and makes a last attempt to write the pending events.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		flusher.shutdown();
+		try {
+			if (!flusher.awaitTermination(flushIntervalMillis * 2, TimeUnit.MILLISECONDS)) {
+				flusher.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			flusher.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		List<SessionAuditEvent> pending = new ArrayList<>();
+		queue.drainTo(pending);
+		for (int from = 0; from < pending.size(); from += batchSize) {
+			List<SessionAuditEvent> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+			if (!write(batch)) {
+				droppedCounter.increment(pending.size() - from);
+				LOGGER.error("{} session audit events could not be written before shutdown.", pending.size() - from);
+				return;
+			}
+		}
+	}
+
+	private static final class SessionAuditEvent {
+
+		private final String userName;
+
+		private final LocalDateTime loginDate;
+
+		private final LocalDateTime timestamp;
+
+		private final boolean login;
+
+		private int attempts;
+
+		SessionAuditEvent(String userName, LocalDateTime loginDate, LocalDateTime timestamp, boolean login) {
+			this.userName = userName;
+			this.loginDate = loginDate;
+			this.timestamp = timestamp;
+			this.login = login;
+		}
+
+		@Override
+		public String toString() {
+			return "login session " + loginDate + " of user " + userName;
+		}
+	}
+}
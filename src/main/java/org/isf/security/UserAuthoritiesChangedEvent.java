@@ -0,0 +1,65 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+/**
+ * Published when the credentials, the group or the permissions of users may have changed,
+ * so that the cached {@link UserAuthoritySnapshot}s of these users are discarded.
+ */
+public final class UserAuthoritiesChangedEvent {
+
+	private final String userName;
+
+	private final String userGroupCode;
+
+	private UserAuthoritiesChangedEvent(String userName, String userGroupCode) {
+		this.userName = userName;
+		this.userGroupCode = userGroupCode;
+	}
+
+	/**
+	 * @param userName the name of the changed user
+	 */
+	public static UserAuthoritiesChangedEvent forUser(String userName) {
+		return new UserAuthoritiesChangedEvent(userName, null);
+	}
+
+	/**
+	 * @param userGroupCode the code of the group whose members or permissions changed
+	 */
+	public static UserAuthoritiesChangedEvent forUserGroup(String userGroupCode) {
+		return new UserAuthoritiesChangedEvent(null, userGroupCode);
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+
+	public String getUserGroupCode() {
+		return userGroupCode;
+	}
+
+	@Override
+	public String toString() {
+		return userName != null ? "user " + userName : "user group " + userGroupCode;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.isf.menu.manager.UserBrowsingManager;
+import org.isf.menu.model.User;
+import org.isf.permissions.manager.PermissionManager;
+import org.isf.permissions.model.Permission;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Per-user cache of {@link UserAuthoritySnapshot}s shared by authentication, token refresh and the user profile endpoints.
+ * <p>
+ * Entries are discarded when a {@link UserAuthoritiesChangedEvent} is published and, as a safety net for changes made
+ * outside the API, after a fixed time. Hits and misses are published as the {@value #CACHE_NAME} cache metrics.
+ */
+@Component
+public class UserAuthorityCache {
+
+	public static final String CACHE_NAME = "userAuthorities";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserAuthorityCache.class);
+
+	private final UserBrowsingManager userManager;
+
+	private final PermissionManager permissionManager;
+
+	private final Cache<String, UserAuthoritySnapshot> cache;
+
+	/** Incremented on every invalidation, so that a snapshot loaded concurrently with a change is not cached. */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * @param maximumSize the maximum number of cached users, {@code 0} disables the cache
+	 * @param expireAfterSeconds the time after which a snapshot is read again from the database
+	 */
+	public UserAuthorityCache(UserBrowsingManager userManager, PermissionManager permissionManager, ObjectProvider<MeterRegistry> meterRegistry,
+					@Value("${security.user-cache.size:1000}") long maximumSize,
+					@Value("${security.user-cache.expire-after-seconds:600}") long expireAfterSeconds) {
+		this.userManager = userManager;
+		this.permissionManager = permissionManager;
+		if (maximumSize <= 0) {
+			this.cache = null;
+			return;
+		}
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(Duration.ofSeconds(expireAfterSeconds))
+			.recordStats()
+			.build();
+		meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+	}
+
+	/**
+	 * Returns the snapshot of a user, reading it from the database on a cache miss.
+	 *
+	 * @param userName the user name
+	 * @return the {@link UserAuthoritySnapshot}, or {@code null} if the user does not exist
+	 * @throws OHServiceException if the user or its permissions cannot be read
+	 */
+	public UserAuthoritySnapshot getSnapshot(String userName) throws OHServiceException {
+		if (cache == null) {
+			return load(userName);
+		}
+		UserAuthoritySnapshot snapshot = cache.getIfPresent(userName);
+		if (snapshot != null) {
+			return snapshot;
+		}
+		long loadGeneration = generation.get();
+		snapshot = load(userName);
+		if (snapshot != null) {
+			cache.put(userName, snapshot);
+			if (loadGeneration != generation.get()) {
+				// a change was published while loading: the snapshot may already be stale
+				cache.invalidate(userName);
+			}
+		}
+		return snapshot;
+	}
+
+	private UserAuthoritySnapshot load(String userName) throws OHServiceException {
+		User user = userManager.getUserByName(userName);
+		if (user == null) {
+			return null;
+		}
+		List<Permission> permissions = permissionManager.retrievePermissionsByUsername(userName);
+		return new UserAuthoritySnapshot(user.getUserName(), user.getPasswd(), user.getUserGroupName(), permissions);
+	}
+
+	@EventListener
+	public void onUserAuthoritiesChanged(UserAuthoritiesChangedEvent event) {
+		LOGGER.debug("Discarding the cached authorities of {}.", event);
+		if (event.getUserName() != null) {
+			invalidateUser(event.getUserName());
+		} else {
+			invalidateUserGroup(event.getUserGroupCode());
+		}
+	}
+
+	public void invalidateUser(String userName) {
+		generation.incrementAndGet();
+		if (cache != null) {
+			cache.invalidate(userName);
+		}
+	}
+
+	public void invalidateUserGroup(String userGroupCode) {
+		generation.incrementAndGet();
+		if (cache != null) {
+			cache.asMap().values().removeIf(snapshot -> userGroupCode.equals(snapshot.getUserGroupCode()));
+		}
+	}
+
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+	}
+
+	public CacheStats getStats() {
+		return cache == null ? CacheStats.empty() : cache.stats();
+	}
+}
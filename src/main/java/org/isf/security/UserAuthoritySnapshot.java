@@ -0,0 +1,82 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import java.util.List;
+
+import org.isf.menu.model.UserGroup;
+import org.isf.permissions.model.Permission;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Immutable view of a user's credentials, group and permissions, as read from the database at a given time.
+ */
+public final class UserAuthoritySnapshot {
+
+	private final String userName;
+
+	private final String password;
+
+	private final UserGroup userGroup;
+
+	private final List<Permission> permissions;
+
+	private final List<SimpleGrantedAuthority> authorities;
+
+	public UserAuthoritySnapshot(String userName, String password, UserGroup userGroup, List<Permission> permissions) {
+		this.userName = userName;
+		this.password = password;
+		this.userGroup = userGroup;
+		this.permissions = List.copyOf(permissions);
+		this.authorities = this.permissions.stream()
+			.map(permission -> new SimpleGrantedAuthority(permission.getName()))
+			.toList();
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public UserGroup getUserGroup() {
+		return userGroup;
+	}
+
+	public String getUserGroupCode() {
+		return userGroup == null ? null : userGroup.getCode();
+	}
+
+	public List<Permission> getPermissions() {
+		return permissions;
+	}
+
+	public List<String> getPermissionNames() {
+		return permissions.stream().map(Permission::getName).toList();
+	}
+
+	public List<SimpleGrantedAuthority> getAuthorities() {
+		return authorities;
+	}
+}
@@ -21,18 +21,10 @@
  */
 package org.isf.security;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import org.isf.menu.manager.UserBrowsingManager;
-import org.isf.menu.model.User;
-import org.isf.permissions.manager.PermissionManager;
-import org.isf.permissions.model.Permission;
 import org.isf.utils.exception.OHServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -44,16 +36,13 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
 	@Autowired
-	protected UserBrowsingManager manager;
-
-	@Autowired
-	protected PermissionManager permissionManager;
+	protected UserAuthorityCache userAuthorityCache;
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-		User user;
+		UserAuthoritySnapshot user;
 		try {
-			user = manager.getUserByName(username);
+			user = userAuthorityCache.getSnapshot(username);
 		} catch (OHServiceException serviceException) {
 			LOGGER.error("User login received an unexpected OHServiceException.", serviceException);
 			throw new UsernameNotFoundException(username + " authentication failed.", serviceException);
@@ -62,25 +51,13 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 			throw new UsernameNotFoundException(username + " was not found.");
 		}
 
-		List<SimpleGrantedAuthority> authorities = new ArrayList<>();
-		List<Permission> permissions;
-		try {
-			permissions = permissionManager.retrievePermissionsByUsername(username);
-		} catch (OHServiceException serviceException) {
-			LOGGER.error("Retrieving permissions for user received an unexpected OHServiceException.", serviceException);
-			throw new UsernameNotFoundException(username + " authentication failed.", serviceException);
-		}
-		for (Permission p : permissions) {
-			authorities.add(new SimpleGrantedAuthority(p.getName()));
-		}
-
 		org.springframework.security.core.userdetails.User userDetails = new org.springframework.security.core.userdetails.User(
 						/*
 						 * TODO: to pass same {@link User} information for:
 						 * 
 						 * boolean enabled, boolean accountNonExpired, boolean credentialsNonExpired, boolean accountNonLocked
 						 */
-						user.getUserName(), user.getPasswd(), true, true, true, true, authorities);
+						user.getUserName(), user.getPassword(), true, true, true, true, user.getAuthorities());
 		return userDetails;
 	}
 
@@ -0,0 +1,201 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security.authorization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * {@link AuthorizationManager} evaluating a {@link RouteAuthorizationRule} table through an index built once at startup.
+ * <p>
+ * Rules are grouped by HTTP method and first path segment, so a request is only matched against the few rules that
+ * can apply to it instead of the whole table. Within a group the declaration order is kept, so the first matching
+ * rule decides exactly as in a linear chain of request matchers; requests not matched by any rule are permitted.
+ */
+public class RouteAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RouteAuthorizationManager.class);
+
+	private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+
+	private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+	/** Key of the bucket holding the rules that apply to any method or to any first path segment. */
+	private static final String ANY = "*";
+
+	/** Key of the bucket holding all the rules of a method, whatever their first path segment. */
+	private static final String ALL_SEGMENTS = "/";
+
+	private static final CompiledRule[] NO_RULES = new CompiledRule[0];
+
+	private final Map<String, Map<String, CompiledRule[]>> index;
+
+	public RouteAuthorizationManager(List<RouteAuthorizationRule> rules) {
+		this.index = compile(rules);
+		LOGGER.info("Compiled {} authorization rules for {} HTTP methods.", rules.size(), index.size() - 1);
+	}
+
+	@Override
+	public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+		HttpServletRequest request = context.getRequest();
+		String path = requestPath(request);
+		if (path.contains("//")) {
+			// the ant matcher ignores empty path segments, so such paths are matched against every rule of the method
+			for (CompiledRule rule : methodRules(request.getMethod()).get(ALL_SEGMENTS)) {
+				if (PATH_MATCHER.match(rule.pattern, path)) {
+					return rule.requirement.check(authentication, context);
+				}
+			}
+			return GRANTED;
+		}
+		for (CompiledRule rule : rulesFor(request.getMethod(), path)) {
+			if (rule.matches(path)) {
+				return rule.requirement.check(authentication, context);
+			}
+		}
+		return GRANTED;
+	}
+
+	/**
+	 * @return the decoded path of the request within the application, as seen by the ant request matcher
+	 */
+	private static String requestPath(HttpServletRequest request) {
+		String path = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		return pathInfo != null ? path + pathInfo : path;
+	}
+
+	/**
+	 * @return the rules that may match a request with the given method and path, in declaration order
+	 */
+	CompiledRule[] rulesFor(String method, String path) {
+		Map<String, CompiledRule[]> bySegment = methodRules(method);
+		CompiledRule[] rules = bySegment.get(firstSegment(path));
+		return rules != null ? rules : bySegment.get(ANY);
+	}
+
+	private Map<String, CompiledRule[]> methodRules(String method) {
+		Map<String, CompiledRule[]> bySegment = index.get(method);
+		return bySegment != null ? bySegment : index.get(ANY);
+	}
+
+	private static Map<String, Map<String, CompiledRule[]>> compile(List<RouteAuthorizationRule> rules) {
+		List<CompiledRule> compiledRules = new ArrayList<>(rules.size());
+		Set<String> methods = new LinkedHashSet<>();
+		Set<String> segments = new LinkedHashSet<>();
+		for (RouteAuthorizationRule rule : rules) {
+			CompiledRule compiledRule = new CompiledRule(rule);
+			compiledRules.add(compiledRule);
+			methods.add(compiledRule.method);
+			segments.add(compiledRule.segment);
+		}
+		methods.add(ANY);
+		segments.add(ANY);
+
+		Map<String, Map<String, CompiledRule[]>> index = new HashMap<>();
+		for (String method : methods) {
+			Map<String, CompiledRule[]> bySegment = new HashMap<>();
+			for (String segment : segments) {
+				List<CompiledRule> bucket = new ArrayList<>();
+				for (CompiledRule rule : compiledRules) {
+					if (rule.appliesTo(method, segment)) {
+						bucket.add(rule);
+					}
+				}
+				bySegment.put(segment, bucket.toArray(NO_RULES));
+			}
+			bySegment.put(ALL_SEGMENTS, compiledRules.stream().filter(rule -> rule.appliesTo(method, null)).toArray(CompiledRule[]::new));
+			index.put(method, Map.copyOf(bySegment));
+		}
+		return Map.copyOf(index);
+	}
+
+	/**
+	 * @return the first segment of the path, or of the pattern, or {@link #ANY} when it contains wildcards or variables
+	 */
+	static String firstSegment(String path) {
+		int start = path.startsWith("/") ? 1 : 0;
+		int end = path.indexOf('/', start);
+		String segment = end < 0 ? path.substring(start) : path.substring(start, end);
+		return isLiteral(segment) ? segment : ANY;
+	}
+
+	private static boolean isLiteral(String pattern) {
+		return pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0 && pattern.indexOf('{') < 0;
+	}
+
+	static final class CompiledRule {
+
+		private final String method;
+
+		private final String segment;
+
+		private final String pattern;
+
+		/** Literal prefix of a {@code /prefix/**} pattern, {@code null} for other patterns. */
+		private final String prefix;
+
+		private final boolean literal;
+
+		private final AuthorizationManager<RequestAuthorizationContext> requirement;
+
+		private CompiledRule(RouteAuthorizationRule rule) {
+			this.method = rule.getMethod() == null ? ANY : rule.getMethod().name();
+			this.segment = firstSegment(rule.getPattern());
+			this.pattern = rule.getPattern();
+			this.literal = isLiteral(pattern);
+			String base = pattern.endsWith("/**") ? pattern.substring(0, pattern.length() - 3) : null;
+			this.prefix = base != null && isLiteral(base) ? base : null;
+			this.requirement = rule.getRequirement();
+		}
+
+		private boolean appliesTo(String requestMethod, String requestSegment) {
+			return (method.equals(ANY) || method.equals(requestMethod))
+				&& (requestSegment == null || segment.equals(ANY) || segment.equals(requestSegment));
+		}
+
+		boolean matches(String path) {
+			if (prefix != null) {
+				return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+			}
+			if (literal) {
+				return pattern.equals(path);
+			}
+			return PATH_MATCHER.match(pattern, path);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security.authorization;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+/**
+ * A single entry of the route authorization table: the requests matching the HTTP method (any method when {@code null})
+ * and the ant-style path pattern must satisfy the given requirement.
+ */
+public final class RouteAuthorizationRule {
+
+	private final HttpMethod method;
+
+	private final String pattern;
+
+	private final AuthorizationManager<RequestAuthorizationContext> requirement;
+
+	private final String description;
+
+	RouteAuthorizationRule(HttpMethod method, String pattern, AuthorizationManager<RequestAuthorizationContext> requirement, String description) {
+		this.method = method;
+		this.pattern = pattern;
+		this.requirement = requirement;
+		this.description = description;
+	}
+
+	public HttpMethod getMethod() {
+		return method;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	public AuthorizationManager<RequestAuthorizationContext> getRequirement() {
+		return requirement;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	@Override
+	public String toString() {
+		return (method == null ? "*" : method.name()) + ' ' + pattern + " -> " + description;
+	}
+}
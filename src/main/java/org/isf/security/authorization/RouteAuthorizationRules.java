@@ -0,0 +1,206 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security.authorization;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationManagers;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+/**
+ * Declarative table of the authorization rules of the REST API.
+ * <p>
+ * Rules are evaluated in declaration order and the first one matching the request decides;
+ * requests not matched by any rule are permitted.
+ */
+public final class RouteAuthorizationRules {
+
+	private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+
+	private final List<RouteAuthorizationRule> rules = new ArrayList<>();
+
+	private RouteAuthorizationRules() {
+	}
+
+	/**
+	 * @return the rules protecting the Open Hospital API, in evaluation order
+	 */
+	public static List<RouteAuthorizationRule> defaultRules() {
+		return new RouteAuthorizationRules()
+			.permitAll("/auth/**")
+			// admissions
+			.crud("admissions")
+			// admissiontypes
+			.crud("admissiontypes")
+			// age types
+			.rule(HttpMethod.GET, "/agetypes/**", "agetypes.read")
+			.rule(HttpMethod.PUT, "/agetypes/**", "agetypes.update")
+			// dischargetypes
+			.crud("dischargetypes")
+			// diseases
+			.crud("diseases")
+			// diseasetypes
+			.crud("diseasetypes")
+			// deliveryresulttype
+			.crud("deliveryresulttypes")
+			// deliverytypes
+			.crud("deliverytypes")
+			// exams
+			.rule(HttpMethod.POST, "/exams/**", "exams.create", "examrows.create")
+			.rule(HttpMethod.GET, "/exams/**", "exams.read")
+			.rule(HttpMethod.PUT, "/exams/**", "exams.update", "examrows.create", "examrows.delete")
+			.rule(HttpMethod.DELETE, "/exams/**", "exams.delete")
+			// examrows
+			.crud("examrows")
+			// examinations
+			.crud("examinations")
+			// examtypes
+			.crud("examtypes")
+			// hospitals (GET is open to anyone)
+			.rule(HttpMethod.POST, "/hospitals/**", "hospitals.create")
+			.rule(HttpMethod.PUT, "/hospitals/**", "hospitals.update")
+			.rule(HttpMethod.DELETE, "/hospitals/**", "hospitals.delete")
+			// laboratories
+			.crud("laboratories")
+			// malnutrition
+			.crud("malnutritions")
+			// medicals
+			.crud("medicals")
+			// medicalstock
+			.crud("medicalstockmovements")
+			// medicalstockward
+			.crud("medicalstockward")
+			// medicalstockmovtype
+			.crud("medstockmovementtypes")
+			// medicaltype
+			.crud("medicaltypes")
+			// opd
+			.crud("opds")
+			// operations
+			.crud("operations")
+			// operation types
+			.crud("operationtypes")
+			// patientconsensus
+			.crud("patientconsensus")
+			// patients
+			.crud("patients")
+			// patientvaccines
+			.crud("patientvaccines")
+			// permission
+			.crud("permissions")
+			// grouppermission
+			.rule(HttpMethod.POST, "/usergroups/{group_code}/permissions/**", "grouppermission.create")
+			.rule(HttpMethod.GET, "/usergroups/{group_code}/permissions/**", "grouppermission.read")
+			.rule(HttpMethod.PUT, "/usergroups/{group_code}/permissions/**", "grouppermission.create")
+			.rule(HttpMethod.PATCH, "/usergroups/{group_code}/permissions/**", "grouppermission.create", "grouppermission.delete")
+			.rule(HttpMethod.DELETE, "/usergroups/{group_code}/permissions/**", "grouppermission.delete")
+			// usergroups
+			.crud("usergroups")
+			// user
+			.authenticated("/users/me")
+			.rule(HttpMethod.POST, "/users", "users.create")
+			.rule(HttpMethod.GET, "/users/**", "users.read")
+			.rule(HttpMethod.PUT, "/users/{username}", "users.update")
+			.rule(HttpMethod.DELETE, "/users/**", "users.delete")
+			// user setting
+			.authenticated("/usersettings/**")
+			// pregnanttreatmenttypes
+			.crud("pregnanttreatmenttypes")
+			// pricelists
+			.crud("pricelists")
+			// pricesothers
+			.crud("pricesothers")
+			// reports
+			.crud("reports")
+			// sms
+			.crud("sms")
+			// suppliers
+			.crud("suppliers")
+			// therapy
+			.crud("therapies")
+			// vaccines
+			.crud("vaccines")
+			// vaccineType
+			.crud("vaccinetypes")
+			// visit
+			.crud("visits")
+			// wards
+			.crud("wards")
+			// actuator
+			.authenticated("/actuator/**")
+			.build();
+	}
+
+	/**
+	 * Protects {@code /resource/**} with the {@code resource.create}, {@code resource.read}, {@code resource.update}
+	 * and {@code resource.delete} authorities for POST, GET, PUT and DELETE requests respectively.
+	 */
+	private RouteAuthorizationRules crud(String resource) {
+		String pattern = '/' + resource + "/**";
+		return rule(HttpMethod.POST, pattern, resource + ".create")
+			.rule(HttpMethod.GET, pattern, resource + ".read")
+			.rule(HttpMethod.PUT, pattern, resource + ".update")
+			.rule(HttpMethod.DELETE, pattern, resource + ".delete");
+	}
+
+	/**
+	 * Requires all the given authorities.
+	 */
+	private RouteAuthorizationRules rule(HttpMethod method, String pattern, String... authorities) {
+		AuthorizationManager<RequestAuthorizationContext> requirement;
+		if (authorities.length == 1) {
+			requirement = AuthorityAuthorizationManager.hasAuthority(authorities[0]);
+		} else {
+			@SuppressWarnings("unchecked")
+			AuthorizationManager<RequestAuthorizationContext>[] managers = new AuthorizationManager[authorities.length];
+			for (int i = 0; i < authorities.length; i++) {
+				managers[i] = AuthorityAuthorizationManager.hasAuthority(authorities[i]);
+			}
+			requirement = AuthorizationManagers.allOf(managers);
+		}
+		return add(method, pattern, requirement, "hasAuthority " + String.join(" and ", authorities));
+	}
+
+	private RouteAuthorizationRules authenticated(String pattern) {
+		return add(null, pattern, AuthenticatedAuthorizationManager.authenticated(), "authenticated");
+	}
+
+	private RouteAuthorizationRules permitAll(String pattern) {
+		return add(null, pattern, (authentication, context) -> GRANTED, "permitAll");
+	}
+
+	private RouteAuthorizationRules add(HttpMethod method, String pattern, AuthorizationManager<RequestAuthorizationContext> requirement,
+					String description) {
+		rules.add(new RouteAuthorizationRule(method, pattern, requirement, description));
+		return this;
+	}
+
+	private List<RouteAuthorizationRule> build() {
+		return List.copyOf(rules);
+	}
+}
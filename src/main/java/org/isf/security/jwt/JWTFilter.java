@@ -30,7 +30,6 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
@@ -58,7 +57,8 @@ public class JWTFilter extends GenericFilterBean {
 		String jwt = resolveToken(httpServletRequest);
 
 		if (StringUtils.hasText(jwt)) {
-			TokenValidationResult validationResult = this.tokenProvider.validateToken(jwt);
+			VerifiedToken verifiedToken = this.tokenProvider.verifyToken(jwt);
+			TokenValidationResult validationResult = verifiedToken != null ? verifiedToken.getResult() : null;
 
 			if (validationResult == null) {
 				sendErrorResponse(httpServletResponse, HttpServletResponse.SC_BAD_REQUEST, "Unknown token validation result.");
@@ -67,9 +67,8 @@ public class JWTFilter extends GenericFilterBean {
 
 			switch (validationResult) {
 			case VALID:
-				if (!this.tokenProvider.isTokenExpired(jwt)) {
-					Authentication authentication = this.tokenProvider.getAuthentication(jwt);
-					SecurityContextHolder.getContext().setAuthentication(authentication);
+				if (!verifiedToken.isExpired()) {
+					SecurityContextHolder.getContext().setAuthentication(verifiedToken.getAuthentication());
 				} else {
 					sendErrorResponse(httpServletResponse, HttpServletResponse.SC_UNAUTHORIZED, "JWT token is expired.");
 					return;
@@ -105,7 +104,7 @@ public class JWTFilter extends GenericFilterBean {
 		filterChain.doFilter(servletRequest, servletResponse);
 	}
 
-	private String resolveToken(HttpServletRequest request) {
+	public static String resolveToken(HttpServletRequest request) {
 		String bearerToken = request.getHeader(AUTHORIZATION_HEADER);
 		if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
 			return bearerToken.substring(7);
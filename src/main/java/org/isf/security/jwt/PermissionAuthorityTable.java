@@ -0,0 +1,194 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security.jwt;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.permissions.manager.PermissionManager;
+import org.isf.permissions.model.Permission;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Translates authorities to and from the compact form of the {@code perm} claim: a bitset indexed by {@link Permission}
+ * id, encoded in unpadded base64url.
+ * <p>
+ * The id to authority table is loaded from the database on first use and reloaded when an unknown permission is met;
+ * the loads, failed ones included, are at most one every few seconds. The API does not change permissions, so the table
+ * only needs reloading after permissions are added to the database.
+ * Decoded claims share the same immutable authority list, so tokens of users with the same permissions do not
+ * allocate authorities again.
+ */
+@Component
+public class PermissionAuthorityTable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PermissionAuthorityTable.class);
+
+	private static final long DECODED_CLAIM_CACHE_SIZE = 1024;
+
+	private static final long MIN_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private final PermissionManager permissionManager;
+
+	private final Cache<String, List<GrantedAuthority>> decodedClaims;
+
+	private volatile Table table;
+
+	private long lastLoadAt;
+
+	private boolean loaded;
+
+	public PermissionAuthorityTable(PermissionManager permissionManager) {
+		this.permissionManager = permissionManager;
+		this.decodedClaims = Caffeine.newBuilder()
+						.maximumSize(DECODED_CLAIM_CACHE_SIZE)
+						.build();
+	}
+
+	/**
+	 * @return the encoded claim, or {@code null} if some authority is not a known permission and the token must list the
+	 *         authority names instead
+	 */
+	public String encode(Collection< ? extends GrantedAuthority> authorities) {
+		Table current = table();
+		BitSet bits = current == null ? null : current.toBitSet(authorities);
+		if (bits == null) {
+			current = reload(current);
+			bits = current == null ? null : current.toBitSet(authorities);
+		}
+		if (bits == null) {
+			return null;
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bits.toByteArray());
+	}
+
+	/**
+	 * @return the immutable authorities of the encoded claim
+	 * @throws IllegalArgumentException if the claim is empty, not a valid bitset or refers to an unknown permission
+	 */
+	public List<GrantedAuthority> decode(String claim) {
+		List<GrantedAuthority> authorities = decodedClaims.getIfPresent(claim);
+		if (authorities != null) {
+			return authorities;
+		}
+		BitSet bits = BitSet.valueOf(Base64.getUrlDecoder().decode(claim));
+		if (bits.isEmpty()) {
+			throw new IllegalArgumentException("JWT token does not contain authorities.");
+		}
+		Table current = table();
+		authorities = current == null ? null : current.toAuthorities(bits);
+		if (authorities == null) {
+			current = reload(current);
+			authorities = current == null ? null : current.toAuthorities(bits);
+		}
+		if (authorities == null) {
+			throw new IllegalArgumentException("JWT token refers to unknown permissions.");
+		}
+		decodedClaims.put(claim, authorities);
+		return authorities;
+	}
+
+	private Table table() {
+		Table current = table;
+		return current != null ? current : reload(null);
+	}
+
+	private synchronized Table reload(Table stale) {
+		if (table != stale) {
+			// reloaded by another thread in the meantime
+			return table;
+		}
+		long now = System.nanoTime();
+		if (loaded && now - lastLoadAt < MIN_RELOAD_INTERVAL_NANOS) {
+			return stale;
+		}
+		loaded = true;
+		lastLoadAt = now;
+		try {
+			table = new Table(permissionManager.retrieveAllPermissions());
+			decodedClaims.invalidateAll();
+			LOGGER.debug("Loaded {} permissions for the token authorities table.", table.authoritiesById.length);
+		} catch (OHServiceException e) {
+			LOGGER.error("Unable to load the permissions for the token authorities table.", e);
+		}
+		return table;
+	}
+
+	private static final class Table {
+
+		private final Map<String, Integer> idsByName;
+
+		private final GrantedAuthority[] authoritiesById;
+
+		private Table(List<Permission> permissions) {
+			int maxId = -1;
+			for (Permission permission : permissions) {
+				maxId = Math.max(maxId, permission.getId());
+			}
+			this.idsByName = new HashMap<>(permissions.size() * 2);
+			this.authoritiesById = new GrantedAuthority[maxId + 1];
+			for (Permission permission : permissions) {
+				if (permission.getId() >= 0) {
+					idsByName.put(permission.getName(), permission.getId());
+					authoritiesById[permission.getId()] = new SimpleGrantedAuthority(permission.getName());
+				}
+			}
+		}
+
+		private BitSet toBitSet(Collection< ? extends GrantedAuthority> authorities) {
+			BitSet bits = new BitSet(authoritiesById.length);
+			for (GrantedAuthority authority : authorities) {
+				Integer id = idsByName.get(authority.getAuthority());
+				if (id == null) {
+					return null;
+				}
+				bits.set(id);
+			}
+			return bits;
+		}
+
+		private List<GrantedAuthority> toAuthorities(BitSet bits) {
+			List<GrantedAuthority> authorities = new ArrayList<>(bits.cardinality());
+			for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+				if (id >= authoritiesById.length || authoritiesById[id] == null) {
+					return null;
+				}
+				authorities.add(authoritiesById[id]);
+			}
+			return List.copyOf(authorities);
+		}
+	}
+}
@@ -27,6 +27,7 @@ import java.security.Key;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -47,6 +48,7 @@ import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
@@ -65,6 +67,12 @@ public class TokenProvider implements Serializable {
 
 	private static final String AUTHORITIES_KEY = "auth";
 
+	private static final String PERMISSIONS_KEY = "perm";
+
+	private static final String SESSION_ID_KEY = "sid";
+
+	private static final long DEFAULT_VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
 	private Key key;
 
 	private long tokenValidityInMilliseconds;
@@ -73,9 +81,16 @@ public class TokenProvider implements Serializable {
 
 	private JwtParser jwtParser;
 
+	private VerifiedTokenCache verifiedTokenCache;
+
+	private boolean compactAuthorities;
+
 	@Autowired
 	private UserDetailsServiceImpl userDetailsService;
 
+	@Autowired
+	private PermissionAuthorityTable permissionAuthorityTable;
+
 	@PostConstruct
 	public void init() {
 		String secret = env.getProperty("jwt.token.secret");
@@ -90,6 +105,12 @@ public class TokenProvider implements Serializable {
 		this.tokenValidityInMillisecondsForRememberMe = 1000L * 60 * 60 * 24 * 3;
 
 		this.jwtParser = Jwts.parserBuilder().setSigningKey(this.key).build();
+
+		long cacheSize = env.getProperty("jwt.token.cache-size", Long.class, DEFAULT_VERIFIED_TOKEN_CACHE_SIZE);
+		this.verifiedTokenCache = new VerifiedTokenCache(cacheSize, this.tokenValidityInMillisecondsForRememberMe);
+
+		// Tokens in both formats are always accepted, the option only selects the format of the issued tokens
+		this.compactAuthorities = env.getProperty("jwt.token.compact-authorities", Boolean.class, false);
 	}
 
 	public long getTokenValidityInMillisecondsForRememberMe() {
@@ -98,6 +119,9 @@ public class TokenProvider implements Serializable {
 
 	public void setJwtParser(JwtParser jwtParser) {
 		this.jwtParser = jwtParser;
+		if (this.verifiedTokenCache != null) {
+			this.verifiedTokenCache.invalidateAll();
+		}
 	}
 
 	public String getUsernameFromToken(String token) {
@@ -108,6 +132,13 @@ public class TokenProvider implements Serializable {
 		return this.jwtParser.parseClaimsJws(token).getBody();
 	}
 
+	/**
+	 * @return the id of the login session the token belongs to, {@code null} for tokens issued without one
+	 */
+	public String getSessionIdFromToken(String token) {
+		return getClaimFromToken(token, claims -> claims.get(SESSION_ID_KEY, String.class));
+	}
+
 	public Date getExpirationDateFromToken(String token) {
 		return getClaimFromToken(token, Claims::getExpiration);
 	}
@@ -130,7 +161,15 @@ public class TokenProvider implements Serializable {
 	}
 
 	public String generateJwtToken(Authentication authentication, boolean rememberMe) {
-		final String authorities = authentication.getAuthorities().stream()
+		return generateJwtToken(authentication, rememberMe, null);
+	}
+
+	/**
+	 * @param sessionId the id of the login session, carried by the token so that no server-side session is needed
+	 */
+	public String generateJwtToken(Authentication authentication, boolean rememberMe, String sessionId) {
+		String permissions = compactAuthorities ? permissionAuthorityTable.encode(authentication.getAuthorities()) : null;
+		final String authorities = permissions != null ? null : authentication.getAuthorities().stream()
 						.map(GrantedAuthority::getAuthority)
 						.collect(Collectors.joining(","));
 
@@ -142,9 +181,17 @@ public class TokenProvider implements Serializable {
 			validity = new Date(now + this.tokenValidityInMilliseconds);
 		}
 
-		return Jwts.builder()
-						.setSubject(authentication.getName())
-						.claim(AUTHORITIES_KEY, authorities)
+		JwtBuilder builder = Jwts.builder()
+						.setSubject(authentication.getName());
+		if (permissions != null) {
+			builder.claim(PERMISSIONS_KEY, permissions);
+		} else {
+			builder.claim(AUTHORITIES_KEY, authorities);
+		}
+		if (sessionId != null) {
+			builder.claim(SESSION_ID_KEY, sessionId);
+		}
+		return builder
 						.setIssuedAt(new Date())
 						.signWith(key, SignatureAlgorithm.HS512)
 						.setExpiration(validity)
@@ -152,8 +199,19 @@ public class TokenProvider implements Serializable {
 	}
 
 	public String generateRefreshToken(Authentication authentication) {
-		return Jwts.builder()
-						.setSubject(authentication.getName())
+		return generateRefreshToken(authentication, null);
+	}
+
+	/**
+	 * @param sessionId the id of the login session, carried over to the tokens obtained with the refresh token
+	 */
+	public String generateRefreshToken(Authentication authentication, String sessionId) {
+		JwtBuilder builder = Jwts.builder()
+						.setSubject(authentication.getName());
+		if (sessionId != null) {
+			builder.claim(SESSION_ID_KEY, sessionId);
+		}
+		return builder
 						.setIssuedAt(new Date())
 						.signWith(key, SignatureAlgorithm.HS512)
 						.setExpiration(new Date(System.currentTimeMillis() + this.tokenValidityInMillisecondsForRememberMe))
@@ -161,8 +219,14 @@ public class TokenProvider implements Serializable {
 	}
 
 	public Authentication getAuthentication(String token) {
-		final Claims claims = getAllClaimsFromToken(token);
+		return getAuthentication(getAllClaimsFromToken(token), token);
+	}
 
+	private Authentication getAuthentication(Claims claims, String token) {
+		if (claims.get(PERMISSIONS_KEY) != null) {
+			List<GrantedAuthority> authorities = permissionAuthorityTable.decode(claims.get(PERMISSIONS_KEY).toString());
+			return new UsernamePasswordAuthenticationToken(new User(claims.getSubject(), "", authorities), token, authorities);
+		}
 		/*
 		 * claims.get(AUTHORITIES_KEY) cannot be null, at least an empty string Left for security but not testable
 		 */
@@ -188,7 +252,7 @@ public class TokenProvider implements Serializable {
 
 	public TokenValidationResult validateToken(String token) {
 		try {
-			Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+			Claims claims = this.jwtParser.parseClaimsJws(token).getBody();
 			/*
 			 * If claims.getSubject() not null for sure is not empy. Left here for security but not testable
 			 */
@@ -196,24 +260,59 @@ public class TokenProvider implements Serializable {
 				throw new IllegalArgumentException("JWT claims string is empty.");
 			}
 			return TokenValidationResult.VALID;
-		} catch (MalformedJwtException e) {
+		} catch (Exception e) {
+			return toValidationResult(e);
+		}
+	}
+
+	/**
+	 * Verifies the token and builds its {@link Authentication} parsing the token only once.
+	 * Valid tokens are kept in a bounded cache until their expiration, so a token presented again
+	 * is not parsed nor verified a second time.
+	 *
+	 * @param token the compact JWT
+	 * @return the {@link VerifiedToken}, never {@code null}
+	 */
+	public VerifiedToken verifyToken(String token) {
+		VerifiedToken verifiedToken = verifiedTokenCache.getIfPresent(token);
+		if (verifiedToken != null) {
+			return verifiedToken;
+		}
+		try {
+			Claims claims = this.jwtParser.parseClaimsJws(token).getBody();
+			if (claims.getSubject() == null || claims.getSubject().isEmpty()) {
+				throw new IllegalArgumentException("JWT claims string is empty.");
+			}
+			verifiedToken = VerifiedToken.valid(getAuthentication(claims, token), claims.getExpiration(), claims.get(SESSION_ID_KEY, String.class));
+		} catch (Exception e) {
+			return VerifiedToken.invalid(toValidationResult(e));
+		}
+		verifiedTokenCache.put(token, verifiedToken);
+		return verifiedToken;
+	}
+
+	private TokenValidationResult toValidationResult(Exception e) {
+		if (e instanceof MalformedJwtException) {
 			LOGGER.error("Invalid JWT token: {}", e.getMessage());
 			return TokenValidationResult.MALFORMED;
-		} catch (ExpiredJwtException e) {
+		}
+		if (e instanceof ExpiredJwtException) {
 			LOGGER.error("JWT token is expired: {}", e.getMessage());
 			return TokenValidationResult.EXPIRED;
-		} catch (UnsupportedJwtException e) {
+		}
+		if (e instanceof UnsupportedJwtException) {
 			LOGGER.error("JWT token is unsupported: {}", e.getMessage());
 			return TokenValidationResult.UNSUPPORTED;
-		} catch (IllegalArgumentException e) {
+		}
+		if (e instanceof IllegalArgumentException) {
 			LOGGER.error("JWT claims string is empty: {}", e.getMessage());
 			return TokenValidationResult.EMPTY_CLAIMS;
-		} catch (SignatureException e) {
+		}
+		if (e instanceof SignatureException) {
 			LOGGER.error("JWT signature does not match locally computed signature: {}", e.getMessage());
 			return TokenValidationResult.INVALID_SIGNATURE;
-		} catch (Exception e) {
-			LOGGER.error("An unexpected error occurred while validating JWT token: {}", e.getMessage());
-			return TokenValidationResult.UNKNOWN;
 		}
+		LOGGER.error("An unexpected error occurred while validating JWT token: {}", e.getMessage());
+		return TokenValidationResult.UNKNOWN;
 	}
 }
@@ -0,0 +1,80 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security.jwt;
+
+import java.util.Date;
+
+import org.springframework.security.core.Authentication;
+
+/**
+ * Outcome of a single verification of a JWT: the {@link TokenValidationResult} and, for a valid token,
+ * the {@link Authentication} built from its claims together with the token expiration date and login session id.
+ */
+public final class VerifiedToken {
+
+	private final TokenValidationResult result;
+
+	private final Authentication authentication;
+
+	private final Date expiration;
+
+	private final String sessionId;
+
+	private VerifiedToken(TokenValidationResult result, Authentication authentication, Date expiration, String sessionId) {
+		this.result = result;
+		this.authentication = authentication;
+		this.expiration = expiration;
+		this.sessionId = sessionId;
+	}
+
+	public static VerifiedToken valid(Authentication authentication, Date expiration) {
+		return valid(authentication, expiration, null);
+	}
+
+	public static VerifiedToken valid(Authentication authentication, Date expiration, String sessionId) {
+		return new VerifiedToken(TokenValidationResult.VALID, authentication, expiration, sessionId);
+	}
+
+	public static VerifiedToken invalid(TokenValidationResult result) {
+		return new VerifiedToken(result, null, null, null);
+	}
+
+	public TokenValidationResult getResult() {
+		return result;
+	}
+
+	public Authentication getAuthentication() {
+		return authentication;
+	}
+
+	public Date getExpiration() {
+		return expiration;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public boolean isExpired() {
+		return expiration != null && expiration.before(new Date());
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Bounded cache of verified tokens, keyed by the SHA-256 digest of the compact JWT.
+ * <p>
+ * Only valid tokens are stored and every entry expires at the {@code exp} claim of its token,
+ * so a cached verification never outlives the token itself.
+ */
+public class VerifiedTokenCache {
+
+	private final Cache<String, VerifiedToken> cache;
+
+	/**
+	 * @param maximumSize the maximum number of cached tokens, {@code 0} disables the cache
+	 * @param fallbackTtlMillis the time to live of tokens without an expiration date
+	 */
+	public VerifiedTokenCache(long maximumSize, long fallbackTtlMillis) {
+		if (maximumSize <= 0) {
+			this.cache = null;
+			return;
+		}
+		this.cache = Caffeine.newBuilder()
+						.maximumSize(maximumSize)
+						.expireAfter(new Expiry<String, VerifiedToken>() {
+
+							@Override
+							public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+								if (value.getExpiration() == null) {
+									return TimeUnit.MILLISECONDS.toNanos(fallbackTtlMillis);
+								}
+								long ttl = value.getExpiration().getTime() - System.currentTimeMillis();
+								return TimeUnit.MILLISECONDS.toNanos(Math.max(ttl, 0));
+							}
+
+							@Override
+							public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+								return expireAfterCreate(key, value, currentTime);
+							}
+
+							@Override
+							public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+								return currentDuration;
+							}
+						})
+						.build();
+	}
+
+	public boolean isEnabled() {
+		return cache != null;
+	}
+
+	public VerifiedToken getIfPresent(String token) {
+		if (cache == null) {
+			return null;
+		}
+		return cache.getIfPresent(digest(token));
+	}
+
+	public void put(String token, VerifiedToken verifiedToken) {
+		if (cache != null && verifiedToken.getResult() == TokenValidationResult.VALID) {
+			cache.put(digest(token), verifiedToken);
+		}
+	}
+
+	public void invalidateAll() {
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+	}
+
+	public long size() {
+		return cache == null ? 0 : cache.estimatedSize();
+	}
+
+	static String digest(String token) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().withoutPadding().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -21,7 +21,6 @@
  */
 package org.isf.shared;
 
-import java.lang.reflect.Type;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -37,32 +36,68 @@ public class GenericMapper<SourceType, DestType> implements Mapper<SourceType, D
 
 	@Autowired
 	protected ModelMapper modelMapper;
-	private Type sourceClass;
-	private Type destClass;
+	private Class<SourceType> sourceClass;
+	private Class<DestType> destClass;
+	private GeneratedMapping<SourceType, DestType> generatedMapping;
 
 	public GenericMapper(Class<SourceType> sourceClass, Class<DestType> destClass) {
 		this.sourceClass = sourceClass;
 		this.destClass = destClass;
 	}
 
+	/**
+	 * @param generatedMapping the compile-time generated mapping used instead of the {@link ModelMapper}
+	 */
+	public GenericMapper(Class<SourceType> sourceClass, Class<DestType> destClass, GeneratedMapping<SourceType, DestType> generatedMapping) {
+		this(sourceClass, destClass);
+		this.generatedMapping = generatedMapping;
+	}
+
 	@Override
 	public DestType map2DTO(SourceType fromObj) {
+		if (generatedMapping != null) {
+			return generatedMapping.map2DTO(fromObj);
+		}
 		return modelMapper.map(fromObj, destClass);
 	}
 
 	@Override
 	public SourceType map2Model(DestType toObj) {
+		if (generatedMapping != null) {
+			return generatedMapping.map2Model(toObj);
+		}
 		return modelMapper.map(toObj, sourceClass);
 	}
 
 	@Override
 	public List<DestType> map2DTOList(List<SourceType> list) {
-		return (List<DestType>) list.stream().map(it -> modelMapper.map(it, destClass)).collect(Collectors.toList());
+		if (generatedMapping != null) {
+			return list.stream().map(generatedMapping::map2DTO).collect(Collectors.toList());
+		}
+		return list.stream().map(it -> modelMapper.map(it, destClass)).collect(Collectors.toList());
 	}
 
 	@Override
 	public List<SourceType> map2ModelList(List<DestType> list) {
-		return (List<SourceType>) list.stream().map(it -> modelMapper.map(it, sourceClass)).collect(Collectors.toList());
+		if (generatedMapping != null) {
+			return list.stream().map(generatedMapping::map2Model).collect(Collectors.toList());
+		}
+		return list.stream().map(it -> modelMapper.map(it, sourceClass)).collect(Collectors.toList());
+	}
+
+	public Class<SourceType> getSourceClass() {
+		return sourceClass;
+	}
+
+	public Class<DestType> getDestClass() {
+		return destClass;
+	}
+
+	/**
+	 * @return {@code true} when the mapping is generated at compile time and the {@link ModelMapper} is not used
+	 */
+	public boolean hasGeneratedMapping() {
+		return generatedMapping != null;
 	}
 
 	@Override
@@ -72,7 +107,7 @@ public class GenericMapper<SourceType, DestType> implements Mapper<SourceType, D
 
 	public PatientDTO map2DTOWS(Patient fromObj, Boolean status) {
 		
-		PatientDTO patientDTO = modelMapper.map(fromObj, destClass);
+		PatientDTO patientDTO = modelMapper.map(fromObj, PatientDTO.class);
 
 		if (status) {
 			patientDTO.setStatus(PatientSTATUS.I);
@@ -23,6 +23,7 @@ package org.isf.shared.exceptions;
 
 import java.util.Locale;
 
+import org.isf.security.PasswordVerificationRejectedException;
 import org.isf.utils.exception.OHDBConnectionException;
 import org.isf.utils.exception.OHDataIntegrityViolationException;
 import org.isf.utils.exception.OHDataLockFailureException;
@@ -32,8 +33,10 @@ import org.isf.utils.exception.OHInvalidSQLException;
 import org.isf.utils.exception.OHOperationNotAllowedException;
 import org.isf.utils.exception.OHReportException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.exception.model.OHExceptionMessage;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -94,6 +97,14 @@ public class OHResponseEntityExceptionHandler extends ResponseEntityExceptionHan
         return buildResponseEntity(new OHAPIError(ex.getStatus(), ex));
     }
 
+    @ExceptionHandler(value = {PasswordVerificationRejectedException.class})
+    protected ResponseEntity<Object> handlePasswordVerificationRejectedException(PasswordVerificationRejectedException ex) {
+        OHAPIError apiError = new OHAPIError(HttpStatus.SERVICE_UNAVAILABLE, new OHAPIException(new OHExceptionMessage(ex.getMessage())));
+        return ResponseEntity.status(apiError.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(apiError);
+    }
+
     private ResponseEntity<Object> buildResponseEntity(OHAPIError apiError) {
         return new ResponseEntity<>(apiError, apiError.getStatus());
     }
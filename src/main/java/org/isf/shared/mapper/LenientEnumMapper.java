@@ -0,0 +1,42 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.shared.mapper;
+
+import org.mapstruct.TargetType;
+
+/**
+ * Converts text to enum constants the way {@link org.modelmapper.ModelMapper} does: an unknown name gives {@code null}
+ * instead of an exception.
+ */
+public class LenientEnumMapper {
+
+	public <E extends Enum<E>> E toEnum(String name, @TargetType Class<E> enumType) {
+		if (name == null) {
+			return null;
+		}
+		try {
+			return Enum.valueOf(enumType, name);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.shared.mapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.shared.GenericMapper;
+import org.modelmapper.ConfigurationException;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeMap;
+import org.modelmapper.spi.PropertyInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds at startup the {@link TypeMap TypeMaps} of the shared {@link ModelMapper} for every {@link GenericMapper}, in
+ * both directions, so that no request pays for them and the type maps are never created concurrently.
+ * <p>
+ * The mappings with custom rules (see {@link org.isf.shared.mapper.mappings}) are registered by the mappers
+ * themselves and are only looked up here. Mappers with a {@link org.isf.shared.GeneratedMapping} are skipped.
+ * <p>
+ * A pair whose implicit mapping is ambiguous makes the startup fail, unless {@code mapper.fail-on-ambiguity} is
+ * {@code false}: then the pair is built ignoring the ambiguous properties and a warning is logged.
+ */
+@Component
+public class MapperRegistry implements SmartInitializingSingleton {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MapperRegistry.class);
+
+	private final ModelMapper modelMapper;
+
+	private final List<GenericMapper<?, ?>> mappers;
+
+	private final boolean failOnAmbiguity;
+
+	private final Map<String, Duration> buildTimes = new LinkedHashMap<>();
+
+	public MapperRegistry(ModelMapper modelMapper, List<GenericMapper<?, ?>> mappers,
+					@Value("${mapper.fail-on-ambiguity:true}") boolean failOnAmbiguity) {
+		this.modelMapper = modelMapper;
+		this.mappers = mappers;
+		this.failOnAmbiguity = failOnAmbiguity;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		warmUp();
+	}
+
+	/**
+	 * Builds the type maps not built yet.
+	 *
+	 * @throws IllegalStateException listing the pairs that cannot be mapped
+	 */
+	public synchronized void warmUp() {
+		long start = System.nanoTime();
+		List<String> errors = new ArrayList<>();
+		for (GenericMapper<?, ?> mapper : mappers) {
+			if (mapper.hasGeneratedMapping()) {
+				continue;
+			}
+			build(mapper.getSourceClass(), mapper.getDestClass(), errors);
+			build(mapper.getDestClass(), mapper.getSourceClass(), errors);
+		}
+		if (!errors.isEmpty()) {
+			throw new IllegalStateException("Invalid ModelMapper mappings, map the ambiguous properties explicitly or set "
+							+ "mapper.fail-on-ambiguity=false:\n" + String.join("\n", errors));
+		}
+		LOGGER.info("Built {} ModelMapper type maps in {} ms", buildTimes.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+	}
+
+	/**
+	 * @return the time spent building each type map, keyed by {@code source class -> destination class}
+	 */
+	public synchronized Map<String, Duration> getBuildTimes() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(buildTimes));
+	}
+
+	private void build(Class<?> sourceClass, Class<?> destClass, List<String> errors) {
+		String pair = sourceClass.getName() + " -> " + destClass.getName();
+		if (buildTimes.containsKey(pair)) {
+			return;
+		}
+		long start = System.nanoTime();
+		TypeMap<?, ?> typeMap;
+		try {
+			typeMap = modelMapper.typeMap(sourceClass, destClass);
+		} catch (ConfigurationException e) {
+			if (failOnAmbiguity) {
+				errors.add(pair + ": " + e.getMessage());
+				return;
+			}
+			LOGGER.warn("Ambiguous properties of {} are left unmapped: {}", pair, e.getMessage());
+			typeMap = modelMapper.createTypeMap(sourceClass, destClass, modelMapper.getConfiguration().copy().setAmbiguityIgnored(true));
+		}
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+		buildTimes.put(pair, elapsed);
+		LOGGER.debug("Built {} in {} µs, unmapped destination properties: {}", pair, elapsed.toNanos() / 1000,
+						typeMap.getUnmappedProperties().stream().map(PropertyInfo::getName).toList());
+	}
+}
@@ -27,14 +27,23 @@ import org.modelmapper.ModelMapper;
 import org.modelmapper.module.jsr310.Jsr310Module;
 
 /**
+ * Holder of the {@link ModelMapper} shared by the whole application, also exposed as a bean by
+ * {@link org.isf.shared.mapper.converter.ModelMapperConfig}.
+ *
  * @author akashytsa
  */
 public class OHModelMapper {
 
-    private static ModelMapper modelMapper;
+    private OHModelMapper() {
+    }
+
+    private static final class Holder {
+
+        private static final ModelMapper MODEL_MAPPER = createModelMapper();
+    }
 
-    private static ModelMapper getInstance() {
-        modelMapper = new ModelMapper();
+    private static ModelMapper createModelMapper() {
+        ModelMapper modelMapper = new ModelMapper();
         modelMapper.addConverter(new BlobToByteArrayConverter());
         modelMapper.addConverter(new ByteArrayToBlobConverter());
         modelMapper.registerModule(new Jsr310Module());
@@ -42,7 +51,7 @@ public class OHModelMapper {
     }
 
     public static ModelMapper getObjectMapper() {
-        return modelMapper == null ? getInstance() : modelMapper;
+        return Holder.MODEL_MAPPER;
     }
 
 }
@@ -21,27 +21,16 @@
  */
 package org.isf.shared.mapper.converter;
 
+import org.isf.shared.mapper.OHModelMapper;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.module.jsr310.Jsr310Module;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class ModelMapperConfig {
 
-	@Autowired
-	protected BlobToByteArrayConverter blobToByteArrayConverter;
-
-	@Autowired
-	protected ByteArrayToBlobConverter byteArrayToBlobConverter;
-
 	@Bean
 	public ModelMapper modelMapper() {
-		ModelMapper modelMapper = new ModelMapper();
-		modelMapper.addConverter(blobToByteArrayConverter);
-		modelMapper.addConverter(byteArrayToBlobConverter);
-		modelMapper.registerModule(new Jsr310Module());
-		return modelMapper;
+		return OHModelMapper.getObjectMapper();
 	}
 }
\ No newline at end of file
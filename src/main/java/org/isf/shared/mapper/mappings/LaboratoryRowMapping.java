@@ -0,0 +1,40 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.shared.mapper.mappings;
+
+import org.isf.lab.dto.LaboratoryRowDTO;
+import org.isf.lab.model.LaboratoryRow;
+import org.modelmapper.ModelMapper;
+
+public class LaboratoryRowMapping {
+
+	/**
+	 * Registers the laboratory row mapping tolerating ambiguous properties: the dates of the nested laboratory
+	 * ({@code labId}) all match {@code laboratory.labDate}, which is left unmapped.
+	 */
+	public static void addMapping(ModelMapper modelMapper) {
+		if (modelMapper.getTypeMap(LaboratoryRow.class, LaboratoryRowDTO.class) != null) {
+			return;
+		}
+		modelMapper.createTypeMap(LaboratoryRow.class, LaboratoryRowDTO.class, modelMapper.getConfiguration().copy().setAmbiguityIgnored(true));
+	}
+}
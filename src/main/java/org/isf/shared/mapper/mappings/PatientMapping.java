@@ -24,19 +24,26 @@ package org.isf.shared.mapper.mappings;
 import org.isf.patient.dto.PatientDTO;
 import org.isf.patient.model.Patient;
 import org.modelmapper.ModelMapper;
+import org.modelmapper.config.Configuration;
 
 public class PatientMapping {
 
+	/**
+	 * Adds the patient mappings, which tolerate ambiguous properties, unless they are already registered.
+	 */
 	public static void addMapping(ModelMapper modelMapper) {
+		if (modelMapper.getTypeMap(Patient.class, PatientDTO.class) != null) {
+			return;
+		}
+		Configuration ambiguityIgnored = modelMapper.getConfiguration().copy().setAmbiguityIgnored(true);
 
-		modelMapper.getConfiguration().setAmbiguityIgnored(true);
-		modelMapper.typeMap(Patient.class, PatientDTO.class).addMappings(mapper -> {
+		modelMapper.createTypeMap(Patient.class, PatientDTO.class, ambiguityIgnored).addMappings(mapper -> {
 			mapper.<Boolean> map(src -> src.getPatientConsensus().isConsensusFlag(), PatientDTO::setConsensusFlag);
 			mapper.<Boolean> map(src -> src.getPatientConsensus().isServiceFlag(), PatientDTO::setConsensusServiceFlag);
 			mapper.map(src -> src.getPatientProfilePhoto().getPhoto(), PatientDTO::setBlobPhoto);
 		});
 
-		modelMapper.typeMap(PatientDTO.class, Patient.class).addMappings(mapper -> {
+		modelMapper.createTypeMap(PatientDTO.class, Patient.class, ambiguityIgnored).addMappings(mapper -> {
 			mapper.<Boolean> map(src -> src.isConsensusFlag(), (db, value) -> db.getPatientConsensus().setConsensusFlag(value));
 			mapper.<Boolean> map(src -> src.isConsensusServiceFlag(), (db, value) -> db.getPatientConsensus().setServiceFlag(value));
 			mapper.<Patient> map(src -> src, (db, value) -> {
@@ -24,10 +24,14 @@ package org.isf.shared.pagination;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class Page<T> {
 	
 	List<T> data;
 	PageInfoDTO pageInfoDTO;
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	String nextCursor;
 
 	public List<T> getData() {
 		return data;
@@ -41,4 +45,10 @@ public class Page<T> {
 	public void setPageInfo(PageInfoDTO pageInfoDTO) {
 		this.pageInfoDTO = pageInfoDTO;
 	}
+	public String getNextCursor() {
+		return nextCursor;
+	}
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
 }
@@ -0,0 +1,68 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.shared.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs a query with an {@code IN} clause over many values, a statement for every {@value #BATCH_SIZE} values, so that
+ * the number of bind parameters stays within what every supported database accepts.
+ */
+public final class InClauseBatches {
+
+	/** The maximum number of values in the {@code IN} clause of a single statement. */
+	public static final int BATCH_SIZE = 500;
+
+	private InClauseBatches() {
+	}
+
+	/**
+	 * Runs the specified query once for every batch of values and returns the results of all the batches.
+	 * <p>
+	 * The {@code null} and repeated values are left out, no statement is run when no value is left.
+	 *
+	 * @param entityManager the entity manager running the query
+	 * @param query the JPQL query, binding the values to the {@code IN} clause of {@code parameter}
+	 * @param resultClass the type of the results
+	 * @param parameter the name of the parameter of the {@code IN} clause
+	 * @param values the values
+	 * @param <T> the type of the results
+	 * @return the results, batch after batch
+	 */
+	public static <T> List<T> getResultList(EntityManager entityManager, String query, Class<T> resultClass, String parameter,
+					Collection<?> values) {
+		List<?> distinctValues = values.stream().filter(Objects::nonNull).distinct().toList();
+		List<T> results = new ArrayList<>();
+		for (int from = 0; from < distinctValues.size(); from += BATCH_SIZE) {
+			List<?> batch = distinctValues.subList(from, Math.min(from + BATCH_SIZE, distinctValues.size()));
+			results.addAll(entityManager.createQuery(query, resultClass)
+							.setParameter(parameter, batch)
+							.getResultList());
+		}
+		return results;
+	}
+}
@@ -36,6 +36,7 @@ import org.isf.permissions.manager.PermissionManager;
 import org.isf.permissions.mapper.PermissionMapper;
 import org.isf.permissions.model.GroupPermission;
 import org.isf.permissions.model.Permission;
+import org.isf.security.UserAuthoritiesChangedEvent;
 import org.isf.shared.exceptions.OHAPIException;
 import org.isf.usergroups.dto.GroupPermissionsDTO;
 import org.isf.usergroups.dto.UserGroupDTO;
@@ -46,6 +47,7 @@ import org.isf.utils.exception.model.OHExceptionMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -77,6 +79,8 @@ public class UserGroupController {
 	private PermissionMapper permissionMapper;
 	@Autowired
 	private UserBrowsingManager userManager;
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * Returns the list of {@link UserGroup}s.
@@ -101,6 +105,7 @@ public class UserGroupController {
 		try {
 			UserGroup group = loadUserGroup(code);
 			userManager.deleteGroup(group);
+			eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUserGroup(code));
 		} catch (OHServiceException serviceException) {
 			throw new OHAPIException(new OHExceptionMessage("User group not deleted."));
 		}
@@ -158,6 +163,7 @@ public class UserGroupController {
 
 		boolean isUpdated = userManager.updateUserGroup(group, permissions);
 		if (isUpdated) {
+			eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUserGroup(group.getCode()));
 			return getUserGroup(group.getCode());
 		} else {
 			throw new OHAPIException(new OHExceptionMessage("User group not updated."));
@@ -213,7 +219,9 @@ public class UserGroupController {
 		}
 
 		try {
-			return groupPermissionManager.create(userGroup, permission).getId();
+			int groupPermissionId = groupPermissionManager.create(userGroup, permission).getId();
+			eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUserGroup(userGroupCode));
+			return groupPermissionId;
 		} catch (OHDataValidationException e) {
 			throw new OHAPIException(new OHExceptionMessage("Failed to assign permission"));
 		}
@@ -239,7 +247,9 @@ public class UserGroupController {
 		}
 
 		try {
-			return permissionMapper.map2DTOList(groupPermissionManager.update(userGroup, payload.permissionIds(), false));
+			List<Permission> permissions = groupPermissionManager.update(userGroup, payload.permissionIds(), false);
+			eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUserGroup(userGroupCode));
+			return permissionMapper.map2DTOList(permissions);
 		} catch (OHDataValidationException e) {
 			LOGGER.info("Fail to update user groups permissions, reason: {}", e.getMessage());
 			throw new OHAPIException(new OHExceptionMessage("Failed to update permissions"));
@@ -272,7 +282,9 @@ public class UserGroupController {
 		}
 
 		try {
-			return permissionMapper.map2DTOList(groupPermissionManager.update(userGroup, payload.permissionIds(), true));
+			List<Permission> permissions = groupPermissionManager.update(userGroup, payload.permissionIds(), true);
+			eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUserGroup(userGroupCode));
+			return permissionMapper.map2DTOList(permissions);
 		} catch (OHDataValidationException e) {
 			LOGGER.info("Fail to replace user groups permissions, reason: {}", e.getMessage());
 			throw new OHAPIException(new OHExceptionMessage("Failed to update permissions"));
@@ -304,6 +316,7 @@ public class UserGroupController {
 
 		try {
 			groupPermissionManager.delete(userGroup, permission);
+			eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUserGroup(userGroupCode));
 		} catch (OHDataValidationException e) {
 			throw new OHAPIException(new OHExceptionMessage("Failed to revoke permission"));
 		}
@@ -27,9 +27,11 @@ import jakarta.validation.Valid;
 import org.isf.menu.manager.UserBrowsingManager;
 import org.isf.menu.model.User;
 import org.isf.permissions.dto.PermissionDTO;
-import org.isf.permissions.manager.PermissionManager;
 import org.isf.permissions.mapper.PermissionMapper;
 import org.isf.permissions.model.Permission;
+import org.isf.security.UserAuthoritiesChangedEvent;
+import org.isf.security.UserAuthorityCache;
+import org.isf.security.UserAuthoritySnapshot;
 import org.isf.shared.exceptions.OHAPIException;
 import org.isf.usergroups.mapper.UserGroupMapper;
 import org.isf.users.dto.UserDTO;
@@ -40,13 +42,14 @@ import org.isf.utils.exception.model.OHExceptionMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController(value = "/users")
 @Tag(name = "Users")
@@ -55,8 +58,6 @@ public class UserController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserController.class);
     @Autowired
-    protected PermissionManager permissionManager;
-    @Autowired
     protected PermissionMapper permissionMapper;
     @Autowired
     private UserMapper userMapper;
@@ -64,6 +65,10 @@ public class UserController {
     private UserGroupMapper userGroupMapper;
     @Autowired
     private UserBrowsingManager userManager;
+    @Autowired
+    private UserAuthorityCache userAuthorityCache;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * Returns the list of {@link User}s.
@@ -132,6 +137,7 @@ public class UserController {
         }
         if (isUpdated) {
             LOGGER.info("User {} has been updated successfully.", userName);
+            eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUser(userName));
             user = userManager.getUserByName(userName);
             user.setPasswd(null);
             return userMapper.map2DTO(user);
@@ -175,6 +181,7 @@ public class UserController {
         }
         try {
             userManager.deleteUser(foundUser);
+            eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUser(username));
         } catch (OHServiceException serviceException) {
             throw new OHAPIException(new OHExceptionMessage("User not deleted."));
         }
@@ -225,6 +232,7 @@ public class UserController {
         }
         if (isUpdated) {
             LOGGER.info("User {} has been successfully updated.", currentUser);
+            eventPublisher.publishEvent(UserAuthoritiesChangedEvent.forUser(currentUser));
             return retrieveProfile(currentUser);
         } else {
             throw new OHAPIException(new OHExceptionMessage("User not updated."));
@@ -240,18 +248,22 @@ public class UserController {
     @GetMapping(value = "/users/{username}/permissions", produces = MediaType.APPLICATION_JSON_VALUE)
     public List<PermissionDTO> retrievePermissionsByUsername(@PathVariable("username") String username) throws OHServiceException {
         LOGGER.info("Retrieving permissions: retrievePermissionsByUsername({}).", username);
-        List<Permission> domains = this.permissionManager.retrievePermissionsByUsername(username);
-        return this.permissionMapper.map2DTOList(domains);
+        UserAuthoritySnapshot user = userAuthorityCache.getSnapshot(username);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+        return this.permissionMapper.map2DTOList(user.getPermissions());
     }
 
     private UserProfileDTO retrieveProfile(String currentUser) throws OHServiceException {
-        List<Permission> permissions = this.permissionManager.retrievePermissionsByUsername(currentUser);
-        List<String> permissionsCode = permissions.stream().map(Permission::getName).collect(Collectors.toList());
+        UserAuthoritySnapshot user = userAuthorityCache.getSnapshot(currentUser);
+        if (user == null) {
+            throw new OHAPIException(new OHExceptionMessage("User not found."), HttpStatus.NOT_FOUND);
+        }
         UserProfileDTO userProfileDTO = new UserProfileDTO();
-        User user = userManager.getUserByName(currentUser);
-        userProfileDTO.setUserGroup(userGroupMapper.map2DTO(user.getUserGroupName()));
+        userProfileDTO.setUserGroup(userGroupMapper.map2DTO(user.getUserGroup()));
         userProfileDTO.setUserName(currentUser);
-        userProfileDTO.setPermissions(permissionsCode);
+        userProfileDTO.setPermissions(user.getPermissionNames());
         return userProfileDTO;
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.ward.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class WardCensusDTO {
+
+	@Schema(description = "The ward code", maxLength = 3)
+	private String code;
+
+	@Schema(description = "The name of the ward", maxLength = 50)
+	private String description;
+
+	@Schema(description = "The number of beds of the ward", example = "20")
+	private Integer beds;
+
+	@Schema(description = "The number of patients admitted in the ward", example = "12")
+	private int occupiedBeds;
+
+	public WardCensusDTO() {
+	}
+
+	public WardCensusDTO(String code, String description, Integer beds, int occupiedBeds) {
+		this.code = code;
+		this.description = description;
+		this.beds = beds;
+		this.occupiedBeds = occupiedBeds;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	public void setCode(String code) {
+		this.code = code;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+	public Integer getBeds() {
+		return beds;
+	}
+
+	public void setBeds(Integer beds) {
+		this.beds = beds;
+	}
+
+	public int getOccupiedBeds() {
+		return occupiedBeds;
+	}
+
+	public void setOccupiedBeds(int occupiedBeds) {
+		this.occupiedBeds = occupiedBeds;
+	}
+}
@@ -21,21 +21,28 @@
  */
 package org.isf.ward.rest;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
+import org.isf.admission.cache.ReferenceDataCache;
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
 import org.isf.shared.exceptions.OHAPIException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
+import org.isf.ward.dto.WardCensusDTO;
 import org.isf.ward.dto.WardDTO;
 import org.isf.ward.manager.WardBrowserManager;
 import org.isf.ward.mapper.WardMapper;
 import org.isf.ward.model.Ward;
+import org.isf.ward.service.WardOccupancy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -43,6 +50,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -60,9 +68,17 @@ public class WardController {
     @Autowired
     protected WardMapper mapper;
 
-    public WardController(WardBrowserManager wardManager, WardMapper wardMapper) {
+    @Autowired
+    protected ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    protected WardOccupancy wardOccupancy;
+
+    public WardController(WardBrowserManager wardManager, WardMapper wardMapper, ReferenceDataCache referenceDataCache, WardOccupancy wardOccupancy) {
         this.wardManager = wardManager;
         this.mapper =  wardMapper;
+        this.referenceDataCache = referenceDataCache;
+        this.wardOccupancy = wardOccupancy;
     }
 
     /**
@@ -111,15 +127,45 @@ public class WardController {
     @GetMapping(value = "/wards/occupation/{code}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Integer> getCurrentOccupation(@PathVariable String code) throws OHServiceException {
     	LOGGER.info("Get current occupation ward code: {}", code);
-        Ward ward = wardManager.findWard(code);
-        int numberOfPatients = wardManager.getCurrentOccupation(ward);
-        if (numberOfPatients == -1) {
+        Ward ward = referenceDataCache.getWard(code);
+        if (ward == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         } else {
-            return ResponseEntity.ok(numberOfPatients);
+            return ResponseEntity.ok(wardOccupancy.getOccupancy(ward.getCode()));
         }
     }
 
+    /**
+     * Get the number of beds and of admitted patients of all the {@link Ward}s.
+     * <p>
+     * The ETag follows the versions of the wards and the occupancy, a client sending it back in {@code If-None-Match}
+     * gets a 304 without the census.
+     *
+     * @return NO_CONTENT if there aren't wards, {@code List<WardCensusDTO>} otherwise
+     * @throws OHServiceException
+     */
+    @GetMapping(value = "/wards/census", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<WardCensusDTO>> getCensus(WebRequest request) throws OHServiceException {
+        LOGGER.info("Get wards census");
+        List<Ward> wards = referenceDataCache.getWards();
+        if (wards.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+        }
+        // the version is read first: an occupancy change while the census is built changes the next ETag
+        long occupancyVersion = wardOccupancy.getVersion();
+        StringBuilder versions = new StringBuilder().append(occupancyVersion);
+        wards.forEach(ward -> versions.append(',').append(ward.getCode()).append('-').append(ward.getLock()));
+        String eTag = "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + '"';
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        Map<String, Integer> occupancies = wardOccupancy.getOccupancies();
+        List<WardCensusDTO> census = wards.stream()
+                .map(ward -> new WardCensusDTO(ward.getCode(), ward.getDescription(), ward.getBeds(), occupancies.getOrDefault(ward.getCode(), 0)))
+                .toList();
+        return ResponseEntity.ok().eTag(eTag).body(census);
+    }
+
     /**
      * Create a new {@link Ward}.
      *
@@ -134,6 +180,7 @@ public class WardController {
         if (wardCreated == null) {
             throw new OHAPIException(new OHExceptionMessage("Ward not created."));
         }
+        referenceDataCache.invalidate(Catalogue.WARD);
         return ResponseEntity.status(HttpStatus.CREATED).body(mapper.map2DTO(wardCreated));
     }
 
@@ -153,6 +200,7 @@ public class WardController {
         if (wardUpdated == null) {
             throw new OHAPIException(new OHExceptionMessage("Ward not updated."));
         }
+        referenceDataCache.invalidate(Catalogue.WARD);
         return ResponseEntity.ok(mapper.map2DTO(wardUpdated));
 
     }
@@ -171,6 +219,7 @@ public class WardController {
         if (ward != null) {
             try {
                 wardManager.deleteWard(ward);
+                referenceDataCache.invalidate(Catalogue.WARD);
             } catch (OHServiceException serviceException) {
                 throw new OHAPIException(new OHExceptionMessage("Ward not deleted."));
             }
@@ -205,6 +254,10 @@ public class WardController {
     public ResponseEntity<Boolean> checkWardMaternityCode(@PathVariable Boolean createIfNotExist) throws OHServiceException {
         LOGGER.info("Check ward maternity code");
         boolean check = wardManager.maternityControl(createIfNotExist);
+        if (createIfNotExist) {
+            // the maternity ward may have just been created
+            referenceDataCache.invalidate(Catalogue.WARD);
+        }
         return ResponseEntity.ok(check);
     }
 
@@ -0,0 +1,240 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.ward.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.admission.model.Admission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory count of the patients admitted in every {@link org.isf.ward.model.Ward}, so that the bed occupancy can be
+ * read without a count query per ward.
+ * <p>
+ * The counters are loaded on the first read and then updated by the admission API when a patient is admitted,
+ * discharged, moved to another ward or when an admission is deleted. Admissions changed outside the API are picked up
+ * when the counters are reconciled against the database, on a schedule.
+ */
+@Component
+public class WardOccupancy {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WardOccupancy.class);
+
+	private static final String OCCUPANCY_QUERY = "SELECT a.ward.code, COUNT(a) FROM Admission a "
+					+ "WHERE a.admitted = 1 AND a.deleted = :deleted GROUP BY a.ward.code";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final Map<String, AtomicInteger> occupancy = new ConcurrentHashMap<>();
+
+	/** Incremented on every change of the counters, so that a reconciliation does not overwrite a concurrent change. */
+	private final AtomicLong version = new AtomicLong();
+
+	/** Held to change the counters, so that a move is never applied between the check and the update of a reconciliation. */
+	private final Object countersLock = new Object();
+
+	private final ScheduledExecutorService executor;
+
+	private volatile boolean loaded;
+
+	/**
+	 * @param reconcileSeconds the interval of the reconciliation of the counters against the database, {@code 0}
+	 * reconciles them only on the first read
+	 */
+	public WardOccupancy(@Value("${ward.occupancy.reconcile-seconds:300}") long reconcileSeconds) {
+		if (reconcileSeconds <= 0) {
+			this.executor = null;
+			return;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ward-occupancy-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		executor.scheduleWithFixedDelay(this::scheduledReconcile, reconcileSeconds, reconcileSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Returns the number of patients admitted in the specified ward.
+	 *
+	 * @param wardCode the code of the ward
+	 * @return the number of admitted patients, {@code 0} for an unknown ward
+	 */
+	public int getOccupancy(String wardCode) {
+		ensureLoaded();
+		AtomicInteger counter = occupancy.get(wardCode);
+		return counter == null ? 0 : counter.get();
+	}
+
+	/**
+	 * Returns the number of patients admitted in every ward.
+	 *
+	 * @return the {@link Map} of the number of admitted patients by ward code, without the empty wards
+	 */
+	public Map<String, Integer> getOccupancies() {
+		ensureLoaded();
+		Map<String, Integer> occupancies = new HashMap<>();
+		occupancy.forEach((wardCode, counter) -> {
+			if (counter.get() > 0) {
+				occupancies.put(wardCode, counter.get());
+			}
+		});
+		return occupancies;
+	}
+
+	/**
+	 * Returns the version of the counters, which changes with the occupancy of any ward.
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * Moves a patient between the counters after an admission is stored.
+	 * <p>
+	 * The wards are read with {@link #occupiedWard(Admission)}, the ward before the change must be read before the
+	 * admission is stored since storing it may update the same instance.
+	 *
+	 * @param fromWardCode the ward occupied before the change, {@code null} for none
+	 * @param toWardCode the ward occupied after the change, {@code null} for none
+	 */
+	public void moved(String fromWardCode, String toWardCode) {
+		if (Objects.equals(fromWardCode, toWardCode)) {
+			return;
+		}
+		synchronized (countersLock) {
+			if (!loaded) {
+				// counters not loaded yet: the first reconciliation counts the change
+				return;
+			}
+			if (fromWardCode != null) {
+				occupancy.computeIfAbsent(fromWardCode, wardCode -> new AtomicInteger()).updateAndGet(count -> Math.max(0, count - 1));
+			}
+			if (toWardCode != null) {
+				occupancy.computeIfAbsent(toWardCode, wardCode -> new AtomicInteger()).incrementAndGet();
+			}
+			version.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Reads the occupancy of the wards from the database and corrects the counters that drifted from it.
+	 * <p>
+	 * The moves are not held up by the count query, only while the counters are corrected.
+	 */
+	public synchronized void reconcile() {
+		long versionBefore = version.get();
+		Map<String, Integer> counted = count();
+		synchronized (countersLock) {
+			apply(counted, versionBefore);
+		}
+	}
+
+	// called holding the counters lock
+	private void apply(Map<String, Integer> counted, long versionBefore) {
+		if (loaded && version.get() != versionBefore) {
+			// an admission was changed during the count: the next reconciliation corrects the counters
+			LOGGER.debug("Ward occupancy changed during the reconciliation, counters kept.");
+			return;
+		}
+		boolean drifted = false;
+		for (Map.Entry<String, Integer> entry : counted.entrySet()) {
+			AtomicInteger counter = occupancy.computeIfAbsent(entry.getKey(), wardCode -> new AtomicInteger());
+			if (counter.getAndSet(entry.getValue()) != entry.getValue()) {
+				drifted = true;
+			}
+		}
+		for (Map.Entry<String, AtomicInteger> entry : occupancy.entrySet()) {
+			if (!counted.containsKey(entry.getKey()) && entry.getValue().getAndSet(0) != 0) {
+				drifted = true;
+			}
+		}
+		if (drifted) {
+			if (loaded) {
+				LOGGER.info("Ward occupancy corrected from the database: {}.", counted);
+			}
+			version.incrementAndGet();
+		}
+		loaded = true;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	private void ensureLoaded() {
+		if (!loaded) {
+			reconcile();
+		}
+	}
+
+	private void scheduledReconcile() {
+		try {
+			reconcile();
+		} catch (RuntimeException e) {
+			LOGGER.error("Ward occupancy reconciliation failed.", e);
+		}
+	}
+
+	private Map<String, Integer> count() {
+		List<Object[]> rows = entityManager.createQuery(OCCUPANCY_QUERY, Object[].class)
+						.setParameter("deleted", "N")
+						.getResultList();
+		Map<String, Integer> counted = new HashMap<>();
+		for (Object[] row : rows) {
+			counted.put((String) row[0], ((Number) row[1]).intValue());
+		}
+		return counted;
+	}
+
+	/**
+	 * Returns the ward whose bed is occupied by the specified admission.
+	 *
+	 * @param admission the admission, may be {@code null}
+	 * @return the code of the ward, or {@code null} if the patient was discharged, the admission deleted or missing
+	 */
+	public static String occupiedWard(Admission admission) {
+		if (admission == null || admission.getWard() == null || admission.getAdmitted() != 1 || "Y".equals(admission.getDeleted())) {
+			return null;
+		}
+		return admission.getWard().getCode();
+	}
+}
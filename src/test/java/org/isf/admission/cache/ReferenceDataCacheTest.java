@@ -0,0 +1,151 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.admission.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
+import org.isf.admission.manager.AdmissionBrowserManager;
+import org.isf.admtype.model.AdmissionType;
+import org.isf.disctype.model.DischargeType;
+import org.isf.disease.manager.DiseaseBrowserManager;
+import org.isf.disease.model.Disease;
+import org.isf.distype.model.DiseaseType;
+import org.isf.dlvrrestype.manager.DeliveryResultTypeBrowserManager;
+import org.isf.dlvrtype.manager.DeliveryTypeBrowserManager;
+import org.isf.pregtreattype.manager.PregnantTreatmentTypeBrowserManager;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.ward.manager.WardBrowserManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ReferenceDataCacheTest {
+
+	private DiseaseBrowserManager diseaseManager;
+
+	private AdmissionBrowserManager admissionManager;
+
+	private MeterRegistry meterRegistry;
+
+	private ReferenceDataCache referenceDataCache;
+
+	private DiseaseType infectious;
+
+	@BeforeEach
+	public void setUp() throws OHServiceException {
+		diseaseManager = mock(DiseaseBrowserManager.class);
+		admissionManager = mock(AdmissionBrowserManager.class);
+		meterRegistry = new SimpleMeterRegistry();
+		referenceDataCache = createCache(600);
+
+		infectious = new DiseaseType("IN", "Infectious");
+		when(diseaseManager.getDiseaseAll()).thenReturn(List.of(
+						new Disease("01", "Malaria", infectious),
+						new Disease("02", "Cholera", infectious)));
+		when(admissionManager.getAdmissionType()).thenReturn(List.of(new AdmissionType("A", "Ambulance")));
+		when(admissionManager.getDischargeType()).thenReturn(List.of(new DischargeType("D", "Discharged")));
+	}
+
+	@Test
+	public void testLookup() throws OHServiceException {
+		assertThat(referenceDataCache.getDisease("02").getDescription()).isEqualTo("Cholera");
+		assertThat(referenceDataCache.getDisease("99")).isNull();
+		assertThat(referenceDataCache.getDisease(null)).isNull();
+		assertThat(referenceDataCache.getAdmissionType("A").getDescription()).isEqualTo("Ambulance");
+		assertThat(referenceDataCache.getDischargeType("D").getDescription()).isEqualTo("Discharged");
+	}
+
+	@Test
+	public void testCatalogueCached() throws OHServiceException {
+		referenceDataCache.getDisease("01");
+		referenceDataCache.getDisease("02");
+		referenceDataCache.getDisease("99");
+
+		verify(diseaseManager, times(1)).getDiseaseAll();
+		assertThat(referenceDataCache.getStats().hitCount()).isEqualTo(2);
+		assertThat(referenceDataCache.getStats().missCount()).isEqualTo(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", ReferenceDataCache.CACHE_NAME).tag("result", "hit").functionCounter().count())
+			.isEqualTo(2);
+	}
+
+	@Test
+	public void testInvalidateOnlyChangedCatalogue() throws OHServiceException {
+		referenceDataCache.getDisease("01");
+		referenceDataCache.getAdmissionType("A");
+		when(diseaseManager.getDiseaseAll()).thenReturn(List.of(new Disease("03", "Typhoid", infectious)));
+
+		referenceDataCache.invalidate(Catalogue.DISEASE);
+
+		assertThat(referenceDataCache.getVersion(Catalogue.DISEASE)).isEqualTo(1);
+		assertThat(referenceDataCache.getVersion(Catalogue.ADMISSION_TYPE)).isZero();
+		assertThat(referenceDataCache.getDisease("01")).isNull();
+		assertThat(referenceDataCache.getDisease("03")).isNotNull();
+		assertThat(referenceDataCache.getAdmissionType("A")).isNotNull();
+		verify(diseaseManager, times(2)).getDiseaseAll();
+		verify(admissionManager, times(1)).getAdmissionType();
+		verify(admissionManager, never()).getDischargeType();
+	}
+
+	@Test
+	public void testCatalogueChangedWhileLoading() throws OHServiceException {
+		when(diseaseManager.getDiseaseAll()).thenAnswer(invocation -> {
+			referenceDataCache.invalidate(Catalogue.DISEASE);
+			return List.of(new Disease("01", "Malaria", infectious));
+		}).thenReturn(List.of(new Disease("01", "Malaria", infectious), new Disease("03", "Typhoid", infectious)));
+
+		assertThat(referenceDataCache.getDisease("01")).isNotNull();
+		assertThat(referenceDataCache.getDisease("03")).isNotNull();
+		assertThat(referenceDataCache.getDisease("03")).isNotNull();
+
+		verify(diseaseManager, times(2)).getDiseaseAll();
+	}
+
+	@Test
+	public void testCacheDisabled() throws OHServiceException {
+		referenceDataCache = createCache(0);
+
+		referenceDataCache.getDisease("01");
+		referenceDataCache.getDisease("01");
+
+		verify(diseaseManager, times(2)).getDiseaseAll();
+		assertThat(referenceDataCache.getStats().requestCount()).isZero();
+	}
+
+	private ReferenceDataCache createCache(long expireAfterSeconds) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+		return new ReferenceDataCache(diseaseManager, mock(WardBrowserManager.class), admissionManager, mock(PregnantTreatmentTypeBrowserManager.class),
+						mock(DeliveryTypeBrowserManager.class), mock(DeliveryResultTypeBrowserManager.class), beanFactory.getBeanProvider(MeterRegistry.class),
+						expireAfterSeconds);
+	}
+}
@@ -23,6 +23,8 @@ package org.isf.admission.rest;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -30,11 +32,13 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.isf.admission.cache.ReferenceDataCache;
 import org.isf.admission.data.AdmissionHelper;
 import org.isf.admission.dto.AdmissionDTO;
 import org.isf.admission.manager.AdmissionBrowserManager;
@@ -42,6 +46,7 @@ import org.isf.admission.mapper.AdmissionMapper;
 import org.isf.admission.mapper.AdmittedPatientMapper;
 import org.isf.admission.model.Admission;
 import org.isf.admission.model.AdmittedPatient;
+import org.isf.admission.service.AdmittedPatientQuery;
 import org.isf.admtype.data.AdmissionTypeDTOHelper;
 import org.isf.admtype.model.AdmissionType;
 import org.isf.disctype.data.DischargeTypeHelper;
@@ -69,6 +74,7 @@ import org.isf.shared.mapper.mappings.PatientMapping;
 import org.isf.ward.data.WardHelper;
 import org.isf.ward.manager.WardBrowserManager;
 import org.isf.ward.model.Ward;
+import org.isf.ward.service.WardOccupancy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -77,12 +83,15 @@ import org.mockito.MockitoAnnotations;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 public class AdmissionControllerTest {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionControllerTest.class);
@@ -114,6 +123,12 @@ public class AdmissionControllerTest {
 	@Mock
 	private DischargeTypeBrowserManager dischargeTypeManagerMock;
 
+	@Mock
+	private WardOccupancy wardOccupancyMock;
+
+	@Mock
+	private AdmittedPatientQuery admittedPatientQueryMock;
+
 	private AdmissionMapper admissionMapper;
 
 	private AdmittedPatientMapper admittedMapper;
@@ -133,11 +148,15 @@ public class AdmissionControllerTest {
 	@BeforeEach
 	public void setup() {
 		closeable = MockitoAnnotations.openMocks(this);
+		ReferenceDataCache referenceDataCache = new ReferenceDataCache(diseaseManagerMock, wardManagerMock, admissionManagerMock,
+						pregTraitTypeManagerMock, dlvrTypeManagerMock, dlvrrestTypeManagerMock,
+						new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 600);
 		this.mockMvc = MockMvcBuilders
 						.standaloneSetup(new AdmissionController(admissionManagerMock, patientManagerMock, wardManagerMock,
 										diseaseManagerMock, operationManagerMock, pregTraitTypeManagerMock,
 										dlvrTypeManagerMock, dlvrrestTypeManagerMock, admissionMapper,
-										admittedMapper, dischargeTypeManagerMock, dischargeMapper))
+										admittedMapper, dischargeTypeManagerMock, dischargeMapper, referenceDataCache,
+										wardOccupancyMock, admittedPatientQueryMock))
 						.setControllerAdvice(new OHResponseEntityExceptionHandler())
 						.build();
 		ModelMapper modelMapper = new ModelMapper();
@@ -263,6 +282,63 @@ public class AdmissionControllerTest {
 		LOGGER.debug("result: {}", result);
 	}
 
+	@Test
+	public void testGetAdmittedPatientsPageable_200() throws Exception {
+		String request = "/admissions/admittedPatients/pageable?searchterms={searchTerms}&sort={sort}&cursor={cursor}&size={size}";
+		List<AdmittedPatient> admittedPatients = PatientHelper.setupAdmittedPatientList(2);
+
+		when(admittedPatientQueryMock.getAdmittedPatients("mar", null, AdmittedPatientQuery.SortBy.NAME, "previous", 2))
+						.thenReturn(new AdmittedPatientQuery.Result(admittedPatients, 5, true, "next"));
+
+		MvcResult result = this.mockMvc
+						.perform(get(request, "mar", "NAME", "previous", 2)
+										.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(content().string(containsString(PatientHelper.asJsonString(admittedMapper.map2DTOList(admittedPatients)))))
+						.andExpect(jsonPath("$.nextCursor").value("next"))
+						.andExpect(jsonPath("$.pageInfo.nbOfElements").value(2))
+						.andExpect(jsonPath("$.pageInfo.totalNbOfElements").value(5))
+						.andExpect(jsonPath("$.pageInfo.totalPages").value(3))
+						.andExpect(jsonPath("$.pageInfo.hasPreviousPage").value(true))
+						.andExpect(jsonPath("$.pageInfo.hasNextPage").value(true))
+						.andReturn();
+
+		LOGGER.debug("result: {}", result);
+	}
+
+	@Test
+	public void testGetAdmittedPatientsPageableLastPage_200() throws Exception {
+		String request = "/admissions/admittedPatients/pageable?wardcode={wardCode}";
+		List<AdmittedPatient> admittedPatients = PatientHelper.setupAdmittedPatientList(2);
+
+		when(admittedPatientQueryMock.getAdmittedPatients("", "M", AdmittedPatientQuery.SortBy.WARD, null, 80))
+						.thenReturn(new AdmittedPatientQuery.Result(admittedPatients, 2, false, null));
+
+		this.mockMvc
+						.perform(get(request, "M")
+										.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$.nextCursor").doesNotExist())
+						.andExpect(jsonPath("$.pageInfo.hasNextPage").value(false));
+	}
+
+	@Test
+	public void testGetAdmittedPatientsPageableInvalidCursor_400() throws Exception {
+		String request = "/admissions/admittedPatients/pageable?cursor={cursor}";
+
+		when(admittedPatientQueryMock.getAdmittedPatients(any(), any(), any(), eq("invalid"), any(Integer.class)))
+						.thenThrow(new IllegalArgumentException("Malformed cursor."));
+
+		this.mockMvc
+						.perform(get(request, "invalid")
+										.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isBadRequest())
+						.andExpect(content().string(containsString("Malformed cursor.")));
+	}
+
 	@Test
 	public void testGetPatientAdmissions_200() throws Exception {
 		int patientCode = 1;
@@ -317,13 +393,14 @@ public class AdmissionControllerTest {
 	@Test
 	public void testGetUsedWardBed_200() throws Exception {
 		String request = "/admissions/getBedsOccupationInWard?wardid={wardCode}";
-		String wardCode = "1";
+		Ward ward = WardHelper.setup();
+		String wardCode = ward.getCode();
 
-		when(wardManagerMock.isCodePresent(wardCode))
-						.thenReturn(true);
+		when(wardManagerMock.getWards())
+						.thenReturn(List.of(ward));
 
 		Integer bed = 1012;
-		when(admissionManagerMock.getUsedWardBed(wardCode))
+		when(wardOccupancyMock.getOccupancy(wardCode))
 						.thenReturn(bed);
 
 		MvcResult result = this.mockMvc
@@ -355,6 +432,8 @@ public class AdmissionControllerTest {
 						.andExpect(status().isOk())
 						.andExpect(content().string(containsString("true")))
 						.andReturn();
+
+		verify(wardOccupancyMock).moved(WardOccupancy.occupiedWard(admission), null);
 	}
 
 	@Test
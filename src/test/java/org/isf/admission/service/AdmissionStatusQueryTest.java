@@ -0,0 +1,118 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.admission.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.isf.OpenHospitalApiApplication;
+import org.isf.admission.TestAdmission;
+import org.isf.admission.model.Admission;
+import org.isf.admtype.TestAdmissionType;
+import org.isf.admtype.model.AdmissionType;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.isf.ward.TestWard;
+import org.isf.ward.model.Ward;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Counts the statements prepared by {@link AdmissionStatusQuery} against the test database.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class AdmissionStatusQueryTest {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private AdmissionStatusQuery admissionStatusQuery;
+
+	private Statistics statistics;
+
+	private Ward ward;
+
+	private AdmissionType admissionType;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+
+		ward = new TestWard().setup(false);
+		entityManager.persist(ward);
+		admissionType = new TestAdmissionType().setup(false);
+		entityManager.persist(admissionType);
+	}
+
+	@Test
+	public void testGetAdmittedPatientCodes_OneStatement() throws Exception {
+		// 30 patients: the first of every three admitted, the second discharged, the third deleted
+		List<Integer> codes = new ArrayList<>();
+		List<Integer> admitted = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			Patient patient = persistPatient();
+			codes.add(patient.getCode());
+			switch (i % 3) {
+				case 0 -> {
+					persistAdmission(patient, 1, "N");
+					admitted.add(patient.getCode());
+				}
+				case 1 -> persistAdmission(patient, 0, "N");
+				default -> persistAdmission(patient, 1, "Y");
+			}
+		}
+		// a patient without admissions
+		codes.add(persistPatient().getCode());
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+
+		assertThat(admissionStatusQuery.getAdmittedPatientCodes(codes)).containsExactlyInAnyOrderElementsOf(admitted);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	private Patient persistPatient() throws Exception {
+		Patient patient = new TestPatient().setup(false);
+		entityManager.persist(patient);
+		return patient;
+	}
+
+	private void persistAdmission(Patient patient, int admitted, String deleted) throws Exception {
+		Admission admission = new TestAdmission().setup(ward, patient, admissionType, null, null, null, null, null, null, null, null, null, false);
+		admission.setAdmitted(admitted);
+		admission.setDeleted(deleted);
+		entityManager.persist(admission);
+	}
+}
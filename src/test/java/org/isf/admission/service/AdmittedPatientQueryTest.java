@@ -0,0 +1,189 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.admission.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.admission.TestAdmission;
+import org.isf.admission.model.Admission;
+import org.isf.admission.model.AdmittedPatient;
+import org.isf.admission.service.AdmittedPatientQuery.SortBy;
+import org.isf.admtype.TestAdmissionType;
+import org.isf.admtype.model.AdmissionType;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.isf.ward.TestWard;
+import org.isf.ward.model.Ward;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Pages through the admitted patients with {@link AdmittedPatientQuery} against the test database.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class AdmittedPatientQueryTest {
+
+	private static final String SEARCH = "Keyset";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private AdmittedPatientQuery admittedPatientQuery;
+
+	private Ward firstWard;
+
+	private Ward secondWard;
+
+	private AdmissionType admissionType;
+
+	/** The current admissions of the patients named {@link #SEARCH}. */
+	private final List<Admission> currentAdmissions = new ArrayList<>();
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		firstWard = persistWard("ZA");
+		secondWard = persistWard("ZB");
+		admissionType = new TestAdmissionType().setup(false);
+		entityManager.persist(admissionType);
+
+		// the same progressive number and the same name on the two pages, ordered by the id of the admission
+		currentAdmissions.add(persistAdmission("Ada", "Keysetone", firstWard, 1, 1, "N"));
+		currentAdmissions.add(persistAdmission("Cal", "Keysetthree", secondWard, 1, 1, "N"));
+		currentAdmissions.add(persistAdmission("Cal", "Keysetthree", secondWard, 1, 1, "N"));
+		currentAdmissions.add(persistAdmission("Bea", "Keysettwo", firstWard, 2, 1, "N"));
+		currentAdmissions.add(persistAdmission("Eve", "Keysetfive", secondWard, 2, 1, "N"));
+		currentAdmissions.add(persistAdmission("Dan", "Keysetfour", firstWard, 3, 1, "N"));
+		// discharged and deleted
+		persistAdmission("Fay", "Keysetsix", firstWard, 4, 0, "N");
+		persistAdmission("Gus", "Keysetseven", firstWard, 5, 1, "Y");
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void testGetAdmittedPatients_ByWard() {
+		List<Integer> expected = currentAdmissions.stream()
+						.sorted(Comparator.comparing((Admission admission) -> admission.getWard().getCode())
+										.thenComparingInt(Admission::getYProg)
+										.thenComparingInt(Admission::getId))
+						.map(Admission::getId)
+						.toList();
+
+		assertThat(readAllPages(SortBy.WARD)).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	public void testGetAdmittedPatients_ByName() {
+		List<Integer> expected = currentAdmissions.stream()
+						.sorted(Comparator.comparing((Admission admission) -> admission.getPatient().getName())
+										.thenComparingInt(Admission::getId))
+						.map(Admission::getId)
+						.toList();
+
+		assertThat(readAllPages(SortBy.NAME)).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	public void testGetAdmittedPatients_WardAndCode() {
+		Admission admission = currentAdmissions.get(3);
+
+		AdmittedPatientQuery.Result result = admittedPatientQuery.getAdmittedPatients(SEARCH + ' ' + admission.getPatient().getCode(),
+						firstWard.getCode(), SortBy.WARD, null, 10);
+
+		assertThat(result.getTotal()).isEqualTo(1);
+		assertThat(result.getAdmittedPatients()).extracting(admittedPatient -> admittedPatient.getAdmission().getId())
+			.containsExactly(admission.getId());
+	}
+
+	@Test
+	public void testGetAdmittedPatients_WildcardsEscaped() throws Exception {
+		Admission percent = persistAdmission("Ab%cd", "Escape", firstWard, 10, 1, "N");
+		persistAdmission("Abxcd", "Escape", firstWard, 11, 1, "N");
+		Admission underscore = persistAdmission("A_c", "Escape", firstWard, 12, 1, "N");
+		persistAdmission("Axc", "Escape", firstWard, 13, 1, "N");
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(codes(admittedPatientQuery.getAdmittedPatients("Ab%", null, SortBy.NAME, null, 10)))
+			.containsExactly(percent.getPatient().getCode());
+		assertThat(codes(admittedPatientQuery.getAdmittedPatients("A_", null, SortBy.NAME, null, 10)))
+			.containsExactly(underscore.getPatient().getCode());
+	}
+
+	/**
+	 * Reads the admissions of the patients named {@link #SEARCH} two at a time, checking every page.
+	 */
+	private List<Integer> readAllPages(SortBy sortBy) {
+		List<Integer> ids = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			AdmittedPatientQuery.Result result = admittedPatientQuery.getAdmittedPatients(SEARCH, null, sortBy, cursor, 2);
+			assertThat(result.getTotal()).isEqualTo(currentAdmissions.size());
+			assertThat(result.hasPrevious()).isEqualTo(cursor != null);
+			assertThat(result.getAdmittedPatients()).hasSizeLessThanOrEqualTo(2);
+			result.getAdmittedPatients().forEach(admittedPatient -> ids.add(admittedPatient.getAdmission().getId()));
+			cursor = result.getNextCursor();
+			pages++;
+		} while (cursor != null && pages <= currentAdmissions.size());
+		assertThat(pages).isEqualTo(3);
+		return ids;
+	}
+
+	private static List<Integer> codes(AdmittedPatientQuery.Result result) {
+		return result.getAdmittedPatients().stream().map(AdmittedPatient::getPatient).map(Patient::getCode).toList();
+	}
+
+	private Ward persistWard(String code) throws Exception {
+		Ward ward = new TestWard().setup(false);
+		ward.setCode(code);
+		entityManager.persist(ward);
+		return ward;
+	}
+
+	private Admission persistAdmission(String firstName, String secondName, Ward ward, int yProg, int admitted, String deleted) throws Exception {
+		Patient patient = new TestPatient().setup(false);
+		patient.setFirstName(firstName);
+		patient.setSecondName(secondName);
+		patient.setName(firstName + ' ' + secondName);
+		entityManager.persist(patient);
+		Admission admission = new TestAdmission().setup(ward, patient, admissionType, null, null, null, null, null, null, null, null, null, false);
+		admission.setYProg(yProg);
+		admission.setAdmitted(admitted);
+		admission.setDeleted(deleted);
+		entityManager.persist(admission);
+		return admission;
+	}
+}
@@ -32,6 +32,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.ArrayList;
 import java.util.List;
 
+import org.isf.admission.cache.ReferenceDataCache;
 import org.isf.admtype.data.AdmissionTypeDTOHelper;
 import org.isf.admtype.dto.AdmissionTypeDTO;
 import org.isf.admtype.manager.AdmissionTypeBrowserManager;
@@ -63,6 +64,9 @@ public class AdmissionTypeControllerTest {
 
 	protected AdmissionTypeMapper admissionTypemapper = new AdmissionTypeMapper();
 
+	@Mock
+	private ReferenceDataCache referenceDataCacheMock;
+
 	private MockMvc mockMvc;
 
 	private AutoCloseable closeable;
@@ -71,7 +75,7 @@ public class AdmissionTypeControllerTest {
 	public void setup() {
 		closeable = MockitoAnnotations.openMocks(this);
 		this.mockMvc = MockMvcBuilders
-				.standaloneSetup(new AdmissionTypeController(admtManagerMock, admissionTypemapper))
+				.standaloneSetup(new AdmissionTypeController(admtManagerMock, admissionTypemapper, referenceDataCacheMock))
 				.setControllerAdvice(new OHResponseEntityExceptionHandler())
 				.build();
 		ModelMapper modelMapper = new ModelMapper();
@@ -34,6 +34,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.ArrayList;
 import java.util.List;
 
+import org.isf.admission.cache.ReferenceDataCache;
 import org.isf.disctype.data.DischargeTypeHelper;
 import org.isf.disctype.dto.DischargeTypeDTO;
 import org.isf.disctype.manager.DischargeTypeBrowserManager;
@@ -65,6 +66,9 @@ public class DischargeTypeControllerTest {
 
 	protected DischargeTypeMapper dischargeTypeMapper = new DischargeTypeMapper();
 
+	@Mock
+	private ReferenceDataCache referenceDataCacheMock;
+
 	private MockMvc mockMvc;
 
 	private AutoCloseable closeable;
@@ -73,7 +77,7 @@ public class DischargeTypeControllerTest {
 	public void setup() {
 		closeable = MockitoAnnotations.openMocks(this);
 		this.mockMvc = MockMvcBuilders
-				.standaloneSetup(new DischargeTypeController(discTypeManagerMock, dischargeTypeMapper))
+				.standaloneSetup(new DischargeTypeController(discTypeManagerMock, dischargeTypeMapper, referenceDataCacheMock))
 				.setControllerAdvice(new OHResponseEntityExceptionHandler())
 				.build();
 		ModelMapper modelMapper = new ModelMapper();
@@ -22,6 +22,7 @@
 package org.isf.disease.rest;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -33,6 +34,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import java.util.List;
 
+import org.isf.admission.cache.ReferenceDataCache;
+import org.isf.admission.cache.ReferenceDataCache.Catalogue;
 import org.isf.disease.data.DiseaseHelper;
 import org.isf.disease.dto.DiseaseDTO;
 import org.isf.disease.manager.DiseaseBrowserManager;
@@ -64,6 +67,9 @@ public class DiseaseControllerTest {
 
 	private DiseaseMapper diseaseMapper = new DiseaseMapper();
 
+	@Mock
+	private ReferenceDataCache referenceDataCacheMock;
+
 	private MockMvc mockMvc;
 
 	private AutoCloseable closeable;
@@ -72,7 +78,7 @@ public class DiseaseControllerTest {
 	public void setup() {
 		closeable = MockitoAnnotations.openMocks(this);
 		this.mockMvc = MockMvcBuilders
-				.standaloneSetup(new DiseaseController(diseaseBrowserManagerMock, diseaseMapper))
+				.standaloneSetup(new DiseaseController(diseaseBrowserManagerMock, diseaseMapper, referenceDataCacheMock))
 				.setControllerAdvice(new OHResponseEntityExceptionHandler())
 				.build();
 		ModelMapper modelMapper = new ModelMapper();
@@ -339,6 +345,8 @@ public class DiseaseControllerTest {
 				.andExpect(status().isOk())
 				.andReturn();
 
+		verify(referenceDataCacheMock).invalidate(Catalogue.DISEASE);
+
 		LOGGER.debug("result: {}", result);
 	}
 
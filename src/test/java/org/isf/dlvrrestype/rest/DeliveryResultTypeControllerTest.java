@@ -34,6 +34,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.ArrayList;
 import java.util.List;
 
+import org.isf.admission.cache.ReferenceDataCache;
 import org.isf.dlvrrestype.data.DeliveryResultTypeHelper;
 import org.isf.dlvrrestype.dto.DeliveryResultTypeDTO;
 import org.isf.dlvrrestype.manager.DeliveryResultTypeBrowserManager;
@@ -65,6 +66,9 @@ public class DeliveryResultTypeControllerTest {
 
 	protected DeliveryResultTypeMapper deliveryResultTypeMapper = new DeliveryResultTypeMapper();
 
+	@Mock
+	private ReferenceDataCache referenceDataCacheMock;
+
 	private MockMvc mockMvc;
 
 	private AutoCloseable closeable;
@@ -73,7 +77,7 @@ public class DeliveryResultTypeControllerTest {
 	public void setup() {
 		closeable = MockitoAnnotations.openMocks(this);
 		this.mockMvc = MockMvcBuilders
-				.standaloneSetup(new DeliveryResultTypeController(deliveryResultTypeBrowserManagerMock, deliveryResultTypeMapper))
+				.standaloneSetup(new DeliveryResultTypeController(deliveryResultTypeBrowserManagerMock, deliveryResultTypeMapper, referenceDataCacheMock))
 				.setControllerAdvice(new OHResponseEntityExceptionHandler())
 				.build();
 		ModelMapper modelMapper = new ModelMapper();
@@ -34,6 +34,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.ArrayList;
 import java.util.List;
 
+import org.isf.admission.cache.ReferenceDataCache;
 import org.isf.dlvrtype.data.DeliveryTypeHelper;
 import org.isf.dlvrtype.dto.DeliveryTypeDTO;
 import org.isf.dlvrtype.manager.DeliveryTypeBrowserManager;
@@ -65,6 +66,9 @@ public class DeliveryTypeControllerTest {
 
 	protected DeliveryTypeMapper deliveryTypeMapper = new DeliveryTypeMapper();
 
+	@Mock
+	private ReferenceDataCache referenceDataCacheMock;
+
 	private MockMvc mockMvc;
 
 	private AutoCloseable closeable;
@@ -73,7 +77,7 @@ public class DeliveryTypeControllerTest {
 	public void setup() {
 		closeable = MockitoAnnotations.openMocks(this);
 		this.mockMvc = MockMvcBuilders
-				.standaloneSetup(new DeliveryTypeController(deliveryTypeBrowserManagerMock, deliveryTypeMapper))
+				.standaloneSetup(new DeliveryTypeController(deliveryTypeBrowserManagerMock, deliveryTypeMapper, referenceDataCacheMock))
 				.setControllerAdvice(new OHResponseEntityExceptionHandler())
 				.build();
 		ModelMapper modelMapper = new ModelMapper();
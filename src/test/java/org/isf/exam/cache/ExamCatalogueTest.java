@@ -0,0 +1,124 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.exam.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.isf.exa.manager.ExamBrowsingManager;
+import org.isf.exa.model.Exam;
+import org.isf.exatype.model.ExamType;
+import org.isf.utils.exception.OHServiceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ExamCatalogueTest {
+
+	private ExamBrowsingManager examManager;
+
+	private MeterRegistry meterRegistry;
+
+	private ExamCatalogue examCatalogue;
+
+	private ExamType haematology;
+
+	private ExamType urine;
+
+	@BeforeEach
+	public void setUp() throws OHServiceException {
+		examManager = mock(ExamBrowsingManager.class);
+		meterRegistry = new SimpleMeterRegistry();
+		examCatalogue = createCatalogue(300);
+
+		haematology = new ExamType("HB", "Haematology");
+		urine = new ExamType("UR", "Urine");
+		when(examManager.getExams()).thenReturn(List.of(
+						new Exam("01.01", "Haemoglobin", haematology, 1, "NORMAL"),
+						new Exam("01.02", "Blood group", haematology, 2, null),
+						new Exam("02.01", "Urine test", urine, 2, null)));
+	}
+
+	@Test
+	public void testGetExam() throws OHServiceException {
+		assertThat(examCatalogue.getExam("01.02").getDescription()).isEqualTo("Blood group");
+		assertThat(examCatalogue.getExam("99.99")).isNull();
+		assertThat(examCatalogue.getExam(null)).isNull();
+	}
+
+	@Test
+	public void testGetExamsByType() throws OHServiceException {
+		assertThat(examCatalogue.getExams(haematology)).extracting(Exam::getCode).containsExactly("01.01", "01.02");
+		assertThat(examCatalogue.getExams(urine)).extracting(Exam::getCode).containsExactly("02.01");
+		assertThat(examCatalogue.getExams(new ExamType("XR", "X-ray"))).isEmpty();
+	}
+
+	@Test
+	public void testCatalogueCached() throws OHServiceException {
+		examCatalogue.getExam("01.01");
+		examCatalogue.getExam("02.01");
+		examCatalogue.getExams(urine);
+
+		verify(examManager, times(1)).getExams();
+		assertThat(examCatalogue.getStats().hitCount()).isEqualTo(2);
+		assertThat(examCatalogue.getStats().missCount()).isEqualTo(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", ExamCatalogue.CACHE_NAME).tag("result", "hit").functionCounter().count())
+			.isEqualTo(2);
+	}
+
+	@Test
+	public void testInvalidate() throws OHServiceException {
+		examCatalogue.getExam("01.01");
+		when(examManager.getExams()).thenReturn(List.of(new Exam("03.01", "Malaria test", haematology, 1, "NEGATIVE")));
+
+		examCatalogue.invalidate();
+
+		assertThat(examCatalogue.getExam("01.01")).isNull();
+		assertThat(examCatalogue.getExam("03.01")).isNotNull();
+		verify(examManager, times(2)).getExams();
+	}
+
+	@Test
+	public void testCatalogueDisabled() throws OHServiceException {
+		examCatalogue = createCatalogue(0);
+
+		examCatalogue.getExam("01.01");
+		examCatalogue.getExam("01.01");
+
+		verify(examManager, times(2)).getExams();
+		assertThat(examCatalogue.getStats().requestCount()).isZero();
+	}
+
+	private ExamCatalogue createCatalogue(long expireAfterSeconds) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+		return new ExamCatalogue(examManager, beanFactory.getBeanProvider(MeterRegistry.class), expireAfterSeconds);
+	}
+}
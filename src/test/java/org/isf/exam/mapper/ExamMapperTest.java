@@ -0,0 +1,87 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.exam.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.isf.exa.model.Exam;
+import org.isf.exam.data.ExamHelper;
+import org.isf.exam.dto.ExamDTO;
+import org.isf.shared.mapper.converter.BlobToByteArrayConverter;
+import org.isf.shared.mapper.converter.ByteArrayToBlobConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.module.jsr310.Jsr310Module;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks that the generated {@link ExamMapper} gives the same results as the {@link ModelMapper} it replaces.
+ */
+public class ExamMapperTest {
+
+	private ModelMapper modelMapper;
+
+	private ExamMapper examMapper;
+
+	@BeforeEach
+	public void setUp() {
+		modelMapper = new ModelMapper();
+		modelMapper.addConverter(new BlobToByteArrayConverter());
+		modelMapper.addConverter(new ByteArrayToBlobConverter());
+		modelMapper.registerModule(new Jsr310Module());
+		examMapper = new ExamMapper();
+		ReflectionTestUtils.setField(examMapper, "modelMapper", modelMapper);
+	}
+
+	@Test
+	public void testMap2Model() {
+		ExamDTO examDTO = ExamHelper.generateExam();
+		examDTO.setLock(3);
+
+		Exam exam = examMapper.map2Model(examDTO);
+
+		assertThat(exam).usingRecursiveComparison().isEqualTo(modelMapper.map(examDTO, Exam.class));
+		assertThat(exam.getExamtype().getCode()).isEqualTo(examDTO.getExamtype().getCode());
+	}
+
+	@Test
+	public void testMap2DTO() {
+		Exam exam = modelMapper.map(ExamHelper.generateExam(), Exam.class);
+
+		ExamDTO examDTO = examMapper.map2DTO(exam);
+
+		assertThat(examDTO).usingRecursiveComparison().isEqualTo(modelMapper.map(exam, ExamDTO.class));
+	}
+
+	@Test
+	public void testMap2DTO_WithoutExamType() {
+		Exam exam = modelMapper.map(ExamHelper.generateExam(), Exam.class);
+		exam.setExamtype(null);
+		exam.setProcedure(null);
+
+		ExamDTO examDTO = examMapper.map2DTO(exam);
+
+		assertThat(examDTO).usingRecursiveComparison().isEqualTo(modelMapper.map(exam, ExamDTO.class));
+		assertThat(examDTO.getExamtype()).isNull();
+	}
+}
@@ -21,51 +21,79 @@
  */
 package org.isf.lab.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.isf.exa.manager.ExamBrowsingManager;
+import org.isf.exam.cache.ExamCatalogue;
 import org.isf.lab.data.LaboratoryHelper;
 import org.isf.lab.dto.LabWithRowsDTO;
 import org.isf.lab.dto.LaboratoryDTO;
+import org.isf.lab.dto.LaboratoryInsertResultDTO;
 import org.isf.lab.manager.LabManager;
+import org.isf.lab.mapper.LabWithRowsAssembler;
 import org.isf.lab.mapper.LaboratoryForPrintMapper;
 import org.isf.lab.mapper.LaboratoryMapper;
-import org.isf.lab.mapper.LaboratoryRowMapper;
 import org.isf.lab.model.Laboratory;
 import org.isf.lab.model.LaboratoryStatus;
+import org.isf.lab.service.LaboratoryBulkInsert;
+import org.isf.lab.service.LaboratoryRowBatchLoader;
+import org.isf.lab.service.LaboratoryStatusChangedEvent;
+import org.isf.lab.service.LaboratoryStatusQuery;
+import org.isf.lab.service.LaboratoryWorklistFeed;
 import org.isf.patient.data.PatientHelper;
+import org.isf.patient.dto.PatientSTATUS;
 import org.isf.patient.manager.PatientBrowserManager;
 import org.isf.patient.model.Patient;
 import org.isf.shared.exceptions.OHResponseEntityExceptionHandler;
 import org.isf.shared.mapper.converter.BlobToByteArrayConverter;
 import org.isf.shared.mapper.converter.ByteArrayToBlobConverter;
+import org.isf.utils.pagination.PageInfo;
+import org.isf.utils.pagination.PagedResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 public class LaboratoryControllerTest {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(LaboratoryControllerTest.class);
@@ -81,18 +109,34 @@ public class LaboratoryControllerTest {
 
 	protected LaboratoryMapper laboratoryMapper = new LaboratoryMapper();
 
-	protected LaboratoryRowMapper laboratoryRowMapper = new LaboratoryRowMapper();
-
 	protected LaboratoryForPrintMapper laboratoryForPrintMapper = new LaboratoryForPrintMapper();
 
+	@Mock
+	private LaboratoryRowBatchLoader laboratoryRowLoader;
+
+	@Mock
+	private LaboratoryStatusQuery laboratoryStatusQuery;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private LaboratoryBulkInsert laboratoryBulkInsert;
+
+	private LaboratoryWorklistFeed laboratoryWorklistFeed;
+
 	private MockMvc mockMvc;
 
 	@BeforeEach
 	public void setup() {
 		MockitoAnnotations.initMocks(this);
+		laboratoryWorklistFeed = new LaboratoryWorklistFeed(new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 60_000, 1, 0);
 		this.mockMvc = MockMvcBuilders
-						.standaloneSetup(new LaboratoryController(laboratoryManager, patientBrowserManager, examManager, laboratoryMapper, laboratoryRowMapper,
-										laboratoryForPrintMapper))
+						.standaloneSetup(new LaboratoryController(laboratoryManager, patientBrowserManager, examManager, laboratoryMapper,
+										laboratoryForPrintMapper, new LabWithRowsAssembler(laboratoryMapper, laboratoryRowLoader),
+										new ExamCatalogue(examManager, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 300),
+										laboratoryStatusQuery, laboratoryWorklistFeed, eventPublisher,
+										laboratoryBulkInsert))
 						.setControllerAdvice(new OHResponseEntityExceptionHandler())
 						.build();
 		ModelMapper modelMapper = new ModelMapper();
@@ -101,6 +145,11 @@ public class LaboratoryControllerTest {
 		ReflectionTestUtils.setField(laboratoryMapper, "modelMapper", modelMapper);
 	}
 
+	@AfterEach
+	public void tearDown() {
+		laboratoryWorklistFeed.shutdown();
+	}
+
 	@Test
 	public void testNewLaboratory_201() throws Exception {
 		String request = "/laboratories";
@@ -133,6 +182,10 @@ public class LaboratoryControllerTest {
 						.andExpect(status().isCreated())
 						.andReturn();
 
+		ArgumentCaptor<LaboratoryStatusChangedEvent> event = ArgumentCaptor.forClass(LaboratoryStatusChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().getPreviousStatus()).isNull();
+		assertThat(event.getValue().getStatus()).isEqualTo(lab.getStatus());
 		LOGGER.debug("result: {}", result);
 	}
 
@@ -213,4 +266,298 @@ public class LaboratoryControllerTest {
 		LOGGER.debug("result: {}", result);
 	}
 
+	@Test
+	public void testGetLaboratoryPage_RowsReadOnce() throws Exception {
+		String request = "/laboratories";
+
+		List<Laboratory> labs = new ArrayList<>();
+		for (int code = 1; code <= 3; code++) {
+			Laboratory lab = LaboratoryHelper.setup(code);
+			lab.getExam().setProcedure(code == 3 ? 1 : 2);
+			lab.setInOutPatient(PatientSTATUS.O.toString());
+			lab.setStatus(LaboratoryStatus.done.toString());
+			labs.add(lab);
+		}
+		PagedResponse<Laboratory> labPage = new PagedResponse<>();
+		labPage.setData(labs);
+		labPage.setPageInfo(PatientHelper.setParameterPage());
+
+		when(laboratoryManager.getLaboratoryPageable(false, 0, 10)).thenReturn(labPage);
+		when(laboratoryRowLoader.getRowDescriptions(List.of(1, 2))).thenReturn(Map.of(1, List.of("good", "material")));
+
+		MvcResult result = this.mockMvc
+						.perform(get(request).param("oneWeek", "false").param("page", "0").param("size", "10"))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$.data[0].laboratoryRowList[0]").value("good"))
+						.andExpect(jsonPath("$.data[0].laboratoryRowList[1]").value("material"))
+						.andExpect(jsonPath("$.data[1].laboratoryRowList").isEmpty())
+						.andExpect(jsonPath("$.data[2].laboratoryRowList").isEmpty())
+						.andReturn();
+
+		verify(laboratoryRowLoader).getRowDescriptions(List.of(1, 2));
+		verify(laboratoryManager, never()).getLaboratoryRowList(anyInt());
+		LOGGER.debug("result: {}", result);
+	}
+
+	@Test
+	public void testGetLaboratoryForPrint_PagedStatusFilteredByQuery() throws Exception {
+		String request = "/laboratories/exams";
+
+		Laboratory lab = LaboratoryHelper.setup(7);
+		lab.getExam().setProcedure(1);
+		lab.setInOutPatient(PatientSTATUS.O.toString());
+		lab.setStatus(LaboratoryStatus.done.toString());
+		PageInfo pageInfo = new PageInfo();
+		pageInfo.setPage(1);
+		pageInfo.setSize(1);
+		pageInfo.setNbOfElements(1);
+		pageInfo.setTotalNbOfElements(3);
+		pageInfo.setTotalPages(3);
+		pageInfo.setHasPreviousPage(true);
+		pageInfo.setHasNextPage(true);
+		PagedResponse<Laboratory> labPage = new PagedResponse<>();
+		labPage.setData(List.of(lab));
+		labPage.setPageInfo(pageInfo);
+
+		when(laboratoryStatusQuery.getLaboratoryPageable(isNull(), any(LocalDateTime.class), any(LocalDateTime.class), isNull(),
+						eq(List.of("done")), eq(1), eq(1))).thenReturn(labPage);
+
+		MvcResult result = this.mockMvc
+						.perform(get(request)
+										.param("dateFrom", "2024-01-01T00:00:00.000Z")
+										.param("dateTo", "2024-01-31T23:59:59.000Z")
+										.param("status", "done")
+										.param("page", "1")
+										.param("size", "1")
+										.param("paged", "true"))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$.data[0].laboratoryDTO.code").value(7))
+						.andExpect(jsonPath("$.pageInfo.totalNbOfElements").value(3))
+						.andExpect(jsonPath("$.pageInfo.totalPages").value(3))
+						.andReturn();
+
+		verify(laboratoryManager, never()).getLaboratoryPageable(any(), any(), any(), any(), anyInt(), anyInt());
+		LOGGER.debug("result: {}", result);
+	}
+
+	@Test
+	public void testGetLaboratoryExamRequest_StatusFilteredByQuery() throws Exception {
+		String request = "/laboratories/examRequest/patient/{patId}";
+
+		Patient patient = PatientHelper.setup();
+		patient.setCode(12);
+		Laboratory lab = LaboratoryHelper.setup(5);
+		lab.setInOutPatient(PatientSTATUS.I.toString());
+		lab.setStatus(LaboratoryStatus.open.toString());
+
+		when(patientBrowserManager.getPatientById(12)).thenReturn(patient);
+		when(laboratoryStatusQuery.getLaboratory(patient, List.of("draft", "open"))).thenReturn(List.of(lab));
+
+		MvcResult result = this.mockMvc
+						.perform(get(request, 12))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$[0].code").value(5))
+						.andExpect(jsonPath("$[0].status").value("open"))
+						.andReturn();
+
+		verify(laboratoryManager, never()).getLaboratory(any(Patient.class));
+		LOGGER.debug("result: {}", result);
+	}
+
+	@Test
+	public void testGetLaboratoryWorklist_DraftAndOpenByDefault() throws Exception {
+		String request = "/laboratories/worklist";
+
+		Laboratory lab = LaboratoryHelper.setup(9);
+		lab.setInOutPatient(PatientSTATUS.O.toString());
+		lab.setStatus(LaboratoryStatus.open.toString());
+		PagedResponse<Laboratory> labPage = new PagedResponse<>();
+		labPage.setData(List.of(lab));
+		labPage.setPageInfo(PatientHelper.setParameterPage());
+
+		when(laboratoryStatusQuery.getLaboratoryPageable(List.of("draft", "open"), 0, 80)).thenReturn(labPage);
+
+		MvcResult result = this.mockMvc
+						.perform(get(request))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$.data[0].code").value(9))
+						.andExpect(jsonPath("$.data[0].status").value("open"))
+						.andExpect(jsonPath("$.pageInfo.totalNbOfElements").value(10))
+						.andReturn();
+
+		verify(laboratoryManager, never()).getLaboratory();
+		LOGGER.debug("result: {}", result);
+	}
+
+	@Test
+	public void testGetLaboratoryWorklist_Statuses() throws Exception {
+		String request = "/laboratories/worklist";
+
+		PagedResponse<Laboratory> labPage = new PagedResponse<>();
+		labPage.setData(List.of());
+		labPage.setPageInfo(PatientHelper.setParameterPage());
+
+		when(laboratoryStatusQuery.getLaboratoryPageable(List.of("done"), 2, 20)).thenReturn(labPage);
+
+		this.mockMvc
+						.perform(get(request).param("status", "done").param("page", "2").param("size", "20"))
+						.andDo(log())
+						.andExpect(status().isNoContent());
+
+		this.mockMvc
+						.perform(get(request).param("status", "unknown"))
+						.andDo(log())
+						.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testUpdateExamRequest_PublishesStatusChange() throws Exception {
+		String request = "/laboratories/examRequest/{code}";
+
+		Laboratory lab = LaboratoryHelper.setup(4);
+		lab.getExam().setCode("01.01");
+		lab.setStatus(LaboratoryStatus.draft.toString());
+
+		when(laboratoryManager.getLaboratory(4)).thenReturn(Optional.of(lab));
+		// the manager updates the laboratory instance read by the controller, as in the same persistence context
+		when(laboratoryManager.updateExamRequest(4, "open")).thenAnswer(invocation -> {
+			lab.setStatus("open");
+			return true;
+		});
+
+		this.mockMvc
+						.perform(put(request, 4).param("status", "open"))
+						.andDo(log())
+						.andExpect(status().isOk());
+
+		ArgumentCaptor<LaboratoryStatusChangedEvent> event = ArgumentCaptor.forClass(LaboratoryStatusChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().getCode()).isEqualTo(4);
+		assertThat(event.getValue().getExamCode()).isEqualTo("01.01");
+		assertThat(event.getValue().getPreviousStatus()).isEqualTo("draft");
+		assertThat(event.getValue().getStatus()).isEqualTo("open");
+	}
+
+	@Test
+	public void testDeleteExam_PublishesPreviousStatus() throws Exception {
+		String request = "/laboratories/{code}";
+
+		Laboratory lab = LaboratoryHelper.setup(5);
+		lab.setStatus(LaboratoryStatus.done.toString());
+
+		when(laboratoryManager.getLaboratory(5)).thenReturn(Optional.of(lab));
+		when(laboratoryManager.updateExamRequest(5, "deleted")).thenAnswer(invocation -> {
+			lab.setStatus("deleted");
+			return true;
+		});
+
+		this.mockMvc
+						.perform(delete(request, 5))
+						.andDo(log())
+						.andExpect(status().isOk());
+
+		ArgumentCaptor<LaboratoryStatusChangedEvent> event = ArgumentCaptor.forClass(LaboratoryStatusChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().getPreviousStatus()).isEqualTo("done");
+		assertThat(event.getValue().getStatus()).isEqualTo("deleted");
+	}
+
+	@Test
+	public void testDeleteExamRequest_PublishesPreviousStatus() throws Exception {
+		String request = "/laboratories/examRequest/{code}";
+
+		Laboratory lab = LaboratoryHelper.setup(6);
+		lab.setStatus(LaboratoryStatus.open.toString());
+
+		when(laboratoryManager.getLaboratory(6)).thenReturn(Optional.of(lab));
+		when(laboratoryManager.updateExamRequest(6, "invalid")).thenAnswer(invocation -> {
+			lab.setStatus("invalid");
+			return true;
+		});
+
+		this.mockMvc
+						.perform(delete(request, 6))
+						.andDo(log())
+						.andExpect(status().isOk());
+
+		ArgumentCaptor<LaboratoryStatusChangedEvent> event = ArgumentCaptor.forClass(LaboratoryStatusChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().getPreviousStatus()).isEqualTo("open");
+		assertThat(event.getValue().getStatus()).isEqualTo("invalid");
+	}
+
+	@Test
+	public void testGetLaboratoryWorklistEvents_TooManySubscriptions() throws Exception {
+		String request = "/laboratories/worklist/events";
+
+		this.mockMvc
+						.perform(get(request))
+						.andExpect(request().asyncStarted());
+
+		this.mockMvc
+						.perform(get(request))
+						.andDo(log())
+						.andExpect(status().isServiceUnavailable());
+	}
+
+	@Test
+	public void testNewLaboratory2_StoredThroughBulkInsert() throws Exception {
+		String request = "/laboratories/insertList";
+
+		when(laboratoryBulkInsert.insertAll(anyList())).thenReturn(List.of(new Laboratory()));
+
+		this.mockMvc
+						.perform(post(request)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content("[{\"laboratoryRowList\": []}, {\"laboratoryRowList\": [\"good\"]}]"))
+						.andDo(log())
+						.andExpect(status().isCreated());
+
+		verify(laboratoryBulkInsert).insertAll(anyList());
+		verify(patientBrowserManager, never()).getPatientById(anyInt());
+	}
+
+	@Test
+	public void testNewLaboratory2_PatientNotFound() throws Exception {
+		String request = "/laboratories/insertList";
+
+		when(laboratoryBulkInsert.insertAll(anyList())).thenThrow(new IllegalArgumentException("Patient not found."));
+
+		this.mockMvc
+						.perform(post(request)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content("[{}]"))
+						.andDo(log())
+						.andExpect(status().isBadRequest())
+						.andExpect(content().string(containsString("Patient not found.")));
+	}
+
+	@Test
+	public void testNewLaboratories_ResultPerItem() throws Exception {
+		String request = "/laboratories/bulk";
+
+		when(laboratoryBulkInsert.insert(any(InputStream.class))).thenReturn(List.of(
+						LaboratoryInsertResultDTO.created(0, 11),
+						LaboratoryInsertResultDTO.rejected(1, "Patient not found.")));
+
+		MvcResult result = this.mockMvc
+						.perform(post(request)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content("[{}, {}]"))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$[0].status").value("CREATED"))
+						.andExpect(jsonPath("$[0].code").value(11))
+						.andExpect(jsonPath("$[1].status").value("REJECTED"))
+						.andExpect(jsonPath("$[1].message").value("Patient not found."))
+						.andReturn();
+
+		verify(laboratoryManager, never()).newLaboratory2(anyList(), anyList());
+		LOGGER.debug("result: {}", result);
+	}
+
 }
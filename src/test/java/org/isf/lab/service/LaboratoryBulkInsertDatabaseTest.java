@@ -0,0 +1,132 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.exa.manager.ExamBrowsingManager;
+import org.isf.exa.model.Exam;
+import org.isf.exam.cache.ExamCatalogue;
+import org.isf.exatype.model.ExamType;
+import org.isf.lab.dto.LaboratoryInsertResultDTO;
+import org.isf.lab.dto.LaboratoryInsertResultDTO.Status;
+import org.isf.lab.manager.LabManager;
+import org.isf.lab.mapper.LaboratoryMapper;
+import org.isf.lab.model.Laboratory;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs the patient lookup of {@link LaboratoryBulkInsert} against the test database, the laboratories are not stored.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class LaboratoryBulkInsertDatabaseTest {
+
+	private static final String EXAM_CODE = "01.01";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private LaboratoryMapper laboratoryMapper;
+
+	private LabManager laboratoryManager;
+
+	private LaboratoryBulkInsert laboratoryBulkInsert;
+
+	private Patient patient;
+
+	private Patient deletedPatient;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		patient = new TestPatient().setup(false);
+		entityManager.persist(patient);
+		deletedPatient = new TestPatient().setup(false);
+		deletedPatient.setDeleted("Y");
+		entityManager.persist(deletedPatient);
+		entityManager.flush();
+		entityManager.clear();
+
+		laboratoryManager = mock(LabManager.class);
+		when(laboratoryManager.newLaboratory2(anyList(), anyList())).thenReturn(true);
+		ExamBrowsingManager examManager = mock(ExamBrowsingManager.class);
+		when(examManager.getExams()).thenReturn(List.of(new Exam(EXAM_CODE, "Haemoglobin", new ExamType("HB", "Haematology"), 2, null)));
+		ExamCatalogue examCatalogue = new ExamCatalogue(examManager, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 300);
+
+		laboratoryBulkInsert = new LaboratoryBulkInsert(laboratoryManager, examCatalogue, laboratoryMapper,
+						new ObjectMapper().registerModule(new JavaTimeModule()), mock(ApplicationEventPublisher.class), 10);
+		ReflectionTestUtils.setField(laboratoryBulkInsert, "entityManager", entityManager);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testInsert_PatientsReadFromTheDatabase() throws Exception {
+		int unknownCode = Math.max(patient.getCode(), deletedPatient.getCode()) + 1000;
+
+		List<LaboratoryInsertResultDTO> results = laboratoryBulkInsert.insert(json(item(patient.getCode()), item(deletedPatient.getCode()),
+						item(unknownCode)));
+
+		assertThat(results).extracting(LaboratoryInsertResultDTO::getStatus).containsExactly(Status.CREATED, Status.REJECTED, Status.REJECTED);
+		assertThat(results.get(1).getMessage()).isEqualTo("Patient not found.");
+		assertThat(results.get(2).getMessage()).isEqualTo("Patient not found.");
+		ArgumentCaptor<List<Laboratory>> labs = ArgumentCaptor.forClass(List.class);
+		verify(laboratoryManager).newLaboratory2(labs.capture(), anyList());
+		assertThat(labs.getValue()).extracting(laboratory -> laboratory.getPatient().getCode()).containsExactly(patient.getCode());
+	}
+
+	private static ByteArrayInputStream json(String... items) {
+		return new ByteArrayInputStream(('[' + String.join(",", items) + ']').getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String item(int patientCode) {
+		return "{\"laboratoryDTO\": {\"exam\": {\"code\": \"" + EXAM_CODE + "\"}, \"patientCode\": " + patientCode
+						+ ", \"material\": \"Blood\", \"labDate\": \"2024-03-01T10:00:00\", \"result\": \"\", \"inOutPatient\": \"O\", \"status\": \"done\"}}";
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import org.isf.exa.manager.ExamBrowsingManager;
+import org.isf.exa.model.Exam;
+import org.isf.exam.cache.ExamCatalogue;
+import org.isf.exatype.model.ExamType;
+import org.isf.lab.dto.LabWithRowsDTO;
+import org.isf.lab.dto.LaboratoryInsertResultDTO;
+import org.isf.lab.dto.LaboratoryInsertResultDTO.Status;
+import org.isf.lab.manager.LabManager;
+import org.isf.lab.mapper.LaboratoryMapper;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryRow;
+import org.isf.patient.model.Patient;
+import org.isf.shared.mapper.converter.BlobToByteArrayConverter;
+import org.isf.shared.mapper.converter.ByteArrayToBlobConverter;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.exception.model.OHExceptionMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.module.jsr310.Jsr310Module;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class LaboratoryBulkInsertTest {
+
+	private static final String EXAM_CODE = "01.01";
+
+	private LabManager laboratoryManager;
+
+	private EntityManager entityManager;
+
+	private TypedQuery<Patient> patientQuery;
+
+	private List<Integer> patientCodes;
+
+	private ApplicationEventPublisher eventPublisher;
+
+	private ObjectMapper objectMapper;
+
+	private LaboratoryBulkInsert laboratoryBulkInsert;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		laboratoryManager = mock(LabManager.class);
+		eventPublisher = mock(ApplicationEventPublisher.class);
+		ExamBrowsingManager examManager = mock(ExamBrowsingManager.class);
+		when(examManager.getExams()).thenReturn(List.of(new Exam(EXAM_CODE, "Haemoglobin", new ExamType("HB", "Haematology"), 2, null)));
+		ExamCatalogue examCatalogue = new ExamCatalogue(examManager, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 300);
+
+		ModelMapper modelMapper = new ModelMapper();
+		modelMapper.addConverter(new BlobToByteArrayConverter());
+		modelMapper.addConverter(new ByteArrayToBlobConverter());
+		modelMapper.registerModule(new Jsr310Module());
+		LaboratoryMapper laboratoryMapper = new LaboratoryMapper();
+		ReflectionTestUtils.setField(laboratoryMapper, "modelMapper", modelMapper);
+
+		// the patients 1 to 9 exist
+		entityManager = mock(EntityManager.class);
+		patientQuery = mock(TypedQuery.class);
+		when(entityManager.createQuery(anyString(), eq(Patient.class))).thenReturn(patientQuery);
+		when(patientQuery.setParameter(anyString(), any())).thenReturn(patientQuery);
+		when(patientQuery.setParameter(eq("codes"), any())).thenAnswer(invocation -> {
+			patientCodes = invocation.getArgument(1);
+			return patientQuery;
+		});
+		when(patientQuery.getResultList()).thenAnswer(invocation -> patientCodes.stream()
+						.filter(code -> code < 10)
+						.map(LaboratoryBulkInsertTest::patient)
+						.collect(Collectors.toList()));
+
+		objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+		laboratoryBulkInsert = new LaboratoryBulkInsert(laboratoryManager, examCatalogue, laboratoryMapper, objectMapper, eventPublisher, 2);
+		ReflectionTestUtils.setField(laboratoryBulkInsert, "entityManager", entityManager);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testInsert_ResultPerItem() throws Exception {
+		when(laboratoryManager.newLaboratory2(anyList(), anyList())).thenReturn(true);
+
+		List<LaboratoryInsertResultDTO> results = laboratoryBulkInsert.insert(json(
+						item(1, EXAM_CODE, "\"good\", \"material\""),
+						item(42, EXAM_CODE, null),
+						item(2, "99.99", null),
+						item(3, EXAM_CODE, null),
+						item(4, EXAM_CODE, "\"rare\"")));
+
+		assertThat(results).extracting(LaboratoryInsertResultDTO::getIndex).containsExactly(0, 1, 2, 3, 4);
+		assertThat(results).extracting(LaboratoryInsertResultDTO::getStatus)
+			.containsExactly(Status.CREATED, Status.REJECTED, Status.REJECTED, Status.CREATED, Status.CREATED);
+		assertThat(results.get(1).getMessage()).isEqualTo("Patient not found.");
+		assertThat(results.get(2).getMessage()).isEqualTo("Exam not found.");
+
+		// one patient query and one store per chunk of 2 items, the exams are read once
+		verify(patientQuery, times(3)).getResultList();
+		ArgumentCaptor<List<Laboratory>> labs = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<List<List<LaboratoryRow>>> rows = ArgumentCaptor.forClass(List.class);
+		verify(laboratoryManager, times(3)).newLaboratory2(labs.capture(), rows.capture());
+		assertThat(labs.getAllValues()).extracting(List::size).containsExactly(1, 1, 1);
+		assertThat(rows.getAllValues().get(0).get(0)).extracting(LaboratoryRow::getDescription).containsExactly("good", "material");
+		assertThat(rows.getAllValues().get(1).get(0)).isEmpty();
+		assertThat(labs.getAllValues().get(2).get(0).getPatient().getCode()).isEqualTo(4);
+		verify(eventPublisher, times(3)).publishEvent(any(LaboratoryStatusChangedEvent.class));
+	}
+
+	@Test
+	public void testInsert_StoredOneByOneAfterFailure() throws Exception {
+		when(laboratoryManager.newLaboratory2(anyList(), anyList()))
+			.thenThrow(new OHServiceException(new OHExceptionMessage("angal.lab.pleaseinsertavalidmaterial.msg")));
+		when(laboratoryManager.newLaboratory(any(Laboratory.class), anyList())).thenAnswer(invocation -> {
+			Laboratory lab = invocation.getArgument(0);
+			if (lab.getPatient().getCode() == 2) {
+				throw new OHServiceException(new OHExceptionMessage("angal.lab.pleaseinsertavalidmaterial.msg"));
+			}
+			lab.setCode(100 + lab.getPatient().getCode());
+			return lab;
+		});
+
+		List<LaboratoryInsertResultDTO> results = laboratoryBulkInsert.insert(json(item(1, EXAM_CODE, null), item(2, EXAM_CODE, null)));
+
+		assertThat(results).extracting(LaboratoryInsertResultDTO::getStatus).containsExactly(Status.CREATED, Status.FAILED);
+		assertThat(results.get(0).getCode()).isEqualTo(101);
+		assertThat(results.get(1).getMessage()).isEqualTo("angal.lab.pleaseinsertavalidmaterial.msg");
+		verify(laboratoryManager, times(2)).newLaboratory(any(Laboratory.class), anyList());
+		verify(eventPublisher, times(1)).publishEvent(any(LaboratoryStatusChangedEvent.class));
+	}
+
+	@Test
+	public void testInsert_MalformedItem() throws Exception {
+		when(laboratoryManager.newLaboratory2(anyList(), anyList())).thenReturn(true);
+		String json = '[' + item(1, EXAM_CODE, null) + ',' + item(2, EXAM_CODE, null) + ',' + item(3, EXAM_CODE, null) + ", {\"laboratoryDTO\": ]";
+
+		List<LaboratoryInsertResultDTO> results = laboratoryBulkInsert.insert(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(results).extracting(LaboratoryInsertResultDTO::getStatus)
+			.containsExactly(Status.CREATED, Status.CREATED, Status.CREATED, Status.REJECTED);
+		assertThat(results.get(3).getIndex()).isEqualTo(3);
+		assertThat(results.get(3).getMessage()).startsWith("Malformed item");
+	}
+
+	@Test
+	public void testInsert_Empty() throws Exception {
+		assertThat(laboratoryBulkInsert.insert(json())).isEmpty();
+
+		verify(entityManager, never()).createQuery(anyString(), eq(Patient.class));
+		verify(laboratoryManager, never()).newLaboratory2(anyList(), anyList());
+	}
+
+	@Test
+	public void testInsert_ManyItems() throws Exception {
+		when(laboratoryManager.newLaboratory2(anyList(), anyList())).thenReturn(true);
+		List<String> items = IntStream.range(0, 101).mapToObj(i -> item(1 + i % 9, EXAM_CODE, "\"row " + i + '"')).collect(Collectors.toList());
+
+		List<LaboratoryInsertResultDTO> results = laboratoryBulkInsert.insert(json(items.toArray(new String[0])));
+
+		assertThat(results).hasSize(101).allMatch(result -> result.getStatus() == Status.CREATED);
+		verify(laboratoryManager, times(51)).newLaboratory2(anyList(), anyList());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testInsertAll_RowsAlignedWithLaboratories() throws Exception {
+		when(laboratoryManager.newLaboratory2(anyList(), anyList())).thenReturn(true);
+
+		List<Laboratory> inserted = laboratoryBulkInsert.insertAll(labsWithRows(
+						item(1, EXAM_CODE, null),
+						item(2, EXAM_CODE, "\"good\""),
+						item(3, EXAM_CODE, "")));
+
+		assertThat(inserted).extracting(lab -> lab.getPatient().getCode()).containsExactly(1, 2, 3);
+		verify(patientQuery, times(1)).getResultList();
+		ArgumentCaptor<List<List<LaboratoryRow>>> rows = ArgumentCaptor.forClass(List.class);
+		verify(laboratoryManager).newLaboratory2(anyList(), rows.capture());
+		assertThat(rows.getValue()).hasSize(3);
+		assertThat(rows.getValue().get(0)).isEmpty();
+		assertThat(rows.getValue().get(1)).extracting(LaboratoryRow::getDescription).containsExactly("good");
+		assertThat(rows.getValue().get(1).get(0).getLabId()).isSameAs(inserted.get(1));
+		assertThat(rows.getValue().get(2)).isEmpty();
+		verify(eventPublisher, times(3)).publishEvent(any(LaboratoryStatusChangedEvent.class));
+	}
+
+	@Test
+	public void testInsertAll_NoneStoredIfOneInvalid() throws Exception {
+		List<LabWithRowsDTO> labsWithRows = labsWithRows(item(1, EXAM_CODE, null), item(42, EXAM_CODE, null));
+
+		assertThatThrownBy(() -> laboratoryBulkInsert.insertAll(labsWithRows))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Patient not found.");
+		verify(laboratoryManager, never()).newLaboratory2(anyList(), anyList());
+		verify(eventPublisher, never()).publishEvent(any());
+	}
+
+	private List<LabWithRowsDTO> labsWithRows(String... items) throws Exception {
+		return objectMapper.readValue('[' + String.join(",", items) + ']', new TypeReference<List<LabWithRowsDTO>>() {});
+	}
+
+	private static ByteArrayInputStream json(String... items) {
+		return new ByteArrayInputStream(('[' + String.join(",", items) + ']').getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String item(int patientCode, String examCode, String rows) {
+		return "{\"laboratoryDTO\": {\"exam\": {\"code\": \"" + examCode + "\"}, \"patientCode\": " + patientCode
+						+ ", \"material\": \"Blood\", \"labDate\": \"2024-03-01T10:00:00\", \"result\": \"\", \"inOutPatient\": \"O\", \"status\": \"done\"}"
+						+ (rows == null ? "" : ", \"laboratoryRowList\": [" + rows + ']') + '}';
+	}
+
+	private static Patient patient(Integer code) {
+		Patient patient = new Patient();
+		patient.setCode(code);
+		return patient;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.isf.OpenHospitalApiApplication;
+import org.isf.exa.TestExam;
+import org.isf.exa.model.Exam;
+import org.isf.exatype.TestExamType;
+import org.isf.exatype.model.ExamType;
+import org.isf.lab.TestLaboratory;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryRow;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Counts the statements prepared by {@link LaboratoryRowBatchLoader} against the test database.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class LaboratoryRowBatchLoaderTest {
+
+	private static final int ROWS_PER_LABORATORY = 3;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private LaboratoryRowBatchLoader laboratoryRowLoader;
+
+	private Statistics statistics;
+
+	private Exam exam;
+
+	private Patient patient;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+
+		ExamType examType = new TestExamType().setup(false);
+		entityManager.persist(examType);
+		exam = new TestExam().setup(examType, 2, false);
+		entityManager.persist(exam);
+		patient = new TestPatient().setup(false);
+		entityManager.persist(patient);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 10, 80 })
+	public void testGetRowDescriptions_OneStatementPerPage(int pageSize) throws Exception {
+		List<Integer> codes = persistLaboratories(pageSize);
+		statistics.clear();
+
+		Map<Integer, List<String>> rowDescriptions = laboratoryRowLoader.getRowDescriptions(codes);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(rowDescriptions).containsOnlyKeys(codes);
+		for (Integer code : codes) {
+			assertThat(rowDescriptions.get(code)).containsExactly(descriptions(code).toArray(new String[0]));
+		}
+	}
+
+	@Test
+	public void testGetRowDescriptions_LaboratoryWithoutRows() throws Exception {
+		Laboratory laboratory = new TestLaboratory().setup(exam, patient, false);
+		entityManager.persist(laboratory);
+		List<Integer> codes = persistLaboratories(2);
+		codes.add(laboratory.getCode());
+		statistics.clear();
+
+		Map<Integer, List<String>> rowDescriptions = laboratoryRowLoader.getRowDescriptions(codes);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(rowDescriptions).hasSize(2).doesNotContainKey(laboratory.getCode());
+	}
+
+	private List<Integer> persistLaboratories(int count) throws Exception {
+		List<Integer> codes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Laboratory laboratory = new TestLaboratory().setup(exam, patient, false);
+			entityManager.persist(laboratory);
+			for (String description : descriptions(laboratory.getCode())) {
+				entityManager.persist(new LaboratoryRow(laboratory, description));
+			}
+			codes.add(laboratory.getCode());
+		}
+		// the rows are read back from the database, not from the persistence context
+		entityManager.flush();
+		entityManager.clear();
+		return codes;
+	}
+
+	private static List<String> descriptions(Integer code) {
+		return IntStream.range(0, ROWS_PER_LABORATORY).mapToObj(i -> "result " + code + '.' + i).collect(Collectors.toList());
+	}
+}
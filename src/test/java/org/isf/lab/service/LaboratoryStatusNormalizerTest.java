@@ -0,0 +1,96 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.exa.TestExam;
+import org.isf.exa.model.Exam;
+import org.isf.exatype.TestExamType;
+import org.isf.exatype.model.ExamType;
+import org.isf.lab.TestLaboratory;
+import org.isf.lab.model.Laboratory;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class LaboratoryStatusNormalizerTest {
+
+	private static final String[] STATUSES = { "done", "DONE", "Done", "oPeN", "draft" };
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private LaboratoryStatusNormalizer laboratoryStatusNormalizer;
+
+	private final List<Laboratory> laboratories = new ArrayList<>();
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		// the statuses stored by the application startup are already in lower case
+		laboratoryStatusNormalizer.normalize();
+		ExamType examType = new TestExamType().setup(false);
+		entityManager.persist(examType);
+		Exam exam = new TestExam().setup(examType, 1, false);
+		entityManager.persist(exam);
+		Patient patient = new TestPatient().setup(false);
+		entityManager.persist(patient);
+		for (String status : STATUSES) {
+			Laboratory laboratory = new TestLaboratory().setup(exam, patient, false);
+			laboratory.setStatus(status);
+			entityManager.persist(laboratory);
+			laboratories.add(laboratory);
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void testNormalize() {
+		assertThat(laboratoryStatusNormalizer.normalize()).isEqualTo(3);
+
+		assertThat(laboratories).extracting(laboratory -> entityManager.find(Laboratory.class, laboratory.getCode()).getStatus())
+			.containsExactly("done", "done", "done", "open", "draft");
+	}
+
+	@Test
+	public void testNormalize_NothingLeft() {
+		laboratoryStatusNormalizer.normalize();
+		entityManager.clear();
+
+		assertThat(laboratoryStatusNormalizer.normalize()).isZero();
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.exa.TestExam;
+import org.isf.exa.model.Exam;
+import org.isf.exatype.TestExamType;
+import org.isf.exatype.model.ExamType;
+import org.isf.lab.TestLaboratory;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryStatus;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.isf.utils.pagination.PageInfo;
+import org.isf.utils.pagination.PagedResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class LaboratoryStatusQueryTest {
+
+	private static final LocalDateTime DATE = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+	private static final String[] STATUSES = { LaboratoryStatus.draft.toString(), LaboratoryStatus.open.toString(),
+					LaboratoryStatus.done.toString(), "Done", LaboratoryStatus.invalid.toString() };
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private LaboratoryStatusQuery laboratoryStatusQuery;
+
+	@Autowired
+	private LaboratoryStatusNormalizer laboratoryStatusNormalizer;
+
+	private Exam exam;
+
+	private Exam otherExam;
+
+	private Patient patient;
+
+	private Patient otherPatient;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		ExamType examType = new TestExamType().setup(false);
+		entityManager.persist(examType);
+		exam = new TestExam().setup(examType, 1, false);
+		entityManager.persist(exam);
+		otherExam = new TestExam().setup(examType, 1, false);
+		otherExam.setCode(exam.getCode() + "B");
+		otherExam.setDescription(exam.getDescription() + " B");
+		entityManager.persist(otherExam);
+		patient = new TestPatient().setup(false);
+		entityManager.persist(patient);
+		otherPatient = new TestPatient().setup(false);
+		entityManager.persist(otherPatient);
+
+		// 50 laboratories, one a day, cycling through the statuses, the exams and the patients
+		for (int i = 0; i < 50; i++) {
+			Laboratory laboratory = new TestLaboratory().setup(i % 2 == 0 ? exam : otherExam, i % 3 == 0 ? patient : otherPatient, false);
+			laboratory.setLabDate(DATE.plusDays(i));
+			laboratory.setStatus(STATUSES[i % STATUSES.length]);
+			entityManager.persist(laboratory);
+		}
+		entityManager.flush();
+		laboratoryStatusNormalizer.normalize();
+		entityManager.clear();
+	}
+
+	@Test
+	public void testGetLaboratoryPageable_CountsOnlyTheStatus() {
+		PagedResponse<Laboratory> laboratories = laboratoryStatusQuery.getLaboratoryPageable(null, DATE, DATE.plusDays(100), null,
+						List.of("Done"), 1, 5);
+
+		assertThat(laboratories.getData()).hasSize(5)
+			.allSatisfy(laboratory -> assertThat(laboratory.getStatus()).isEqualTo(LaboratoryStatus.done.toString()));
+		assertThat(laboratories.getData()).extracting(Laboratory::getLabDate).isSortedAccordingTo((date1, date2) -> date2.compareTo(date1));
+		PageInfo pageInfo = laboratories.getPageInfo();
+		assertThat(pageInfo.getPage()).isEqualTo(1);
+		assertThat(pageInfo.getNbOfElements()).isEqualTo(5);
+		assertThat(pageInfo.getTotalNbOfElements()).isEqualTo(20);
+		assertThat(pageInfo.getTotalPages()).isEqualTo(4);
+		assertThat(pageInfo.isHasPreviousPage()).isTrue();
+		assertThat(pageInfo.isHasNextPage()).isTrue();
+	}
+
+	@Test
+	public void testGetLaboratoryPageable_AllFilters() {
+		PagedResponse<Laboratory> laboratories = laboratoryStatusQuery.getLaboratoryPageable(exam.getDescription(), DATE, DATE.plusDays(100),
+						patient, List.of(LaboratoryStatus.done.toString()), 0, 10);
+
+		// laboratories 12, 18, 42 and 48
+		assertThat(laboratories.getData()).hasSize(4);
+		assertThat(laboratories.getPageInfo().getTotalNbOfElements()).isEqualTo(4);
+		assertThat(laboratories.getPageInfo().getTotalPages()).isEqualTo(1);
+		assertThat(laboratories.getPageInfo().isHasNextPage()).isFalse();
+	}
+
+	@Test
+	public void testGetLaboratoryPageable_PageBeyondTheLast() {
+		PagedResponse<Laboratory> laboratories = laboratoryStatusQuery.getLaboratoryPageable(null, DATE, DATE.plusDays(100), null,
+						List.of(LaboratoryStatus.invalid.toString()), 5, 5);
+
+		assertThat(laboratories.getData()).isEmpty();
+		assertThat(laboratories.getPageInfo().getTotalNbOfElements()).isEqualTo(10);
+		assertThat(laboratories.getPageInfo().getTotalPages()).isEqualTo(2);
+	}
+
+	@Test
+	public void testGetLaboratoryPageable_StatusesOnly() {
+		PagedResponse<Laboratory> laboratories = laboratoryStatusQuery.getLaboratoryPageable(
+						List.of(LaboratoryStatus.draft.toString(), LaboratoryStatus.open.toString()), 0, 15);
+
+		assertThat(laboratories.getData()).hasSize(15).first().extracting(Laboratory::getLabDate).isEqualTo(DATE.plusDays(46));
+		assertThat(laboratories.getPageInfo().getTotalNbOfElements()).isEqualTo(20);
+		assertThat(laboratories.getPageInfo().isHasNextPage()).isTrue();
+	}
+
+	@Test
+	public void testGetLaboratoryByPatient() {
+		List<Laboratory> laboratories = laboratoryStatusQuery.getLaboratory(otherPatient,
+						List.of(LaboratoryStatus.draft.toString(), LaboratoryStatus.open.toString()));
+
+		assertThat(laboratories).hasSize(13)
+			.allSatisfy(laboratory -> assertThat(laboratory.getPatient().getCode()).isEqualTo(otherPatient.getCode()))
+			.allSatisfy(laboratory -> assertThat(laboratory.getStatus()).isIn(STATUSES[0], STATUSES[1]));
+	}
+
+	@Test
+	public void testGetLaboratoryByDate() {
+		List<Laboratory> laboratories = laboratoryStatusQuery.getLaboratory(DATE, DATE.plusDays(9),
+						List.of(LaboratoryStatus.draft.toString(), LaboratoryStatus.open.toString()));
+
+		assertThat(laboratories).extracting(Laboratory::getLabDate)
+			.containsExactly(DATE.plusDays(6), DATE.plusDays(5), DATE.plusDays(1), DATE);
+	}
+}
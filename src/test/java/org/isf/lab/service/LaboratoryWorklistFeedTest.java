@@ -0,0 +1,158 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.lab.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.util.Map;
+
+import org.isf.exa.model.Exam;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryStatus;
+import org.isf.patient.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class LaboratoryWorklistFeedTest {
+
+	private MeterRegistry meterRegistry;
+
+	private LaboratoryWorklistFeed feed;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+		feed = new LaboratoryWorklistFeed(beanFactory.getBeanProvider(MeterRegistry.class), 60_000, 2, 0);
+		mockMvc = MockMvcBuilders.standaloneSetup(new FeedController(feed)).build();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		feed.shutdown();
+	}
+
+	@Test
+	public void testStatusChangeSentToSubscribers() throws Exception {
+		MvcResult first = subscribe();
+		MvcResult second = subscribe();
+
+		feed.onLaboratoryStatusChanged(LaboratoryStatusChangedEvent.of(laboratory(LaboratoryStatus.draft), LaboratoryStatus.open.toString()));
+
+		for (MvcResult subscription : new MvcResult[] { first, second }) {
+			String content = awaitContent(subscription, "\n\n");
+			assertThat(content).contains("id:1", "event:" + LaboratoryWorklistFeed.EVENT_NAME)
+				.contains("\"code\":7", "\"patientCode\":3", "\"examCode\":\"01.01\"", "\"previousStatus\":\"draft\"", "\"status\":\"open\"");
+			assertThat(subscription.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+		}
+	}
+
+	@Test
+	public void testNewLaboratoryHasNoPreviousStatus() throws Exception {
+		MvcResult subscription = subscribe();
+		Laboratory laboratory = laboratory(LaboratoryStatus.draft);
+
+		feed.onLaboratoryStatusChanged(LaboratoryStatusChangedEvent.created(laboratory));
+
+		assertThat(awaitContent(subscription, "\n\n")).contains("\"status\":\"draft\"").doesNotContain("\"previousStatus\":\"");
+	}
+
+	@Test
+	public void testMaxSubscribers() throws Exception {
+		subscribe();
+		subscribe();
+
+		assertThat(feed.subscribe()).isNull();
+		assertThat(feed.getSubscriberCount()).isEqualTo(2);
+		assertThat(meterRegistry.get("oh.laboratory.worklist.subscribers").gauge().value()).isEqualTo(2);
+	}
+
+	@Test
+	public void testShutdownClosesSubscriptions() throws Exception {
+		subscribe();
+		assertThat(feed.getSubscriberCount()).isEqualTo(1);
+
+		feed.shutdown();
+
+		assertThat(feed.getSubscriberCount()).isZero();
+		// changes after the shutdown are dropped
+		feed.onLaboratoryStatusChanged(LaboratoryStatusChangedEvent.of(laboratory(LaboratoryStatus.open), LaboratoryStatus.done.toString()));
+	}
+
+	private MvcResult subscribe() throws Exception {
+		return mockMvc.perform(get("/feed")).andExpect(request().asyncStarted()).andReturn();
+	}
+
+	private static String awaitContent(MvcResult result, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		String content = result.getResponse().getContentAsString();
+		while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+			content = result.getResponse().getContentAsString();
+		}
+		return content;
+	}
+
+	private static Laboratory laboratory(LaboratoryStatus status) {
+		Patient patient = new Patient();
+		patient.setCode(3);
+		Exam exam = new Exam();
+		exam.setCode("01.01");
+		Laboratory laboratory = new Laboratory();
+		laboratory.setCode(7);
+		laboratory.setPatient(patient);
+		laboratory.setExam(exam);
+		laboratory.setStatus(status.toString());
+		return laboratory;
+	}
+
+	@RestController
+	static class FeedController {
+
+		private final LaboratoryWorklistFeed feed;
+
+		FeedController(LaboratoryWorklistFeed feed) {
+			this.feed = feed;
+		}
+
+		@GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+		public SseEmitter subscribe() {
+			return feed.subscribe();
+		}
+	}
+}
@@ -28,12 +28,11 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.List;
 
-import jakarta.servlet.http.HttpSession;
-
 import org.isf.OpenHospitalApiApplication;
 import org.isf.login.dto.LoginRequest;
 import org.isf.login.dto.LoginResponse;
@@ -41,9 +40,10 @@ import org.isf.login.dto.TokenRefreshRequest;
 import org.isf.menu.manager.UserBrowsingManager;
 import org.isf.menu.model.User;
 import org.isf.security.CustomAuthenticationManager;
+import org.isf.security.PasswordVerificationRejectedException;
+import org.isf.security.SessionAuditWriter;
 import org.isf.security.jwt.TokenProvider;
 import org.isf.security.jwt.TokenValidationResult;
-import org.isf.sessionaudit.manager.SessionAuditManager;
 import org.isf.shared.exceptions.OHResponseEntityExceptionHandler;
 import org.isf.users.data.UserHelper;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,6 +51,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -70,10 +71,7 @@ public class LoginControllerTest {
 	private TokenProvider tokenProvider;
 
 	@Mock
-	private HttpSession httpSession;
-
-	@Mock
-	private SessionAuditManager sessionAuditManager;
+	private SessionAuditWriter sessionAuditWriter;
 
 	@Mock
 	private CustomAuthenticationManager authenticationManager;
@@ -85,7 +83,7 @@ public class LoginControllerTest {
 	public void setUp() {
 		MockitoAnnotations.openMocks(this);
 
-		LoginController loginController = new LoginController(httpSession, sessionAuditManager, tokenProvider, authenticationManager, userManager);
+		LoginController loginController = new LoginController(sessionAuditWriter, tokenProvider, authenticationManager, userManager);
 
 		this.mvc = MockMvcBuilders
 						.standaloneSetup(loginController)
@@ -112,8 +110,9 @@ public class LoginControllerTest {
 		LoginRequest loginRequest = new LoginRequest(username, password);
 
 		when(authenticationManager.authenticate(any())).thenReturn(authentication);
-		when(tokenProvider.generateJwtToken(any(), eq(false))).thenReturn(mockToken);
-		when(tokenProvider.generateRefreshToken(any())).thenReturn(mockRefreshToken);
+		when(sessionAuditWriter.login(username)).thenReturn("sessionId");
+		when(tokenProvider.generateJwtToken(any(), eq(false), eq("sessionId"))).thenReturn(mockToken);
+		when(tokenProvider.generateRefreshToken(any(), eq("sessionId"))).thenReturn(mockRefreshToken);
 		when(userManager.getUserByName(username)).thenReturn(user);
 
 		// Expected LoginResponse object
@@ -131,6 +130,20 @@ public class LoginControllerTest {
 
 	// TODO testAuthenticateUser_Failure
 
+	@Test
+	void testAuthenticateUser_VerificationRejected() throws Exception {
+		LoginRequest loginRequest = new LoginRequest("testUser", "testPassword");
+
+		when(authenticationManager.authenticate(any())).thenThrow(new PasswordVerificationRejectedException("Too many concurrent logins", 2));
+
+		mvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(UserHelper.asJsonString(loginRequest)))
+						.andExpect(status().isServiceUnavailable())
+						.andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+						.andExpect(content().string(containsString("Too many concurrent logins")));
+	}
+
 	@Test
 	void testRefreshToken_Success() throws Exception {
 		String refreshToken = "validRefreshToken";
@@ -143,9 +156,10 @@ public class LoginControllerTest {
 
 		when(tokenProvider.getUsernameFromToken(refreshToken)).thenReturn(username);
 		when(tokenProvider.validateToken(refreshToken)).thenReturn(TokenValidationResult.VALID);
+		when(tokenProvider.getSessionIdFromToken(refreshToken)).thenReturn("sessionId");
 		when(tokenProvider.getAuthenticationByUsername(username)).thenReturn(mock(Authentication.class));
-		when(tokenProvider.generateJwtToken(any(), eq(false))).thenReturn(newAccessToken);
-		when(tokenProvider.generateRefreshToken(any())).thenReturn(newRefreshToken);
+		when(tokenProvider.generateJwtToken(any(), eq(false), eq("sessionId"))).thenReturn(newAccessToken);
+		when(tokenProvider.generateRefreshToken(any(), eq("sessionId"))).thenReturn(newRefreshToken);
 
 		// Expected LoginResponse object
 		LoginResponse loginResponse = new LoginResponse(newAccessToken, newRefreshToken, username);
@@ -24,6 +24,7 @@ package org.isf.opd.data;
 import org.isf.disease.model.Disease;
 import org.isf.opd.TestOpd;
 import org.isf.opd.dto.OpdDTO;
+import org.isf.opd.dto.OpdWithOperationRowDTO;
 import org.isf.opd.model.Opd;
 import org.isf.patient.model.Patient;
 import org.isf.utils.exception.OHException;
@@ -60,6 +61,15 @@ public class OpdHelper {
 		return null;
 	}
 
+	public static String asJsonString(OpdWithOperationRowDTO body) {
+		try {
+			return getObjectMapper().writeValueAsString(body);
+		} catch (JsonProcessingException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
 	public static ObjectMapper getObjectMapper() {
 		if (objectMapper == null) {
 			objectMapper = new ObjectMapper()
@@ -21,25 +21,39 @@
  */
 package org.isf.opd.rest;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.List;
+import java.util.Map;
+
 import org.isf.distype.manager.DiseaseTypeBrowserManager;
 import org.isf.opd.data.OpdHelper;
 import org.isf.opd.dto.OpdDTO;
+import org.isf.opd.dto.OpdWithOperationRowDTO;
 import org.isf.opd.manager.OpdBrowserManager;
 import org.isf.opd.mapper.OpdMapper;
+import org.isf.opd.mapper.OpdWithOperationRowAssembler;
 import org.isf.opd.model.Opd;
-import org.isf.operation.manager.OperationRowBrowserManager;
+import org.isf.opd.service.OpdWithOperationRowWriter;
 import org.isf.operation.mapper.OperationRowMapper;
+import org.isf.operation.model.OperationRow;
+import org.isf.operation.service.OperationRowBatchLoader;
 import org.isf.patient.data.PatientHelper;
 import org.isf.patient.manager.PatientBrowserManager;
 import org.isf.patient.model.Patient;
 import org.isf.shared.exceptions.OHResponseEntityExceptionHandler;
 import org.isf.shared.mapper.converter.BlobToByteArrayConverter;
 import org.isf.shared.mapper.converter.ByteArrayToBlobConverter;
+import org.isf.shared.mapper.mappings.PatientMapping;
 import org.isf.ward.manager.WardBrowserManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -67,10 +81,13 @@ public class OpdControllerTest {
 
 	protected OpdMapper opdMapper = new OpdMapper();
 
+	protected OperationRowMapper opRowMapper = new OperationRowMapper();
+
 	@Mock
-	protected OperationRowBrowserManager operationRowBrowserManagerMock;
+	protected OperationRowBatchLoader operationRowBatchLoaderMock;
 
-	protected OperationRowMapper opRowMapper = new OperationRowMapper();
+	@Mock
+	protected OpdWithOperationRowWriter opdWithOperationRowWriterMock;
 
 	@Mock
 	protected WardBrowserManager wardBrowserManager;
@@ -86,14 +103,17 @@ public class OpdControllerTest {
 	public void setup() {
 		closeable = MockitoAnnotations.openMocks(this);
 		this.mockMvc = MockMvcBuilders
-						.standaloneSetup(new OpdController(opdBrowserManagerMock, opdMapper, patientBrowserManagerMock, operationRowBrowserManagerMock,
-										opRowMapper, wardBrowserManager, diseaseTypeBrowserManagerMock))
+						.standaloneSetup(new OpdController(opdBrowserManagerMock, opdMapper, patientBrowserManagerMock,
+										opRowMapper, wardBrowserManager, diseaseTypeBrowserManagerMock,
+										new OpdWithOperationRowAssembler(opdMapper, opRowMapper, operationRowBatchLoaderMock), opdWithOperationRowWriterMock))
 						.setControllerAdvice(new OHResponseEntityExceptionHandler())
 						.build();
 		ModelMapper modelMapper = new ModelMapper();
 		modelMapper.addConverter(new BlobToByteArrayConverter());
 		modelMapper.addConverter(new ByteArrayToBlobConverter());
+		PatientMapping.addMapping(modelMapper);
 		ReflectionTestUtils.setField(opdMapper, "modelMapper", modelMapper);
+		ReflectionTestUtils.setField(opRowMapper, "modelMapper", modelMapper);
 	}
 
 	@AfterEach
@@ -129,4 +149,92 @@ public class OpdControllerTest {
 		LOGGER.debug("result: {}", result);
 	}
 
+	@Test
+	public void testGetOpdByPatient_OperationRowsLoadedTogether() throws Exception {
+		String request = "/opds/patient/{pcode}";
+		Patient patient = PatientHelper.setup();
+		Integer patientCode = 1;
+		patient.setCode(patientCode);
+
+		Opd opdWithRows = OpdHelper.setup();
+		opdWithRows.setCode(10);
+		opdWithRows.setPatient(patient);
+		Opd opdWithoutRows = OpdHelper.setup();
+		opdWithoutRows.setCode(11);
+		opdWithoutRows.setPatient(patient);
+		OperationRow operationRow = new OperationRow();
+		operationRow.setRemarks("remarks");
+
+		when(opdBrowserManagerMock.getOpdList(patientCode)).thenReturn(List.of(opdWithRows, opdWithoutRows));
+		when(operationRowBatchLoaderMock.getOperationRowsByOpd(List.of(10, 11))).thenReturn(Map.of(10, List.of(operationRow)));
+
+		this.mockMvc
+						.perform(get(request, patientCode))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$[0].opdDTO.code").value(10))
+						.andExpect(jsonPath("$[0].operationRows[0].remarks").value("remarks"))
+						.andExpect(jsonPath("$[1].opdDTO.code").value(11))
+						.andExpect(jsonPath("$[1].operationRows").isEmpty());
+
+		verify(operationRowBatchLoaderMock).getOperationRowsByOpd(any());
+	}
+
+	@Test
+	public void testNewOpdWithOperationRow_WrittenTogether() throws Exception {
+		String request = "/opds/rows";
+		Patient patient = PatientHelper.setup();
+		Integer patientCode = 1;
+		patient.setCode(patientCode);
+
+		Opd opd = OpdHelper.setup();
+		opd.setPatient(patient);
+		OperationRow operationRow = new OperationRow();
+		operationRow.setRemarks("remarks");
+
+		OpdWithOperationRowDTO body = new OpdWithOperationRowDTO();
+		body.setOpdDTO(opdMapper.map2DTO(opd));
+		body.setOperationRows(opRowMapper.map2DTOList(List.of(operationRow)));
+
+		when(patientBrowserManagerMock.getPatientById(patientCode)).thenReturn(patient);
+		when(opdWithOperationRowWriterMock.newOpd(any(Opd.class), anyList()))
+						.thenReturn(new OpdWithOperationRowWriter.Result(opd, List.of(operationRow)));
+
+		this.mockMvc
+						.perform(post(request)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content(OpdHelper.asJsonString(body)))
+						.andDo(log())
+						.andExpect(status().isCreated())
+						.andExpect(jsonPath("$.operationRows[0].remarks").value("remarks"));
+
+		verify(opdWithOperationRowWriterMock).newOpd(any(Opd.class), anyList());
+	}
+
+	@Test
+	public void testNewOpdWithOperationRow_UnknownOperation() throws Exception {
+		String request = "/opds/rows";
+		Patient patient = PatientHelper.setup();
+		Integer patientCode = 1;
+		patient.setCode(patientCode);
+
+		Opd opd = OpdHelper.setup();
+		opd.setPatient(patient);
+
+		OpdWithOperationRowDTO body = new OpdWithOperationRowDTO();
+		body.setOpdDTO(opdMapper.map2DTO(opd));
+		body.setOperationRows(opRowMapper.map2DTOList(List.of(new OperationRow())));
+
+		when(patientBrowserManagerMock.getPatientById(patientCode)).thenReturn(patient);
+		when(opdWithOperationRowWriterMock.newOpd(any(Opd.class), anyList())).thenThrow(new IllegalArgumentException("Operation missing."));
+
+		this.mockMvc
+						.perform(post(request)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content(OpdHelper.asJsonString(body)))
+						.andDo(log())
+						.andExpect(status().isBadRequest());
+
+		verifyNoInteractions(opdBrowserManagerMock);
+	}
 }
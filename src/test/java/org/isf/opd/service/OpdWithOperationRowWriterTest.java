@@ -0,0 +1,210 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.opd.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.disease.TestDisease;
+import org.isf.disease.model.Disease;
+import org.isf.distype.TestDiseaseType;
+import org.isf.distype.model.DiseaseType;
+import org.isf.opd.TestOpd;
+import org.isf.opd.model.Opd;
+import org.isf.operation.TestOperation;
+import org.isf.operation.model.Operation;
+import org.isf.operation.model.OperationRow;
+import org.isf.opetype.TestOperationType;
+import org.isf.opetype.model.OperationType;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.ward.TestWard;
+import org.isf.ward.model.Ward;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Stores OPDs and their operation rows with {@link OpdWithOperationRowWriter} against the test database.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class OpdWithOperationRowWriterTest {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private OpdWithOperationRowWriter opdWithOperationRowWriter;
+
+	private Patient patient;
+
+	private Disease disease;
+
+	private Ward ward;
+
+	private Operation operation;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		patient = new TestPatient().setup(false);
+		entityManager.persist(patient);
+		DiseaseType diseaseType = new TestDiseaseType().setup(false);
+		entityManager.persist(diseaseType);
+		disease = new TestDisease().setup(diseaseType, false);
+		entityManager.persist(disease);
+		ward = new TestWard().setup(false);
+		entityManager.persist(ward);
+		OperationType operationType = new TestOperationType().setup(false);
+		entityManager.persist(operationType);
+		operation = new TestOperation().setup(operationType, false);
+		entityManager.persist(operation);
+		entityManager.flush();
+	}
+
+	@Test
+	public void testNewOpd() throws Exception {
+		Opd opd = new TestOpd().setup(patient, disease, ward, null, false);
+
+		OpdWithOperationRowWriter.Result result = opdWithOperationRowWriter.newOpd(opd, List.of(operationRow("first"), operationRow("second")));
+
+		assertThat(result.getOpd().getCode()).isPositive();
+		assertThat(result.getOperationRows()).extracting(OperationRow::getRemarks).containsExactly("first", "second");
+		assertThat(result.getOperationRows()).allSatisfy(operationRow -> {
+			assertThat(operationRow.getId()).isPositive();
+			assertThat(operationRow.getOperation().getType()).isNotNull();
+		});
+		assertThat(getOperationRows(result.getOpd())).extracting(OperationRow::getRemarks).containsExactly("first", "second");
+	}
+
+	@Test
+	public void testNewOpd_UnknownOperation() throws Exception {
+		Opd opd = new TestOpd().setup(patient, disease, ward, null, false);
+		OperationRow unknown = operationRow("unknown");
+		Operation unknownOperation = new Operation();
+		unknownOperation.setCode("ZZ");
+		unknown.setOperation(unknownOperation);
+		long opdCount = countOpds();
+
+		assertThatThrownBy(() -> opdWithOperationRowWriter.newOpd(opd, List.of(operationRow("first"), unknown)))
+						.isInstanceOf(IllegalArgumentException.class)
+						.hasMessage("Operation ZZ not found.");
+		assertThat(countOpds()).isEqualTo(opdCount);
+	}
+
+	@Test
+	public void testNewOpd_InvalidOpd() throws Exception {
+		Opd opd = new TestOpd().setup(patient, disease, ward, null, false);
+		opd.setDisease(null);
+		long opdCount = countOpds();
+
+		assertThatThrownBy(() -> opdWithOperationRowWriter.newOpd(opd, List.of(operationRow("first"))))
+						.isInstanceOf(OHServiceException.class);
+		assertThat(countOpds()).isEqualTo(opdCount);
+	}
+
+	@Test
+	public void testNewOpd_StoredRow() throws Exception {
+		Opd opd = new TestOpd().setup(patient, disease, ward, null, false);
+		OperationRow stored = operationRow("stored");
+		stored.setId(1);
+		long opdCount = countOpds();
+
+		assertThatThrownBy(() -> opdWithOperationRowWriter.newOpd(opd, List.of(stored)))
+						.isInstanceOf(IllegalArgumentException.class)
+						.hasMessage("Operation row 1 is already stored.");
+		assertThat(countOpds()).isEqualTo(opdCount);
+	}
+
+	@Test
+	public void testUpdateOpd() throws Exception {
+		Opd opd = new TestOpd().setup(patient, disease, ward, null, false);
+		OpdWithOperationRowWriter.Result created = opdWithOperationRowWriter.newOpd(opd, List.of(operationRow("first")));
+		entityManager.clear();
+
+		Opd opdToUpdate = entityManager.find(Opd.class, created.getOpd().getCode());
+		entityManager.detach(opdToUpdate);
+		opdToUpdate.setNote("updated note");
+		OperationRow updatedRow = operationRow("first updated");
+		updatedRow.setId(created.getOperationRows().get(0).getId());
+
+		OpdWithOperationRowWriter.Result updated = opdWithOperationRowWriter.updateOpd(opdToUpdate, List.of(updatedRow, operationRow("second")));
+
+		assertThat(updated.getOpd().getNote()).isEqualTo("updated note");
+		assertThat(updated.getOperationRows()).extracting(OperationRow::getRemarks).containsExactly("first updated", "second");
+		assertThat(getOperationRows(updated.getOpd())).extracting(OperationRow::getRemarks).containsExactly("first updated", "second");
+	}
+
+	@Test
+	public void testUpdateOpd_RowOfAnotherOpd() throws Exception {
+		OpdWithOperationRowWriter.Result other = opdWithOperationRowWriter.newOpd(new TestOpd().setup(patient, disease, ward, null, false),
+						List.of(operationRow("other")));
+		OpdWithOperationRowWriter.Result created = opdWithOperationRowWriter.newOpd(new TestOpd().setup(patient, disease, ward, null, false),
+						List.of());
+		entityManager.clear();
+
+		Opd opdToUpdate = entityManager.find(Opd.class, created.getOpd().getCode());
+		entityManager.detach(opdToUpdate);
+		OperationRow otherRow = operationRow("taken");
+		otherRow.setId(other.getOperationRows().get(0).getId());
+
+		assertThatThrownBy(() -> opdWithOperationRowWriter.updateOpd(opdToUpdate, List.of(otherRow)))
+						.isInstanceOf(IllegalArgumentException.class)
+						.hasMessage("Operation row " + otherRow.getId() + " belongs to another OPD.");
+		assertThat(getOperationRows(other.getOpd())).extracting(OperationRow::getRemarks).containsExactly("other");
+	}
+
+	private OperationRow operationRow(String remarks) {
+		Operation operationReference = new Operation();
+		operationReference.setCode(operation.getCode());
+		OperationRow operationRow = new OperationRow();
+		operationRow.setOperation(operationReference);
+		operationRow.setPrescriber("prescriber");
+		operationRow.setOpResult("success");
+		operationRow.setOpDate(LocalDateTime.of(2024, 3, 1, 10, 0));
+		operationRow.setRemarks(remarks);
+		operationRow.setTransUnit(0F);
+		return operationRow;
+	}
+
+	private List<OperationRow> getOperationRows(Opd opd) {
+		entityManager.flush();
+		entityManager.clear();
+		return entityManager.createQuery("SELECT r FROM OperationRow r WHERE r.opd.code = :code ORDER BY r.id", OperationRow.class)
+						.setParameter("code", opd.getCode())
+						.getResultList();
+	}
+
+	private long countOpds() {
+		return entityManager.createQuery("SELECT COUNT(opd) FROM Opd opd", Long.class).getSingleResult();
+	}
+}
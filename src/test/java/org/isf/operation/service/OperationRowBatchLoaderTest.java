@@ -0,0 +1,164 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.operation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.isf.OpenHospitalApiApplication;
+import org.isf.disease.TestDisease;
+import org.isf.disease.model.Disease;
+import org.isf.distype.TestDiseaseType;
+import org.isf.distype.model.DiseaseType;
+import org.isf.opd.TestOpd;
+import org.isf.opd.model.Opd;
+import org.isf.operation.TestOperation;
+import org.isf.operation.model.Operation;
+import org.isf.operation.model.OperationRow;
+import org.isf.opetype.TestOperationType;
+import org.isf.opetype.model.OperationType;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.isf.ward.TestWard;
+import org.isf.ward.model.Ward;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Counts the statements prepared by {@link OperationRowBatchLoader} against the test database.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class OperationRowBatchLoaderTest {
+
+	private static final int ROWS_PER_OPD = 3;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private OperationRowBatchLoader operationRowLoader;
+
+	private Statistics statistics;
+
+	private Patient patient;
+
+	private Disease disease;
+
+	private Ward ward;
+
+	private Operation operation;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+
+		patient = new TestPatient().setup(false);
+		entityManager.persist(patient);
+		DiseaseType diseaseType = new TestDiseaseType().setup(false);
+		entityManager.persist(diseaseType);
+		disease = new TestDisease().setup(diseaseType, false);
+		entityManager.persist(disease);
+		ward = new TestWard().setup(false);
+		entityManager.persist(ward);
+		OperationType operationType = new TestOperationType().setup(false);
+		entityManager.persist(operationType);
+		operation = new TestOperation().setup(operationType, false);
+		entityManager.persist(operation);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 10, 80 })
+	public void testGetOperationRowsByOpd_OneStatementPerList(int opdCount) throws Exception {
+		List<Integer> codes = persistOpds(opdCount);
+		statistics.clear();
+
+		Map<Integer, List<OperationRow>> operationRows = operationRowLoader.getOperationRowsByOpd(codes);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(operationRows).containsOnlyKeys(codes);
+		for (Integer code : codes) {
+			assertThat(operationRows.get(code)).extracting(OperationRow::getRemarks).containsExactly(remarks(code).toArray(new String[0]));
+			assertThat(operationRows.get(code)).allSatisfy(operationRow -> assertThat(operationRow.getOperation().getType()).isNotNull());
+		}
+	}
+
+	@Test
+	public void testGetOperationRowsByOpd_OpdWithoutRows() throws Exception {
+		Opd opd = new TestOpd().setup(patient, disease, ward, null, false);
+		entityManager.persist(opd);
+		List<Integer> codes = persistOpds(2);
+		codes.add(opd.getCode());
+		statistics.clear();
+
+		Map<Integer, List<OperationRow>> operationRows = operationRowLoader.getOperationRowsByOpd(codes);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(operationRows).hasSize(2).doesNotContainKey(opd.getCode());
+	}
+
+	private List<Integer> persistOpds(int count) throws Exception {
+		List<Integer> codes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Opd opd = new TestOpd().setup(patient, disease, ward, null, false);
+			entityManager.persist(opd);
+			for (String remarks : remarks(opd.getCode())) {
+				OperationRow operationRow = new OperationRow();
+				operationRow.setOperation(operation);
+				operationRow.setOpd(opd);
+				operationRow.setPrescriber("prescriber");
+				operationRow.setOpResult("success");
+				operationRow.setOpDate(LocalDateTime.of(2024, 3, 1, 10, 0));
+				operationRow.setRemarks(remarks);
+				operationRow.setTransUnit(0F);
+				entityManager.persist(operationRow);
+			}
+			codes.add(opd.getCode());
+		}
+		// the rows are read back from the database, the OPDs are read again as the OPD manager does before the rows
+		entityManager.flush();
+		entityManager.clear();
+		entityManager.createQuery("SELECT opd FROM Opd opd WHERE opd.code IN :codes", Opd.class).setParameter("codes", codes).getResultList();
+		return codes;
+	}
+
+	private static List<String> remarks(Integer code) {
+		return IntStream.range(0, ROWS_PER_OPD).mapToObj(i -> "remarks " + code + '.' + i).collect(Collectors.toList());
+	}
+}
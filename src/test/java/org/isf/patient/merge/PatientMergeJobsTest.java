@@ -0,0 +1,205 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.merge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.isf.patient.manager.PatientBrowserManager;
+import org.isf.patient.model.Patient;
+import org.isf.patient.photo.PatientPhotoThumbnailCache;
+import org.isf.patient.search.PatientSearchIndex;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.exception.model.OHExceptionMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class PatientMergeJobsTest {
+
+	private PatientBrowserManager patientManager;
+
+	private PatientPhotoThumbnailCache photoThumbnailCache;
+
+	private PatientSearchIndex patientSearchIndex;
+
+	private PatientMergeJobs patientMergeJobs;
+
+	private final CountDownLatch mergeStarted = new CountDownLatch(1);
+
+	private final CountDownLatch releaseMerge = new CountDownLatch(1);
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		patientManager = mock(PatientBrowserManager.class);
+		photoThumbnailCache = mock(PatientPhotoThumbnailCache.class);
+		patientSearchIndex = mock(PatientSearchIndex.class);
+		for (int code = 1; code <= 4; code++) {
+			Patient patient = new Patient();
+			patient.setCode(code);
+			when(patientManager.getPatientById(code)).thenReturn(patient);
+		}
+		patientMergeJobs = new PatientMergeJobs(patientManager, photoThumbnailCache, patientSearchIndex,
+						new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 1, 1, 60, 1);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		releaseMerge.countDown();
+		patientMergeJobs.shutdown();
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void testSubmit() throws Exception {
+		PatientMergeJob job = patientMergeJobs.submit(1, 2);
+
+		assertThat(job.getCompletion().get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(PatientMergeJob.Status.DONE);
+		assertThat(job.getCompletedSteps()).isEqualTo(job.getSteps());
+		assertThat(job.getStarted()).isNotNull();
+		assertThat(job.getFinished()).isNotNull();
+		assertThat(patientMergeJobs.getJob(job.getId())).isSameAs(job);
+		verify(patientManager).mergePatient(any(), any());
+		verify(photoThumbnailCache).invalidate(1);
+		verify(photoThumbnailCache).invalidate(2);
+		verify(patientSearchIndex).remove(2);
+		verify(patientSearchIndex).put(patientManager.getPatientById(1));
+	}
+
+	@Test
+	public void testSubmit_SamePatientsCoalesced() throws Exception {
+		blockMerge();
+		PatientMergeJob job = patientMergeJobs.submit(1, 2);
+		assertThat(mergeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(job.getStatus()).isEqualTo(PatientMergeJob.Status.RUNNING);
+		assertThat(job.getStep()).isEqualTo(PatientMergeJob.Step.MERGING);
+		assertThat(job.getCompletedSteps()).isEqualTo(1);
+		assertThat(patientMergeJobs.submit(1, 2)).isSameAs(job);
+		assertThatThrownBy(() -> patientMergeJobs.submit(2, 1)).isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> patientMergeJobs.submit(3, 1)).isInstanceOf(IllegalStateException.class);
+
+		releaseMerge.countDown();
+		assertThat(job.getCompletion().get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(PatientMergeJob.Status.DONE);
+		verify(patientManager, times(1)).mergePatient(any(), any());
+
+		// the patients are free again once the job is finished
+		assertThat(patientMergeJobs.submit(3, 1)).isNotSameAs(job);
+	}
+
+	@Test
+	public void testSubmit_QueueFull() throws Exception {
+		blockMerge();
+		patientMergeJobs.submit(1, 2);
+		assertThat(mergeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		PatientMergeJob queued = patientMergeJobs.submit(3, 4);
+
+		assertThat(queued.getStatus()).isEqualTo(PatientMergeJob.Status.QUEUED);
+		assertThat(queued.getCompletedSteps()).isZero();
+		assertThatThrownBy(() -> patientMergeJobs.submit(5, 6)).isInstanceOf(RejectedExecutionException.class);
+	}
+
+	@Test
+	public void testSubmit_SamePatient() {
+		assertThatThrownBy(() -> patientMergeJobs.submit(1, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testSubmit_Failed() throws Exception {
+		doThrow(new OHServiceException(new OHExceptionMessage("Failure"))).when(patientManager).mergePatient(any(), any());
+
+		PatientMergeJob job = patientMergeJobs.submit(1, 2).getCompletion().get(5, TimeUnit.SECONDS);
+
+		assertThat(job.getStatus()).isEqualTo(PatientMergeJob.Status.FAILED);
+		assertThat(job.getError()).isEqualTo("Patients not merged.");
+		assertThat(job.getStep()).isEqualTo(PatientMergeJob.Step.MERGING);
+	}
+
+	@Test
+	public void testSubmit_PatientDeletedWhileQueued() throws Exception {
+		when(patientManager.getPatientById(2)).thenReturn(null);
+
+		PatientMergeJob job = patientMergeJobs.submit(1, 2).getCompletion().get(5, TimeUnit.SECONDS);
+
+		assertThat(job.getStatus()).isEqualTo(PatientMergeJob.Status.FAILED);
+		assertThat(job.getError()).isEqualTo("Patient not found.");
+	}
+
+	@Test
+	public void testSubmit_RunsAsSubmitter() throws Exception {
+		AtomicReference<Authentication> mergedBy = new AtomicReference<>();
+		doAnswer(invocation -> {
+			mergedBy.set(SecurityContextHolder.getContext().getAuthentication());
+			return true;
+		}).when(patientManager).mergePatient(any(), any());
+		Authentication admin = new TestingAuthenticationToken("admin", null);
+		SecurityContextHolder.getContext().setAuthentication(admin);
+
+		PatientMergeJob job = patientMergeJobs.submit(1, 2).getCompletion().get(5, TimeUnit.SECONDS);
+
+		assertThat(job.getStatus()).isEqualTo(PatientMergeJob.Status.DONE);
+		assertThat(mergedBy.get()).isSameAs(admin);
+	}
+
+	@Test
+	public void testAwait() throws Exception {
+		blockMerge();
+		PatientMergeJob job = patientMergeJobs.submit(1, 2);
+
+		assertThat(patientMergeJobs.await(job)).isFalse();
+
+		releaseMerge.countDown();
+		assertThat(patientMergeJobs.await(job)).isTrue();
+		assertThat(job.getStatus()).isEqualTo(PatientMergeJob.Status.DONE);
+	}
+
+	@Test
+	public void testGetJob_Unknown() {
+		assertThat(patientMergeJobs.getJob("unknown")).isNull();
+	}
+
+	private void blockMerge() throws OHServiceException {
+		doAnswer(invocation -> {
+			mergeStarted.countDown();
+			releaseMerge.await(5, TimeUnit.SECONDS);
+			return true;
+		}).when(patientManager).mergePatient(any(), any());
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.photo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Blob;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.isf.patient.data.PatientHelper;
+import org.isf.patient.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.MediaType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PatientPhotoThumbnailCacheTest {
+
+	private static final String PHOTO_DIGEST = "digest";
+
+	private MeterRegistry meterRegistry;
+
+	private PatientPhotoThumbnailCache thumbnailCache;
+
+	private Patient patient;
+
+	@BeforeEach
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		thumbnailCache = createCache(1_000_000);
+		patient = PatientHelper.setup();
+		patient.setCode(1);
+	}
+
+	@Test
+	public void testGetThumbnail() throws Exception {
+		PatientPhotoThumbnail thumbnail = thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo(1024, 768, BufferedImage.TYPE_INT_RGB, "jpeg"), 256);
+
+		assertThat(thumbnail.getContentType()).isEqualTo(MediaType.IMAGE_JPEG);
+		assertThat(thumbnail.getPhotoDigest()).isEqualTo(PHOTO_DIGEST);
+		BufferedImage image = read(thumbnail);
+		assertThat(image.getWidth()).isEqualTo(256);
+		assertThat(image.getHeight()).isEqualTo(192);
+	}
+
+	@Test
+	public void testGetThumbnail_KeepsTransparency() throws Exception {
+		PatientPhotoThumbnail thumbnail = thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo(300, 600, BufferedImage.TYPE_INT_ARGB, "png"), 64);
+
+		assertThat(thumbnail.getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+		BufferedImage image = read(thumbnail);
+		assertThat(image.getWidth()).isEqualTo(32);
+		assertThat(image.getHeight()).isEqualTo(64);
+		assertThat(image.getColorModel().hasAlpha()).isTrue();
+	}
+
+	@Test
+	public void testGetThumbnail_SmallPhotoNotEnlarged() throws Exception {
+		BufferedImage image = read(thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo(40, 30, BufferedImage.TYPE_INT_RGB, "jpeg"), 64));
+
+		assertThat(image.getWidth()).isEqualTo(40);
+		assertThat(image.getHeight()).isEqualTo(30);
+	}
+
+	@Test
+	public void testGetThumbnail_Cached() throws Exception {
+		Blob photo = photo(640, 480, BufferedImage.TYPE_INT_RGB, "jpeg");
+
+		PatientPhotoThumbnail first = thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo, 64);
+		PatientPhotoThumbnail second = thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo, 64);
+		thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo, 256);
+
+		assertThat(second).isSameAs(first);
+		verify(photo, times(2)).getBinaryStream();
+		assertThat(thumbnailCache.size()).isEqualTo(2);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", PatientPhotoThumbnailCache.CACHE_NAME).tag("result", "hit").functionCounter().count())
+			.isEqualTo(1);
+	}
+
+	@Test
+	public void testGetThumbnail_PhotoChanged() throws Exception {
+		PatientPhotoThumbnail first = thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo(640, 480, BufferedImage.TYPE_INT_RGB, "jpeg"), 64);
+
+		// the version of the patient is the same
+		Blob photo = photo(320, 480, BufferedImage.TYPE_INT_RGB, "jpeg");
+		PatientPhotoThumbnail second = thumbnailCache.getThumbnail(patient.getCode(), "other", photo, 64);
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getPhotoDigest()).isEqualTo("other");
+		assertThat(read(second).getWidth()).isEqualTo(43);
+		assertThat(thumbnailCache.getThumbnail(patient.getCode(), "other", photo, 64)).isSameAs(second);
+	}
+
+	@Test
+	public void testGetThumbnail_UndecodablePhoto() throws Exception {
+		Blob photo = spy(new SerialBlob(new byte[] { 'n', 'o', 't', ' ', 'a', 'n', ' ', 'i', 'm', 'a', 'g', 'e' }));
+
+		assertThat(thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo, 64)).isNull();
+		assertThat(thumbnailCache.size()).isZero();
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		Patient otherPatient = PatientHelper.setup();
+		otherPatient.setCode(2);
+		thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo(640, 480, BufferedImage.TYPE_INT_RGB, "jpeg"), 64);
+		thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo(640, 480, BufferedImage.TYPE_INT_RGB, "jpeg"), 256);
+		thumbnailCache.getThumbnail(otherPatient.getCode(), PHOTO_DIGEST, photo(640, 480, BufferedImage.TYPE_INT_RGB, "jpeg"), 64);
+
+		thumbnailCache.invalidate(patient.getCode());
+
+		assertThat(thumbnailCache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void testCacheDisabled() throws Exception {
+		thumbnailCache = createCache(0);
+		Blob photo = photo(640, 480, BufferedImage.TYPE_INT_RGB, "jpeg");
+
+		PatientPhotoThumbnail first = thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo, 64);
+		PatientPhotoThumbnail second = thumbnailCache.getThumbnail(patient.getCode(), PHOTO_DIGEST, photo, 64);
+
+		assertThat(second).isNotSameAs(first);
+		verify(photo, times(2)).getBinaryStream();
+		assertThat(thumbnailCache.size()).isZero();
+	}
+
+	private PatientPhotoThumbnailCache createCache(long maximumBytes) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+		return new PatientPhotoThumbnailCache(beanFactory.getBeanProvider(MeterRegistry.class), maximumBytes);
+	}
+
+	private static Blob photo(int width, int height, int imageType, String format) throws Exception {
+		ByteArrayOutputStream photo = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, imageType), format, photo);
+		return spy(new SerialBlob(photo.toByteArray()));
+	}
+
+	private static BufferedImage read(PatientPhotoThumbnail thumbnail) throws Exception {
+		return ImageIO.read(new ByteArrayInputStream(thumbnail.getContent()));
+	}
+}
@@ -22,12 +22,18 @@
 package org.isf.patient.rest;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -36,22 +42,48 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javax.imageio.ImageIO;
+import javax.sql.rowset.serial.SerialBlob;
 
 import org.isf.admission.data.AdmissionHelper;
 import org.isf.admission.manager.AdmissionBrowserManager;
 import org.isf.admission.model.Admission;
+import org.isf.admission.service.AdmissionStatusQuery;
 import org.isf.patconsensus.manager.PatientConsensusBrowserManager;
 import org.isf.patconsensus.model.PatientConsensus;
 import org.isf.patient.data.PatientHelper;
 import org.isf.patient.dto.PatientDTO;
 import org.isf.patient.dto.PatientSTATUS;
+import org.isf.patient.dto.PatientTimelineDTO;
+import org.isf.patient.dto.PatientTimelineEntryDTO;
 import org.isf.patient.manager.PatientBrowserManager;
 import org.isf.patient.mapper.PatientMapper;
+import org.isf.patient.mapper.PatientStatusMapper;
+import org.isf.patient.merge.PatientMergeJob;
+import org.isf.patient.merge.PatientMergeJobs;
 import org.isf.patient.model.Patient;
+import org.isf.patient.model.PatientProfilePhoto;
+import org.isf.patient.photo.PatientPhotoThumbnailCache;
+import org.isf.patient.search.PatientSearchIndex;
+import org.isf.patient.service.PatientListQuery;
+import org.isf.patient.timeline.PatientTimeline;
+import org.isf.patient.timeline.PatientTimelineSection;
 import org.isf.shared.exceptions.OHAPIException;
 import org.isf.shared.exceptions.OHResponseEntityExceptionHandler;
 import org.isf.shared.mapper.converter.BlobToByteArrayConverter;
@@ -60,7 +92,6 @@ import org.isf.shared.mapper.mappings.PatientMapping;
 import org.isf.shared.pagination.Page;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
-import org.isf.utils.pagination.PagedResponse;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -69,14 +100,20 @@ import org.mockito.MockitoAnnotations;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * @author ecastaneda1
  */
@@ -93,8 +130,26 @@ public class PatientControllerTest {
 	@Mock
 	private PatientConsensusBrowserManager patientConsensusManagerMock;
 
+	@Mock
+	private AdmissionStatusQuery admissionStatusQueryMock;
+
+	@Mock
+	private PatientListQuery patientListQueryMock;
+
+	@Mock
+	private PatientSearchIndex patientSearchIndexMock;
+
+	@Mock
+	private PatientMergeJobs patientMergeJobsMock;
+
+	@Mock
+	private PatientTimeline patientTimelineMock;
+
 	private PatientMapper patientMapper = new PatientMapper();
 
+	private PatientPhotoThumbnailCache photoThumbnailCache = new PatientPhotoThumbnailCache(new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class),
+					1_000_000);
+
 	private MockMvc mockMvc;
 
 	private AutoCloseable closeable;
@@ -104,7 +159,8 @@ public class PatientControllerTest {
 		closeable = MockitoAnnotations.openMocks(this);
 		this.mockMvc = MockMvcBuilders
 						.standaloneSetup(new PatientController(patientBrowserManagerMock, admissionBrowserManagerMock, patientMapper,
-										patientConsensusManagerMock))
+										patientConsensusManagerMock, photoThumbnailCache, new PatientStatusMapper(admissionStatusQueryMock),
+										patientListQueryMock, patientSearchIndexMock, patientMergeJobsMock, patientTimelineMock))
 						.setControllerAdvice(new OHResponseEntityExceptionHandler())
 						.build();
 		ModelMapper modelMapper = new ModelMapper();
@@ -116,6 +172,7 @@ public class PatientControllerTest {
 
 	@AfterEach
 	void closeService() throws Exception {
+		SecurityContextHolder.clearContext();
 		closeable.close();
 	}
 
@@ -365,25 +422,22 @@ public class PatientControllerTest {
 
 		int expectedPageSize = Integer.parseInt(PatientController.DEFAULT_PAGE_SIZE);
 
-		List<Patient> patientList = PatientHelper.setupPatientList(expectedPageSize);
-		
-		PagedResponse<Patient> patientPageable = new PagedResponse<>();
-		patientPageable.setData(patientList);
-		patientPageable.setPageInfo(PatientHelper.setParameterPage());
-		Page<PatientDTO> expectedPatientDTOList = new Page<>();
-		expectedPatientDTOList.setData(patientMapper.map2DTOList(patientList));	
-		expectedPatientDTOList.setPageInfo(patientMapper.setParameterPageInfo(patientPageable.getPageInfo()));
-		when(patientBrowserManagerMock.getPatientsPageable(anyInt(), anyInt())) 
-						.thenReturn(patientPageable);
+		List<PatientDTO> patientList = PatientHelper.setupPatientList(expectedPageSize).stream().map(patientMapper::map2DTO).toList();
+		when(patientListQueryMock.getPatients(0, expectedPageSize)).thenReturn(new PatientListQuery.Result(patientList, 200));
 
 		this.mockMvc
 						.perform(get(request)
 						.contentType(MediaType.APPLICATION_JSON))
 						.andDo(log())
 						.andExpect(status().isOk())
-						.andExpect(content().string(containsString(PatientHelper.asJsonString(expectedPatientDTOList.getData()))))
+						.andExpect(content().string(containsString(PatientHelper.asJsonString(patientList))))
+						.andExpect(jsonPath("$.pageInfo.totalNbOfElements").value(200))
+						.andExpect(jsonPath("$.pageInfo.totalPages").value(3))
+						.andExpect(jsonPath("$.pageInfo.hasNextPage").value(true))
 						.andReturn();
 
+		verifyNoInteractions(patientBrowserManagerMock);
+
 	}
 
 	/**
@@ -510,6 +564,343 @@ public class PatientControllerTest {
 						.andExpect(status().isNoContent());
 	}
 
+	/**
+	 * Test method for
+	 * {@link PatientController#searchPatient(String, String, java.time.LocalDateTime, String)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patients_search_with_name_then_status_resolved_for_the_whole_list_and_OK() throws Exception {
+		String request = "/patients/search";
+		Patient admittedPatient = PatientHelper.setup();
+		admittedPatient.setCode(1);
+		Patient patient = PatientHelper.setup();
+		patient.setCode(2);
+
+		when(patientListQueryMock.searchPatients(eq(admittedPatient.getFirstName()), any(), isNull(), any()))
+						.thenReturn(List.of(patientMapper.map2DTO(admittedPatient), patientMapper.map2DTO(patient)));
+		when(admissionStatusQueryMock.getAdmittedPatientCodes(List.of(1, 2))).thenReturn(Set.of(1));
+
+		this.mockMvc
+						.perform(
+										get(request)
+														.param("firstName", admittedPatient.getFirstName())
+														.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$[0].code").value(1))
+						.andExpect(jsonPath("$[0].status").value(PatientSTATUS.I.toString()))
+						.andExpect(jsonPath("$[1].code").value(2))
+						.andExpect(jsonPath("$[1].status").value(PatientSTATUS.O.toString()));
+
+		verify(admissionStatusQueryMock).getAdmittedPatientCodes(List.of(1, 2));
+		verifyNoInteractions(admissionBrowserManagerMock, patientBrowserManagerMock);
+	}
+
+	/**
+	 * Test method for {@link PatientController#searchPatientRanked(String, int, int)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patients_search_ranked_then_response_page_of_PatientDTO_and_OK() throws Exception {
+		String request = "/patients/search/ranked";
+		Patient patient = PatientHelper.setup();
+		patient.setCode(2);
+		Patient otherPatient = PatientHelper.setup();
+		otherPatient.setCode(1);
+
+		when(patientSearchIndexMock.isReady()).thenReturn(true);
+		when(patientSearchIndexMock.search("mohamed", 1, 2)).thenReturn(new PatientSearchIndex.Result(List.of(2, 1), 5));
+		when(patientListQueryMock.getPatients(List.of(2, 1))).thenReturn(List.of(patientMapper.map2DTO(patient), patientMapper.map2DTO(otherPatient)));
+		when(admissionStatusQueryMock.getAdmittedPatientCodes(List.of(2, 1))).thenReturn(Set.of(1));
+
+		this.mockMvc
+						.perform(
+										get(request)
+														.param("text", "mohamed")
+														.param("page", "1")
+														.param("size", "2")
+														.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$.data[0].code").value(2))
+						.andExpect(jsonPath("$.data[0].status").value(PatientSTATUS.O.toString()))
+						.andExpect(jsonPath("$.data[1].code").value(1))
+						.andExpect(jsonPath("$.data[1].status").value(PatientSTATUS.I.toString()))
+						.andExpect(jsonPath("$.pageInfo.page").value(1))
+						.andExpect(jsonPath("$.pageInfo.totalNbOfElements").value(5))
+						.andExpect(jsonPath("$.pageInfo.totalPages").value(3))
+						.andExpect(jsonPath("$.pageInfo.hasPreviousPage").value(true))
+						.andExpect(jsonPath("$.pageInfo.hasNextPage").value(true));
+	}
+
+	/**
+	 * Test method for {@link PatientController#searchPatientRanked(String, int, int)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patients_search_ranked_before_the_index_is_built_then_Service_Unavailable() throws Exception {
+		String request = "/patients/search/ranked";
+
+		when(patientSearchIndexMock.isReady()).thenReturn(false);
+		when(patientSearchIndexMock.isEnabled()).thenReturn(true);
+
+		this.mockMvc
+						.perform(
+										get(request)
+														.param("text", "mohamed")
+														.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isServiceUnavailable())
+						.andExpect(content().string(containsString("being built")));
+	}
+
+	/**
+	 * Test method for {@link PatientController#mergePatients(int, int)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patients_merge_then_merge_job_awaited_and_OK() throws Exception {
+		String request = "/patients/merge";
+		PatientMergeJob job = mergeJob(PatientMergeJob.Status.DONE);
+
+		when(patientBrowserManagerMock.getPatientById(any(Integer.class))).thenReturn(PatientHelper.setup());
+		when(patientMergeJobsMock.submit(1, 2)).thenReturn(job);
+		when(patientMergeJobsMock.await(job)).thenReturn(true);
+
+		this.mockMvc
+						.perform(
+										get(request)
+														.param("mergedcode", "1")
+														.param("code2", "2")
+														.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(content().string(containsString("true")));
+	}
+
+	/**
+	 * Test method for {@link PatientController#mergePatients(int, int)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patients_merge_not_finished_in_time_then_response_PatientMergeJobDTO_and_ACCEPTED() throws Exception {
+		String request = "/patients/merge";
+		PatientMergeJob job = mergeJob(PatientMergeJob.Status.RUNNING);
+
+		when(patientBrowserManagerMock.getPatientById(any(Integer.class))).thenReturn(PatientHelper.setup());
+		when(patientMergeJobsMock.submit(1, 2)).thenReturn(job);
+		when(patientMergeJobsMock.await(job)).thenReturn(false);
+
+		this.mockMvc
+						.perform(
+										get(request)
+														.param("mergedcode", "1")
+														.param("code2", "2")
+														.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isAccepted())
+						.andExpect(header().string(HttpHeaders.LOCATION, "/patients/merge/jobs/job-1"))
+						.andExpect(jsonPath("$.id").value("job-1"))
+						.andExpect(jsonPath("$.status").value("RUNNING"));
+	}
+
+	/**
+	 * Test method for {@link PatientController#submitMergePatients(int, int)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_post_patients_merge_jobs_then_response_PatientMergeJobDTO_and_ACCEPTED() throws Exception {
+		String request = "/patients/merge/jobs";
+		PatientMergeJob job = mergeJob(PatientMergeJob.Status.QUEUED);
+
+		when(patientBrowserManagerMock.getPatientById(any(Integer.class))).thenReturn(PatientHelper.setup());
+		when(patientMergeJobsMock.submit(1, 2)).thenReturn(job);
+
+		this.mockMvc
+						.perform(
+										post(request)
+														.param("mergedcode", "1")
+														.param("code2", "2")
+														.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isAccepted())
+						.andExpect(header().string(HttpHeaders.LOCATION, "/patients/merge/jobs/job-1"))
+						.andExpect(jsonPath("$.id").value("job-1"))
+						.andExpect(jsonPath("$.status").value("QUEUED"))
+						.andExpect(jsonPath("$.steps").value(3));
+	}
+
+	/**
+	 * Test method for {@link PatientController#submitMergePatients(int, int)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_post_patients_merge_jobs_with_patient_in_another_merge_then_Conflict() throws Exception {
+		String request = "/patients/merge/jobs";
+
+		when(patientBrowserManagerMock.getPatientById(any(Integer.class))).thenReturn(PatientHelper.setup());
+		when(patientMergeJobsMock.submit(3, 2)).thenThrow(new IllegalStateException("Another merge of patient 2 is in progress."));
+
+		this.mockMvc
+						.perform(
+										post(request)
+														.param("mergedcode", "3")
+														.param("code2", "2")
+														.contentType(MediaType.APPLICATION_JSON))
+						.andDo(log())
+						.andExpect(status().isConflict())
+						.andExpect(content().string(containsString("Another merge of patient 2 is in progress.")));
+	}
+
+	/**
+	 * Test method for {@link PatientController#getMergePatientsJob(String)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patients_merge_job_then_response_PatientMergeJobDTO_or_Not_Found() throws Exception {
+		String request = "/patients/merge/jobs/{id}";
+		PatientMergeJob job = mergeJob(PatientMergeJob.Status.RUNNING);
+		when(job.getStep()).thenReturn(PatientMergeJob.Step.MERGING);
+		when(job.getCompletedSteps()).thenReturn(1);
+
+		when(patientMergeJobsMock.getJob("job-1")).thenReturn(job);
+
+		this.mockMvc
+						.perform(get(request, "job-1"))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$.status").value("RUNNING"))
+						.andExpect(jsonPath("$.step").value("MERGING"))
+						.andExpect(jsonPath("$.completedSteps").value(1));
+
+		this.mockMvc
+						.perform(get(request, "unknown"))
+						.andDo(log())
+						.andExpect(status().isNotFound());
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientTimeline(int, List)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_timeline_with_sections_then_response_PatientTimelineDTO_and_OK() throws Exception {
+		int code = 123;
+		String request = "/patients/{code}/timeline";
+		Patient patient = PatientHelper.setup();
+		patient.setCode(code);
+		PatientTimelineDTO timeline = new PatientTimelineDTO();
+		timeline.setPatientCode(code);
+		timeline.setEntries(List.of(new PatientTimelineEntryDTO(PatientTimelineSection.VISITS, LocalDateTime.of(2024, 3, 1, 10, 0), 30, null)));
+		timeline.setIncompleteSections(List.of(PatientTimelineSection.ADMISSIONS));
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin", null, "patients.read", "visits.read", "admissions.read"));
+		when(patientBrowserManagerMock.getPatientById(code)).thenReturn(patient);
+		when(patientTimelineMock.getTimeline(patient, EnumSet.of(PatientTimelineSection.ADMISSIONS, PatientTimelineSection.VISITS))).thenReturn(timeline);
+
+		this.mockMvc
+						.perform(get(request, code).param("sections", "visits,ADMISSIONS"))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$.patientCode").value(code))
+						.andExpect(jsonPath("$.entries[0].section").value("VISITS"))
+						.andExpect(jsonPath("$.entries[0].code").value(30))
+						.andExpect(jsonPath("$.incompleteSections[0]").value("ADMISSIONS"))
+						.andExpect(jsonPath("$.forbiddenSections").isEmpty());
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientTimeline(int, List)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_timeline_with_patients_read_only_then_sections_forbidden_and_OK() throws Exception {
+		int code = 123;
+		String request = "/patients/{code}/timeline";
+		Patient patient = PatientHelper.setup();
+		patient.setCode(code);
+		PatientTimelineDTO timeline = new PatientTimelineDTO();
+		timeline.setPatientCode(code);
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("nurse", null, "patients.read"));
+		when(patientBrowserManagerMock.getPatientById(code)).thenReturn(patient);
+		when(patientTimelineMock.getTimeline(patient, EnumSet.noneOf(PatientTimelineSection.class))).thenReturn(timeline);
+
+		this.mockMvc
+						.perform(get(request, code))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(jsonPath("$.entries").isEmpty())
+						.andExpect(jsonPath("$.forbiddenSections.length()").value(PatientTimelineSection.values().length))
+						.andExpect(jsonPath("$.forbiddenSections[0]").value("ADMISSIONS"));
+		verify(patientTimelineMock).getTimeline(patient, EnumSet.noneOf(PatientTimelineSection.class));
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientTimeline(int, List)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_timeline_with_forbidden_section_then_OHAPIException_Forbidden() throws Exception {
+		String request = "/patients/{code}/timeline";
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("nurse", null, "patients.read", "visits.read"));
+
+		this.mockMvc
+						.perform(get(request, 123).param("sections", "visits,laboratories"))
+						.andDo(log())
+						.andExpect(status().isForbidden())
+						.andExpect(content().string(containsString("Not allowed to read the timeline sections [LABORATORIES].")));
+		verifyNoInteractions(patientTimelineMock);
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientTimeline(int, List)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_timeline_with_unknown_section_then_OHAPIException_BadRequest() throws Exception {
+		String request = "/patients/{code}/timeline";
+
+		this.mockMvc
+						.perform(get(request, 123).param("sections", "bills"))
+						.andDo(log())
+						.andExpect(status().isBadRequest())
+						.andExpect(content().string(containsString("Unknown timeline section 'bills'.")));
+		verifyNoInteractions(patientTimelineMock);
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientTimeline(int, List)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_timeline_with_unexistent_code_then_response_Not_Found() throws Exception {
+		String request = "/patients/{code}/timeline";
+
+		when(patientBrowserManagerMock.getPatientById(111)).thenReturn(null);
+
+		this.mockMvc
+						.perform(get(request, 111))
+						.andDo(log())
+						.andExpect(status().isNotFound());
+		verifyNoInteractions(patientTimelineMock);
+	}
+
 	/**
 	 * Test method for {@link PatientController#deletePatient(int)}.
 	 *
@@ -531,6 +922,8 @@ public class PatientControllerTest {
 						.andDo(log())
 						.andExpect(status().isOk())
 						.andExpect(content().string(containsString("true")));
+
+		verify(patientSearchIndexMock).remove(code);
 	}
 
 	/**
@@ -586,4 +979,199 @@ public class PatientControllerTest {
 		oHAPIException.ifPresent(se -> assertThat(se, instanceOf(OHAPIException.class)));
 	}
 
+
+	/**
+	 * Test method for {@link PatientController#getPatientPhoto(int, Integer, org.springframework.web.context.request.WebRequest)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_photo_with_existent_code_then_response_photo_with_ETag_and_OK() throws Exception {
+		int code = 123;
+		String request = "/patients/{code}/photo";
+		byte[] photo = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F' };
+		Patient patient = setupPatientWithPhoto(code, photo);
+
+		when(patientBrowserManagerMock.getPatientById(code)).thenReturn(patient);
+
+		this.mockMvc
+						.perform(get(request, code))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(header().string(HttpHeaders.ETAG, '"' + sha256(photo) + '"'))
+						.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+						.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, photo.length))
+						.andExpect(content().contentType(MediaType.IMAGE_JPEG))
+						.andExpect(content().bytes(photo));
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientPhoto(int, Integer, org.springframework.web.context.request.WebRequest)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_photo_with_matching_ETag_then_response_Not_Modified() throws Exception {
+		int code = 123;
+		String request = "/patients/{code}/photo";
+		byte[] photo = image(640, 480);
+		Patient patient = setupPatientWithPhoto(code, photo);
+
+		when(patientBrowserManagerMock.getPatientById(code)).thenReturn(patient);
+
+		this.mockMvc
+						.perform(get(request, code).header(HttpHeaders.IF_NONE_MATCH, '"' + sha256(photo) + '"'))
+						.andDo(log())
+						.andExpect(status().isNotModified())
+						.andExpect(content().bytes(new byte[0]));
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientPhoto(int, Integer, org.springframework.web.context.request.WebRequest)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_photo_changed_without_new_patient_version_then_response_photo_and_OK() throws Exception {
+		int code = 123;
+		String request = "/patients/{code}/photo";
+		byte[] oldPhoto = image(640, 480);
+		byte[] photo = image(320, 240);
+		Patient patient = setupPatientWithPhoto(code, photo);
+
+		when(patientBrowserManagerMock.getPatientById(code)).thenReturn(patient);
+
+		this.mockMvc
+						.perform(get(request, code).header(HttpHeaders.IF_NONE_MATCH, '"' + sha256(oldPhoto) + '"'))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(header().string(HttpHeaders.ETAG, '"' + sha256(photo) + '"'))
+						.andExpect(content().bytes(photo));
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientPhoto(int, Integer, org.springframework.web.context.request.WebRequest)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_photo_without_photo_then_response_Not_Found() throws Exception {
+		int code = 123;
+		String request = "/patients/{code}/photo";
+		Patient patient = PatientHelper.setup();
+		patient.setCode(code);
+		patient.setPatientProfilePhoto(null);
+
+		when(patientBrowserManagerMock.getPatientById(code)).thenReturn(patient);
+
+		this.mockMvc
+						.perform(get(request, code))
+						.andDo(log())
+						.andExpect(status().isNotFound())
+						.andExpect(content().string(containsString("Patient photo not found.")));
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientPhoto(int, Integer, org.springframework.web.context.request.WebRequest)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_photo_with_size_then_response_thumbnail_with_ETag_and_OK() throws Exception {
+		int code = 123;
+		String request = "/patients/{code}/photo?size=64";
+		byte[] photo = image(640, 480);
+		Patient patient = setupPatientWithPhoto(code, photo);
+
+		when(patientBrowserManagerMock.getPatientById(code)).thenReturn(patient);
+
+		MvcResult result = this.mockMvc
+						.perform(get(request, code))
+						.andDo(log())
+						.andExpect(status().isOk())
+						.andExpect(header().string(HttpHeaders.ETAG, '"' + sha256(photo) + "-64\""))
+						.andExpect(content().contentType(MediaType.IMAGE_JPEG))
+						.andReturn();
+		BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+		assertThat(thumbnail.getWidth(), is(64));
+		assertThat(thumbnail.getHeight(), is(48));
+	}
+
+	/**
+	 * Test method for {@link PatientController#getPatientPhoto(int, Integer, org.springframework.web.context.request.WebRequest)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_get_patient_photo_with_unsupported_size_then_OHAPIException_BadRequest() throws Exception {
+		int code = 123;
+		String request = "/patients/{code}/photo?size=100";
+
+		this.mockMvc
+						.perform(get(request, code))
+						.andDo(log())
+						.andExpect(status().isBadRequest())
+						.andExpect(content().string(containsString("Unsupported photo size")));
+		verifyNoInteractions(patientBrowserManagerMock);
+	}
+
+	/**
+	 * Test method for {@link PatientController#updatePatient(int, PatientDTO)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void when_put_update_patient_then_photo_thumbnails_are_invalidated() throws Exception {
+		int code = 123;
+		Patient patient = setupPatientWithPhoto(code, image(640, 480));
+		photoThumbnailCache.getThumbnail(code, "digest", patient.getPatientProfilePhoto().getPhoto(), 64);
+		assertThat(photoThumbnailCache.size(), is(1L));
+
+		PatientDTO newPatientDTO = PatientHelper.setup(patientMapper);
+		newPatientDTO.setCode(code);
+		Patient updatedPatient = PatientHelper.setup();
+		updatedPatient.setCode(code);
+		when(patientBrowserManagerMock.getPatientById(code)).thenReturn(patient);
+		when(patientConsensusManagerMock.getPatientConsensusByUserId(code)).thenReturn(Optional.of(new PatientConsensus()));
+		when(patientBrowserManagerMock.savePatient(any(Patient.class))).thenReturn(updatedPatient);
+
+		this.mockMvc
+						.perform(put("/patients/{code}", code)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content(PatientHelper.asJsonString(newPatientDTO)))
+						.andDo(log())
+						.andExpect(status().isOk());
+		assertThat(photoThumbnailCache.size(), is(0L));
+	}
+
+	private static byte[] image(int width, int height) throws Exception {
+		ByteArrayOutputStream image = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpeg", image);
+		return image.toByteArray();
+	}
+
+	private static String sha256(byte[] content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+	}
+
+	private Patient setupPatientWithPhoto(int code, byte[] photo) throws Exception {
+		PatientProfilePhoto patientProfilePhoto = mock(PatientProfilePhoto.class);
+		when(patientProfilePhoto.getPhoto()).thenReturn(new SerialBlob(photo));
+		Patient patient = PatientHelper.setup();
+		patient.setCode(code);
+		patient.setPatientProfilePhoto(patientProfilePhoto);
+		return patient;
+	}
+
+
+	private static PatientMergeJob mergeJob(PatientMergeJob.Status status) {
+		PatientMergeJob job = mock(PatientMergeJob.class);
+		when(job.getId()).thenReturn("job-1");
+		when(job.getMergedCode()).thenReturn(1);
+		when(job.getCode2()).thenReturn(2);
+		when(job.getStatus()).thenReturn(status);
+		when(job.getSteps()).thenReturn(PatientMergeJob.Step.values().length);
+		when(job.getCompletion()).thenReturn(CompletableFuture.completedFuture(job));
+		return job;
+	}
 }
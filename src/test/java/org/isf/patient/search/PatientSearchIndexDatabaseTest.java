@@ -0,0 +1,93 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Builds {@link PatientSearchIndex} from the test database, so that its queries run against the real mapping.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class PatientSearchIndexDatabaseTest {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private PatientSearchIndex patientSearchIndex;
+
+	private Patient patient;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		patient = patient("Zebulon", "Quaglietti", "Timbuktu", 1961);
+		entityManager.persist(patient);
+		Patient deletedPatient = patient("Zebulon", "Quaglietti", "Gao", 1972);
+		deletedPatient.setDeleted("Y");
+		entityManager.persist(deletedPatient);
+		entityManager.flush();
+		entityManager.clear();
+
+		patientSearchIndex = new PatientSearchIndex(true, 10);
+		ReflectionTestUtils.setField(patientSearchIndex, "entityManager", entityManager);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		patientSearchIndex.shutdown();
+	}
+
+	@Test
+	public void testBuild_PatientsReadFromTheDatabase() {
+		patientSearchIndex.build();
+
+		assertThat(patientSearchIndex.isReady()).isTrue();
+		assertThat(patientSearchIndex.search("quaglietti", 0, 10).getCodes()).containsExactly(patient.getCode());
+		assertThat(patientSearchIndex.search("zebulon timbuktu 1961", 0, 10).getCodes()).containsExactly(patient.getCode());
+		assertThat(patientSearchIndex.search("quaglietti gao", 0, 10).getCodes()).isEmpty();
+	}
+
+	private static Patient patient(String firstName, String secondName, String city, int birthYear) throws Exception {
+		Patient patient = new TestPatient().setup(false);
+		patient.setFirstName(firstName);
+		patient.setSecondName(secondName);
+		patient.setName(firstName + ' ' + secondName);
+		patient.setCity(city);
+		patient.setBirthDate(LocalDate.of(birthYear, 6, 1));
+		return patient;
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import org.isf.patient.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PatientSearchIndexTest {
+
+	private PatientSearchIndex patientSearchIndex;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		List<Object[]> rows = new ArrayList<>();
+		rows.add(row(1, "Mohamed", "Diallo", "Bamako", 1985));
+		rows.add(row(2, "Muhammad", "Traore", "Kayes", 1990));
+		rows.add(row(3, "Maria", "Rossi", "Bergamo", 1985));
+		rows.add(row(4, "Mario", "Rossi", "Bamako", 2001));
+		rows.add(row(5, "Aïssata", "Konaté", "Ségou", null));
+
+		EntityManager entityManager = mock(EntityManager.class);
+		TypedQuery<Object[]> patientsQuery = mock(TypedQuery.class);
+		when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(patientsQuery);
+		when(patientsQuery.setParameter(anyString(), any())).thenReturn(patientsQuery);
+		when(patientsQuery.setMaxResults(anyInt())).thenReturn(patientsQuery);
+		when(patientsQuery.getResultList()).thenReturn(rows);
+
+		patientSearchIndex = new PatientSearchIndex(true, 10);
+		ReflectionTestUtils.setField(patientSearchIndex, "entityManager", entityManager);
+		patientSearchIndex.build();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		patientSearchIndex.shutdown();
+	}
+
+	@Test
+	public void testBuild() {
+		assertThat(patientSearchIndex.isReady()).isTrue();
+		assertThat(codes("rossi")).containsExactlyInAnyOrder(3, 4);
+	}
+
+	@Test
+	public void testSearch_MisspelledName() {
+		// the exact spelling first, then the names sounding the same
+		assertThat(codes("mohamed")).containsExactly(1, 2);
+		assertThat(codes("Mouhamad")).contains(1, 2);
+		assertThat(codes("aissata konate")).containsExactly(5);
+	}
+
+	@Test
+	public void testSearch_AllWordsMatch() {
+		assertThat(codes("rossi 1985")).containsExactly(3);
+		assertThat(codes("rossi bamako")).containsExactly(4);
+		assertThat(codes("rossi kayes")).isEmpty();
+		assertThat(codes("")).isEmpty();
+	}
+
+	@Test
+	public void testSearch_Pages() {
+		PatientSearchIndex.Result first = patientSearchIndex.search("bamako", 0, 1);
+		PatientSearchIndex.Result second = patientSearchIndex.search("bamako", 1, 1);
+
+		assertThat(first.getTotal()).isEqualTo(2);
+		assertThat(second.getTotal()).isEqualTo(2);
+		assertThat(first.getCodes()).hasSize(1);
+		assertThat(second.getCodes()).hasSize(1).doesNotContainAnyElementsOf(first.getCodes());
+		assertThat(patientSearchIndex.search("bamako", 2, 1).getCodes()).isEmpty();
+	}
+
+	@Test
+	public void testPutAndRemove() {
+		patientSearchIndex.put(patient(4, "Mario", "Bianchi", "Kayes", 2001));
+		patientSearchIndex.put(patient(6, "Fatoumata", "Rossi", "Mopti", 1970));
+
+		assertThat(codes("rossi")).containsExactlyInAnyOrder(3, 6);
+		assertThat(codes("bianchi kayes")).containsExactly(4);
+
+		patientSearchIndex.remove(3);
+		Patient deleted = patient(6, "Fatoumata", "Rossi", "Mopti", 1970);
+		deleted.setDeleted("Y");
+		patientSearchIndex.put(deleted);
+
+		assertThat(codes("rossi")).isEmpty();
+	}
+
+	@Test
+	public void testCompaction() {
+		// every update leaves the postings of the previous version behind until the index is compacted
+		int keys = patientSearchIndex.keys("Maria", "Rossi", "Bergamo", 1985).size();
+		for (int i = 0; i <= PatientSearchIndex.MIN_STALE_POSTINGS / keys + 1; i++) {
+			patientSearchIndex.put(patient(3, "Maria", "Rossi", "Bergamo", 1985));
+		}
+
+		assertThat((long) ReflectionTestUtils.getField(patientSearchIndex, "stalePostings")).isLessThanOrEqualTo(PatientSearchIndex.MIN_STALE_POSTINGS);
+		assertThat(codes("maria rossi")).containsExactly(3, 4);
+		assertThat(codes("rossi")).containsExactlyInAnyOrder(3, 4);
+	}
+
+	@Test
+	public void testSearch_HighCodes() {
+		patientSearchIndex.put(patient(2_000_000, "Ousmane", "Rossi", "Mopti", 1970));
+
+		assertThat(codes("rossi")).containsExactlyInAnyOrder(3, 4, 2_000_000);
+		assertThat(codes("ousmane mopti")).containsExactly(2_000_000);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testBuild_RetriedAfterFailure() throws Exception {
+		List<Object[]> rows = new ArrayList<>();
+		rows.add(row(1, "Mohamed", "Diallo", "Bamako", 1985));
+		EntityManager entityManager = mock(EntityManager.class);
+		TypedQuery<Object[]> patientsQuery = mock(TypedQuery.class);
+		when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(patientsQuery);
+		when(patientsQuery.setParameter(anyString(), any())).thenReturn(patientsQuery);
+		when(patientsQuery.setMaxResults(anyInt())).thenReturn(patientsQuery);
+		when(patientsQuery.getResultList()).thenThrow(new IllegalStateException("Database not available")).thenReturn(rows);
+		PatientSearchIndex retried = new PatientSearchIndex(true, 10);
+		ReflectionTestUtils.setField(retried, "entityManager", entityManager);
+		try {
+			retried.build();
+			assertThat(retried.isReady()).isFalse();
+
+			long deadline = System.currentTimeMillis() + 5000;
+			while (!retried.isReady() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(retried.isReady()).isTrue();
+			assertThat(retried.search("diallo", 0, 10).getCodes()).containsExactly(1);
+			verify(patientsQuery, times(2)).getResultList();
+		} finally {
+			retried.shutdown();
+		}
+	}
+
+	@Test
+	public void testDisabled() {
+		PatientSearchIndex disabled = new PatientSearchIndex(false, 10);
+		disabled.put(patient(1, "Mohamed", "Diallo", "Bamako", 1985));
+
+		assertThat(disabled.isEnabled()).isFalse();
+		assertThat(disabled.isReady()).isFalse();
+		assertThat(disabled.search("mohamed", 0, 10).getCodes()).isEmpty();
+	}
+
+	private List<Integer> codes(String text) {
+		return patientSearchIndex.search(text, 0, 10).getCodes();
+	}
+
+	private static Object[] row(int code, String firstName, String secondName, String city, Integer birthYear) {
+		return new Object[] { code, firstName, secondName, city, birthYear != null ? LocalDate.of(birthYear, 6, 1) : null, firstName + ' ' + secondName };
+	}
+
+	private static Patient patient(int code, String firstName, String secondName, String city, int birthYear) {
+		Patient patient = new Patient();
+		patient.setCode(code);
+		patient.setFirstName(firstName);
+		patient.setSecondName(secondName);
+		patient.setName(firstName + ' ' + secondName);
+		patient.setCity(city);
+		patient.setBirthDate(LocalDate.of(birthYear, 6, 1));
+		return patient;
+	}
+}
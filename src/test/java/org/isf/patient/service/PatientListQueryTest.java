@@ -0,0 +1,144 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.isf.OpenHospitalApiApplication;
+import org.isf.patient.TestPatient;
+import org.isf.patient.dto.PatientDTO;
+import org.isf.patient.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads the patient lists with {@link PatientListQuery} against the test database.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class PatientListQueryTest {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private PatientListQuery patientListQuery;
+
+	private Statistics statistics;
+
+	private Patient first;
+
+	private Patient second;
+
+	private Patient third;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+
+		first = persistPatient("Ada", "Projectionone", "Via Roma 1", LocalDate.of(1980, 1, 1), "N");
+		second = persistPatient("Bea", "Projection%two", "Via Verdi 2", LocalDate.of(1990, 2, 2), "N");
+		third = persistPatient("Cal", "Projectionthree", "Via Roma 3", LocalDate.of(1980, 1, 1), "N");
+		// deleted
+		persistPatient("Dan", "Projectionfour", "Via Roma 4", LocalDate.of(1980, 1, 1), "Y");
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void testGetPatients_LastInsertedFirst() {
+		PatientListQuery.Result firstPage = patientListQuery.getPatients(0, 2);
+		PatientListQuery.Result secondPage = patientListQuery.getPatients(1, 2);
+
+		assertThat(firstPage.getPatients()).extracting(PatientDTO::getCode).containsExactly(third.getCode(), second.getCode());
+		assertThat(secondPage.getPatients()).extracting(PatientDTO::getCode).first().isEqualTo(first.getCode());
+		assertThat(firstPage.getTotal()).isEqualTo(secondPage.getTotal()).isGreaterThanOrEqualTo(3);
+	}
+
+	@Test
+	public void testGetPatients_NoEntityLoaded() {
+		statistics.clear();
+
+		List<PatientDTO> patients = patientListQuery.getPatients(0, 2).getPatients();
+
+		// neither the patients nor their photos are loaded as entities
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		PatientDTO patient = patients.get(0);
+		assertThat(patient.getFirstName()).isEqualTo(third.getFirstName());
+		assertThat(patient.getSecondName()).isEqualTo(third.getSecondName());
+		assertThat(patient.getAddress()).isEqualTo(third.getAddress());
+		assertThat(patient.getBirthDate()).isEqualTo(third.getBirthDate());
+		assertThat(patient.getSex()).isEqualTo(third.getSex());
+		assertThat(patient.getLock()).isEqualTo(third.getLock());
+		assertThat(patient.getBlobPhoto()).isNull();
+	}
+
+	@Test
+	public void testSearchPatients() {
+		assertThat(patientListQuery.searchPatients(null, "PROJECTION", null, "via roma"))
+						.extracting(PatientDTO::getCode)
+						.containsExactly(first.getCode(), third.getCode());
+		assertThat(patientListQuery.searchPatients("", "projection", LocalDate.of(1990, 2, 2), null))
+						.extracting(PatientDTO::getCode)
+						.containsExactly(second.getCode());
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	public void testSearchPatients_WildcardsEscaped() {
+		assertThat(patientListQuery.searchPatients(null, "n%t", null, null))
+						.extracting(PatientDTO::getCode)
+						.containsExactly(second.getCode());
+		assertThat(patientListQuery.searchPatients(null, "projection_", null, null)).isEmpty();
+	}
+
+	@Test
+	public void testGetPatients_ByCodes() {
+		assertThat(patientListQuery.getPatients(List.of(third.getCode(), first.getCode(), Integer.MAX_VALUE)))
+						.extracting(PatientDTO::getCode)
+						.containsExactly(third.getCode(), first.getCode());
+	}
+
+	private Patient persistPatient(String firstName, String secondName, String address, LocalDate birthDate, String deleted) throws Exception {
+		Patient patient = new TestPatient().setup(false);
+		patient.setFirstName(firstName);
+		patient.setSecondName(secondName);
+		patient.setName(firstName + ' ' + secondName);
+		patient.setAddress(address);
+		patient.setBirthDate(birthDate);
+		patient.setDeleted(deleted);
+		entityManager.persist(patient);
+		return patient;
+	}
+}
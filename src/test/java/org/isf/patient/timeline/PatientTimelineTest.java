@@ -0,0 +1,226 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.timeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.admission.dto.AdmissionDTO;
+import org.isf.admission.manager.AdmissionBrowserManager;
+import org.isf.admission.mapper.AdmissionMapper;
+import org.isf.admission.model.Admission;
+import org.isf.examination.manager.ExaminationBrowserManager;
+import org.isf.examination.mapper.PatientExaminationMapper;
+import org.isf.lab.dto.LaboratoryDTO;
+import org.isf.lab.manager.LabManager;
+import org.isf.lab.mapper.LaboratoryMapper;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryStatus;
+import org.isf.opd.manager.OpdBrowserManager;
+import org.isf.opd.mapper.OpdMapper;
+import org.isf.patient.dto.PatientTimelineDTO;
+import org.isf.patient.dto.PatientTimelineEntryDTO;
+import org.isf.patient.model.Patient;
+import org.isf.therapy.dto.TherapyRowDTO;
+import org.isf.therapy.manager.TherapyManager;
+import org.isf.therapy.mapper.TherapyRowMapper;
+import org.isf.therapy.model.TherapyRow;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.exception.model.OHExceptionMessage;
+import org.isf.visits.dto.VisitDTO;
+import org.isf.visits.manager.VisitManager;
+import org.isf.visits.mapper.VisitMapper;
+import org.isf.visits.model.Visit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class PatientTimelineTest {
+
+	private static final LocalDateTime DATE = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+	private final AdmissionBrowserManager admissionManager = mock(AdmissionBrowserManager.class);
+
+	private final OpdBrowserManager opdManager = mock(OpdBrowserManager.class);
+
+	private final LabManager laboratoryManager = mock(LabManager.class);
+
+	private final ExaminationBrowserManager examinationManager = mock(ExaminationBrowserManager.class);
+
+	private final TherapyManager therapyManager = mock(TherapyManager.class);
+
+	private final VisitManager visitManager = mock(VisitManager.class);
+
+	private final AdmissionMapper admissionMapper = mock(AdmissionMapper.class);
+
+	private final LaboratoryMapper laboratoryMapper = mock(LaboratoryMapper.class);
+
+	private final TherapyRowMapper therapyRowMapper = mock(TherapyRowMapper.class);
+
+	private final VisitMapper visitMapper = mock(VisitMapper.class);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private Patient patient;
+
+	private PatientTimeline patientTimeline;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		patient = new Patient();
+		patient.setCode(1);
+
+		Admission admission = new Admission();
+		when(admissionManager.getAdmissions(patient)).thenReturn(List.of(admission));
+		AdmissionDTO admissionDTO = new AdmissionDTO();
+		admissionDTO.setId(10);
+		admissionDTO.setAdmDate(DATE.minusDays(10));
+		when(admissionMapper.map2DTO(admission)).thenReturn(admissionDTO);
+
+		Laboratory done = new Laboratory();
+		done.setStatus(LaboratoryStatus.done.toString());
+		Laboratory draft = new Laboratory();
+		draft.setStatus(LaboratoryStatus.draft.toString());
+		when(laboratoryManager.getLaboratory(patient)).thenReturn(List.of(done, draft));
+		LaboratoryDTO laboratoryDTO = new LaboratoryDTO();
+		laboratoryDTO.setCode(20);
+		laboratoryDTO.setLabDate(DATE);
+		when(laboratoryMapper.map2DTO(done)).thenReturn(laboratoryDTO);
+		when(laboratoryMapper.map2DTO(draft)).thenReturn(new LaboratoryDTO());
+
+		Visit visit = new Visit();
+		when(visitManager.getVisits(1)).thenReturn(List.of(visit));
+		VisitDTO visitDTO = new VisitDTO();
+		visitDTO.setVisitID(30);
+		visitDTO.setDate(DATE.minusDays(1));
+		when(visitMapper.map2DTO(visit)).thenReturn(visitDTO);
+
+		TherapyRow therapyRow = new TherapyRow();
+		when(therapyManager.getTherapyRows(1)).thenReturn(List.of(therapyRow));
+		TherapyRowDTO therapyRowDTO = new TherapyRowDTO();
+		therapyRowDTO.setTherapyID(40);
+		when(therapyRowMapper.map2DTO(therapyRow)).thenReturn(therapyRowDTO);
+
+		when(opdManager.getOpdList(anyInt())).thenReturn(List.of());
+		when(examinationManager.getByPatID(anyInt())).thenReturn(null);
+
+		patientTimeline = createPatientTimeline(4, 16, 5000);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		release.countDown();
+		patientTimeline.shutdown();
+	}
+
+	@Test
+	public void testGetTimeline() {
+		PatientTimelineDTO timeline = patientTimeline.getTimeline(patient, EnumSet.allOf(PatientTimelineSection.class));
+
+		assertThat(timeline.getPatientCode()).isEqualTo(1);
+		assertThat(timeline.getIncompleteSections()).isEmpty();
+		// the draft laboratory is left out, the undated therapy is the last entry
+		assertThat(timeline.getEntries()).extracting(PatientTimelineEntryDTO::getSection).containsExactly(PatientTimelineSection.LABORATORIES,
+						PatientTimelineSection.VISITS, PatientTimelineSection.ADMISSIONS, PatientTimelineSection.THERAPIES);
+		assertThat(timeline.getEntries()).extracting(PatientTimelineEntryDTO::getCode).containsExactly(20, 30, 10, 40);
+		assertThat(timeline.getEntries().get(0).getDate()).isEqualTo(DATE);
+		assertThat(timeline.getEntries().get(0).getDetails()).isInstanceOf(LaboratoryDTO.class);
+	}
+
+	@Test
+	public void testGetTimeline_Sections() {
+		PatientTimelineDTO timeline = patientTimeline.getTimeline(patient, EnumSet.of(PatientTimelineSection.VISITS, PatientTimelineSection.ADMISSIONS));
+
+		assertThat(timeline.getEntries()).extracting(PatientTimelineEntryDTO::getCode).containsExactly(30, 10);
+		verifyNoInteractions(laboratoryManager, therapyManager, opdManager, examinationManager);
+	}
+
+	@Test
+	public void testGetTimeline_SectionFailed() throws Exception {
+		when(visitManager.getVisits(1)).thenThrow(new OHServiceException(new OHExceptionMessage("Visits not read.")));
+
+		PatientTimelineDTO timeline = patientTimeline.getTimeline(patient, EnumSet.allOf(PatientTimelineSection.class));
+
+		assertThat(timeline.getIncompleteSections()).containsExactly(PatientTimelineSection.VISITS);
+		assertThat(timeline.getEntries()).extracting(PatientTimelineEntryDTO::getCode).containsExactly(20, 10, 40);
+	}
+
+	@Test
+	public void testGetTimeline_TimeBudget() throws Exception {
+		patientTimeline.shutdown();
+		patientTimeline = createPatientTimeline(4, 16, 200);
+		blockTherapies();
+
+		long start = System.nanoTime();
+		PatientTimelineDTO timeline = patientTimeline.getTimeline(patient, EnumSet.allOf(PatientTimelineSection.class));
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+		assertThat(timeline.getIncompleteSections()).containsExactly(PatientTimelineSection.THERAPIES);
+		assertThat(timeline.getEntries()).extracting(PatientTimelineEntryDTO::getCode).containsExactly(20, 30, 10);
+	}
+
+	@Test
+	public void testGetTimeline_Refused() throws Exception {
+		patientTimeline.shutdown();
+		patientTimeline = createPatientTimeline(1, 1, 200);
+		when(admissionManager.getAdmissions(patient)).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return List.of();
+		});
+
+		// the admissions hold the only thread and the laboratories wait for it, the other sections are refused
+		PatientTimelineDTO timeline = patientTimeline.getTimeline(patient, EnumSet.of(PatientTimelineSection.ADMISSIONS, PatientTimelineSection.LABORATORIES,
+						PatientTimelineSection.THERAPIES, PatientTimelineSection.VISITS));
+
+		assertThat(timeline.getIncompleteSections()).containsExactly(PatientTimelineSection.ADMISSIONS, PatientTimelineSection.LABORATORIES,
+						PatientTimelineSection.THERAPIES, PatientTimelineSection.VISITS);
+		assertThat(timeline.getEntries()).isEmpty();
+	}
+
+	private void blockTherapies() throws Exception {
+		when(therapyManager.getTherapyRows(1)).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return List.of();
+		});
+	}
+
+	private PatientTimeline createPatientTimeline(int threads, int queueCapacity, long timeBudgetMillis) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		return new PatientTimeline(admissionManager, opdManager, laboratoryManager, examinationManager, therapyManager, visitManager,
+						admissionMapper, mock(OpdMapper.class), laboratoryMapper, mock(PatientExaminationMapper.class), therapyRowMapper, visitMapper,
+						beanFactory.getBeanProvider(PlatformTransactionManager.class), beanFactory.getBeanProvider(MeterRegistry.class),
+						threads, queueCapacity, timeBudgetMillis);
+	}
+}
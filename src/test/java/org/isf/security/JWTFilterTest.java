@@ -27,6 +27,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Date;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -34,6 +35,8 @@ import jakarta.servlet.ServletException;
 import org.isf.security.jwt.JWTFilter;
 import org.isf.security.jwt.TokenProvider;
 import org.isf.security.jwt.TokenValidationResult;
+import org.isf.security.jwt.VerifiedToken;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -42,6 +45,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 public class JWTFilterTest {
 
@@ -64,26 +68,31 @@ public class JWTFilterTest {
 		response = new MockHttpServletResponse();
 	}
 
+	@AfterEach
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
 	@Test
 	public void testDoFilter_ValidToken() throws ServletException, IOException {
 		String validToken = "valid.token";
 		Authentication mockAuthentication = mock(Authentication.class);
 
-		when(tokenProvider.validateToken(validToken)).thenReturn(TokenValidationResult.VALID);
-		when(tokenProvider.isTokenExpired(validToken)).thenReturn(false);
-		when(tokenProvider.getAuthentication(validToken)).thenReturn(mockAuthentication);
+		Date expiration = new Date(System.currentTimeMillis() + 100000);
+		when(tokenProvider.verifyToken(validToken)).thenReturn(VerifiedToken.valid(mockAuthentication, expiration));
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + validToken);
 
 		jwtFilter.doFilter(request, response, filterChain);
 
 		verify(filterChain).doFilter(request, response); // Ensure the filter chain continues
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(mockAuthentication);
 	}
 
 	@Test
 	public void testDoFilter_ExpiredToken() throws ServletException, IOException {
 		String expiredToken = "expired.token";
-		when(tokenProvider.validateToken(expiredToken)).thenReturn(TokenValidationResult.EXPIRED);
+		when(tokenProvider.verifyToken(expiredToken)).thenReturn(VerifiedToken.invalid(TokenValidationResult.EXPIRED));
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + expiredToken);
 
@@ -95,7 +104,7 @@ public class JWTFilterTest {
 	@Test
 	public void testDoFilter_MalformedToken() throws ServletException, IOException {
 		String malformedToken = "malformed.token";
-		when(tokenProvider.validateToken(malformedToken)).thenReturn(TokenValidationResult.MALFORMED);
+		when(tokenProvider.verifyToken(malformedToken)).thenReturn(VerifiedToken.invalid(TokenValidationResult.MALFORMED));
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + malformedToken);
 
@@ -113,7 +122,7 @@ public class JWTFilterTest {
 	@Test
 	public void testDoFilter_InvalidSignatureToken() throws ServletException, IOException {
 		String invalidSignatureToken = "eyJhbGciOiJIUzI1NiJ9.MISSING_PART.HMAC_SIGNATURE";
-		when(tokenProvider.validateToken(invalidSignatureToken)).thenReturn(TokenValidationResult.INVALID_SIGNATURE);
+		when(tokenProvider.verifyToken(invalidSignatureToken)).thenReturn(VerifiedToken.invalid(TokenValidationResult.INVALID_SIGNATURE));
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + invalidSignatureToken);
 
@@ -125,7 +134,7 @@ public class JWTFilterTest {
 	@Test
 	public void testDoFilter_UnsupportedToken() throws ServletException, IOException {
 		String unsupportedToken = "unsupported.token";
-		when(tokenProvider.validateToken(unsupportedToken)).thenReturn(TokenValidationResult.UNSUPPORTED);
+		when(tokenProvider.verifyToken(unsupportedToken)).thenReturn(VerifiedToken.invalid(TokenValidationResult.UNSUPPORTED));
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + unsupportedToken);
 
@@ -137,7 +146,7 @@ public class JWTFilterTest {
 	@Test
 	public void testDoFilter_EmptyClaimsToken() throws ServletException, IOException {
 		String emptyClaimsToken = "empty.claims.token";
-		when(tokenProvider.validateToken(emptyClaimsToken)).thenReturn(TokenValidationResult.EMPTY_CLAIMS);
+		when(tokenProvider.verifyToken(emptyClaimsToken)).thenReturn(VerifiedToken.invalid(TokenValidationResult.EMPTY_CLAIMS));
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + emptyClaimsToken);
 
@@ -149,9 +158,9 @@ public class JWTFilterTest {
 	@Test
 	public void testDoFilter_UnexpectedResult() throws ServletException, IOException {
 		String unexpectedToken = "unexpected.token";
-		when(tokenProvider.validateToken(unexpectedToken)).thenAnswer(invocation -> {
+		when(tokenProvider.verifyToken(unexpectedToken)).thenAnswer(invocation -> {
 			// Return an unexpected result
-			return TokenValidationResult.valueOf("UNKNOWN"); // Use a valid value for testing
+			return VerifiedToken.invalid(TokenValidationResult.valueOf("UNKNOWN")); // Use a valid value for testing
 		});
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + unexpectedToken);
@@ -164,7 +173,7 @@ public class JWTFilterTest {
 	@Test
 	public void testDoFilter_NullValidationResult() throws ServletException, IOException {
 		String tokenWithNullValidationResult = "null.validation.token";
-		when(tokenProvider.validateToken(tokenWithNullValidationResult)).thenReturn(null);
+		when(tokenProvider.verifyToken(tokenWithNullValidationResult)).thenReturn(null);
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + tokenWithNullValidationResult);
 
@@ -178,9 +187,8 @@ public class JWTFilterTest {
 		String validTokenButExpired = "valid.token.but.expired";
 		Authentication mockAuthentication = mock(Authentication.class);
 
-		when(tokenProvider.validateToken(validTokenButExpired)).thenReturn(TokenValidationResult.VALID);
-		when(tokenProvider.isTokenExpired(validTokenButExpired)).thenReturn(true); // Token is expired
-		when(tokenProvider.getAuthentication(validTokenButExpired)).thenReturn(mockAuthentication);
+		Date expiration = new Date(System.currentTimeMillis() - 1000); // Token is expired
+		when(tokenProvider.verifyToken(validTokenButExpired)).thenReturn(VerifiedToken.valid(mockAuthentication, expiration));
 
 		request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + validTokenButExpired);
 
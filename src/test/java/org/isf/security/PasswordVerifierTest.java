@@ -0,0 +1,155 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.menu.manager.UserBrowsingManager;
+import org.isf.menu.model.User;
+import org.isf.menu.model.UserGroup;
+import org.isf.utils.exception.OHServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PasswordVerifierTest {
+
+	private UserBrowsingManager userManager;
+
+	private ApplicationEventPublisher eventPublisher;
+
+	private MeterRegistry meterRegistry;
+
+	private PasswordVerifier passwordVerifier;
+
+	@BeforeEach
+	public void setUp() {
+		userManager = mock(UserBrowsingManager.class);
+		eventPublisher = mock(ApplicationEventPublisher.class);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (passwordVerifier != null) {
+			passwordVerifier.shutdown();
+		}
+	}
+
+	@Test
+	public void testMatches() {
+		BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+		passwordVerifier = createPasswordVerifier(passwordEncoder, 2, 8);
+		String hash = passwordEncoder.encode("secret");
+
+		assertThat(passwordVerifier.matches("secret", hash)).isTrue();
+		assertThat(passwordVerifier.matches("wrong", hash)).isFalse();
+		assertThat(meterRegistry.get("oh.security.password.verification").tag("result", "match").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("oh.security.password.verification").tag("result", "mismatch").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("executor.queued").tag("name", PasswordVerifier.EXECUTOR_NAME).gauge().value()).isZero();
+	}
+
+	@Test
+	public void testMatches_RejectedWhenQueueIsFull() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+		when(passwordEncoder.matches(any(), any())).thenAnswer(invocation -> {
+			started.countDown();
+			return release.await(5, TimeUnit.SECONDS);
+		});
+		passwordVerifier = createPasswordVerifier(passwordEncoder, 1, 1);
+
+		ExecutorService clients = Executors.newFixedThreadPool(2);
+		try {
+			// the first login occupies the only thread, the second one the only queue slot
+			clients.submit(() -> passwordVerifier.matches("secret", "hash"));
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+			clients.submit(() -> passwordVerifier.matches("secret", "hash"));
+			while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+				Thread.sleep(10);
+			}
+
+			PasswordVerificationRejectedException exception = assertThrows(PasswordVerificationRejectedException.class,
+							() -> passwordVerifier.matches("secret", "hash"));
+			assertThat(exception.getRetryAfterSeconds()).isEqualTo(2);
+			assertThat(meterRegistry.get("oh.security.password.verification.rejected").counter().count()).isEqualTo(1);
+		} finally {
+			release.countDown();
+			clients.shutdown();
+		}
+	}
+
+	@Test
+	public void testUpgradeEncoding() throws OHServiceException {
+		String weakHash = new BCryptPasswordEncoder(4).encode("secret");
+		BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(5);
+		passwordVerifier = createPasswordVerifier(passwordEncoder, 1, 8);
+		when(userManager.getUserByName("doctor")).thenReturn(new User("doctor", new UserGroup("doctor", "Doctor group"), weakHash, "Doctor"));
+		when(userManager.updatePassword(any())).thenReturn(true);
+
+		passwordVerifier.upgradeEncodingIfNeeded("doctor", "secret", weakHash);
+
+		ArgumentCaptor<User> user = ArgumentCaptor.forClass(User.class);
+		verify(userManager, timeout(5000)).updatePassword(user.capture());
+		assertThat(user.getValue().getPasswd()).startsWith("$2a$05$");
+		assertThat(passwordEncoder.matches("secret", user.getValue().getPasswd())).isTrue();
+		verify(eventPublisher, timeout(5000)).publishEvent(any(UserAuthoritiesChangedEvent.class));
+	}
+
+	@Test
+	public void testUpgradeEncoding_NotNeeded() throws OHServiceException {
+		BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+		passwordVerifier = createPasswordVerifier(passwordEncoder, 1, 8);
+
+		passwordVerifier.upgradeEncodingIfNeeded("doctor", "secret", passwordEncoder.encode("secret"));
+
+		verify(userManager, never()).getUserByName(any());
+	}
+
+	private PasswordVerifier createPasswordVerifier(PasswordEncoder passwordEncoder, int threads, int queueCapacity) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+		return new PasswordVerifier(passwordEncoder, userManager, eventPublisher, beanFactory.getBeanProvider(MeterRegistry.class),
+						threads, queueCapacity, 5000, 2);
+	}
+}
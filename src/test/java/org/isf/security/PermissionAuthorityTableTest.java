@@ -0,0 +1,148 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.isf.permissions.manager.PermissionManager;
+import org.isf.permissions.model.Permission;
+import org.isf.security.data.PermissionHelper;
+import org.isf.security.jwt.PermissionAuthorityTable;
+import org.isf.security.jwt.TokenProvider;
+import org.isf.security.jwt.VerifiedToken;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.exception.model.OHExceptionMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PermissionAuthorityTableTest {
+
+	private static final String SECRET = "+Z0E+6QXT9ri0L+PVkRTSF/tsZ/Z1yXJdrqz8FieiebiezOuIcuabJExyxCZi1bzSteaSmbCdzIaLDLPht92Bg==";
+
+	private PermissionManager permissionManager;
+
+	private List<Permission> permissions;
+
+	private PermissionAuthorityTable permissionAuthorityTable;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		permissions = PermissionHelper.setupAdminPermissions();
+		permissionManager = mock(PermissionManager.class);
+		when(permissionManager.retrieveAllPermissions()).thenReturn(permissions);
+		permissionAuthorityTable = new PermissionAuthorityTable(permissionManager);
+	}
+
+	@Test
+	public void testEncodeDecode() throws Exception {
+		List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("patients.read"), new SimpleGrantedAuthority("admissions.create"));
+
+		String claim = permissionAuthorityTable.encode(authorities);
+		List<GrantedAuthority> decoded = permissionAuthorityTable.decode(claim);
+
+		assertThat(decoded).extracting(GrantedAuthority::getAuthority).containsExactly("admissions.create", "patients.read");
+		assertThat(permissionAuthorityTable.decode(claim)).isSameAs(decoded);
+		assertThat(permissionAuthorityTable.decode(permissionAuthorityTable.encode(List.copyOf(authorities)))).isSameAs(decoded);
+		verify(permissionManager, times(1)).retrieveAllPermissions();
+	}
+
+	@Test
+	public void testEncodeUnknownAuthority() {
+		assertThat(permissionAuthorityTable.encode(List.of(new SimpleGrantedAuthority("unknown.read")))).isNull();
+	}
+
+	@Test
+	public void testDecodeUnknownPermission() throws Exception {
+		String claim = permissionAuthorityTable.encode(List.of(new SimpleGrantedAuthority("wards.delete")));
+		PermissionManager otherPermissionManager = mock(PermissionManager.class);
+		when(otherPermissionManager.retrieveAllPermissions()).thenReturn(permissions.subList(0, 4));
+		PermissionAuthorityTable otherPermissionAuthorityTable = new PermissionAuthorityTable(otherPermissionManager);
+
+		assertThrows(IllegalArgumentException.class, () -> otherPermissionAuthorityTable.decode(claim));
+		assertThrows(IllegalArgumentException.class, () -> otherPermissionAuthorityTable.decode(""));
+		// the unknown permission triggers no second load within the reload interval
+		verify(otherPermissionManager, times(1)).retrieveAllPermissions();
+	}
+
+	@Test
+	public void testFailedLoadThrottled() throws Exception {
+		when(permissionManager.retrieveAllPermissions()).thenThrow(new OHServiceException(new OHExceptionMessage("database unavailable")));
+		String claim = new PermissionAuthorityTable(mockPermissionManager()).encode(List.of(new SimpleGrantedAuthority("patients.read")));
+
+		assertThat(permissionAuthorityTable.encode(List.of(new SimpleGrantedAuthority("patients.read")))).isNull();
+		assertThat(permissionAuthorityTable.encode(List.of(new SimpleGrantedAuthority("patients.read")))).isNull();
+		assertThrows(IllegalArgumentException.class, () -> permissionAuthorityTable.decode(claim));
+		verify(permissionManager, times(1)).retrieveAllPermissions();
+	}
+
+	@Test
+	public void testCompactTokenSize() {
+		List<SimpleGrantedAuthority> authorities = permissions.stream()
+						.map(permission -> new SimpleGrantedAuthority(permission.getName()))
+						.toList();
+		Authentication authentication = new UsernamePasswordAuthenticationToken("admin", "admin", authorities);
+
+		String token = createTokenProvider(false).generateJwtToken(authentication, false);
+		TokenProvider compactTokenProvider = createTokenProvider(true);
+		String compactToken = compactTokenProvider.generateJwtToken(authentication, false);
+
+		// names take about 20 bytes per permission, the bitset a bit more than one bit
+		assertThat(compactToken.length()).isLessThan(token.length() / 5);
+		VerifiedToken verifiedToken = compactTokenProvider.verifyToken(compactToken);
+		assertThat(verifiedToken.getAuthentication().getName()).isEqualTo("admin");
+		assertThat(verifiedToken.getAuthentication().getAuthorities()).extracting(GrantedAuthority::getAuthority)
+						.containsExactlyElementsOf(authorities.stream().map(SimpleGrantedAuthority::getAuthority).toList());
+		// tokens in the former format are still accepted
+		assertThat(compactTokenProvider.verifyToken(token).getAuthentication().getAuthorities()).hasSize(authorities.size());
+	}
+
+	private PermissionManager mockPermissionManager() throws Exception {
+		PermissionManager otherPermissionManager = mock(PermissionManager.class);
+		when(otherPermissionManager.retrieveAllPermissions()).thenReturn(permissions);
+		return otherPermissionManager;
+	}
+
+	private TokenProvider createTokenProvider(boolean compactAuthorities) {
+		MockEnvironment environment = new MockEnvironment()
+						.withProperty("jwt.token.secret", SECRET)
+						.withProperty("jwt.token.cache-size", "0")
+						.withProperty("jwt.token.compact-authorities", String.valueOf(compactAuthorities));
+		TokenProvider tokenProvider = new TokenProvider();
+		ReflectionTestUtils.setField(tokenProvider, "env", environment);
+		ReflectionTestUtils.setField(tokenProvider, "permissionAuthorityTable", permissionAuthorityTable);
+		tokenProvider.init();
+		return tokenProvider;
+	}
+}
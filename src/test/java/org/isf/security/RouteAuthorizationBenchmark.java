@@ -0,0 +1,120 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.security.authorization.RouteAuthorizationManager;
+import org.isf.security.authorization.RouteAuthorizationRules;
+import org.isf.security.data.LegacyAuthorizationRulesHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
+
+/**
+ * Compares the per-request authorization cost of the linear chain of MVC request matchers ({@code legacyChain})
+ * with the compiled route index ({@code compiledIndex}), for routes at the top, in the middle and at the bottom
+ * of the rule table and for a route not matched by any rule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteAuthorizationBenchmark {
+
+	@Param({ "GET /admissions/1", "GET /patients/1", "DELETE /wards/W1", "GET /hospitals" })
+	public String route;
+
+	private ConfigurableApplicationContext applicationContext;
+
+	private RequestMatcherDelegatingAuthorizationManager legacyAuthorizationManager;
+
+	private RouteAuthorizationManager routeAuthorizationManager;
+
+	private MockHttpServletRequest request;
+
+	private RequestAuthorizationContext context;
+
+	private Authentication authentication;
+
+	@Setup
+	public void setUp() {
+		applicationContext = new SpringApplicationBuilder(OpenHospitalApiApplication.class).properties("server.port=0",
+						"spring.mvc.pathmatch.matching-strategy=ANT_PATH_MATCHER").run();
+		HandlerMappingIntrospector handlerMappingIntrospector = applicationContext.getBean(HandlerMappingIntrospector.class);
+		legacyAuthorizationManager = LegacyAuthorizationRulesHelper.legacyAuthorizationManager(handlerMappingIntrospector);
+		routeAuthorizationManager = new RouteAuthorizationManager(RouteAuthorizationRules.defaultRules());
+
+		String[] methodAndPath = route.split(" ");
+		request = new MockHttpServletRequest(methodAndPath[0], methodAndPath[1]);
+		request.setServletPath(methodAndPath[1]);
+		// the handler mapping of the request is looked up once per request, as the filter chain of the application does
+		handlerMappingIntrospector.setCache(request);
+		context = new RequestAuthorizationContext(request);
+		authentication = new UsernamePasswordAuthenticationToken("admin", null,
+						AuthorityUtils.createAuthorityList("admissions.read", "patients.read", "wards.delete"));
+	}
+
+	@TearDown
+	public void tearDown() {
+		applicationContext.close();
+	}
+
+	@Benchmark
+	public AuthorizationDecision legacyChain() {
+		return legacyAuthorizationManager.check(() -> authentication, request);
+	}
+
+	@Benchmark
+	public AuthorizationDecision compiledIndex() {
+		return routeAuthorizationManager.check(() -> authentication, context);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(RouteAuthorizationBenchmark.class.getSimpleName()).build()).run();
+	}
+}
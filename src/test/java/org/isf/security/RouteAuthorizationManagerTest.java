@@ -0,0 +1,195 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.security.authorization.RouteAuthorizationManager;
+import org.isf.security.authorization.RouteAuthorizationRule;
+import org.isf.security.authorization.RouteAuthorizationRules;
+import org.isf.security.data.LegacyAuthorizationRulesHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
+
+// the handler mappings match the paths with the strategy of rsc/application.properties.dist
+@SpringBootTest(classes = OpenHospitalApiApplication.class, properties = "spring.mvc.pathmatch.matching-strategy=ANT_PATH_MATCHER")
+public class RouteAuthorizationManagerTest {
+
+	private static final List<String> METHODS = List.of("GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS");
+
+	private RouteAuthorizationManager routeAuthorizationManager;
+
+	private RequestMatcherDelegatingAuthorizationManager legacyAuthorizationManager;
+
+	@Autowired
+	private HandlerMappingIntrospector handlerMappingIntrospector;
+
+	@BeforeEach
+	public void setUp() {
+		routeAuthorizationManager = new RouteAuthorizationManager(RouteAuthorizationRules.defaultRules());
+		legacyAuthorizationManager = LegacyAuthorizationRulesHelper.legacyAuthorizationManager(handlerMappingIntrospector);
+	}
+
+	@Test
+	public void testSameDecisionsAsLegacyChain() {
+		List<String> paths = samplePaths();
+		List<Authentication> authentications = sampleAuthentications();
+		List<String> mismatches = new ArrayList<>();
+		int checks = 0;
+		for (String method : METHODS) {
+			for (String path : paths) {
+				MockHttpServletRequest request = request(method, path);
+				// the handler mapping of the request is looked up once, as the filter chain of the application does
+				handlerMappingIntrospector.setCache(request);
+				for (Authentication authentication : authentications) {
+					boolean expected = isGranted(legacyAuthorizationManager.check(() -> authentication, request));
+					boolean actual = isGranted(routeAuthorizationManager.check(() -> authentication, new RequestAuthorizationContext(request)));
+					if (expected != actual) {
+						mismatches.add(method + ' ' + path + ' ' + authentication + " expected " + expected);
+					}
+					checks++;
+				}
+			}
+		}
+		assertThat(mismatches).isEmpty();
+		assertThat(checks).isGreaterThan(100_000);
+	}
+
+	@Test
+	public void testProtectedRoute() {
+		RequestAuthorizationContext context = new RequestAuthorizationContext(request("GET", "/wards/W1"));
+
+		assertThat(isGranted(routeAuthorizationManager.check(() -> user("wards.read"), context))).isTrue();
+		assertThat(isGranted(routeAuthorizationManager.check(() -> user("wards.update"), context))).isFalse();
+		assertThat(isGranted(routeAuthorizationManager.check(RouteAuthorizationManagerTest::anonymous, context))).isFalse();
+	}
+
+	@Test
+	public void testAllAuthoritiesRequired() {
+		RequestAuthorizationContext context = new RequestAuthorizationContext(request("PUT", "/exams/E1"));
+
+		assertThat(isGranted(routeAuthorizationManager.check(() -> user("exams.update", "examrows.create"), context))).isFalse();
+		assertThat(isGranted(routeAuthorizationManager.check(() -> user("exams.update", "examrows.create", "examrows.delete"), context))).isTrue();
+	}
+
+	@Test
+	public void testUnmatchedRouteIsPermitted() {
+		RequestAuthorizationContext context = new RequestAuthorizationContext(request("GET", "/hospitals"));
+
+		assertThat(isGranted(routeAuthorizationManager.check(RouteAuthorizationManagerTest::anonymous, context))).isTrue();
+	}
+
+	@Test
+	public void testActuatorRequiresAuthentication() {
+		RequestAuthorizationContext context = new RequestAuthorizationContext(request("GET", "/actuator/metrics/cache.gets"));
+
+		assertThat(isGranted(routeAuthorizationManager.check(RouteAuthorizationManagerTest::anonymous, context))).isFalse();
+		assertThat(isGranted(routeAuthorizationManager.check(() -> user(), context))).isTrue();
+	}
+
+	@Test
+	public void testPathWithEmptySegments() {
+		RequestAuthorizationContext context = new RequestAuthorizationContext(request("GET", "//patients//1"));
+
+		assertThat(isGranted(routeAuthorizationManager.check(RouteAuthorizationManagerTest::anonymous, context))).isFalse();
+		assertThat(isGranted(routeAuthorizationManager.check(() -> user("patients.read"), context))).isTrue();
+	}
+
+	private static List<String> samplePaths() {
+		Set<String> paths = new LinkedHashSet<>(List.of("", "/", "/hospitals", "/hospitals/H1", "/v3/api-docs", "/swagger-ui/index.html", "/error",
+						"/auth/login", "/auth/logout", "/users/me", "/users/me/settings", "/users", "/users/", "/users/admin", "/users/admin/x",
+						"/usergroups/admin", "/usergroups/admin/permissions", "/usergroups/admin/permissions/1", "/usergroups/admin/other",
+						"/Admissions/1", "/admissionsx"));
+		for (RouteAuthorizationRule rule : RouteAuthorizationRules.defaultRules()) {
+			String path = rule.getPattern().replaceAll("\\{[^}]+}", "P1");
+			if (path.endsWith("/**")) {
+				String base = path.substring(0, path.length() - 3);
+				paths.addAll(List.of(base, base + '/', base + "/1", base + "/1/2", base + "x", base + "x/1"));
+			} else {
+				paths.addAll(List.of(path, path + '/', path + "/1", path + "x"));
+			}
+		}
+		return new ArrayList<>(paths);
+	}
+
+	private static List<Authentication> sampleAuthentications() {
+		Set<String> authorities = new LinkedHashSet<>();
+		for (RouteAuthorizationRule rule : RouteAuthorizationRules.defaultRules()) {
+			String resource = rule.getPattern().substring(1).split("/")[0];
+			for (String action : List.of("create", "read", "update", "delete")) {
+				authorities.add(resource + '.' + action);
+			}
+		}
+		for (String action : List.of("create", "read", "update", "delete")) {
+			authorities.add("grouppermission." + action);
+		}
+
+		List<Authentication> authentications = new ArrayList<>();
+		authentications.add(anonymous());
+		authentications.add(user());
+		for (String authority : authorities) {
+			authentications.add(user(authority));
+		}
+		authentications.add(user("exams.create", "examrows.create"));
+		authentications.add(user("exams.update", "examrows.create"));
+		authentications.add(user("exams.update", "examrows.delete"));
+		authentications.add(user("exams.update", "examrows.create", "examrows.delete"));
+		authentications.add(user("grouppermission.create", "grouppermission.delete"));
+		authentications.add(user(authorities.toArray(String[]::new)));
+		return authentications;
+	}
+
+	private static MockHttpServletRequest request(String method, String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setServletPath(path);
+		return request;
+	}
+
+	private static Authentication anonymous() {
+		return new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+	}
+
+	private static Authentication user(String... authorities) {
+		return new UsernamePasswordAuthenticationToken("admin", null, AuthorityUtils.createAuthorityList(authorities));
+	}
+
+	private static boolean isGranted(AuthorizationDecision decision) {
+		return decision != null && decision.isGranted();
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.sessionaudit.manager.SessionAuditManager;
+import org.isf.sessionaudit.model.SessionAudit;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.exception.model.OHExceptionMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SessionAuditWriterTest {
+
+	private SessionAuditManager sessionAuditManager;
+
+	private SessionAuditQuery sessionAuditQuery;
+
+	private MeterRegistry meterRegistry;
+
+	private SessionAuditWriter sessionAuditWriter;
+
+	@BeforeEach
+	public void setUp() {
+		sessionAuditManager = mock(SessionAuditManager.class);
+		sessionAuditQuery = mock(SessionAuditQuery.class);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (sessionAuditWriter != null) {
+			sessionAuditWriter.shutdown();
+		}
+	}
+
+	@Test
+	public void testLogoutUpdatesStoredSession() throws Exception {
+		ArgumentCaptor<SessionAudit> sessionAudits = ArgumentCaptor.forClass(SessionAudit.class);
+		when(sessionAuditManager.newSessionAudit(any())).thenReturn(7);
+		sessionAuditWriter = createSessionAuditWriter(100);
+
+		String sessionId = sessionAuditWriter.login("admin");
+		verify(sessionAuditManager, timeout(5000)).newSessionAudit(sessionAudits.capture());
+		SessionAudit stored = sessionAudits.getValue();
+		when(sessionAuditQuery.getOpenSessionAudit("admin", stored.getLoginDate())).thenReturn(Optional.of(stored));
+		sessionAuditWriter.logout("admin", sessionId);
+
+		verify(sessionAuditManager, timeout(5000)).updateSessionAudit(stored);
+		assertThat(stored.getLogoutDate()).isNotNull();
+		assertThat(stored.getLoginDate()).isEqualTo(LocalDateTime.parse(sessionId));
+	}
+
+	@Test
+	public void testLogoutRecordedByAnotherWriter() throws Exception {
+		// the login was recorded by another node, or before a restart: only the token and the database know the session
+		LocalDateTime loginDate = LocalDateTime.of(2024, 3, 1, 10, 15, 30);
+		SessionAudit stored = new SessionAudit("admin", loginDate, null);
+		when(sessionAuditQuery.getOpenSessionAudit("admin", loginDate)).thenReturn(Optional.of(stored));
+		sessionAuditWriter = createSessionAuditWriter(100);
+
+		sessionAuditWriter.logout("admin", "2024-03-01T10:15:30");
+
+		verify(sessionAuditManager, timeout(5000)).updateSessionAudit(stored);
+		assertThat(stored.getLogoutDate()).isNotNull();
+		verify(sessionAuditManager, never()).newSessionAudit(any());
+	}
+
+	@Test
+	public void testLogoutMalformedSession() throws Exception {
+		sessionAuditWriter = createSessionAuditWriter(100);
+
+		sessionAuditWriter.logout("admin", "6f1c0a4e-3f7b-4c55-8d0e-1b2a3c4d5e6f");
+
+		assertThat(sessionAuditWriter.getPendingCount()).isZero();
+		verifyNoInteractions(sessionAuditQuery);
+	}
+
+	@Test
+	public void testLoginAndLogoutWrittenTogether() throws Exception {
+		// the first write blocks until the next events are queued, so that they are written as one group
+		CountDownLatch queued = new CountDownLatch(1);
+		ArgumentCaptor<SessionAudit> sessionAudits = ArgumentCaptor.forClass(SessionAudit.class);
+		doAnswer(invocation -> {
+			queued.await(5, TimeUnit.SECONDS);
+			return 1;
+		}).when(sessionAuditManager).newSessionAudit(sessionAudits.capture());
+		sessionAuditWriter = createSessionAuditWriter(100);
+
+		sessionAuditWriter.login("admin");
+		verify(sessionAuditManager, timeout(5000)).newSessionAudit(any());
+		String sessionId = sessionAuditWriter.login("guest");
+		sessionAuditWriter.logout("guest", sessionId);
+		queued.countDown();
+
+		verify(sessionAuditManager, timeout(5000).times(2)).newSessionAudit(any());
+		SessionAudit guest = sessionAudits.getAllValues().get(1);
+		assertThat(guest.getUserName()).isEqualTo("guest");
+		assertThat(guest.getLogoutDate()).isNotNull();
+		verifyNoInteractions(sessionAuditQuery);
+		verify(sessionAuditManager, never()).updateSessionAudit(any());
+	}
+
+	@Test
+	public void testRetryAfterFailure() throws Exception {
+		when(sessionAuditManager.newSessionAudit(any()))
+						.thenThrow(new OHServiceException(new OHExceptionMessage("database unavailable")))
+						.thenReturn(1);
+		sessionAuditWriter = createSessionAuditWriter(10);
+
+		sessionAuditWriter.login("admin");
+
+		verify(sessionAuditManager, timeout(5000).times(2)).newSessionAudit(any());
+		assertThat(meterRegistry.get("oh.security.session-audit.failures").counter().count()).isEqualTo(1);
+		assertThat(sessionAuditWriter.getPendingCount()).isZero();
+	}
+
+	@Test
+	public void testEventsDroppedWhenQueueFull() throws Exception {
+		CountDownLatch released = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			released.await(5, TimeUnit.SECONDS);
+			return 1;
+		}).when(sessionAuditManager).newSessionAudit(any());
+		sessionAuditWriter = createSessionAuditWriter(100, 1);
+
+		sessionAuditWriter.login("admin");
+		verify(sessionAuditManager, timeout(5000)).newSessionAudit(any());
+		sessionAuditWriter.login("guest");
+		sessionAuditWriter.login("other");
+		released.countDown();
+
+		verify(sessionAuditManager, timeout(5000).times(2)).newSessionAudit(any());
+		assertThat(meterRegistry.get("oh.security.session-audit.dropped").counter().count()).isEqualTo(1);
+		verify(sessionAuditManager, times(2)).newSessionAudit(any());
+	}
+
+	private SessionAuditWriter createSessionAuditWriter(long flushIntervalMillis) {
+		return createSessionAuditWriter(flushIntervalMillis, 100);
+	}
+
+	private SessionAuditWriter createSessionAuditWriter(long flushIntervalMillis, int queueCapacity) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+		return new SessionAuditWriter(sessionAuditManager, sessionAuditQuery, beanFactory.getBeanProvider(PlatformTransactionManager.class),
+						beanFactory.getBeanProvider(MeterRegistry.class), queueCapacity, 10, flushIntervalMillis, 1000, 5);
+	}
+}
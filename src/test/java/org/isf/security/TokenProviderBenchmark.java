@@ -0,0 +1,156 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.permissions.manager.PermissionManager;
+import org.isf.permissions.model.Permission;
+import org.isf.security.data.PermissionHelper;
+import org.isf.security.jwt.PermissionAuthorityTable;
+import org.isf.security.jwt.TokenProvider;
+import org.isf.security.jwt.TokenValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the per-request cost of the JWT pipeline used by {@link org.isf.security.jwt.JWTFilter}:
+ * <ul>
+ * <li>{@code validateToken} and {@code getAuthentication}: the parsing steps of the legacy pipeline on their own</li>
+ * <li>{@code legacyPipeline}: validateToken, isTokenExpired and getAuthentication, each parsing the token</li>
+ * <li>{@code singleParse}: verifyToken with the verified-token cache disabled</li>
+ * <li>{@code cachedVerification}: verifyToken with the verified-token cache enabled</li>
+ * <li>{@code compactSingleParse}: verifyToken of a token carrying the permission bitset, with the verified-token cache disabled</li>
+ * </ul>
+ * The tokens carry the permissions of an administrator, {@code main} also prints the length of both token formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+	private static final String SECRET = "+Z0E+6QXT9ri0L+PVkRTSF/tsZ/Z1yXJdrqz8FieiebiezOuIcuabJExyxCZi1bzSteaSmbCdzIaLDLPht92Bg==";
+
+	private TokenProvider uncachedProvider;
+
+	private TokenProvider cachedProvider;
+
+	private TokenProvider compactProvider;
+
+	private String token;
+
+	private String compactToken;
+
+	@Setup
+	public void setUp() throws Exception {
+		List<Permission> permissions = PermissionHelper.setupAdminPermissions();
+		PermissionManager permissionManager = mock(PermissionManager.class);
+		when(permissionManager.retrieveAllPermissions()).thenReturn(permissions);
+		PermissionAuthorityTable permissionAuthorityTable = new PermissionAuthorityTable(permissionManager);
+
+		uncachedProvider = createTokenProvider(0, false, permissionAuthorityTable);
+		cachedProvider = createTokenProvider(10_000, false, permissionAuthorityTable);
+		compactProvider = createTokenProvider(0, true, permissionAuthorityTable);
+
+		List<SimpleGrantedAuthority> authorities = permissions.stream()
+						.map(permission -> new SimpleGrantedAuthority(permission.getName()))
+						.toList();
+		Authentication authentication = new UsernamePasswordAuthenticationToken("admin", "admin", authorities);
+		token = uncachedProvider.generateJwtToken(authentication, false);
+		compactToken = compactProvider.generateJwtToken(authentication, false);
+	}
+
+	@Benchmark
+	public TokenValidationResult validateToken() {
+		return uncachedProvider.validateToken(token);
+	}
+
+	@Benchmark
+	public Authentication getAuthentication() {
+		return uncachedProvider.getAuthentication(token);
+	}
+
+	@Benchmark
+	public Authentication legacyPipeline() {
+		if (uncachedProvider.validateToken(token) == TokenValidationResult.VALID && !uncachedProvider.isTokenExpired(token)) {
+			return uncachedProvider.getAuthentication(token);
+		}
+		return null;
+	}
+
+	@Benchmark
+	public Authentication singleParse() {
+		return uncachedProvider.verifyToken(token).getAuthentication();
+	}
+
+	@Benchmark
+	public Authentication cachedVerification() {
+		return cachedProvider.verifyToken(token).getAuthentication();
+	}
+
+	@Benchmark
+	public Authentication compactSingleParse() {
+		return compactProvider.verifyToken(compactToken).getAuthentication();
+	}
+
+	private static TokenProvider createTokenProvider(long cacheSize, boolean compactAuthorities, PermissionAuthorityTable permissionAuthorityTable) {
+		MockEnvironment environment = new MockEnvironment()
+						.withProperty("jwt.token.secret", SECRET)
+						.withProperty("jwt.token.cache-size", String.valueOf(cacheSize))
+						.withProperty("jwt.token.compact-authorities", String.valueOf(compactAuthorities));
+		TokenProvider tokenProvider = new TokenProvider();
+		ReflectionTestUtils.setField(tokenProvider, "env", environment);
+		ReflectionTestUtils.setField(tokenProvider, "permissionAuthorityTable", permissionAuthorityTable);
+		tokenProvider.init();
+		return tokenProvider;
+	}
+
+	public static void main(String[] args) throws Exception {
+		TokenProviderBenchmark benchmark = new TokenProviderBenchmark();
+		benchmark.setUp();
+		System.out.printf("Token length: %d characters with authority names, %d with the permission bitset%n", benchmark.token.length(),
+						benchmark.compactToken.length());
+		new Runner(new OptionsBuilder().include(TokenProviderBenchmark.class.getSimpleName()).build()).run();
+	}
+}
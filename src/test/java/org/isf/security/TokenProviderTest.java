@@ -46,6 +46,7 @@ import org.isf.permissions.manager.PermissionManager;
 import org.isf.permissions.model.Permission;
 import org.isf.security.jwt.TokenProvider;
 import org.isf.security.jwt.TokenValidationResult;
+import org.isf.security.jwt.VerifiedToken;
 import org.isf.utils.exception.OHException;
 import org.isf.utils.exception.OHServiceException;
 import org.junit.jupiter.api.BeforeEach;
@@ -58,10 +59,12 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 
 @SpringBootTest(classes = OpenHospitalApiApplication.class)
@@ -379,6 +382,87 @@ public class TokenProviderTest {
 		assertThat(refreshToken.length()).isGreaterThan(0);
 	}
 
+	@Test
+	void testVerifyToken_Valid() {
+		Authentication authentication = createAuthentication();
+
+		// Generate token
+		String token = tokenProvider.generateJwtToken(authentication, false);
+
+		VerifiedToken verifiedToken = tokenProvider.verifyToken(token);
+
+		assertThat(verifiedToken.getResult()).isEqualTo(TokenValidationResult.VALID);
+		assertThat(verifiedToken.isExpired()).isFalse();
+		assertThat(verifiedToken.getExpiration()).isEqualTo(tokenProvider.getExpirationDateFromToken(token));
+		assertThat(verifiedToken.getAuthentication().getName()).isEqualTo("testuser");
+		assertThat(verifiedToken.getAuthentication().getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+		assertThat(verifiedToken.getAuthentication().getCredentials()).isEqualTo(token);
+	}
+
+	@Test
+	void testVerifyToken_CachedUntilExpiration() {
+		Authentication authentication = createAuthentication();
+
+		// Generate token
+		String token = tokenProvider.generateJwtToken(authentication, false);
+
+		VerifiedToken first = tokenProvider.verifyToken(token);
+
+		// A parser that rejects everything proves the second call does not parse the token again
+		JwtParser rejectingParser = mock(JwtParser.class);
+		when(rejectingParser.parseClaimsJws(any())).thenThrow(new MalformedJwtException("should not be parsed"));
+		ReflectionTestUtils.setField(tokenProvider, "jwtParser", rejectingParser);
+
+		assertThat(tokenProvider.verifyToken(token)).isSameAs(first);
+	}
+
+	@Test
+	void testVerifyToken_Expired() throws Exception {
+		Key key = extractKeyFromTokenProvider();
+
+		String expiredToken = Jwts.builder()
+						.setSubject("testuser")
+						.claim("auth", "ROLE_USER")
+						.signWith(key, SignatureAlgorithm.HS512)
+						.setExpiration(new Date(System.currentTimeMillis() - 1000))
+						.compact();
+
+		VerifiedToken verifiedToken = tokenProvider.verifyToken(expiredToken);
+
+		assertThat(verifiedToken.getResult()).isEqualTo(TokenValidationResult.EXPIRED);
+		assertThat(verifiedToken.getAuthentication()).isNull();
+	}
+
+	@Test
+	void testVerifyToken_Malformed() {
+		VerifiedToken verifiedToken = tokenProvider.verifyToken("malformed.token");
+
+		assertThat(verifiedToken.getResult()).isEqualTo(TokenValidationResult.MALFORMED);
+	}
+
+	@Test
+	void testVerifyToken_WithoutAuthorities() {
+		// Refresh tokens carry no authorities and cannot be used to authenticate a request
+		String refreshToken = tokenProvider.generateRefreshToken(createAuthentication());
+
+		VerifiedToken verifiedToken = tokenProvider.verifyToken(refreshToken);
+
+		assertThat(verifiedToken.getResult()).isEqualTo(TokenValidationResult.EMPTY_CLAIMS);
+	}
+
+	@Test
+	void testSessionIdClaim() {
+		Authentication authentication = createAuthentication();
+
+		String token = tokenProvider.generateJwtToken(authentication, false, "sessionId");
+		String refreshToken = tokenProvider.generateRefreshToken(authentication, "sessionId");
+
+		assertThat(tokenProvider.getSessionIdFromToken(token)).isEqualTo("sessionId");
+		assertThat(tokenProvider.getSessionIdFromToken(refreshToken)).isEqualTo("sessionId");
+		assertThat(tokenProvider.verifyToken(token).getSessionId()).isEqualTo("sessionId");
+		assertThat(tokenProvider.getSessionIdFromToken(tokenProvider.generateJwtToken(authentication, false))).isNull();
+	}
+
 	// Helper method to generate RSA key pair
 	private KeyPair generateRsaKeyPair(String algorithm) throws NoSuchAlgorithmException {
 		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(algorithm);
@@ -0,0 +1,152 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.isf.menu.manager.UserBrowsingManager;
+import org.isf.menu.model.User;
+import org.isf.menu.model.UserGroup;
+import org.isf.permissions.manager.PermissionManager;
+import org.isf.permissions.model.Permission;
+import org.isf.utils.exception.OHServiceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class UserAuthorityCacheTest {
+
+	private UserBrowsingManager userManager;
+
+	private PermissionManager permissionManager;
+
+	private MeterRegistry meterRegistry;
+
+	private UserAuthorityCache userAuthorityCache;
+
+	@BeforeEach
+	public void setUp() throws OHServiceException {
+		userManager = mock(UserBrowsingManager.class);
+		permissionManager = mock(PermissionManager.class);
+		meterRegistry = new SimpleMeterRegistry();
+		userAuthorityCache = createCache(1000);
+
+		when(userManager.getUserByName("doctor")).thenReturn(new User("doctor", new UserGroup("doctor", "Doctor group"), "secret", "Doctor"));
+		when(userManager.getUserByName("nurse")).thenReturn(new User("nurse", new UserGroup("nurse", "Nurse group"), "secret", "Nurse"));
+		when(permissionManager.retrievePermissionsByUsername("doctor")).thenReturn(List.of(permission("patients.read")));
+		when(permissionManager.retrievePermissionsByUsername("nurse")).thenReturn(List.of(permission("visits.read")));
+	}
+
+	@Test
+	public void testGetSnapshot() throws OHServiceException {
+		UserAuthoritySnapshot snapshot = userAuthorityCache.getSnapshot("doctor");
+
+		assertThat(snapshot.getUserName()).isEqualTo("doctor");
+		assertThat(snapshot.getPassword()).isEqualTo("secret");
+		assertThat(snapshot.getUserGroupCode()).isEqualTo("doctor");
+		assertThat(snapshot.getPermissionNames()).containsExactly("patients.read");
+		assertThat(snapshot.getAuthorities()).extracting("authority").containsExactly("patients.read");
+	}
+
+	@Test
+	public void testGetSnapshot_Cached() throws OHServiceException {
+		UserAuthoritySnapshot first = userAuthorityCache.getSnapshot("doctor");
+		UserAuthoritySnapshot second = userAuthorityCache.getSnapshot("doctor");
+
+		assertThat(second).isSameAs(first);
+		verify(userManager, times(1)).getUserByName("doctor");
+		verify(permissionManager, times(1)).retrievePermissionsByUsername("doctor");
+		assertThat(userAuthorityCache.getStats().hitCount()).isEqualTo(1);
+		assertThat(userAuthorityCache.getStats().missCount()).isEqualTo(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", UserAuthorityCache.CACHE_NAME).tag("result", "hit").functionCounter().count())
+			.isEqualTo(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", UserAuthorityCache.CACHE_NAME).tag("result", "miss").functionCounter().count())
+			.isEqualTo(1);
+	}
+
+	@Test
+	public void testGetSnapshot_UnknownUserNotCached() throws OHServiceException {
+		assertThat(userAuthorityCache.getSnapshot("unknown")).isNull();
+		assertThat(userAuthorityCache.getSnapshot("unknown")).isNull();
+
+		verify(userManager, times(2)).getUserByName("unknown");
+	}
+
+	@Test
+	public void testUserChangedEvent() throws OHServiceException {
+		userAuthorityCache.getSnapshot("doctor");
+		userAuthorityCache.getSnapshot("nurse");
+		when(permissionManager.retrievePermissionsByUsername("doctor")).thenReturn(List.of(permission("patients.read"), permission("patients.update")));
+
+		userAuthorityCache.onUserAuthoritiesChanged(UserAuthoritiesChangedEvent.forUser("doctor"));
+
+		assertThat(userAuthorityCache.getSnapshot("doctor").getPermissionNames()).containsExactly("patients.read", "patients.update");
+		userAuthorityCache.getSnapshot("nurse");
+		verify(userManager, times(2)).getUserByName("doctor");
+		verify(userManager, times(1)).getUserByName("nurse");
+	}
+
+	@Test
+	public void testUserGroupChangedEvent() throws OHServiceException {
+		userAuthorityCache.getSnapshot("doctor");
+		userAuthorityCache.getSnapshot("nurse");
+
+		userAuthorityCache.onUserAuthoritiesChanged(UserAuthoritiesChangedEvent.forUserGroup("nurse"));
+
+		userAuthorityCache.getSnapshot("doctor");
+		userAuthorityCache.getSnapshot("nurse");
+		verify(userManager, times(1)).getUserByName("doctor");
+		verify(userManager, times(2)).getUserByName("nurse");
+	}
+
+	@Test
+	public void testDisabledCache() throws OHServiceException {
+		userAuthorityCache = createCache(0);
+
+		userAuthorityCache.getSnapshot("doctor");
+		userAuthorityCache.getSnapshot("doctor");
+
+		verify(userManager, times(2)).getUserByName("doctor");
+		assertThat(userAuthorityCache.getStats().requestCount()).isZero();
+	}
+
+	private UserAuthorityCache createCache(long maximumSize) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+		return new UserAuthorityCache(userManager, permissionManager, beanFactory.getBeanProvider(MeterRegistry.class), maximumSize, 600);
+	}
+
+	private static Permission permission(String name) {
+		Permission permission = new Permission();
+		permission.setName(name);
+		return permission;
+	}
+}
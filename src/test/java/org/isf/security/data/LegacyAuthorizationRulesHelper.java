@@ -0,0 +1,267 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security.data;
+
+import static org.springframework.security.authorization.AuthenticatedAuthorizationManager.authenticated;
+import static org.springframework.security.authorization.AuthorityAuthorizationManager.hasAnyAuthority;
+import static org.springframework.security.authorization.AuthorityAuthorizationManager.hasAuthority;
+import static org.springframework.security.authorization.AuthorizationManagers.allOf;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.servlet.util.matcher.MvcRequestMatcher;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
+
+/**
+ * The linear chain of request matchers formerly registered in {@code SecurityConfig}, evaluated one by one with the MVC
+ * request matchers that {@code requestMatchers(...)} created for the application.
+ */
+public class LegacyAuthorizationRulesHelper {
+
+	private static final AuthorizationManager<RequestAuthorizationContext> PERMIT_ALL = (authentication, context) -> new AuthorizationDecision(true);
+
+	/**
+	 * @param introspector the {@link HandlerMappingIntrospector} of the application, matching the paths as its handler
+	 * mappings do
+	 */
+	public static RequestMatcherDelegatingAuthorizationManager legacyAuthorizationManager(HandlerMappingIntrospector introspector) {
+		MvcRequestMatcher.Builder mvc = new MvcRequestMatcher.Builder(introspector);
+		return RequestMatcherDelegatingAuthorizationManager.builder()
+			.add(mvc.pattern("/auth/**"), PERMIT_ALL)
+			// admissions
+			.add(mvc.pattern(HttpMethod.POST, "/admissions/**"), hasAuthority("admissions.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/admissions/**"), hasAnyAuthority("admissions.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/admissions/**"), hasAuthority("admissions.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/admissions/**"), hasAuthority("admissions.delete"))
+			// admissiontypes
+			.add(mvc.pattern(HttpMethod.POST, "/admissiontypes/**"), hasAuthority("admissiontypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/admissiontypes/**"), hasAnyAuthority("admissiontypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/admissiontypes/**"), hasAuthority("admissiontypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/admissiontypes/**"), hasAuthority("admissiontypes.delete"))
+			// age types
+			.add(mvc.pattern(HttpMethod.GET, "/agetypes/**"), hasAnyAuthority("agetypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/agetypes/**"), hasAuthority("agetypes.update"))
+			// dischargetypes
+			.add(mvc.pattern(HttpMethod.POST, "/dischargetypes/**"), hasAuthority("dischargetypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/dischargetypes/**"), hasAnyAuthority("dischargetypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/dischargetypes/**"), hasAuthority("dischargetypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/dischargetypes/**"), hasAuthority("dischargetypes.delete"))
+			// diseases
+			.add(mvc.pattern(HttpMethod.POST, "/diseases/**"), hasAuthority("diseases.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/diseases/**"), hasAnyAuthority("diseases.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/diseases/**"), hasAuthority("diseases.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/diseases/**"), hasAuthority("diseases.delete"))
+			// diseasetypes
+			.add(mvc.pattern(HttpMethod.POST, "/diseasetypes/**"), hasAuthority("diseasetypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/diseasetypes/**"), hasAnyAuthority("diseasetypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/diseasetypes/**"), hasAuthority("diseasetypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/diseasetypes/**"), hasAuthority("diseasetypes.delete"))
+			// deliveryresulttype
+			.add(mvc.pattern(HttpMethod.POST, "/deliveryresulttypes/**"), hasAuthority("deliveryresulttypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/deliveryresulttypes/**"), hasAnyAuthority("deliveryresulttypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/deliveryresulttypes/**"), hasAuthority("deliveryresulttypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/deliveryresulttypes/**"), hasAuthority("deliveryresulttypes.delete"))
+			// deliverytypes
+			.add(mvc.pattern(HttpMethod.POST, "/deliverytypes/**"), hasAuthority("deliverytypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/deliverytypes/**"), hasAnyAuthority("deliverytypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/deliverytypes/**"), hasAuthority("deliverytypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/deliverytypes/**"), hasAuthority("deliverytypes.delete"))
+			// exams
+			.add(mvc.pattern(HttpMethod.POST, "/exams/**"), allOf(hasAuthority("exams.create"), hasAuthority("examrows.create")))
+			.add(mvc.pattern(HttpMethod.GET, "/exams/**"), hasAnyAuthority("exams.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/exams/**"), allOf(hasAuthority("exams.update"), hasAuthority("examrows.create"), hasAuthority("examrows.delete")))
+			.add(mvc.pattern(HttpMethod.DELETE, "/exams/**"), hasAuthority("exams.delete"))
+			// examrows
+			.add(mvc.pattern(HttpMethod.POST, "/examrows/**"), hasAuthority("examrows.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/examrows/**"), hasAnyAuthority("examrows.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/examrows/**"), hasAuthority("examrows.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/examrows/**"), hasAuthority("examrows.delete"))
+			// examinations
+			.add(mvc.pattern(HttpMethod.POST, "/examinations/**"), hasAuthority("examinations.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/examinations/**"), hasAnyAuthority("examinations.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/examinations/**"), hasAuthority("examinations.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/examinations/**"), hasAuthority("examinations.delete"))
+			// examtypes
+			.add(mvc.pattern(HttpMethod.POST, "/examtypes/**"), hasAuthority("examtypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/examtypes/**"), hasAnyAuthority("examtypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/examtypes/**"), hasAuthority("examtypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/examtypes/**"), hasAuthority("examtypes.delete"))
+			// hospitals
+			.add(mvc.pattern(HttpMethod.POST, "/hospitals/**"), hasAuthority("hospitals.create"))
+			// .requestMatchers(HttpMethod.GET, "/hospitals/**").hasAnyAuthority("hospital.read") to anyone
+			.add(mvc.pattern(HttpMethod.PUT, "/hospitals/**"), hasAuthority("hospitals.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/hospitals/**"), hasAuthority("hospitals.delete"))
+			// laboratories
+			.add(mvc.pattern(HttpMethod.POST, "/laboratories/**"), hasAuthority("laboratories.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/laboratories/**"), hasAnyAuthority("laboratories.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/laboratories/**"), hasAuthority("laboratories.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/laboratories/**"), hasAuthority("laboratories.delete"))
+			// malnutrition
+			.add(mvc.pattern(HttpMethod.POST, "/malnutritions/**"), hasAuthority("malnutritions.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/malnutritions/**"), hasAuthority("malnutritions.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/malnutritions/**"), hasAuthority("malnutritions.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/malnutritions/**"), hasAuthority("malnutritions.delete"))
+			// medicals
+			.add(mvc.pattern(HttpMethod.POST, "/medicals/**"), hasAuthority("medicals.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/medicals/**"), hasAuthority("medicals.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/medicals/**"), hasAuthority("medicals.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/medicals/**"), hasAuthority("medicals.delete"))
+			// medicalstock
+			.add(mvc.pattern(HttpMethod.POST, "/medicalstockmovements/**"), hasAuthority("medicalstockmovements.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/medicalstockmovements/**"), hasAuthority("medicalstockmovements.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/medicalstockmovements/**"), hasAuthority("medicalstockmovements.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/medicalstockmovements/**"), hasAuthority("medicalstockmovements.delete"))
+			// medicalstockward
+			.add(mvc.pattern(HttpMethod.POST, "/medicalstockward/**"), hasAuthority("medicalstockward.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/medicalstockward/**"), hasAuthority("medicalstockward.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/medicalstockward/**"), hasAuthority("medicalstockward.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/medicalstockward/**"), hasAuthority("medicalstockward.delete"))
+			// medicalstockmovtype
+			.add(mvc.pattern(HttpMethod.POST, "/medstockmovementtypes/**"), hasAuthority("medstockmovementtypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/medstockmovementtypes/**"), hasAuthority("medstockmovementtypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/medstockmovementtypes/**"), hasAuthority("medstockmovementtypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/medstockmovementtypes/**"), hasAuthority("medstockmovementtypes.delete"))
+			// medicaltype
+			.add(mvc.pattern(HttpMethod.POST, "/medicaltypes/**"), hasAuthority("medicaltypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/medicaltypes/**"), hasAuthority("medicaltypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/medicaltypes/**"), hasAuthority("medicaltypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/medicaltypes/**"), hasAuthority("medicaltypes.delete"))
+			// opd
+			.add(mvc.pattern(HttpMethod.POST, "/opds/**"), hasAuthority("opds.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/opds/**"), hasAnyAuthority("opds.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/opds/**"), hasAuthority("opds.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/opds/**"), hasAuthority("opds.delete"))
+			// operations
+			.add(mvc.pattern(HttpMethod.POST, "/operations/**"), hasAuthority("operations.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/operations/**"), hasAnyAuthority("operations.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/operations/**"), hasAuthority("operations.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/operations/**"), hasAuthority("operations.delete"))
+			// operation types
+			.add(mvc.pattern(HttpMethod.POST, "/operationtypes/**"), hasAuthority("operationtypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/operationtypes/**"), hasAnyAuthority("operationtypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/operationtypes/**"), hasAuthority("operationtypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/operationtypes/**"), hasAuthority("operationtypes.delete"))
+			// patientconsensus
+			.add(mvc.pattern(HttpMethod.POST, "/patientconsensus/**"), hasAuthority("patientconsensus.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/patientconsensus/**"), hasAuthority("patientconsensus.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/patientconsensus/**"), hasAuthority("patientconsensus.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/patientconsensus/**"), hasAuthority("patientconsensus.delete"))
+			// patients
+			.add(mvc.pattern(HttpMethod.POST, "/patients/**"), hasAuthority("patients.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/patients/**"), hasAuthority("patients.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/patients/**"), hasAuthority("patients.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/patients/**"), hasAuthority("patients.delete"))
+			// patientvaccines
+			.add(mvc.pattern(HttpMethod.POST, "/patientvaccines/**"), hasAuthority("patientvaccines.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/patientvaccines/**"), hasAnyAuthority("patientvaccines.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/patientvaccines/**"), hasAuthority("patientvaccines.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/patientvaccines/**"), hasAuthority("patientvaccines.delete"))
+			// permission
+			.add(mvc.pattern(HttpMethod.POST, "/permissions/**"), hasAuthority("permissions.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/permissions/**"), hasAuthority("permissions.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/permissions/**"), hasAuthority("permissions.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/permissions/**"), hasAuthority("permissions.delete"))
+			// grouppermission
+			.add(mvc.pattern(HttpMethod.POST, "/usergroups/{group_code}/permissions/**"), hasAuthority("grouppermission.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/usergroups/{group_code}/permissions/**"), hasAuthority("grouppermission.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/usergroups/{group_code}/permissions/**"), hasAuthority("grouppermission.create"))
+			.add(mvc.pattern(HttpMethod.PATCH, "/usergroups/{group_code}/permissions/**"), allOf(hasAuthority("grouppermission.create"), hasAuthority("grouppermission.delete")))
+			.add(mvc.pattern(HttpMethod.DELETE, "/usergroups/{group_code}/permissions/**"), hasAuthority("grouppermission.delete"))
+			// usergroups
+			.add(mvc.pattern(HttpMethod.POST, "/usergroups/**"), hasAuthority("usergroups.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/usergroups/**"), hasAuthority("usergroups.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/usergroups/**"), hasAuthority("usergroups.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/usergroups/**"), hasAuthority("usergroups.delete"))
+			// user
+			.add(mvc.pattern("/users/me"), authenticated())
+			.add(mvc.pattern(HttpMethod.POST, "/users"), hasAuthority("users.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/users/**"), hasAuthority("users.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/users/{username}"), hasAuthority("users.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/users/**"), hasAuthority("users.delete"))
+			// user setting
+			.add(mvc.pattern("/usersettings/**"), authenticated())
+			// pregnanttreatmenttypes
+			.add(mvc.pattern(HttpMethod.POST, "/pregnanttreatmenttypes/**"), hasAuthority("pregnanttreatmenttypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/pregnanttreatmenttypes/**"), hasAnyAuthority("pregnanttreatmenttypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/pregnanttreatmenttypes/**"), hasAuthority("pregnanttreatmenttypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/pregnanttreatmenttypes/**"), hasAuthority("pregnanttreatmenttypes.delete"))
+			// pricelists
+			.add(mvc.pattern(HttpMethod.POST, "/pricelists/**"), hasAuthority("pricelists.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/pricelists/**"), hasAnyAuthority("pricelists.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/pricelists/**"), hasAuthority("pricelists.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/pricelists/**"), hasAuthority("pricelists.delete"))
+			// pricesothers
+			.add(mvc.pattern(HttpMethod.POST, "/pricesothers/**"), hasAuthority("pricesothers.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/pricesothers/**"), hasAnyAuthority("pricesothers.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/pricesothers/**"), hasAuthority("pricesothers.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/pricesothers/**"), hasAuthority("pricesothers.delete"))
+			// reports
+			.add(mvc.pattern(HttpMethod.POST, "/reports/**"), hasAuthority("reports.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/reports/**"), hasAnyAuthority("reports.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/reports/**"), hasAuthority("reports.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/reports/**"), hasAuthority("reports.delete"))
+			// sms
+			.add(mvc.pattern(HttpMethod.POST, "/sms/**"), hasAuthority("sms.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/sms/**"), hasAnyAuthority("sms.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/sms/**"), hasAuthority("sms.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/sms/**"), hasAuthority("sms.delete"))
+			// suppliers
+			.add(mvc.pattern(HttpMethod.POST, "/suppliers/**"), hasAuthority("suppliers.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/suppliers/**"), hasAnyAuthority("suppliers.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/suppliers/**"), hasAuthority("suppliers.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/suppliers/**"), hasAuthority("suppliers.delete"))
+			// therapy
+			.add(mvc.pattern(HttpMethod.POST, "/therapies/**"), hasAuthority("therapies.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/therapies/**"), hasAnyAuthority("therapies.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/therapies/**"), hasAuthority("therapies.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/therapies/**"), hasAuthority("therapies.delete"))
+			// vaccines
+			.add(mvc.pattern(HttpMethod.POST, "/vaccines/**"), hasAuthority("vaccines.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/vaccines/**"), hasAnyAuthority("vaccines.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/vaccines/**"), hasAuthority("vaccines.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/vaccines/**"), hasAuthority("vaccines.delete"))
+			// vaccineType
+			.add(mvc.pattern(HttpMethod.POST, "/vaccinetypes/**"), hasAuthority("vaccinetypes.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/vaccinetypes/**"), hasAnyAuthority("vaccinetypes.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/vaccinetypes/**"), hasAuthority("vaccinetypes.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/vaccinetypes/**"), hasAuthority("vaccinetypes.delete"))
+			// visit
+			.add(mvc.pattern(HttpMethod.POST, "/visits/**"), hasAuthority("visits.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/visits/**"), hasAnyAuthority("visits.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/visits/**"), hasAuthority("visits.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/visits/**"), hasAuthority("visits.delete"))
+			// wards
+			.add(mvc.pattern(HttpMethod.POST, "/wards/**"), hasAuthority("wards.create"))
+			.add(mvc.pattern(HttpMethod.GET, "/wards/**"), hasAnyAuthority("wards.read"))
+			.add(mvc.pattern(HttpMethod.PUT, "/wards/**"), hasAuthority("wards.update"))
+			.add(mvc.pattern(HttpMethod.DELETE, "/wards/**"), hasAuthority("wards.delete"))
+			// actuator
+			.add(mvc.pattern("/actuator/**"), authenticated())
+			// requests not matched by any rule are permitted
+			.add(AnyRequestMatcher.INSTANCE, PERMIT_ALL)
+			.build();
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.security.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.isf.permissions.model.Permission;
+
+/**
+ * Permissions shaped like those of an administrator: create, read, update and delete on every resource.
+ */
+public class PermissionHelper {
+
+	private static final String[] RESOURCES = { "admissions", "admissiontypes", "agetypes", "dischargetypes", "diseases", "diseasetypes",
+					"deliveryresulttypes", "deliverytypes", "examrows", "examinations", "examtypes", "laboratories", "malnutritions", "medicals",
+					"medicalstockmovements", "medicalstockward", "medstockmovementtypes", "medicaltypes", "opds", "operations", "operationtypes",
+					"patientconsensus", "patients", "patientvaccines", "permissions", "usergroups", "pregnanttreatmenttypes", "pricelists",
+					"pricesothers", "reports", "sms", "suppliers", "therapies", "users", "vaccines", "vaccinetypes", "visits", "wards" };
+
+	private static final String[] ACTIONS = { "create", "read", "update", "delete" };
+
+	public static List<Permission> setupAdminPermissions() {
+		List<Permission> permissions = new ArrayList<>();
+		int id = 1;
+		for (String resource : RESOURCES) {
+			for (String action : ACTIONS) {
+				Permission permission = new Permission();
+				permission.setId(id++);
+				permission.setName(resource + '.' + action);
+				permission.setDescription(action + ' ' + resource);
+				permissions.add(permission);
+			}
+		}
+		return permissions;
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.shared;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.isf.admission.data.AdmissionHelper;
+import org.isf.admission.dto.AdmissionDTO;
+import org.isf.admission.mapper.AdmissionMapper;
+import org.isf.admission.model.Admission;
+import org.isf.exam.data.ExamHelper;
+import org.isf.exam.mapper.ExamMapper;
+import org.isf.lab.data.LaboratoryHelper;
+import org.isf.lab.dto.LabWithRowsDTO;
+import org.isf.lab.dto.LaboratoryDTO;
+import org.isf.lab.mapper.LaboratoryMapper;
+import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryStatus;
+import org.isf.opd.data.OpdHelper;
+import org.isf.opd.dto.OpdDTO;
+import org.isf.opd.mapper.OpdMapper;
+import org.isf.opd.model.Opd;
+import org.isf.patient.data.PatientHelper;
+import org.isf.patient.dto.PatientDTO;
+import org.isf.patient.dto.PatientSTATUS;
+import org.isf.patient.mapper.PatientMapper;
+import org.isf.patient.model.Patient;
+import org.isf.shared.mapper.converter.BlobToByteArrayConverter;
+import org.isf.shared.mapper.converter.ByteArrayToBlobConverter;
+import org.isf.shared.mapper.mappings.PatientMapping;
+import org.isf.utils.exception.OHException;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.module.jsr310.Jsr310Module;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Measures {@link GenericMapper#map2DTO} and {@link GenericMapper#map2DTOList} for the largest DTOs, configured as in
+ * {@link org.isf.shared.mapper.converter.ModelMapperConfig}. The {@link LabWithRowsDTO} benchmarks assemble the DTO the
+ * way the laboratory endpoints do, from a mapped {@link LaboratoryDTO} and the descriptions of the rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+	@Param({ "100" })
+	public int listSize;
+
+	private PatientMapper patientMapper;
+
+	private AdmissionMapper admissionMapper;
+
+	private OpdMapper opdMapper;
+
+	private LaboratoryMapper laboratoryMapper;
+
+	private Patient patient;
+
+	private List<Patient> patients;
+
+	private Admission admission;
+
+	private List<Admission> admissions;
+
+	private Opd opd;
+
+	private List<Opd> opds;
+
+	private Laboratory laboratory;
+
+	private List<Laboratory> laboratories;
+
+	private List<String> laboratoryRows;
+
+	@Setup
+	public void setUp() throws OHException {
+		ModelMapper modelMapper = createModelMapper();
+		patientMapper = withModelMapper(new PatientMapper(), modelMapper);
+		admissionMapper = withModelMapper(new AdmissionMapper(), modelMapper);
+		opdMapper = withModelMapper(new OpdMapper(), modelMapper);
+		laboratoryMapper = withModelMapper(new LaboratoryMapper(), modelMapper);
+
+		patient = PatientHelper.setup();
+		patients = PatientHelper.setupPatientList(listSize);
+		admission = AdmissionHelper.setup();
+		admissions = AdmissionHelper.setupAdmissionList(listSize);
+		opd = OpdHelper.setup();
+		opds = new ArrayList<>();
+		for (int i = 0; i < listSize; i++) {
+			opds.add(OpdHelper.setup());
+		}
+		laboratory = setupLaboratory(1);
+		laboratories = new ArrayList<>();
+		for (int i = 0; i < listSize; i++) {
+			laboratories.add(setupLaboratory(i + 1));
+		}
+		laboratoryRows = IntStream.range(0, 5).mapToObj(i -> "result " + i).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public PatientDTO patientMap2DTO() {
+		return patientMapper.map2DTO(patient);
+	}
+
+	@Benchmark
+	public List<PatientDTO> patientMap2DTOList() {
+		return patientMapper.map2DTOList(patients);
+	}
+
+	@Benchmark
+	public AdmissionDTO admissionMap2DTO() {
+		return admissionMapper.map2DTO(admission);
+	}
+
+	@Benchmark
+	public List<AdmissionDTO> admissionMap2DTOList() {
+		return admissionMapper.map2DTOList(admissions);
+	}
+
+	@Benchmark
+	public OpdDTO opdMap2DTO() {
+		return opdMapper.map2DTO(opd);
+	}
+
+	@Benchmark
+	public List<OpdDTO> opdMap2DTOList() {
+		return opdMapper.map2DTOList(opds);
+	}
+
+	@Benchmark
+	public LabWithRowsDTO labWithRowsMap2DTO() {
+		return toLabWithRows(laboratory);
+	}
+
+	@Benchmark
+	public List<LabWithRowsDTO> labWithRowsMap2DTOList() {
+		return laboratories.stream().map(this::toLabWithRows).collect(Collectors.toList());
+	}
+
+	private LabWithRowsDTO toLabWithRows(Laboratory lab) {
+		LaboratoryDTO laboratoryDTO = laboratoryMapper.map2DTO(lab);
+		laboratoryDTO.setRegistrationDate(lab.getCreatedDate());
+		LabWithRowsDTO labWithRowsDTO = new LabWithRowsDTO();
+		labWithRowsDTO.setLaboratoryDTO(laboratoryDTO);
+		labWithRowsDTO.setLaboratoryRowList(new ArrayList<>(laboratoryRows));
+		return labWithRowsDTO;
+	}
+
+	static Laboratory setupLaboratory(int code) throws OHException {
+		Laboratory lab = LaboratoryHelper.setup(code);
+		lab.setExam(new ExamMapper().map2Model(ExamHelper.generateExam()));
+		lab.setPatient(PatientHelper.setup());
+		lab.setInOutPatient(PatientSTATUS.I.toString());
+		lab.setStatus(LaboratoryStatus.done.toString());
+		return lab;
+	}
+
+	static ModelMapper createModelMapper() {
+		ModelMapper modelMapper = new ModelMapper();
+		modelMapper.addConverter(new BlobToByteArrayConverter());
+		modelMapper.addConverter(new ByteArrayToBlobConverter());
+		modelMapper.registerModule(new Jsr310Module());
+		PatientMapping.addMapping(modelMapper);
+		return modelMapper;
+	}
+
+	static <T extends GenericMapper<?, ?>> T withModelMapper(T mapper, ModelMapper modelMapper) {
+		ReflectionTestUtils.setField(mapper, "modelMapper", modelMapper);
+		return mapper;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(MapperBenchmark.class.getSimpleName()).build()).run();
+	}
+}
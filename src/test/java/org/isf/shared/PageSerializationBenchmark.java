@@ -0,0 +1,132 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.shared;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.admission.data.AdmissionHelper;
+import org.isf.admission.dto.AdmissionDTO;
+import org.isf.admission.mapper.AdmissionMapper;
+import org.isf.lab.dto.LabWithRowsDTO;
+import org.isf.lab.mapper.LaboratoryMapper;
+import org.isf.patient.data.PatientHelper;
+import org.isf.patient.dto.PatientDTO;
+import org.isf.patient.mapper.PatientMapper;
+import org.isf.shared.pagination.Page;
+import org.isf.shared.pagination.PageInfoDTO;
+import org.isf.utils.exception.OHException;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Measures the JSON serialization of the {@link Page} responses of the paged endpoints, with an {@link ObjectMapper}
+ * built like the one of the application: the Spring Boot defaults without dates written as timestamps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+	@Param({ "10", "100" })
+	public int pageSize;
+
+	private ObjectMapper objectMapper;
+
+	private Page<PatientDTO> patientPage;
+
+	private Page<AdmissionDTO> admissionPage;
+
+	private Page<LabWithRowsDTO> labWithRowsPage;
+
+	@Setup
+	public void setUp() throws OHException {
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+						.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+						.build();
+
+		ModelMapper modelMapper = MapperBenchmark.createModelMapper();
+		PatientMapper patientMapper = MapperBenchmark.withModelMapper(new PatientMapper(), modelMapper);
+		AdmissionMapper admissionMapper = MapperBenchmark.withModelMapper(new AdmissionMapper(), modelMapper);
+		LaboratoryMapper laboratoryMapper = MapperBenchmark.withModelMapper(new LaboratoryMapper(), modelMapper);
+		PageInfoDTO pageInfoDTO = patientMapper.setParameterPageInfo(PatientHelper.setParameterPage());
+
+		patientPage = page(patientMapper.map2DTOList(PatientHelper.setupPatientList(pageSize)), pageInfoDTO);
+		admissionPage = page(admissionMapper.map2DTOList(AdmissionHelper.setupAdmissionList(pageSize)), pageInfoDTO);
+		List<LabWithRowsDTO> labsWithRows = new ArrayList<>();
+		for (int i = 0; i < pageSize; i++) {
+			LabWithRowsDTO labWithRowsDTO = new LabWithRowsDTO();
+			labWithRowsDTO.setLaboratoryDTO(laboratoryMapper.map2DTO(MapperBenchmark.setupLaboratory(i + 1)));
+			labWithRowsDTO.setLaboratoryRowList(List.of("result 1", "result 2", "result 3"));
+			labsWithRows.add(labWithRowsDTO);
+		}
+		labWithRowsPage = page(labsWithRows, pageInfoDTO);
+	}
+
+	@Benchmark
+	public byte[] patientPage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(patientPage);
+	}
+
+	@Benchmark
+	public byte[] admissionPage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(admissionPage);
+	}
+
+	@Benchmark
+	public byte[] labWithRowsPage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(labWithRowsPage);
+	}
+
+	private static <T> Page<T> page(List<T> data, PageInfoDTO pageInfoDTO) {
+		Page<T> page = new Page<>();
+		page.setData(data);
+		page.setPageInfo(pageInfoDTO);
+		return page;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(PageSerializationBenchmark.class.getSimpleName()).build()).run();
+	}
+}
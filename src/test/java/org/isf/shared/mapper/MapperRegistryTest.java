@@ -0,0 +1,322 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.shared.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.isf.exatype.mapper.ExamTypeMapper;
+import org.isf.exatype.model.ExamType;
+import org.isf.lab.dto.LaboratoryRowDTO;
+import org.isf.lab.mapper.LaboratoryRowMapper;
+import org.isf.lab.model.LaboratoryRow;
+import org.isf.permissions.dto.PermissionDTO;
+import org.isf.permissions.mapper.PermissionMapper;
+import org.isf.permissions.model.Permission;
+import org.isf.shared.GenericMapper;
+import org.isf.shared.mapper.mappings.LaboratoryRowMapping;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class MapperRegistryTest {
+
+	private ModelMapper modelMapper;
+
+	@BeforeEach
+	public void setUp() {
+		modelMapper = new ModelMapper();
+	}
+
+	@Test
+	public void testWarmUpBuildsBothDirections() {
+		MapperRegistry mapperRegistry = new MapperRegistry(modelMapper, List.of(mapper(new GenericMapper<>(Visit.class, VisitDTO.class))), true);
+
+		mapperRegistry.warmUp();
+
+		assertThat(modelMapper.getTypeMap(Visit.class, VisitDTO.class)).isNotNull();
+		assertThat(modelMapper.getTypeMap(VisitDTO.class, Visit.class)).isNotNull();
+		assertThat(mapperRegistry.getBuildTimes()).containsOnlyKeys(Visit.class.getName() + " -> " + VisitDTO.class.getName(),
+						VisitDTO.class.getName() + " -> " + Visit.class.getName());
+	}
+
+	@Test
+	public void testWarmUpSkipsGeneratedMappings() {
+		ExamTypeMapper examTypeMapper = mapper(new ExamTypeMapper());
+		MapperRegistry mapperRegistry = new MapperRegistry(modelMapper, List.of(examTypeMapper), true);
+
+		mapperRegistry.warmUp();
+
+		assertThat(modelMapper.getTypeMap(ExamType.class, examTypeMapper.getDestClass())).isNull();
+		assertThat(mapperRegistry.getBuildTimes()).isEmpty();
+	}
+
+	@Test
+	public void testWarmUpFailsOnAmbiguousMapping() {
+		MapperRegistry mapperRegistry = new MapperRegistry(modelMapper, List.of(mapper(new GenericMapper<>(Row.class, RowDTO.class))), true);
+
+		assertThatThrownBy(mapperRegistry::warmUp)
+						.isInstanceOf(IllegalStateException.class)
+						.hasMessageContaining(Row.class.getName() + " -> " + RowDTO.class.getName())
+						.hasMessageContaining("matches multiple source property hierarchies");
+		assertThat(modelMapper.getTypeMap(Row.class, RowDTO.class)).isNull();
+	}
+
+	@Test
+	public void testWarmUpIgnoresAmbiguityWhenAllowed() {
+		GenericMapper<Row, RowDTO> rowMapper = mapper(new GenericMapper<>(Row.class, RowDTO.class));
+		MapperRegistry mapperRegistry = new MapperRegistry(modelMapper, List.of(rowMapper), false);
+
+		mapperRegistry.warmUp();
+
+		Row row = new Row();
+		row.setDescription("description");
+		row.setLabId(new Laboratory());
+		row.getLabId().setLabDate(LocalDateTime.now());
+		RowDTO rowDTO = rowMapper.map2DTO(row);
+		assertThat(rowDTO.getDescription()).isEqualTo("description");
+		assertThat(rowDTO.getLaboratory()).isNull();
+		assertThat(mapperRegistry.getBuildTimes()).hasSize(2);
+	}
+
+	@Test
+	public void testWarmUpWithLaboratoryRowMapping() {
+		LaboratoryRowMapping.addMapping(modelMapper);
+		MapperRegistry mapperRegistry = new MapperRegistry(modelMapper, List.of(mapper(new LaboratoryRowMapper())), true);
+
+		mapperRegistry.warmUp();
+
+		assertThat(modelMapper.getTypeMap(LaboratoryRow.class, LaboratoryRowDTO.class)).isNotNull();
+		assertThat(modelMapper.getTypeMap(LaboratoryRowDTO.class, LaboratoryRow.class)).isNotNull();
+	}
+
+	@Test
+	public void testWarmUpWithPermissionMapper() {
+		PermissionMapper permissionMapper = mapper(new PermissionMapper());
+		MapperRegistry mapperRegistry = new MapperRegistry(modelMapper, List.of(permissionMapper), true);
+
+		mapperRegistry.warmUp();
+
+		assertThat(mapperRegistry.getBuildTimes()).containsKey(Permission.class.getName() + " -> " + PermissionDTO.class.getName());
+		Permission permission = new Permission();
+		permission.setId(3);
+		permission.setName("patients.read");
+		permission.setDescription("Read the patients");
+		assertThat(permissionMapper.map2DTOList(List.of(permission)))
+						.singleElement()
+						.satisfies(permissionDTO -> {
+							assertThat(permissionDTO.getId()).isEqualTo(3);
+							assertThat(permissionDTO.getName()).isEqualTo("patients.read");
+							assertThat(permissionDTO.getDescription()).isEqualTo("Read the patients");
+						});
+	}
+
+	private <T extends GenericMapper<?, ?>> T mapper(T mapper) {
+		ReflectionTestUtils.setField(mapper, "modelMapper", modelMapper);
+		return mapper;
+	}
+
+	public static class Visit {
+
+		private Integer code;
+
+		private String note;
+
+		public Integer getCode() {
+			return code;
+		}
+
+		public void setCode(Integer code) {
+			this.code = code;
+		}
+
+		public String getNote() {
+			return note;
+		}
+
+		public void setNote(String note) {
+			this.note = note;
+		}
+	}
+
+	public static class VisitDTO {
+
+		private Integer code;
+
+		private String note;
+
+		public Integer getCode() {
+			return code;
+		}
+
+		public void setCode(Integer code) {
+			this.code = code;
+		}
+
+		public String getNote() {
+			return note;
+		}
+
+		public void setNote(String note) {
+			this.note = note;
+		}
+	}
+
+	/**
+	 * Shaped like {@link LaboratoryRow}: every date of {@code labId} matches {@code laboratory.labDate}.
+	 */
+	public static class Row {
+
+		private Integer code;
+
+		private String description;
+
+		private Laboratory labId;
+
+		public Integer getCode() {
+			return code;
+		}
+
+		public void setCode(Integer code) {
+			this.code = code;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public void setDescription(String description) {
+			this.description = description;
+		}
+
+		public Laboratory getLabId() {
+			return labId;
+		}
+
+		public void setLabId(Laboratory labId) {
+			this.labId = labId;
+		}
+	}
+
+	public static class Laboratory {
+
+		private Integer code;
+
+		private LocalDateTime createdDate;
+
+		private LocalDateTime lastModifiedDate;
+
+		private LocalDateTime labDate;
+
+		public Integer getCode() {
+			return code;
+		}
+
+		public void setCode(Integer code) {
+			this.code = code;
+		}
+
+		public LocalDateTime getCreatedDate() {
+			return createdDate;
+		}
+
+		public void setCreatedDate(LocalDateTime createdDate) {
+			this.createdDate = createdDate;
+		}
+
+		public LocalDateTime getLastModifiedDate() {
+			return lastModifiedDate;
+		}
+
+		public void setLastModifiedDate(LocalDateTime lastModifiedDate) {
+			this.lastModifiedDate = lastModifiedDate;
+		}
+
+		public LocalDateTime getLabDate() {
+			return labDate;
+		}
+
+		public void setLabDate(LocalDateTime labDate) {
+			this.labDate = labDate;
+		}
+	}
+
+	public static class RowDTO {
+
+		private Integer code;
+
+		private String description;
+
+		private LaboratoryDTO laboratory;
+
+		public Integer getCode() {
+			return code;
+		}
+
+		public void setCode(Integer code) {
+			this.code = code;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public void setDescription(String description) {
+			this.description = description;
+		}
+
+		public LaboratoryDTO getLaboratory() {
+			return laboratory;
+		}
+
+		public void setLaboratory(LaboratoryDTO laboratory) {
+			this.laboratory = laboratory;
+		}
+	}
+
+	public static class LaboratoryDTO {
+
+		private Integer code;
+
+		private LocalDateTime labDate;
+
+		public Integer getCode() {
+			return code;
+		}
+
+		public void setCode(Integer code) {
+			this.code = code;
+		}
+
+		public LocalDateTime getLabDate() {
+			return labDate;
+		}
+
+		public void setLabDate(LocalDateTime labDate) {
+			this.labDate = labDate;
+		}
+	}
+}
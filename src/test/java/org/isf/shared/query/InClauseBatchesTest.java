@@ -0,0 +1,103 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.shared.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InClauseBatchesTest {
+
+	private static final String QUERY = "SELECT c.code FROM Code c WHERE c.code IN :codes";
+
+	private EntityManager entityManager;
+
+	private List<List<Integer>> batches;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		entityManager = mock(EntityManager.class);
+		TypedQuery<Integer> query = mock(TypedQuery.class);
+		batches = new ArrayList<>();
+		when(entityManager.createQuery(QUERY, Integer.class)).thenReturn(query);
+		when(query.setParameter(eq("codes"), anyList())).thenAnswer(invocation -> {
+			batches.add(new ArrayList<>(invocation.getArgument(1)));
+			return query;
+		});
+		// every statement answers the values of its own batch
+		when(query.getResultList()).thenAnswer(invocation -> batches.get(batches.size() - 1));
+	}
+
+	@Test
+	public void testGetResultList_Batches() {
+		List<Integer> codes = IntStream.rangeClosed(1, InClauseBatches.BATCH_SIZE * 2 + 1).boxed().collect(Collectors.toList());
+
+		List<Integer> results = InClauseBatches.getResultList(entityManager, QUERY, Integer.class, "codes", codes);
+
+		assertThat(batches).extracting(List::size).containsExactly(InClauseBatches.BATCH_SIZE, InClauseBatches.BATCH_SIZE, 1);
+		assertThat(results).containsExactlyElementsOf(codes);
+	}
+
+	@Test
+	public void testGetResultList_OneBatch() {
+		List<Integer> results = InClauseBatches.getResultList(entityManager, QUERY, Integer.class, "codes", Arrays.asList(3, 1, null, 3, 2));
+
+		assertThat(batches).containsExactly(List.of(3, 1, 2));
+		assertThat(results).containsExactly(3, 1, 2);
+	}
+
+	@Test
+	public void testGetResultList_NoValues() {
+		assertThat(InClauseBatches.getResultList(entityManager, QUERY, Integer.class, "codes", Arrays.asList(null, null))).isEmpty();
+		assertThat(InClauseBatches.getResultList(entityManager, QUERY, Integer.class, "codes", List.of())).isEmpty();
+
+		verify(entityManager, never()).createQuery(anyString(), eq(Integer.class));
+	}
+
+	@Test
+	public void testGetResultList_ExactlyOneBatch() {
+		List<Integer> codes = IntStream.rangeClosed(1, InClauseBatches.BATCH_SIZE).boxed().collect(Collectors.toList());
+
+		InClauseBatches.getResultList(entityManager, QUERY, Integer.class, "codes", codes);
+
+		verify(entityManager, times(1)).createQuery(QUERY, Integer.class);
+	}
+}
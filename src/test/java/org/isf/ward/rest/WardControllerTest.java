@@ -22,6 +22,7 @@
 package org.isf.ward.rest;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -29,10 +30,14 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.List;
+import java.util.Map;
 
+import org.isf.admission.cache.ReferenceDataCache;
 import org.isf.shared.exceptions.OHResponseEntityExceptionHandler;
 import org.isf.shared.mapper.converter.BlobToByteArrayConverter;
 import org.isf.shared.mapper.converter.ByteArrayToBlobConverter;
@@ -41,6 +46,7 @@ import org.isf.ward.dto.WardDTO;
 import org.isf.ward.manager.WardBrowserManager;
 import org.isf.ward.mapper.WardMapper;
 import org.isf.ward.model.Ward;
+import org.isf.ward.service.WardOccupancy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,6 +55,7 @@ import org.mockito.MockitoAnnotations;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
@@ -64,6 +71,12 @@ public class WardControllerTest {
 
 	protected WardMapper wardMapper = new WardMapper();
 
+	@Mock
+	private ReferenceDataCache referenceDataCacheMock;
+
+	@Mock
+	private WardOccupancy wardOccupancyMock;
+
 	private MockMvc mockMvc;
 
 	private AutoCloseable closeable;
@@ -72,7 +85,7 @@ public class WardControllerTest {
 	public void setup() {
 		closeable = MockitoAnnotations.openMocks(this);
 		this.mockMvc = MockMvcBuilders
-				.standaloneSetup(new WardController(wardBrowserManagerMock, wardMapper))
+				.standaloneSetup(new WardController(wardBrowserManagerMock, wardMapper, referenceDataCacheMock, wardOccupancyMock))
 				.setControllerAdvice(new OHResponseEntityExceptionHandler())
 				.build();
 		ModelMapper modelMapper = new ModelMapper();
@@ -141,10 +154,10 @@ public class WardControllerTest {
 
 		Integer numberOfPatients = 6;
 
-		when(wardBrowserManagerMock.findWard(ward.getCode()))
+		when(referenceDataCacheMock.getWard(ward.getCode()))
 				.thenReturn(ward);
 
-		when(wardBrowserManagerMock.getCurrentOccupation(ward))
+		when(wardOccupancyMock.getOccupancy(ward.getCode()))
 				.thenReturn(numberOfPatients);
 
 		MvcResult result = this.mockMvc
@@ -158,6 +171,44 @@ public class WardControllerTest {
 		LOGGER.debug("result: {}", result);
 	}
 
+	@Test
+	public void testGetCensus() throws Exception {
+		String request = "/wards/census";
+
+		Ward ward = WardHelper.setup();
+		ward.setBeds(20);
+
+		when(referenceDataCacheMock.getWards())
+				.thenReturn(List.of(ward));
+
+		when(wardOccupancyMock.getOccupancies())
+				.thenReturn(Map.of(ward.getCode(), 12));
+
+		MvcResult result = this.mockMvc
+				.perform(get(request))
+				.andDo(log())
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(jsonPath("$[0].code").value(ward.getCode()))
+				.andExpect(jsonPath("$[0].beds").value(20))
+				.andExpect(jsonPath("$[0].occupiedBeds").value(12))
+				.andReturn();
+
+		String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+		this.mockMvc
+				.perform(get(request).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified());
+
+		when(wardOccupancyMock.getVersion())
+				.thenReturn(1L);
+
+		this.mockMvc
+				.perform(get(request).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+	}
+
 	@Test
 	public void testNewWard_200() throws Exception {
 		String request = "/wards";
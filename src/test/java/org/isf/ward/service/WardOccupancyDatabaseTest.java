@@ -0,0 +1,108 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.ward.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.isf.OpenHospitalApiApplication;
+import org.isf.admission.TestAdmission;
+import org.isf.admission.model.Admission;
+import org.isf.admtype.TestAdmissionType;
+import org.isf.admtype.model.AdmissionType;
+import org.isf.patient.TestPatient;
+import org.isf.patient.model.Patient;
+import org.isf.ward.TestWard;
+import org.isf.ward.model.Ward;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Counts the occupancy of the wards with {@link WardOccupancy} against the test database.
+ */
+@SpringBootTest(classes = OpenHospitalApiApplication.class)
+@Transactional
+public class WardOccupancyDatabaseTest {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private WardOccupancy wardOccupancy;
+
+	private AdmissionType admissionType;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		admissionType = new TestAdmissionType().setup(false);
+		entityManager.persist(admissionType);
+
+		wardOccupancy = new WardOccupancy(0);
+		ReflectionTestUtils.setField(wardOccupancy, "entityManager", entityManager);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		wardOccupancy.shutdown();
+	}
+
+	@Test
+	public void testGetOccupancy() throws Exception {
+		Ward firstWard = persistWard("ZA");
+		Ward secondWard = persistWard("ZB");
+		Ward emptyWard = persistWard("ZC");
+		persistAdmission(firstWard, 1, "N");
+		persistAdmission(firstWard, 1, "N");
+		persistAdmission(secondWard, 1, "N");
+		// discharged and deleted
+		persistAdmission(secondWard, 0, "N");
+		persistAdmission(emptyWard, 1, "Y");
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(wardOccupancy.getOccupancy(firstWard.getCode())).isEqualTo(2);
+		assertThat(wardOccupancy.getOccupancy(secondWard.getCode())).isEqualTo(1);
+		assertThat(wardOccupancy.getOccupancy(emptyWard.getCode())).isZero();
+		assertThat(wardOccupancy.getOccupancies()).doesNotContainKey(emptyWard.getCode());
+	}
+
+	private Ward persistWard(String code) throws Exception {
+		Ward ward = new TestWard().setup(false);
+		ward.setCode(code);
+		entityManager.persist(ward);
+		return ward;
+	}
+
+	private void persistAdmission(Ward ward, int admitted, String deleted) throws Exception {
+		Patient patient = new TestPatient().setup(false);
+		entityManager.persist(patient);
+		Admission admission = new TestAdmission().setup(ward, patient, admissionType, null, null, null, null, null, null, null, null, null, false);
+		admission.setAdmitted(admitted);
+		admission.setDeleted(deleted);
+		entityManager.persist(admission);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.ward.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import org.isf.admission.model.Admission;
+import org.isf.ward.model.Ward;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class WardOccupancyTest {
+
+	private TypedQuery<Object[]> occupancyQuery;
+
+	private WardOccupancy wardOccupancy;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		EntityManager entityManager = mock(EntityManager.class);
+		occupancyQuery = mock(TypedQuery.class);
+		when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(occupancyQuery);
+		when(occupancyQuery.setParameter(anyString(), any())).thenReturn(occupancyQuery);
+		when(occupancyQuery.getResultList()).thenReturn(List.of(new Object[] { "M", 3L }, new Object[] { "S", 1L }));
+
+		wardOccupancy = new WardOccupancy(0);
+		ReflectionTestUtils.setField(wardOccupancy, "entityManager", entityManager);
+	}
+
+	@Test
+	public void testLoadedOnFirstRead() {
+		assertThat(wardOccupancy.getOccupancy("M")).isEqualTo(3);
+		assertThat(wardOccupancy.getOccupancy("S")).isEqualTo(1);
+		assertThat(wardOccupancy.getOccupancy("X")).isZero();
+		assertThat(wardOccupancy.getOccupancies()).containsOnly(Map.entry("M", 3), Map.entry("S", 1));
+
+		verify(occupancyQuery, times(1)).getResultList();
+	}
+
+	@Test
+	public void testMoved() {
+		wardOccupancy.getOccupancy("M");
+		long version = wardOccupancy.getVersion();
+
+		wardOccupancy.moved(null, "M");
+		wardOccupancy.moved("M", "S");
+		wardOccupancy.moved("S", null);
+		wardOccupancy.moved("S", null);
+		wardOccupancy.moved("X", null);
+
+		assertThat(wardOccupancy.getOccupancy("M")).isEqualTo(3);
+		assertThat(wardOccupancy.getOccupancy("S")).isZero();
+		assertThat(wardOccupancy.getOccupancy("X")).isZero();
+		assertThat(wardOccupancy.getVersion()).isEqualTo(version + 5);
+
+		wardOccupancy.moved("M", "M");
+
+		assertThat(wardOccupancy.getVersion()).isEqualTo(version + 5);
+		verify(occupancyQuery, times(1)).getResultList();
+	}
+
+	@Test
+	public void testMovedBeforeLoad() {
+		wardOccupancy.moved(null, "M");
+
+		assertThat(wardOccupancy.getOccupancy("M")).isEqualTo(3);
+	}
+
+	@Test
+	public void testReconcile() {
+		wardOccupancy.getOccupancy("M");
+		wardOccupancy.moved(null, "M");
+		long version = wardOccupancy.getVersion();
+		when(occupancyQuery.getResultList()).thenReturn(List.of(new Object[] { "M", 5L }, new Object[] { "P", 2L }));
+
+		wardOccupancy.reconcile();
+
+		assertThat(wardOccupancy.getOccupancies()).containsOnly(Map.entry("M", 5), Map.entry("P", 2));
+		assertThat(wardOccupancy.getVersion()).isGreaterThan(version);
+
+		version = wardOccupancy.getVersion();
+		wardOccupancy.reconcile();
+
+		assertThat(wardOccupancy.getVersion()).isEqualTo(version);
+	}
+
+	@Test
+	public void testMovedDuringReconcile() {
+		wardOccupancy.getOccupancy("M");
+		// the count does not see the patient admitted while it runs
+		when(occupancyQuery.getResultList()).thenAnswer(invocation -> {
+			wardOccupancy.moved(null, "M");
+			return List.of(new Object[] { "M", 3L }, new Object[] { "S", 1L });
+		});
+
+		wardOccupancy.reconcile();
+
+		assertThat(wardOccupancy.getOccupancy("M")).isEqualTo(4);
+	}
+
+	@Test
+	public void testOccupiedWard() {
+		Ward ward = new Ward();
+		ward.setCode("M");
+		Admission admission = new Admission();
+		admission.setWard(ward);
+		admission.setAdmitted(1);
+		admission.setDeleted("N");
+
+		assertThat(WardOccupancy.occupiedWard(admission)).isEqualTo("M");
+
+		admission.setDeleted("Y");
+		assertThat(WardOccupancy.occupiedWard(admission)).isNull();
+
+		admission.setDeleted("N");
+		admission.setAdmitted(0);
+		assertThat(WardOccupancy.occupiedWard(admission)).isNull();
+		assertThat(WardOccupancy.occupiedWard(null)).isNull();
+	}
+}